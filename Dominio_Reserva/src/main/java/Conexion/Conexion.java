@@ -1,46 +1,134 @@
 package Conexion;
 
 import Excepciones.ConexionException;
+import Migraciones.LlenadoIndiceTelefono;
+import Migraciones.MigradorEsquema;
+import Migraciones.ModoMigracion;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.server.ServerSession;
 
 /**
  * Clase responsable de gestionar la conexión con la base de datos utilizando JPA (Java Persistence API).
  * Proporciona métodos para obtener instancias de `EntityManagerFactory` y `EntityManager`,
  * y para cerrar la conexión de manera adecuada.
- * 
+ *
  * Esta clase encapsula la lógica necesaria para configurar y administrar la conexión
  * con el sistema de persistencia definido en el archivo de configuración de JPA.
- * 
+ * Las conexiones se obtienen de un pool (HikariCP) que se entrega a la unidad
+ * `Persistencia` como `nonJtaDataSource`. La configuración del pool se lee del
+ * archivo `conexion-{entorno}.properties`, donde el entorno se indica con
+ * `-Dreservasys.entorno` o la variable `RESERVASYS_ENTORNO`; si no se indica se
+ * usa `conexion.properties`. Las claves `ds.*` se pasan al driver JDBC y las
+ * claves `jpa.*` a la unidad de persistencia. Cualquier clave puede
+ * sobrescribirse con una propiedad del sistema `reservasys.{clave}`.
+ *
  * @author Sebastian Murrieta Verduzco - 233463
  */
 public class Conexion {
-    
-    
-    private static EntityManagerFactory entityManagerFactory;
+
+    private static final Logger LOG = Logger.getLogger(Conexion.class.getName());
+
+    private static final String UNIDAD_PERSISTENCIA = "Persistencia";
+
+    private static final String PREFIJO_DATASOURCE = "ds.";
+
+    private static final String PREFIJO_JPA = "jpa.";
+
+    private static final Object CANDADO = new Object();
+
+    private static volatile EntityManagerFactory entityManagerFactory;
+
+    private static volatile HikariDataSource dataSource;
 
     /**
      * Obtiene la instancia de `EntityManagerFactory`.
      * Si no existe una instancia previamente creada, se inicializa utilizando
-     * la unidad de persistencia definida en `persistence.xml`.
-     * 
+     * la unidad de persistencia definida en `persistence.xml` y el pool de
+     * conexiones configurado para el entorno actual. La inicialización está
+     * sincronizada, de modo que aunque varios hilos la pidan al mismo tiempo
+     * solo se construye una fábrica.
+     *
      * @return una instancia de `EntityManagerFactory` activa para gestionar las conexiones con la base de datos.
      * @throws ConexionException si ocurre algún problema al crear o acceder a la `EntityManagerFactory`.
      */
-    public EntityManagerFactory getEntityManagerFactory() 
+    public EntityManagerFactory getEntityManagerFactory()
             throws ConexionException{
-        if (entityManagerFactory == null) {
-            entityManagerFactory = Persistence.
-                    createEntityManagerFactory("Persistencia");
+        EntityManagerFactory fabrica = entityManagerFactory;
+        if (fabrica != null) {
+            return fabrica;
+        }
+        synchronized (CANDADO) {
+            if (entityManagerFactory == null) {
+                entityManagerFactory = crearEntityManagerFactory();
+            }
+            return entityManagerFactory;
+        }
+    }
+
+    /**
+     * Construye el pool de conexiones, lleva el esquema a la versión actual
+     * con el {@link MigradorEsquema} y crea la `EntityManagerFactory` de la
+     * unidad de persistencia.
+     *
+     * @return la `EntityManagerFactory` recién creada.
+     * @throws ConexionException si no se puede crear el pool o la unidad.
+     */
+    private static EntityManagerFactory crearEntityManagerFactory()
+            throws ConexionException {
+        Properties configuracion = cargarConfiguracion();
+        dataSource = crearDataSource(configuracion);
+        try {
+            new MigradorEsquema(dataSource,
+                    entero(configuracion, "migraciones.base", 1))
+                    .agregar(8, "indice telefono clientes existentes",
+                            new LlenadoIndiceTelefono())
+                    .ejecutar(ModoMigracion.desde(
+                            configuracion.getProperty("migraciones.modo")));
+        } catch (ConexionException e) {
+            dataSource.close();
+            dataSource = null;
+            throw e;
+        } catch (IllegalArgumentException e) {
+            dataSource.close();
+            dataSource = null;
+            throw new ConexionException("Error en la configuración de migraciones", e);
+        }
+        Map<String, Object> propiedades = new HashMap<>();
+        for (String clave : configuracion.stringPropertyNames()) {
+            if (clave.startsWith(PREFIJO_JPA)) {
+                propiedades.put(clave.substring(PREFIJO_JPA.length()),
+                        configuracion.getProperty(clave));
+            }
+        }
+        propiedades.put("javax.persistence.nonJtaDataSource", dataSource);
+        try {
+            return Persistence.
+                    createEntityManagerFactory(UNIDAD_PERSISTENCIA, propiedades);
+        } catch (RuntimeException e) {
+            dataSource.close();
+            dataSource = null;
+            throw new ConexionException("Error al crear la unidad de persistencia", e);
         }
-        return entityManagerFactory;
     }
 
     /**
      * Obtiene una instancia de `EntityManager` para realizar operaciones de persistencia en la base de datos.
      * Este método utiliza la `EntityManagerFactory` para crear la instancia.
-     * 
+     *
      * @return una nueva instancia de `EntityManager` para interactuar con la base de datos.
      * @throws ConexionException si ocurre un problema al obtener el `EntityManager`.
      */
@@ -48,16 +136,236 @@ public class Conexion {
         return getEntityManagerFactory().createEntityManager();
     }
 
+    /**
+     * Prepara la capa de persistencia antes de que el usuario la necesite:
+     * construye la fábrica y el metamodelo, prepara todas las consultas con
+     * nombre y ejecuta una consulta para abrir una conexión del pool. Al
+     * terminar registra en el log el tiempo de cada etapa. Está pensado para
+     * llamarse al iniciar la aplicación desde un hilo en segundo plano, nunca
+     * desde el hilo de eventos de Swing.
+     *
+     * @throws ConexionException si no se puede inicializar la persistencia.
+     */
+    public static void warmUp() throws ConexionException {
+        long inicio = System.nanoTime();
+        EntityManagerFactory fabrica = new Conexion().getEntityManagerFactory();
+        long fabricaLista = System.nanoTime();
+
+        // El metamodelo obliga a EclipseLink a procesar los metadatos y a
+        // iniciar la sesión (incluida la generación de esquema, si aplica)
+        int entidades = fabrica.getMetamodel().getEntities().size();
+        long metamodeloListo = System.nanoTime();
+
+        EntityManager em = fabrica.createEntityManager();
+        int consultas = 0;
+        try {
+            for (String nombre : JpaHelper.getServerSession(fabrica)
+                    .getQueries().keySet()) {
+                em.createNamedQuery(nombre);
+                consultas++;
+            }
+            long consultasListas = System.nanoTime();
+
+            em.createNamedQuery("Restaurante.obtenerTodos")
+                    .setMaxResults(1)
+                    .getResultList();
+            long fin = System.nanoTime();
+
+            LOG.log(Level.INFO, "Persistencia lista en {0} ms (fábrica {1} ms, "
+                    + "metamodelo de {2} entidades {3} ms, {4} consultas con nombre "
+                    + "{5} ms, primera consulta {6} ms). {7}",
+                    new Object[]{milisegundos(inicio, fin),
+                        milisegundos(inicio, fabricaLista), entidades,
+                        milisegundos(fabricaLista, metamodeloListo), consultas,
+                        milisegundos(metamodeloListo, consultasListas),
+                        milisegundos(consultasListas, fin), estadisticasPool()});
+        } catch (RuntimeException e) {
+            throw new ConexionException("Error al preparar la persistencia", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Calcula los milisegundos transcurridos entre dos marcas de tiempo.
+     *
+     * @param desde Marca inicial de {@link System#nanoTime()}.
+     * @param hasta Marca final de {@link System#nanoTime()}.
+     * @return Los milisegundos transcurridos.
+     */
+    private static long milisegundos(long desde, long hasta) {
+        return (hasta - desde) / 1_000_000;
+    }
+
+    /**
+     * Devuelve un resumen del estado del pool de conexiones: conexiones
+     * activas, inactivas, totales e hilos en espera de una conexión.
+     *
+     * @return El resumen del pool, o un aviso si el pool aún no se ha creado.
+     */
+    public static String estadisticasPool() {
+        HikariDataSource ds = dataSource;
+        HikariPoolMXBean pool = ds != null ? ds.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return "Pool de conexiones no iniciado";
+        }
+        return String.format("Pool %s: activas=%d, inactivas=%d, totales=%d, en espera=%d",
+                ds.getPoolName(), pool.getActiveConnections(),
+                pool.getIdleConnections(), pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection());
+    }
+
+    /**
+     * Descarta de la caché compartida las entidades de la clase dada y los
+     * resultados de las consultas sobre ella, para que la siguiente lectura
+     * vaya a la base de datos. Si la persistencia aún no se ha iniciado no
+     * hace nada.
+     *
+     * @param clase Clase de entidad a invalidar.
+     */
+    public static void invalidarCache(Class<?> clase) {
+        EntityManagerFactory fabrica = entityManagerFactory;
+        if (fabrica == null || !fabrica.isOpen()) {
+            return;
+        }
+        fabrica.getCache().evict(clase);
+        JpaHelper.getServerSession(fabrica).getIdentityMapAccessor()
+                .invalidateQueryCache(clase);
+        LOG.log(Level.FINE, "Caché compartida de {0} invalidada", clase.getSimpleName());
+    }
+
+    /**
+     * Devuelve un resumen de la caché compartida: cuántas entidades de cada
+     * clase cacheada hay en memoria. Para contar aciertos y fallos se puede
+     * activar el monitor de EclipseLink con
+     * {@code jpa.eclipselink.profiler=PerformanceMonitor}.
+     *
+     * @return El resumen de la caché, o un aviso si aún no se ha iniciado.
+     */
+    public static String estadisticasCache() {
+        EntityManagerFactory fabrica = entityManagerFactory;
+        if (fabrica == null || !fabrica.isOpen()) {
+            return "Caché compartida no iniciada";
+        }
+        ServerSession sesion = JpaHelper.getEntityManagerFactory(fabrica)
+                .getServerSession();
+        StringBuilder resumen = new StringBuilder("Caché compartida:");
+        for (ClassDescriptor descriptor : sesion.getDescriptors().values()) {
+            if (!descriptor.isIsolated()) {
+                resumen.append(' ').append(descriptor.getAlias()).append('=')
+                        .append(sesion.getIdentityMapAccessorInstance()
+                                .getIdentityMap(descriptor).getSize());
+            }
+        }
+        return resumen.toString();
+    }
+
     /**
      * Cierra la instancia de `EntityManagerFactory` si está abierta, liberando así los recursos asociados.
      * Este método debe ser invocado al finalizar la aplicación o cuando ya no se necesite la conexión a la base de datos.
-     * 
+     * También cierra el pool de conexiones.
+     *
      * @throws ConexionException si ocurre un problema al cerrar el `EntityManagerFactory`.
      */
     public static void closeEntityManagerFactory() throws ConexionException{
-        if (entityManagerFactory != null && entityManagerFactory.isOpen()) {
-            entityManagerFactory.close();
+        synchronized (CANDADO) {
+            if (entityManagerFactory != null && entityManagerFactory.isOpen()) {
+                entityManagerFactory.close();
+            }
+            entityManagerFactory = null;
+            if (dataSource != null && !dataSource.isClosed()) {
+                LOG.info(estadisticasPool());
+                dataSource.close();
+            }
+            dataSource = null;
+        }
+    }
+
+    /**
+     * Carga la configuración de conexión del entorno actual y aplica las
+     * propiedades del sistema `reservasys.{clave}` que la sobrescriben.
+     *
+     * @return La configuración de conexión.
+     * @throws ConexionException si no se encuentra o no se puede leer el archivo.
+     */
+    private static Properties cargarConfiguracion() throws ConexionException {
+        String entorno = System.getProperty("reservasys.entorno",
+                System.getenv("RESERVASYS_ENTORNO"));
+        String archivo = entorno == null || entorno.isBlank()
+                ? "conexion.properties"
+                : "conexion-" + entorno.trim() + ".properties";
+
+        Properties configuracion = new Properties();
+        try (InputStream entrada = Conexion.class.getClassLoader()
+                .getResourceAsStream(archivo)) {
+            if (entrada == null) {
+                throw new ConexionException("No se encontró el archivo de conexión " + archivo);
+            }
+            configuracion.load(entrada);
+        } catch (IOException e) {
+            throw new ConexionException("Error al leer el archivo de conexión " + archivo, e);
+        }
+
+        for (String clave : System.getProperties().stringPropertyNames()) {
+            if (clave.startsWith("reservasys.") && !clave.equals("reservasys.entorno")) {
+                configuracion.setProperty(clave.substring("reservasys.".length()),
+                        System.getProperty(clave));
+            }
+        }
+        LOG.log(Level.INFO, "Configuración de conexión cargada de {0}", archivo);
+        return configuracion;
+    }
+
+    /**
+     * Crea el pool de conexiones a partir de la configuración.
+     *
+     * @param configuracion La configuración de conexión.
+     * @return El pool de conexiones listo para usarse.
+     * @throws ConexionException si la configuración no es válida o no se puede
+     *         conectar a la base de datos.
+     */
+    private static HikariDataSource crearDataSource(Properties configuracion)
+            throws ConexionException {
+        try {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("reservasys");
+            config.setJdbcUrl(configuracion.getProperty("db.url"));
+            config.setUsername(configuracion.getProperty("db.usuario"));
+            config.setPassword(configuracion.getProperty("db.contrasena", ""));
+            config.setDriverClassName(configuracion.getProperty("db.driver"));
+
+            config.setMinimumIdle(entero(configuracion, "pool.minimoInactivas", 2));
+            config.setMaximumPoolSize(entero(configuracion, "pool.maximo", 10));
+            config.setConnectionTimeout(entero(configuracion, "pool.tiempoEsperaMs", 30_000));
+            config.setValidationTimeout(entero(configuracion, "pool.validacionMs", 5_000));
+            config.setIdleTimeout(entero(configuracion, "pool.inactividadMs", 600_000));
+            config.setMaxLifetime(entero(configuracion, "pool.vidaMaximaMs", 1_800_000));
+            config.setLeakDetectionThreshold(entero(configuracion, "pool.deteccionFugasMs", 0));
+            config.setRegisterMbeans(true);
+
+            for (String clave : configuracion.stringPropertyNames()) {
+                if (clave.startsWith(PREFIJO_DATASOURCE)) {
+                    config.addDataSourceProperty(clave.substring(PREFIJO_DATASOURCE.length()),
+                            configuracion.getProperty(clave));
+                }
+            }
+            return new HikariDataSource(config);
+        } catch (RuntimeException e) {
+            throw new ConexionException("Error al crear el pool de conexiones", e);
         }
     }
-    
+
+    /**
+     * Lee una propiedad numérica de la configuración.
+     *
+     * @param configuracion La configuración de conexión.
+     * @param clave La clave de la propiedad.
+     * @param porDefecto El valor a usar si la propiedad no existe.
+     * @return El valor de la propiedad.
+     */
+    private static int entero(Properties configuracion, String clave, int porDefecto) {
+        String valor = configuracion.getProperty(clave);
+        return valor == null || valor.isBlank() ? porDefecto : Integer.parseInt(valor.trim());
+    }
+
 }
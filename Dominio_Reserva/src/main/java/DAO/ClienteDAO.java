@@ -18,6 +18,11 @@ import javax.persistence.TypedQuery;
  *
  * Proporciona métodos para insertar, recuperar y listar clientes, incluyendo la
  * capacidad de cifrar y descifrar los números de teléfono para mayor seguridad.
+ * Esta clase es la frontera de cifrado: los clientes que devuelven sus
+ * métodos ya llevan el teléfono descifrado. Los clientes que llegan con las
+ * reservas conservan el teléfono cifrado, y las capas superiores lo
+ * descifran solo cuando lo necesitan con {@link #descifrarTelefono(String)},
+ * nunca con {@link PhoneCipher} directamente.
  *
  * @author Sebastian Murrieta Verduzco - 233463
  */
@@ -26,15 +31,29 @@ public class ClienteDAO implements IClienteDAO {
     private static final Logger LOG = Logger.getLogger(ClienteDAO.class.getName());
     private Conexion conexion;
 
-    // Leer contraseña desde variable de entorno o archivo de configuración
-    private static final String CLAVE_ENCRYPTION = System.getenv()
-            .getOrDefault("ENCRYPTION_KEY", "sebas123");
+    // Unico punto de cifrado y descifrado de telefonos
+    private final PhoneCipher phoneCipher;
+
+    // Clientes que se escriben antes de vaciar el contexto de persistencia
+    // en la insercion masiva; coincide con eclipselink.jdbc.batch-writing.size
+    private static final int TAMANO_BLOQUE_ESCRITURA = 500;
 
     /**
      * Constructor por defecto que inicializa la conexión con la base de datos.
      */
     public ClienteDAO() {
+        this(new PhoneCipher());
+    }
+
+    /**
+     * Constructor que recibe el servicio de cifrado de teléfonos, para
+     * medir o sustituir el cifrado en las pruebas.
+     *
+     * @param phoneCipher Servicio de cifrado de teléfonos.
+     */
+    ClienteDAO(PhoneCipher phoneCipher) {
         this.conexion = new Conexion();
+        this.phoneCipher = phoneCipher;
     }
 
     /**
@@ -54,6 +73,7 @@ public class ClienteDAO implements IClienteDAO {
             em = conexion.getEntityManager();
             em.getTransaction().begin();
 
+            int agregados = 0;
             for (Cliente cliente : clientes) {
                 try {
                     // Validaciones previas
@@ -62,16 +82,15 @@ public class ClienteDAO implements IClienteDAO {
                         continue;
                     }
 
-                    // Cifrar teléfono solo si no está vacío
-                    if (cliente.getTelefono() != null && !cliente.getTelefono().trim().isEmpty()) {
-                        String telefonoCifrado = DesEncryptionUtil.cifrarTelefono(
-                                cliente.getTelefono(),
-                                CLAVE_ENCRYPTION
-                        );
-                        cliente.setTelefono(telefonoCifrado);
-                    }
+                    // Cifrar teléfono solo si no está vacío ni cifrado
+                    phoneCipher.cifrar(cliente);
 
                     em.persist(cliente);
+                    if (++agregados % TAMANO_BLOQUE_ESCRITURA == 0) {
+                        // Envía el lote de INSERT y libera los clientes ya escritos
+                        em.flush();
+                        em.clear();
+                    }
                 } catch (Exception e) {
                     LOG.log(Level.SEVERE, "Error al procesar cliente individual", e);
                     // Continuar con el siguiente cliente en caso de error
@@ -111,16 +130,10 @@ public class ClienteDAO implements IClienteDAO {
             Cliente cliente = em.find(Cliente.class, id);
 
             // Descifrar teléfono si existe
-            if (cliente != null && cliente.getTelefono() != null) {
-                try {
-                    String telefonoDescifrado = DesEncryptionUtil.descifrarTelefono(
-                            cliente.getTelefono(),
-                            CLAVE_ENCRYPTION
-                    );
-                    cliente.setTelefono(telefonoDescifrado);
-                } catch (Exception e) {
-                    LOG.log(Level.WARNING, "No se pudo descifrar el teléfono", e);
-                }
+            try {
+                phoneCipher.descifrar(cliente);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "No se pudo descifrar el teléfono", e);
             }
 
             return cliente;
@@ -148,22 +161,14 @@ public class ClienteDAO implements IClienteDAO {
         EntityManager em = null;
         try {
             em = conexion.getEntityManager();
-            TypedQuery<Cliente> query = em.createQuery("SELECT c FROM Cliente c", Cliente.class);
+            TypedQuery<Cliente> query = em.createNamedQuery("Cliente.obtenerTodos", Cliente.class);
             List<Cliente> clientes = query.getResultList();
 
-            // Descifrar teléfonos
-            for (Cliente cliente : clientes) {
-                if (cliente.getTelefono() != null) {
-                    try {
-                        String telefonoDescifrado = DesEncryptionUtil.descifrarTelefono(
-                                cliente.getTelefono(),
-                                CLAVE_ENCRYPTION
-                        );
-                        cliente.setTelefono(telefonoDescifrado);
-                    } catch (Exception e) {
-                        LOG.log(Level.WARNING, "No se pudo descifrar un teléfono", e);
-                    }
-                }
+            // Descifrar teléfonos en paralelo; los fallos se reportan por fila
+            List<Cliente> fallidos = phoneCipher.descifrarTodos(clientes);
+            if (!fallidos.isEmpty()) {
+                LOG.log(Level.WARNING, "{0} teléfonos no se pudieron descifrar",
+                        fallidos.size());
             }
 
             return clientes;
@@ -176,4 +181,66 @@ public class ClienteDAO implements IClienteDAO {
             }
         }
     }
+
+    /**
+     * Descifra el teléfono de un cliente que llegó cifrado, por ejemplo con
+     * sus reservas.
+     *
+     * @param telefonoCifrado Teléfono cifrado.
+     * @return El teléfono en texto plano.
+     * @throws DAOException Si el teléfono no se puede descifrar.
+     */
+    @Override
+    public String descifrarTelefono(String telefonoCifrado) throws DAOException {
+        try {
+            return phoneCipher.descifrarTexto(telefonoCifrado);
+        } catch (Exception e) {
+            throw new DAOException("No se pudo descifrar el teléfono", e);
+        }
+    }
+
+    /**
+     * Busca un cliente por su teléfono. Se calcula el indice ciego del
+     * teléfono recibido y se consulta la columna {@code telefono_idx}, que
+     * tiene indice único, por lo que no es necesario cargar ni descifrar los
+     * demás clientes.
+     *
+     * @param telefono Teléfono del cliente en texto plano.
+     * @return El cliente con el teléfono descifrado, o {@code null} si no
+     * existe.
+     * @throws DAOException Si ocurre un error al consultar el cliente.
+     */
+    @Override
+    public Cliente obtenerClientePorTelefono(String telefono) throws DAOException {
+        if (telefono == null || telefono.trim().isEmpty()) {
+            return null;
+        }
+
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
+            List<Cliente> clientes = em.createNamedQuery("Cliente.buscarPorTelefonoIdx",
+                    Cliente.class)
+                    .setParameter("idx", phoneCipher.indiceCiego(telefono))
+                    .getResultList();
+
+            if (clientes.isEmpty()) {
+                return null;
+            }
+
+            Cliente cliente = clientes.get(0);
+            phoneCipher.descifrar(cliente);
+            return cliente;
+        } catch (PersistenceException | ConexionException e) {
+            LOG.log(Level.SEVERE, "Error al obtener el cliente por teléfono", e);
+            throw new DAOException("Error al obtener el cliente por teléfono", e);
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error al procesar el teléfono del cliente", e);
+            throw new DAOException("Error al procesar el teléfono del cliente", e);
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
 }
@@ -2,9 +2,15 @@ package DAO;
 
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
-import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
@@ -12,6 +18,8 @@ import javax.crypto.spec.SecretKeySpec;
 
 public class DesEncryptionUtil {
 
+    private static final Logger LOG = Logger.getLogger(DesEncryptionUtil.class.getName());
+
     // Use a more secure encryption method
     private static final String ENCRYPTION_ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
@@ -19,6 +27,41 @@ public class DesEncryptionUtil {
     private static final int ITERATION_COUNT = 65536;
     private static final int SALT_LENGTH = 16;
 
+    // Prefijo del formato con jerarquia de claves (clave maestra + HKDF)
+    private static final String PREFIJO_V2 = "v2:";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] INFO_TELEFONO = "reservasys-telefono"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INFO_INDICE = "reservasys-telefono-idx"
+            .getBytes(StandardCharsets.UTF_8);
+
+    // Sal fija del despliegue para derivar la clave maestra una sola vez
+    private static final byte[] SAL_MAESTRA = System.getenv()
+            .getOrDefault("ENCRYPTION_SALT", "reservasys-clave-maestra")
+            .getBytes(StandardCharsets.UTF_8);
+
+    // Limite de claves PBKDF2 derivadas que se conservan en memoria
+    private static final int MAX_CLAVES_CACHE = 10_000;
+
+    // Cache LRU de claves derivadas por (contraseña, sal) del formato original
+    private static final Map<String, SecretKey> CLAVES_DERIVADAS
+            = Collections.synchronizedMap(
+                    new LinkedHashMap<String, SecretKey>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, SecretKey> eldest) {
+                    return size() > MAX_CLAVES_CACHE;
+                }
+            });
+
+    // Claves maestras derivadas una vez por contraseña
+    private static final Map<String, byte[]> CLAVES_MAESTRAS
+            = new ConcurrentHashMap<>();
+
+    // Claves del indice ciego derivadas una vez por contraseña
+    private static final Map<String, byte[]> CLAVES_INDICE
+            = new ConcurrentHashMap<>();
+
     /**
      * Genera una clave segura utilizando PBKDF2
      *
@@ -40,7 +83,102 @@ public class DesEncryptionUtil {
     }
 
     /**
-     * Cifra un número de teléfono de manera segura
+     * Obtiene la clave PBKDF2 para el par (contraseña, sal) desde la cache,
+     * derivandola solo la primera vez que se solicita.
+     *
+     * @param password Contraseña base para generación de clave
+     * @param salt Sal con la que se cifro el dato
+     * @return Clave secreta derivada
+     * @throws Exception Si hay error en la generación de la clave
+     */
+    private static SecretKey obtenerClaveDerivada(String password, byte[] salt)
+            throws Exception {
+        String llave = password + '\u0000'
+                + Base64.getEncoder().encodeToString(salt);
+        SecretKey key = CLAVES_DERIVADAS.get(llave);
+        if (key == null) {
+            key = generateSecureKey(password, salt);
+            CLAVES_DERIVADAS.put(llave, key);
+        }
+        return key;
+    }
+
+    /**
+     * Obtiene la clave maestra del despliegue. Se deriva con PBKDF2 una sola
+     * vez por contraseña y se reutiliza en adelante.
+     *
+     * @param password Contraseña maestra
+     * @return Bytes de la clave maestra
+     */
+    private static byte[] obtenerClaveMaestra(String password) {
+        return CLAVES_MAESTRAS.computeIfAbsent(password, p -> {
+            try {
+                return generateSecureKey(p, SAL_MAESTRA).getEncoded();
+            } catch (Exception e) {
+                throw new IllegalStateException(
+                        "No se pudo derivar la clave maestra", e);
+            }
+        });
+    }
+
+    /**
+     * Deriva la clave de un registro a partir de la clave maestra y la sal
+     * del registro usando HKDF-SHA256 (RFC 5869), que cuesta solo dos HMAC.
+     *
+     * @param password Contraseña maestra
+     * @param salt Sal del registro
+     * @return Clave secreta del registro
+     * @throws Exception Si hay error en la generación de la clave
+     */
+    private static SecretKey derivarClaveRegistro(String password, byte[] salt)
+            throws Exception {
+        // Extraer: PRK = HMAC(sal, clave maestra)
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(new SecretKeySpec(salt, HMAC_ALGORITHM));
+        byte[] prk = mac.doFinal(obtenerClaveMaestra(password));
+
+        // Expandir: T(1) = HMAC(PRK, info | 0x01), suficiente para 256 bits
+        mac.init(new SecretKeySpec(prk, HMAC_ALGORITHM));
+        mac.update(INFO_TELEFONO);
+        mac.update((byte) 1);
+        return new SecretKeySpec(mac.doFinal(), ENCRYPTION_ALGORITHM);
+    }
+
+    /**
+     * Calcula el indice ciego de un número de teléfono: un HMAC-SHA256
+     * determinista con una clave derivada de la clave maestra, que permite
+     * buscar por teléfono con igualdad sin almacenar el texto plano.
+     *
+     * @param telefono Número de teléfono en texto plano
+     * @param masterPassword Contraseña maestra
+     * @return Indice ciego en Base64 URL sin relleno (43 caracteres)
+     * @throws Exception Si hay error al calcular el HMAC
+     */
+    public static String indiceTelefono(String telefono, String masterPassword)
+            throws Exception {
+        byte[] claveIndice = CLAVES_INDICE.computeIfAbsent(masterPassword, p -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(new SecretKeySpec(obtenerClaveMaestra(p),
+                        HMAC_ALGORITHM));
+                return mac.doFinal(INFO_INDICE);
+            } catch (Exception e) {
+                throw new IllegalStateException(
+                        "No se pudo derivar la clave del indice", e);
+            }
+        });
+
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(new SecretKeySpec(claveIndice, HMAC_ALGORITHM));
+        byte[] hmac = mac.doFinal(telefono.trim()
+                .getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac);
+    }
+
+    /**
+     * Cifra un número de teléfono de manera segura. El resultado usa el
+     * formato con jerarquia de claves ({@code v2:} + Base64 de sal, IV y datos
+     * cifrados), de modo que no se ejecuta PBKDF2 por registro.
      *
      * @param telefono Número de teléfono a cifrar
      * @param masterPassword Contraseña maestra
@@ -52,8 +190,8 @@ public class DesEncryptionUtil {
         byte[] salt = new byte[SALT_LENGTH];
         new SecureRandom().nextBytes(salt);
 
-        // Generar clave
-        SecretKey key = generateSecureKey(masterPassword, salt);
+        // Generar clave del registro a partir de la clave maestra
+        SecretKey key = derivarClaveRegistro(masterPassword, salt);
 
         // Inicializar cifrador
         Cipher cipher = Cipher.getInstance(TRANSFORMATION);
@@ -72,11 +210,13 @@ public class DesEncryptionUtil {
         System.arraycopy(encryptedData, 0, combinedData, salt.length + iv.length, encryptedData.length);
 
         // Convertir a Base64
-        return Base64.getEncoder().encodeToString(combinedData);
+        return PREFIJO_V2 + Base64.getEncoder().encodeToString(combinedData);
     }
 
     /**
-     * Descifra un número de teléfono cifrado
+     * Descifra un número de teléfono cifrado. Acepta tanto el formato con
+     * jerarquia de claves ({@code v2:}) como el formato original en Base64,
+     * cuya clave PBKDF2 se conserva en cache por (contraseña, sal).
      *
      * @param telefonoCifrado Texto cifrado en Base64
      * @param masterPassword Contraseña maestra
@@ -85,18 +225,21 @@ public class DesEncryptionUtil {
      */
     public static String descifrarTelefono(String telefonoCifrado, String masterPassword) throws Exception {
         try {
-            // Decodificar Base64
-            byte[] combinedData = Base64.getDecoder().decode(telefonoCifrado);
+            boolean formatoV2 = telefonoCifrado.startsWith(PREFIJO_V2);
 
-            // Resto del método existente...
-        
+            // Decodificar Base64
+            byte[] combinedData = Base64.getDecoder().decode(formatoV2
+                    ? telefonoCifrado.substring(PREFIJO_V2.length())
+                    : telefonoCifrado);
 
         // Extraer sal
         byte[] salt = new byte[SALT_LENGTH];
         System.arraycopy(combinedData, 0, salt, 0, salt.length);
 
         // Generar clave
-        SecretKey key = generateSecureKey(masterPassword, salt);
+        SecretKey key = formatoV2
+                ? derivarClaveRegistro(masterPassword, salt)
+                : obtenerClaveDerivada(masterPassword, salt);
 
         // Extraer IV
         byte[] iv = new byte[16]; // Tamaño estándar para AES
@@ -114,36 +257,10 @@ public class DesEncryptionUtil {
         byte[] decryptedData = cipher.doFinal(encryptedData);
         return new String(decryptedData, StandardCharsets.UTF_8);
     } catch (IllegalArgumentException e) {
-            System.err.println("Error de decodificación. Datos recibidos: " + telefonoCifrado);
-            System.err.println("Longitud: " + telefonoCifrado.length());
-            System.err.println("Contenido: " + Arrays.toString(telefonoCifrado.getBytes()));
+            // Sin el texto cifrado: solo la longitud, para no dejarlo en el log
+            LOG.log(Level.FINE, "Teléfono cifrado con Base64 inválido ({0} caracteres)",
+                    telefonoCifrado.length());
             throw e;
         }
 }
-
-    // Método de prueba
-    public static void main(String[] args) {
-        try {
-            String telefono = "1234567890";
-            String clave = "sebas123";
-
-            // Probar cifrado
-            String telefonoCifrado = cifrarTelefono(telefono, clave);
-            System.out.println("Teléfono original: " + telefono);
-            System.out.println("Teléfono cifrado: " + telefonoCifrado);
-
-            // Probar descifrado
-            String telefonoDescifrado = descifrarTelefono(telefonoCifrado, clave);
-            System.out.println("Teléfono descifrado: " + telefonoDescifrado);
-
-            // Verificar igualdad
-            if (telefono.equals(telefonoDescifrado)) {
-                System.out.println("Cifrado y descifrado exitosos!");
-            } else {
-                System.err.println("Error: El teléfono descifrado no coincide con el original");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
 }
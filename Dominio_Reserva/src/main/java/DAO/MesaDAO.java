@@ -6,12 +6,15 @@ import Excepciones.ConexionException;
 import Excepciones.DAOException;
 import Interfaces.IMesaDAO;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceException;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 /**
  * Clase de acceso a datos para la entidad de Mesa.
@@ -27,6 +30,13 @@ public class MesaDAO implements IMesaDAO {
     // instancia para establecer conexion
     Conexion conexion;
 
+    // Mesas que se escriben antes de vaciar el contexto de persistencia
+    // en agregarMesas; coincide con eclipselink.jdbc.batch-writing.size
+    private static final int TAMANO_BLOQUE_ESCRITURA = 500;
+
+    // Máximo de códigos por consulta IN al buscar mesas existentes
+    private static final int CODIGOS_POR_CONSULTA = 1000;
+
     /**
      * Constructor por defecto
      */
@@ -49,27 +59,36 @@ public class MesaDAO implements IMesaDAO {
             int agregadas = 0;
             int duplicadas = 0;
 
+            // Códigos ya guardados; también evita repetir un código de la lista
+            Set<String> existentes = codigosExistentes(em, mesas);
+
             for (Mesa mesa : mesas) {
+                if (!existentes.add(mesa.getCodigoMesa())) {
+                    duplicadas++;
+                    LOG.log(Level.FINE, "Mesa con código {0} ya existe. Omitiendo.", mesa.getCodigoMesa());
+                    continue;
+                }
                 try {
-                    // Verificar si la mesa ya existe
-                    Query query = em.createQuery("SELECT COUNT(m) FROM Mesa m WHERE m.codigoMesa = :codigo");
-                    query.setParameter("codigo", mesa.getCodigoMesa());
-                    Long count = (Long) query.getSingleResult();
-
-                    if (count == 0) {
-                        em.persist(mesa);
-                        agregadas++;
-                    } else {
-                        duplicadas++;
-                        LOG.log(Level.WARNING, "Mesa con código {0} ya existe. Omitiendo.", mesa.getCodigoMesa());
-                    }
-
+                    em.persist(mesa);
                 } catch (PersistenceException pe) {
                     LOG.log(Level.SEVERE, "Error al procesar mesa: {0}", pe.getMessage());
+                    continue;
+                }
+                agregadas++;
+                if (agregadas % TAMANO_BLOQUE_ESCRITURA == 0) {
+                    // Envía el lote de INSERT y libera las mesas ya escritas.
+                    // Si el lote falla no se omite como una mesa: la
+                    // transacción se revierte con la causa en el catch externo
+                    em.flush();
+                    em.clear();
                 }
             }
 
             em.getTransaction().commit();
+            if (agregadas > 0) {
+                // Las consultas de mesas en caché ya no incluyen las nuevas
+                Conexion.invalidarCache(Mesa.class);
+            }
             LOG.log(Level.INFO, "Mesas procesadas: {0} agregadas, {1} duplicadas",
                     new Object[]{agregadas, duplicadas});
 
@@ -77,8 +96,8 @@ public class MesaDAO implements IMesaDAO {
             if (em != null && em.getTransaction().isActive()) {
                 em.getTransaction().rollback();
             }
-            LOG.log(Level.SEVERE, "Error al agregar las mesas: {0}", pe.getMessage());
-            throw new DAOException("Error al agregar la lista de mesas");
+            LOG.log(Level.SEVERE, "Error al agregar las mesas", pe);
+            throw new DAOException("Error al agregar la lista de mesas", pe);
         } finally {
             if (em != null) {
                 em.close();
@@ -86,6 +105,29 @@ public class MesaDAO implements IMesaDAO {
         }
     }
 
+    /**
+     * Busca cuáles de los códigos de las mesas ya están guardados, con una
+     * consulta IN por cada bloque de códigos en lugar de una por mesa.
+     *
+     * @param em EntityManager de la transacción en curso.
+     * @param mesas Mesas a revisar.
+     * @return Conjunto modificable con los códigos que ya existen.
+     */
+    private Set<String> codigosExistentes(EntityManager em, List<Mesa> mesas) {
+        Set<String> existentes = new HashSet<>();
+        List<String> codigos = new ArrayList<>(Math.min(mesas.size(), CODIGOS_POR_CONSULTA));
+        TypedQuery<String> query = em.createNamedQuery("Mesa.codigosExistentes", String.class);
+        for (int i = 0; i < mesas.size(); i++) {
+            codigos.add(mesas.get(i).getCodigoMesa());
+            if (codigos.size() == CODIGOS_POR_CONSULTA || i == mesas.size() - 1) {
+                query.setParameter("codigos", codigos);
+                existentes.addAll(query.getResultList());
+                codigos.clear();
+            }
+        }
+        return existentes;
+    }
+
     /**
      * Metodo para consultar todas las mesas dentro de la base de datos.
      *
@@ -97,7 +139,7 @@ public class MesaDAO implements IMesaDAO {
         List<Mesa> mesas = null;
         try {
             em = conexion.getEntityManager(); // Obtener el EntityManager
-            mesas = em.createQuery("SELECT m FROM Mesa m",
+            mesas = em.createNamedQuery("Mesa.obtenerTodas",
                     Mesa.class).getResultList(); // Consultar todas las mesas
             LOG.log(Level.INFO, "{0} mesas encontradas.", mesas.size());
 
@@ -130,8 +172,7 @@ public class MesaDAO implements IMesaDAO {
         int cantidad = 0;
         try {
             em = conexion.getEntityManager(); // Obtener el EntityManager
-            Query query = em.createQuery("SELECT COUNT(m) FROM Mesa m "
-                    + "WHERE m.ubicacion = :ubicacion"); // Crear la consulta
+            Query query = em.createNamedQuery("Mesa.contarPorUbicacion"); // Crear la consulta
             query.setParameter("ubicacion", ubicacion); // Pasar el parámetro
             cantidad = ((Long) query.getSingleResult()).intValue();
 
@@ -166,9 +207,8 @@ public class MesaDAO implements IMesaDAO {
         List<Mesa> mesas = new ArrayList<>();
         try {
             em = conexion.getEntityManager(); // Obtener el EntityManager
-            Query query
-                    = em.createQuery("SELECT m FROM Mesa m WHERE m.tipoMesa = "
-                            + ":tipo"); // Crear la consulta
+            TypedQuery<Mesa> query = em.createNamedQuery("Mesa.obtenerPorTipo",
+                    Mesa.class); // Consulta con resultados en caché
             query.setParameter("tipo", tipo); // Pasar el parámetro
             mesas = query.getResultList(); // Obtener el resultado
         } catch (PersistenceException pe) {
@@ -0,0 +1,196 @@
+package DAO;
+
+import Entidades.Cliente;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Servicio que concentra el cifrado y descifrado del teléfono de los
+ * clientes. Es el único punto de la aplicación que invoca a
+ * {@link DesEncryptionUtil}; el resto de las capas trabaja con el estado
+ * cifrado/descifrado que lleva cada {@link Cliente}, de modo que ningún
+ * teléfono se cifra ni se descifra dos veces.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class PhoneCipher {
+
+    private static final Logger LOG = Logger.getLogger(PhoneCipher.class.getName());
+
+    // Leer contraseña desde variable de entorno o archivo de configuración
+    private static final String CLAVE_ENCRYPTION = System.getenv()
+            .getOrDefault("ENCRYPTION_KEY", "sebas123");
+
+    // Hilos para el descifrado masivo, configurable con
+    // -Dreservasys.descifrado.hilos=N
+    private static final int HILOS_DESCIFRADO = Math.max(1, Integer.getInteger(
+            "reservasys.descifrado.hilos",
+            Runtime.getRuntime().availableProcessors()));
+
+    // Por debajo de este tamaño no compensa repartir el trabajo
+    private static final int MINIMO_PARALELO = 64;
+
+    // Pool acotado compartido por todas las instancias
+    private static final ExecutorService EJECUTOR = Executors
+            .newFixedThreadPool(HILOS_DESCIFRADO, tarea -> {
+                Thread hilo = new Thread(tarea, "descifrado-telefonos");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+
+    /**
+     * Constructor por defecto.
+     */
+    public PhoneCipher() {
+    }
+
+    /**
+     * Cifra el teléfono del cliente si aún está en texto plano y calcula su
+     * indice ciego. Si el cliente ya lleva el teléfono cifrado o no tiene
+     * teléfono, no hace nada.
+     *
+     * @param cliente Cliente cuyo teléfono se va a cifrar.
+     * @throws Exception Si hay error en el cifrado.
+     */
+    public void cifrar(Cliente cliente) throws Exception {
+        if (cliente == null || cliente.isTelefonoCifrado()
+                || cliente.getTelefono() == null
+                || cliente.getTelefono().trim().isEmpty()) {
+            return;
+        }
+        cliente.setTelefonoIdx(indiceCiego(cliente.getTelefono()));
+        cliente.setTelefono(cifrarTexto(cliente.getTelefono()));
+        cliente.setTelefonoCifrado(true);
+    }
+
+    /**
+     * Descifra el teléfono del cliente si está cifrado. Si el cliente ya lleva
+     * el teléfono en texto plano, no hace nada.
+     *
+     * @param cliente Cliente cuyo teléfono se va a descifrar.
+     * @throws Exception Si hay error en el descifrado.
+     */
+    public void descifrar(Cliente cliente) throws Exception {
+        if (cliente == null || !cliente.isTelefonoCifrado()
+                || cliente.getTelefono() == null) {
+            return;
+        }
+        cliente.setTelefono(descifrarTexto(cliente.getTelefono()));
+        cliente.setTelefonoCifrado(false);
+    }
+
+    /**
+     * Descifra el teléfono de una lista de clientes repartiendo el trabajo en
+     * bloques contiguos entre los hilos del pool acotado. La lista conserva
+     * su orden y un error en un cliente no detiene el resto: los clientes que
+     * no se pudieron descifrar se devuelven, en el mismo orden, y conservan
+     * su teléfono cifrado.
+     *
+     * @param clientes Clientes cuyo teléfono se va a descifrar.
+     * @return Clientes que no se pudieron descifrar; vacía si todo salió bien.
+     */
+    public List<Cliente> descifrarTodos(List<Cliente> clientes) {
+        int total = clientes.size();
+        boolean[] fallidos = new boolean[total];
+
+        if (total < MINIMO_PARALELO || HILOS_DESCIFRADO == 1) {
+            descifrarBloque(clientes, 0, total, fallidos);
+        } else {
+            int tamanoBloque = (total + HILOS_DESCIFRADO - 1) / HILOS_DESCIFRADO;
+            List<Callable<Void>> bloques = new ArrayList<>();
+            for (int inicio = 0; inicio < total; inicio += tamanoBloque) {
+                int desde = inicio;
+                int hasta = Math.min(total, inicio + tamanoBloque);
+                bloques.add(() -> {
+                    descifrarBloque(clientes, desde, hasta, fallidos);
+                    return null;
+                });
+            }
+
+            try {
+                for (Future<Void> bloque : EJECUTOR.invokeAll(bloques)) {
+                    bloque.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(
+                        "Descifrado de teléfonos interrumpido", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(
+                        "Error en el descifrado de teléfonos", e.getCause());
+            }
+        }
+
+        List<Cliente> resultado = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            if (fallidos[i]) {
+                resultado.add(clientes.get(i));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Descifra los clientes del rango indicado, marcando los que fallan.
+     *
+     * @param clientes Lista completa de clientes.
+     * @param desde Posición inicial (inclusiva).
+     * @param hasta Posición final (exclusiva).
+     * @param fallidos Marcas de los clientes que no se pudieron descifrar.
+     */
+    private void descifrarBloque(List<Cliente> clientes, int desde, int hasta,
+            boolean[] fallidos) {
+        for (int i = desde; i < hasta; i++) {
+            Cliente cliente = clientes.get(i);
+            try {
+                descifrar(cliente);
+            } catch (Exception e) {
+                fallidos[i] = true;
+                LOG.log(Level.WARNING, "No se pudo descifrar el teléfono del "
+                        + "cliente {0}", cliente != null ? cliente.getId() : null);
+            }
+        }
+    }
+
+    /**
+     * Cifra un teléfono en texto plano.
+     *
+     * @param telefono Teléfono a cifrar.
+     * @return Teléfono cifrado.
+     * @throws Exception Si hay error en el cifrado.
+     */
+    public String cifrarTexto(String telefono) throws Exception {
+        return DesEncryptionUtil.cifrarTelefono(telefono, CLAVE_ENCRYPTION);
+    }
+
+    /**
+     * Descifra un teléfono cifrado.
+     *
+     * @param telefonoCifrado Teléfono cifrado.
+     * @return Teléfono en texto plano.
+     * @throws Exception Si hay error en el descifrado.
+     */
+    public String descifrarTexto(String telefonoCifrado) throws Exception {
+        return DesEncryptionUtil.descifrarTelefono(telefonoCifrado,
+                CLAVE_ENCRYPTION);
+    }
+
+    /**
+     * Calcula el indice ciego de un teléfono en texto plano, usado para
+     * buscar clientes por teléfono sin descifrar la tabla completa.
+     *
+     * @param telefono Teléfono en texto plano.
+     * @return Indice ciego del teléfono.
+     * @throws Exception Si hay error al calcular el indice.
+     */
+    public String indiceCiego(String telefono) throws Exception {
+        return DesEncryptionUtil.indiceTelefono(telefono, CLAVE_ENCRYPTION);
+    }
+}
@@ -8,23 +8,48 @@ import Entidades.Reserva;
 import Entidades.Restaurante;
 import Excepciones.ConexionException;
 import Excepciones.DAOException;
+import Excepciones.MesaOcupadaException;
+import Excepciones.ReservaInvalidaException;
+import Filtros.FiltroReserva;
 import Interfaces.IReservaDAO;
+import Proyecciones.ContextoReserva;
+import Proyecciones.OcupacionMesa;
+import Proyecciones.ReservaFila;
+import Proyecciones.VersionReserva;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.LockTimeoutException;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceException;
+import javax.persistence.PessimisticLockException;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Join;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetConcurrency;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.queries.BatchFetchPolicy;
+import org.eclipse.persistence.queries.ObjectLevelReadQuery;
+import org.eclipse.persistence.queries.ScrollableCursor;
 
 /**
  * Clase de acceso a datos para la entidad de Reserva.
@@ -37,36 +62,171 @@ public class ReservaDAO implements IReservaDAO {
     private static final Logger LOG = Logger.
             getLogger(ReservaDAO.class.getName());
 
+    // horas que ocupa una reserva en la mesa
+    private static final long HORAS_RESERVA = 5L;
+
+    // intentos para guardar una reserva cuando hay conflicto de bloqueo
+    private static final int MAX_INTENTOS = 3;
+
+    // tiempo maximo de espera por el bloqueo de la mesa
+    private static final int TIEMPO_BLOQUEO_MS = 5_000;
+
+    // codigos de error de MySQL: interbloqueo y espera de bloqueo agotada
+    private static final int MYSQL_INTERBLOQUEO = 1213;
+    private static final int MYSQL_ESPERA_BLOQUEO = 1205;
+
+    // filas que se piden al driver por viaje al exportar y cada cuantas se
+    // limpia el contexto de persistencia
+    private static final int TAMANO_BLOQUE_LECTURA = 1_000;
+
+    // ids por consulta IN al leer reservas por id
+    private static final int IDS_POR_CONSULTA = 1_000;
+
+    // prefijo de las consultas con nombre de cada forma de FiltroReserva
+    public static final String PREFIJO_CONSULTA_FILTRO = "Reserva.filtro.";
+
+    // caracter de escape en LIKE; la diagonal invertida es especial en
+    // las cadenas de MySQL
+    private static final char ESCAPE_LIKE = '!';
+
     // instancia para establecer conexion
     Conexion conexion;
 
+    // calcula el indice ciego para filtrar por telefono
+    private final PhoneCipher phoneCipher;
+
     /**
      * Constructor por defecto
      */
     public ReservaDAO() {
         this.conexion = new Conexion();
+        this.phoneCipher = new PhoneCipher();
     }
 
     /**
-     * Metodo que agrega una reserva a la base de datos.
+     * Metodo que agrega una reserva a la base de datos. La mesa se bloquea
+     * ({@code SELECT ... FOR UPDATE}) dentro de la misma transacción del
+     * insert y, ya con el bloqueo, se vuelve a verificar que no haya otra
+     * reserva activa que se traslape; así dos terminales no pueden reservar
+     * la misma mesa para el mismo horario. Si el bloqueo no se obtiene a
+     * tiempo o la base de datos detecta un interbloqueo, se reintenta.
      *
      * @param reserva reserva a agregar.
+     * @throws MesaOcupadaException si la mesa ya está reservada en ese horario.
+     * @throws DAOException si ocurre otro error al guardar la reserva.
      */
     @Override
     public void agregarReserva(Reserva reserva) throws DAOException {
+        guardarConReintentos(reserva, null);
+    }
+
+    /**
+     * Valida y guarda una reserva en un solo EntityManager y una sola
+     * transacción. Con la mesa bloqueada se lee el restaurante (una sola vez),
+     * se verifica si el cliente ya tiene una reserva activa y si la mesa está
+     * ocupada; con esos datos se ejecuta la validación recibida y, si no
+     * devuelve errores, se persiste la reserva. Si la reserva no trae
+     * restaurante se usa el registrado en la base de datos.
+     *
+     * @param reserva reserva a guardar.
+     * @param validacion reglas de negocio a evaluar; devuelve los mensajes de
+     * los errores encontrados o una lista vacía.
+     * @throws ReservaInvalidaException si la validación encontró errores.
+     * @throws DAOException si ocurre otro error al guardar la reserva.
+     */
+    @Override
+    public void reservar(Reserva reserva,
+            Function<ContextoReserva, List<String>> validacion) throws DAOException {
+        if (validacion == null) {
+            throw new DAOException("Se requiere la validación de la reserva");
+        }
+        guardarConReintentos(reserva, validacion);
+    }
+
+    /**
+     * Guarda la reserva reintentando cuando el bloqueo de la mesa no se
+     * obtiene a tiempo o la base de datos detecta un interbloqueo.
+     *
+     * @param reserva reserva a guardar.
+     * @param validacion reglas de negocio a evaluar, o null para solo
+     * verificar que la mesa esté libre.
+     * @throws DAOException si no se pudo guardar la reserva.
+     */
+    private void guardarConReintentos(Reserva reserva,
+            Function<ContextoReserva, List<String>> validacion) throws DAOException {
+        Long idOriginal = reserva.getId();
+        for (int intento = 1; ; intento++) {
+            try {
+                reserva.setId(idOriginal);
+                intentarAgregarReserva(reserva, validacion);
+                return;
+            } catch (PersistenceException pe) {
+                if (!esConflictoDeBloqueo(pe) || intento >= MAX_INTENTOS) {
+                    LOG.log(Level.SEVERE, "Error al agregar la reserva: {0}", pe.getMessage());
+                    throw new DAOException("Error al agregar la reserva", pe);
+                }
+                LOG.log(Level.WARNING, "Conflicto de bloqueo al agregar la reserva, "
+                        + "reintento {0} de {1}", new Object[]{intento, MAX_INTENTOS - 1});
+                esperarAntesDeReintentar(intento);
+            }
+        }
+    }
+
+    /**
+     * Realiza un intento de agregar la reserva en una sola transacción:
+     * bloquea la mesa, verifica el traslape (y, si hay validación, el resto
+     * de las reglas) y persiste la reserva.
+     *
+     * @param reserva reserva a agregar.
+     * @param validacion reglas de negocio a evaluar, o null para solo
+     * verificar que la mesa esté libre.
+     * @throws PersistenceException si hay un error de persistencia, incluidos
+     * los conflictos de bloqueo que se pueden reintentar.
+     * @throws DAOException si la mesa no existe, la reserva no es válida o no
+     * hay conexión.
+     */
+    private void intentarAgregarReserva(Reserva reserva,
+            Function<ContextoReserva, List<String>> validacion) throws DAOException {
         EntityManager em = null;
         try {
             em = conexion.getEntityManager();
             em.getTransaction().begin();
 
-            // Buscar la mesa por su código en lugar de ID
-            TypedQuery<Mesa> query = em.createQuery(
-                    "SELECT m FROM Mesa m WHERE m.codigoMesa = :codigoMesa", Mesa.class);
+            // Buscar y bloquear la mesa por su código en lugar de ID
+            TypedQuery<Mesa> query = em.createNamedQuery(
+                    "Mesa.buscarPorCodigo", Mesa.class);
             query.setParameter("codigoMesa", reserva.getMesa().getCodigoMesa());
+            query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+            query.setHint("javax.persistence.lock.timeout", TIEMPO_BLOQUEO_MS);
             Mesa mesa = query.getSingleResult();
 
-            if (mesa == null) {
-                throw new DAOException("Mesa no encontrada con código: " + reserva.getMesa().getCodigoMesa());
+            // Con la mesa bloqueada, ninguna otra transacción puede reservarla
+            // hasta que esta termine; se verifica el traslape ya sin carreras
+            LocalDateTime fecha = reserva.getFechaHoraReserva();
+            boolean ocupada = !em.createNamedQuery("Reserva.traslapePorMesa", Long.class)
+                    .setParameter("mesaId", mesa.getId())
+                    .setParameter("desde", fecha.minusHours(HORAS_RESERVA))
+                    .setParameter("hasta", fecha.plusHours(HORAS_RESERVA))
+                    .setMaxResults(1)
+                    .getResultList().isEmpty();
+
+            if (validacion != null) {
+                Restaurante restaurante = obtenerRestaurante(em, reserva);
+                ContextoReserva contexto = new ContextoReserva(restaurante, mesa,
+                        tieneReservaActiva(em, reserva.getCliente()), ocupada);
+                List<String> errores = validacion.apply(contexto);
+                if (!errores.isEmpty()) {
+                    em.getTransaction().rollback();
+                    LOG.log(Level.WARNING, "Reserva rechazada: {0}", errores);
+                    throw new ReservaInvalidaException(errores);
+                }
+                reserva.setRestaurante(restaurante);
+            } else if (ocupada) {
+                em.getTransaction().rollback();
+                LOG.log(Level.WARNING, "La mesa {0} ya está reservada para {1}",
+                        new Object[]{mesa.getCodigoMesa(), fecha});
+                throw new MesaOcupadaException("La mesa " + mesa.getCodigoMesa()
+                        + " ya está reservada en ese horario.");
             }
 
             reserva.setMesa(mesa); // Asignar la mesa obtenida a la reserva
@@ -84,12 +244,8 @@ public class ReservaDAO implements IReservaDAO {
             if (em != null && em.getTransaction().isActive()) {
                 em.getTransaction().rollback();
             }
-            LOG.log(Level.SEVERE, "Error al agregar la reserva: {0}", pe.getMessage());
-            throw new DAOException("Error al agregar la reserva", pe);
+            throw pe;
         } catch (ConexionException ex) {
-            if (em != null && em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             Logger.getLogger(ReservaDAO.class.getName()).log(Level.SEVERE, null, ex);
             throw new DAOException("Error al obtener el EntityManager para agregar la reserva.", ex);
         } finally {
@@ -99,6 +255,98 @@ public class ReservaDAO implements IReservaDAO {
         }
     }
 
+    /**
+     * Obtiene el restaurante de la reserva dentro del EntityManager dado; si
+     * la reserva no trae uno, se usa el registrado en la base de datos.
+     *
+     * @param em EntityManager de la transacción.
+     * @param reserva Reserva que se va a guardar.
+     * @return El restaurante de la reserva.
+     * @throws DAOException si no hay ningún restaurante registrado.
+     */
+    private Restaurante obtenerRestaurante(EntityManager em, Reserva reserva)
+            throws DAOException {
+        if (reserva.getRestaurante() != null && reserva.getRestaurante().getId() != null) {
+            Restaurante restaurante = em.find(Restaurante.class,
+                    reserva.getRestaurante().getId());
+            if (restaurante != null) {
+                return restaurante;
+            }
+        }
+        List<Restaurante> restaurantes = em.createNamedQuery(
+                "Restaurante.obtenerTodos", Restaurante.class)
+                .setMaxResults(1)
+                .getResultList();
+        if (restaurantes.isEmpty()) {
+            em.getTransaction().rollback();
+            throw new DAOException("No hay ningún restaurante registrado.");
+        }
+        return restaurantes.get(0);
+    }
+
+    /**
+     * Indica si el cliente tiene una reserva activa a partir de ahora.
+     *
+     * @param em EntityManager de la transacción.
+     * @param cliente Cliente a verificar.
+     * @return true si el cliente ya tiene una reserva activa.
+     * @throws DAOException si el cliente no tiene id.
+     */
+    private boolean tieneReservaActiva(EntityManager em, Cliente cliente)
+            throws DAOException {
+        if (cliente == null || cliente.getId() == null) {
+            em.getTransaction().rollback();
+            throw new DAOException("La reserva no tiene un cliente registrado.");
+        }
+        return !em.createNamedQuery("Reserva.activaDeCliente", Long.class)
+                .setParameter("clienteId", cliente.getId())
+                .setParameter("desde", LocalDateTime.now())
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    /**
+     * Indica si un error de persistencia se debe a un conflicto de bloqueo
+     * (tiempo de espera agotado o interbloqueo) que se puede reintentar.
+     *
+     * @param pe Error de persistencia.
+     * @return true si el error es un conflicto de bloqueo.
+     */
+    private boolean esConflictoDeBloqueo(PersistenceException pe) {
+        if (pe instanceof PessimisticLockException || pe instanceof LockTimeoutException) {
+            return true;
+        }
+        for (Throwable causa = pe.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLTransactionRollbackException
+                    || causa instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (causa instanceof SQLException) {
+                int codigo = ((SQLException) causa).getErrorCode();
+                if (codigo == MYSQL_INTERBLOQUEO || codigo == MYSQL_ESPERA_BLOQUEO) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Espera un tiempo creciente y aleatorio antes de reintentar, para que
+     * las transacciones en conflicto no vuelvan a chocar al mismo tiempo.
+     *
+     * @param intento Número del intento que falló.
+     * @throws DAOException si el hilo se interrumpe durante la espera.
+     */
+    private void esperarAntesDeReintentar(int intento) throws DAOException {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * intento);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new DAOException("Se interrumpió el reintento de la reserva", ie);
+        }
+    }
+
     /**
      * Metodo qye consulta las reservas realizadas en un intervalo de tiempo 
      * que estan dados por el parametro.
@@ -114,8 +362,7 @@ public class ReservaDAO implements IReservaDAO {
         List<Reserva> reservas = null;
         try {
             em = conexion.getEntityManager(); // Obtener el EntityManager
-            reservas = em.createQuery("SELECT r FROM Reserva r WHERE "
-                    + "r.fechaHoraReserva BETWEEN :inicio AND :fin",
+            reservas = em.createNamedQuery("Reserva.consultarPorFecha",
                     Reserva.class)
                     .setParameter("inicio", inicio)
                     .setParameter("fin", fin)
@@ -142,10 +389,14 @@ public class ReservaDAO implements IReservaDAO {
 
     /**
      * Verifica si una mesa está disponible para una reserva en una fecha y hora
-     * específicas. No permite reservas para la misma mesa en las siguientes 5
-     * horas.
+     * específicas. Una mesa no está disponible si tiene una reserva activa que
+     * empiece menos de 5 horas antes o después de la hora solicitada. La
+     * consulta filtra por mesa y ventana de tiempo en la base de datos (índice
+     * {@code ix_reservas_mesa_estado_fecha}) y se detiene en la primera
+     * reserva que encuentre.
      *
-     * @param mesa La mesa que se desea reservar.
+     * @param mesa La mesa que se desea reservar, identificada por su id o,
+     * si no lo tiene, por su código.
      * @param dia La fecha y hora deseada para la reserva.
      * @return true si la mesa está disponible, false si ya existe una reserva
      * en el intervalo de 5 horas.
@@ -153,50 +404,106 @@ public class ReservaDAO implements IReservaDAO {
      */
     @Override
     public boolean verificarPorDia(Mesa mesa, LocalDateTime dia) throws DAOException {
+        if (mesa == null || (mesa.getId() == null && mesa.getCodigoMesa() == null)) {
+            throw new DAOException("La mesa a verificar no tiene id ni código.");
+        }
         EntityManager em = null;
         try {
             em = conexion.getEntityManager();
+            return !hayTraslape(em, mesa, dia);
 
-            // Obtener las reservas de la mesa en el día especificado
-            LocalDateTime inicioDelDia = dia.toLocalDate().atStartOfDay();
-            LocalDateTime finDelDia = dia.toLocalDate().atTime(23, 59, 59); // Fin del día
-
-            TypedQuery<Reserva> query = em.createQuery(
-                    "SELECT r FROM Reserva r "
-                    + "WHERE r.fechaHoraReserva BETWEEN :inicioDelDia AND :finDelDia "
-                    + "AND r.estado = 'ACTIVA'", Reserva.class);
-
-            query.setParameter("inicioDelDia", inicioDelDia);
-            query.setParameter("finDelDia", finDelDia);
-
-            // Obtener todas las reservas activas para la mesa en el día especificado
-            List<Reserva> reservas = query.getResultList();
-
-            if (reservas.isEmpty()) {
-                return true; // No hay reservas activas, se puede reservar
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al verificar la disponibilidad de la mesa", pe);
+            throw new DAOException("Error al verificar la disponibilidad de la mesa.", pe);
+        } catch (ConexionException ex) {
+            Logger.getLogger(ReservaDAO.class.getName()).log(Level.SEVERE, null, ex);
+            throw new DAOException("Error al obtener el EntityManager para verificar la disponibilidad de la mesa.", ex);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
             }
+        }
+    }
 
-            // Hora de la nueva reserva
-            LocalTime miHora = dia.toLocalTime();
+    /**
+     * Indica si la mesa tiene una reserva activa que empiece menos de 5 horas
+     * antes o después de la hora dada. Basta con encontrar una.
+     *
+     * @param em EntityManager de la consulta.
+     * @param mesa La mesa, identificada por su id o, si no lo tiene, por su
+     * código.
+     * @param dia La fecha y hora deseada para la reserva.
+     * @return true si la mesa ya está reservada en ese horario.
+     */
+    private boolean hayTraslape(EntityManager em, Mesa mesa, LocalDateTime dia) {
+        TypedQuery<Long> query;
+        if (mesa.getId() != null) {
+            query = em.createNamedQuery("Reserva.traslapePorMesa", Long.class)
+                    .setParameter("mesaId", mesa.getId());
+        } else {
+            query = em.createNamedQuery("Reserva.traslapePorCodigoMesa", Long.class)
+                    .setParameter("codigoMesa", mesa.getCodigoMesa());
+        }
+        return !query
+                .setParameter("desde", dia.minusHours(HORAS_RESERVA))
+                .setParameter("hasta", dia.plusHours(HORAS_RESERVA))
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
 
-            // Verificar si la hora de la nueva reserva está dentro del intervalo de alguna reserva activa
-            for (Reserva reserva : reservas) {
-                LocalTime minimo = reserva.getFechaHoraReserva().toLocalTime();
-                LocalTime maximo = minimo.plusHours(5L);
+    /**
+     * Lee, en un solo EntityManager y sin transacción ni bloqueos, los datos
+     * con los que se valida una reserva antes de confirmarla: si el cliente
+     * ya tiene una reserva activa y si la mesa está ocupada en ese horario.
+     * La mesa y el restaurante son los que trae la reserva; si no trae
+     * restaurante se usa el registrado en la base de datos.
+     * {@link #reservar} vuelve a leer todo con la mesa bloqueada.
+     *
+     * @param reserva Reserva a validar, con fecha, cliente y mesa.
+     * @return El contexto de la reserva.
+     * @throws DAOException Si faltan datos o si ocurre un error en la
+     * consulta.
+     */
+    @Override
+    public ContextoReserva obtenerContexto(Reserva reserva) throws DAOException {
+        Mesa mesa = reserva.getMesa();
+        if (mesa == null || (mesa.getId() == null && mesa.getCodigoMesa() == null)) {
+            throw new DAOException("La mesa a verificar no tiene id ni código.");
+        }
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
 
-                if (miHora.isAfter(minimo) && miHora.isBefore(maximo)) {
-                    return false; // La nueva reserva está dentro del rango de 5 horas
+            Restaurante restaurante = reserva.getRestaurante();
+            if (restaurante == null) {
+                List<Restaurante> restaurantes = em.createNamedQuery(
+                        "Restaurante.obtenerTodos", Restaurante.class)
+                        .setMaxResults(1)
+                        .getResultList();
+                if (restaurantes.isEmpty()) {
+                    throw new DAOException("No hay ningún restaurante registrado.");
                 }
+                restaurante = restaurantes.get(0);
             }
 
-            return true; // Si no encontramos reservas que interfieran, se puede reservar
+            // Un cliente sin guardar no tiene reservaciones
+            Cliente cliente = reserva.getCliente();
+            boolean clienteConReservaActiva = cliente != null && cliente.getId() != null
+                    && !em.createNamedQuery("Reserva.activaDeCliente", Long.class)
+                            .setParameter("clienteId", cliente.getId())
+                            .setParameter("desde", LocalDateTime.now())
+                            .setMaxResults(1)
+                            .getResultList().isEmpty();
+
+            return new ContextoReserva(restaurante, mesa, clienteConReservaActiva,
+                    hayTraslape(em, mesa, reserva.getFechaHoraReserva()));
 
         } catch (PersistenceException pe) {
-            LOG.log(Level.SEVERE, "Error al verificar la disponibilidad de la mesa", pe);
-            throw new DAOException("Error al verificar la disponibilidad de la mesa.", pe);
+            LOG.log(Level.SEVERE, "Error al leer los datos para validar la reserva", pe);
+            throw new DAOException("Error al leer los datos para validar la reserva.", pe);
         } catch (ConexionException ex) {
             Logger.getLogger(ReservaDAO.class.getName()).log(Level.SEVERE, null, ex);
-            throw new DAOException("Error al obtener el EntityManager para verificar la disponibilidad de la mesa.", ex);
+            throw new DAOException("Error al obtener el EntityManager para validar la reserva.", ex);
         } finally {
             if (em != null && em.isOpen()) {
                 em.close();
@@ -207,101 +514,257 @@ public class ReservaDAO implements IReservaDAO {
     /**
      * Metodo que mediante filtros obtiene las reservas que mas se adapten
      * algunos datos del parametro pueden ser nulos pero aun asi se adapta a lo
-     * requerido
+     * requerido. Se resuelve con {@link #buscarReservas(FiltroReserva)}: el
+     * área es la ubicación de la mesa, el tamaño de la mesa las personas que
+     * deben caber en ella y la fecha de la reserva acota el rango al día.
      *
      * @param nombreCliente Nombre del cliente.
      * @param telefonoCliente Telefono del cliente.
-     * @param fechaReserva Fecha en que fue realizada la reserva.
-     * @param areaRestaurante Area del restaurante.
+     * @param fechaReserva Día de la reserva.
+     * @param areaRestaurante Area del restaurante (ubicación de la mesa).
      * @param fechaInicio Fecha de inicio para la busqueda.
-     * @param fechaFin Fecha de fin para la busqueda.
-     * @param tamanoMesa Tamaño de la mesa.
+     * @param fechaFin Fecha de fin para la busqueda (incluida completa).
+     * @param tamanoMesa Personas que deben caber en la mesa.
      *
      * @return Retorna lista de reservaciones que mas se adapten a los
      * parametros
+     * @throws DAOException En caso de error en la base de datos.
      */
     @Override
     public List<Reserva> buscarReservasPorFiltros(String nombreCliente,
             String telefonoCliente, LocalDate fechaReserva,
             String areaRestaurante, LocalDate fechaInicio,
             LocalDate fechaFin, Integer tamanoMesa) throws DAOException {
+        LocalDateTime desde = fechaInicio != null ? fechaInicio.atStartOfDay() : null;
+        LocalDateTime hasta = fechaFin != null ? fechaFin.atTime(LocalTime.MAX) : null;
+        if (fechaReserva != null) {
+            LocalDateTime inicioDia = fechaReserva.atStartOfDay();
+            LocalDateTime finDia = fechaReserva.atTime(LocalTime.MAX);
+            desde = desde == null || desde.isBefore(inicioDia) ? inicioDia : desde;
+            hasta = hasta == null || hasta.isAfter(finDia) ? finDia : hasta;
+        }
 
-        EntityManager em = null;
-        List<Reserva> resultados = null;
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setNombreCliente(nombreCliente);
+        filtro.setTelefonoCliente(telefonoCliente);
+        filtro.setUbicacion(areaRestaurante);
+        filtro.setCapacidad(tamanoMesa);
+        filtro.setDesde(desde);
+        filtro.setHasta(hasta);
+        return buscarReservas(filtro);
+    }
 
+    /**
+     * Busca las reservas que cumplen un filtro, en su orden y con su límite,
+     * con una sola consulta con parámetros. La consulta de cada forma de
+     * filtro se arma una vez y se reutiliza (ver {@link #consultaFiltro}).
+     *
+     * @param filtro Criterios, orden y página de la búsqueda.
+     * @return lista de las reservas encontradas, con su cliente.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public List<Reserva> buscarReservas(FiltroReserva filtro) throws DAOException {
+        EntityManager em = null;
         try {
             em = conexion.getEntityManager();
-
-            // CriteriaBuilder para crear la consulta
-            CriteriaBuilder cb = em.getCriteriaBuilder();
-            CriteriaQuery<Reserva> cq = cb.createQuery(Reserva.class);
-            Root<Reserva> reserva = cq.from(Reserva.class);
-            Join<Reserva, Cliente> cliente = reserva.join("cliente");
-            Join<Reserva, Mesa> mesa = reserva.join("mesa");
-            Join<Mesa, Restaurante> restaurante = mesa.join("restaurante");
-
-            // Lista de predicados (filtros)
-            List<Predicate> predicates = new ArrayList<>();
-
-            // Filtros de cliente
-            if (nombreCliente != null && !nombreCliente.isEmpty()) {
-                predicates.add(cb.like(cliente.get("nombre"), "%"
-                        + nombreCliente + "%"));
-            }
-
-            if (telefonoCliente != null && !telefonoCliente.isEmpty()) {
-                predicates.add(cb.equal(cliente.get("telefono"),
-                        telefonoCliente));
-            }
-
-            // Filtros de reserva
-            if (fechaReserva != null) {
-                predicates.add(cb.equal(reserva.get("fechaHoraReserva"),
-                        fechaReserva.atStartOfDay()));
+            TypedQuery<Reserva> query = consultaFiltro(em, filtro);
+            asignarParametros(query, filtro);
+            if (filtro.getLimite() != null) {
+                query.setMaxResults(filtro.getLimite());
             }
-
-            if (areaRestaurante != null && !areaRestaurante.isEmpty()) {
-                predicates.add(cb.equal(restaurante.get("area"),
-                        areaRestaurante));
-            }
-
-            if (fechaInicio != null) {
-                predicates.add(cb.greaterThanOrEqualTo(reserva.
-                        get("fechaHoraReserva"), fechaInicio.atStartOfDay()));
-            }
-
-            if (fechaFin != null) {
-                predicates.add(cb.lessThanOrEqualTo(reserva.
-                        get("fechaHoraReserva"), fechaFin.atTime(23, 59, 59)));
+            return query.getResultList();
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al buscar reservas por filtro", pe);
+            throw new DAOException("Error al buscar reservas", pe);
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al buscar reservas", ex);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
             }
+        }
+    }
 
-            if (tamanoMesa != null) {
-                predicates.add(cb.equal(mesa.get("tamano"), tamanoMesa));
-            }
+    /**
+     * Obtiene la consulta de la forma de un filtro ({@link FiltroReserva#forma()}).
+     * La primera vez se arma con Criteria y se registra en la fábrica como
+     * consulta con nombre ({@code Reserva.filtro.<forma>}); las siguientes
+     * búsquedas con la misma forma la toman ya traducida a SQL y solo cambian
+     * los parámetros, así el driver también reutiliza la sentencia preparada.
+     * Es pública para que la herramienta de pruebas
+     * {@code Herramientas.AsesorIndices} revise el plan de la misma consulta
+     * que se ejecuta.
+     *
+     * @param em EntityManager con el que se ejecuta la consulta.
+     * @param filtro Filtro del que se toma la forma.
+     * @return La consulta, sin parámetros asignados.
+     */
+    public static TypedQuery<Reserva> consultaFiltro(EntityManager em, FiltroReserva filtro) {
+        String nombre = nombreConsultaFiltro(filtro);
+        try {
+            return em.createNamedQuery(nombre, Reserva.class);
+        } catch (IllegalArgumentException noRegistrada) {
+            TypedQuery<Reserva> query = em.createQuery(criteriosFiltro(
+                    em.getCriteriaBuilder(), filtro))
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE);
+            em.getEntityManagerFactory().addNamedQuery(nombre, query);
+            return query;
+        }
+    }
 
-            // Aplicar los predicados a la consulta
-            cq.where(predicates.toArray(new Predicate[0]));
+    /**
+     * Obtiene el nombre con el que se registra la consulta de la forma de un
+     * filtro.
+     *
+     * @param filtro Filtro del que se toma la forma.
+     * @return {@code Reserva.filtro.} seguido de la forma.
+     */
+    public static String nombreConsultaFiltro(FiltroReserva filtro) {
+        return PREFIJO_CONSULTA_FILTRO + filtro.forma();
+    }
 
-            // Ejecutar la consulta y obtener resultados
-            resultados = em.createQuery(cq).getResultList();
+    /**
+     * Arma con Criteria la consulta de un filtro, con un parámetro por cada
+     * criterio que se aplica. Los valores no forman parte de la consulta.
+     *
+     * @param cb CriteriaBuilder de la unidad de persistencia.
+     * @param filtro Filtro del que se toman los criterios y el orden.
+     * @return La consulta.
+     */
+    private static CriteriaQuery<Reserva> criteriosFiltro(CriteriaBuilder cb,
+            FiltroReserva filtro) {
+        CriteriaQuery<Reserva> cq = cb.createQuery(Reserva.class);
+        Root<Reserva> reserva = cq.from(Reserva.class);
+        reserva.fetch("cliente"); // El cliente se lee en la misma consulta
+        Path<Cliente> cliente = reserva.get("cliente");
+        Path<Mesa> mesa = reserva.get("mesa");
+        Path<LocalDateTime> fecha = reserva.get("fechaHoraReserva");
+        Path<Long> id = reserva.get("id");
+
+        List<Predicate> predicados = new ArrayList<>();
+        if (FiltroReserva.aplica(filtro.getNombreCliente())) {
+            predicados.add(cb.like(cb.lower(cliente.<String>get("nombre")),
+                    cb.parameter(String.class, "nombre"), ESCAPE_LIKE));
+        }
+        // El telefono se guarda cifrado; se compara su indice ciego
+        if (FiltroReserva.aplica(filtro.getTelefonoCliente())) {
+            predicados.add(cb.equal(cliente.get("telefonoIdx"),
+                    cb.parameter(String.class, "telefonoIdx")));
+        }
+        if (filtro.getIdCliente() != null) {
+            predicados.add(cb.equal(cliente.get("id"),
+                    cb.parameter(Long.class, "clienteId")));
+        }
+        // Las mesas son pocas: comparar en mayúsculas no cambia el plan
+        if (FiltroReserva.aplica(filtro.getTipoMesa())) {
+            predicados.add(cb.equal(cb.upper(mesa.<String>get("tipoMesa")),
+                    cb.parameter(String.class, "tipoMesa")));
+        }
+        if (FiltroReserva.aplica(filtro.getUbicacion())) {
+            predicados.add(cb.equal(cb.upper(mesa.<String>get("ubicacion")),
+                    cb.parameter(String.class, "ubicacion")));
+        }
+        if (filtro.getCapacidad() != null) {
+            ParameterExpression<Integer> capacidad = cb.parameter(Integer.class, "capacidad");
+            predicados.add(cb.lessThanOrEqualTo(mesa.<Integer>get("capacidadMinima"), capacidad));
+            predicados.add(cb.greaterThanOrEqualTo(mesa.<Integer>get("capacidadMaxima"), capacidad));
+        }
+        // El estado se guarda en mayúsculas; se compara tal cual para usar
+        // el índice (mesa, estado, fecha)
+        if (FiltroReserva.aplica(filtro.getEstado())) {
+            predicados.add(cb.equal(reserva.get("estado"),
+                    cb.parameter(String.class, "estado")));
+        }
+        if (filtro.getDesde() != null) {
+            predicados.add(cb.greaterThanOrEqualTo(fecha,
+                    cb.parameter(LocalDateTime.class, "desde")));
+        }
+        if (filtro.getHasta() != null) {
+            predicados.add(cb.lessThanOrEqualTo(fecha,
+                    cb.parameter(LocalDateTime.class, "hasta")));
+        }
 
-        } catch (PersistenceException pe) {
-            LOG.log(Level.SEVERE, "Error al buscar reservas por filtros: {0}",
-                    pe.getMessage());
+        boolean ascendente = filtro.getOrden() == FiltroReserva.Orden.FECHA_ASCENDENTE;
+        if (filtro.tieneCursor()) {
+            // Igual que Reserva.paginaSiguiente y Reserva.paginaAnterior
+            ParameterExpression<LocalDateTime> fechaCursor = cb.parameter(
+                    LocalDateTime.class, "cursorFecha");
+            ParameterExpression<Long> idCursor = cb.parameter(Long.class, "cursorId");
+            predicados.add(ascendente
+                    ? cb.and(cb.greaterThanOrEqualTo(fecha, fechaCursor),
+                            cb.or(cb.greaterThan(fecha, fechaCursor), cb.greaterThan(id, idCursor)))
+                    : cb.and(cb.lessThanOrEqualTo(fecha, fechaCursor),
+                            cb.or(cb.lessThan(fecha, fechaCursor), cb.lessThan(id, idCursor))));
+        }
 
-            throw new DAOException("Error al buscar reservas");
+        cq.select(reserva).where(predicados.toArray(new Predicate[0]));
+        if (filtro.getOrden() != null) {
+            cq.orderBy(ascendente ? cb.asc(fecha) : cb.desc(fecha),
+                    ascendente ? cb.asc(id) : cb.desc(id));
+        }
+        return cq;
+    }
 
-        } catch (ConexionException ex) {
-            Logger.getLogger(ReservaDAO.class.getName()).log(Level.SEVERE,
-                    null, ex);
+    /**
+     * Asigna a la consulta de un filtro los valores de sus criterios.
+     *
+     * @param query Consulta de la forma del filtro.
+     * @param filtro Filtro del que se toman los valores.
+     * @throws DAOException Si no se puede calcular el indice del telefono.
+     */
+    private void asignarParametros(TypedQuery<Reserva> query, FiltroReserva filtro)
+            throws DAOException {
+        if (FiltroReserva.aplica(filtro.getNombreCliente())) {
+            query.setParameter("nombre", "%" + escaparLike(filtro.getNombreCliente()
+                    .toLowerCase()) + "%");
+        }
+        if (FiltroReserva.aplica(filtro.getTelefonoCliente())) {
+            query.setParameter("telefonoIdx", indiceTelefono(filtro.getTelefonoCliente()));
+        }
+        if (filtro.getIdCliente() != null) {
+            query.setParameter("clienteId", filtro.getIdCliente());
+        }
+        if (FiltroReserva.aplica(filtro.getTipoMesa())) {
+            query.setParameter("tipoMesa", filtro.getTipoMesa().toUpperCase());
+        }
+        if (FiltroReserva.aplica(filtro.getUbicacion())) {
+            query.setParameter("ubicacion", filtro.getUbicacion().toUpperCase());
+        }
+        if (filtro.getCapacidad() != null) {
+            query.setParameter("capacidad", filtro.getCapacidad());
+        }
+        if (FiltroReserva.aplica(filtro.getEstado())) {
+            query.setParameter("estado", filtro.getEstado().toUpperCase());
+        }
+        if (filtro.getDesde() != null) {
+            query.setParameter("desde", filtro.getDesde());
+        }
+        if (filtro.getHasta() != null) {
+            query.setParameter("hasta", filtro.getHasta());
+        }
+        if (filtro.tieneCursor()) {
+            query.setParameter("cursorFecha", filtro.getDespuesDeFecha());
+            query.setParameter("cursorId", filtro.getDespuesDeId());
+        }
+    }
 
-        } finally {
-            if (em != null) {
-                em.close();
+    /**
+     * Escapa los comodines de LIKE para que el texto se busque tal cual.
+     *
+     * @param texto Texto a buscar.
+     * @return El texto con {@code %}, {@code _} y el escape escapados.
+     */
+    private static String escaparLike(String texto) {
+        StringBuilder escapado = new StringBuilder(texto.length());
+        for (char c : texto.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE_LIKE) {
+                escapado.append(ESCAPE_LIKE);
             }
+            escapado.append(c);
         }
-
-        return resultados; // Devolver la lista de reservas
+        return escapado.toString();
     }
 
     /**
@@ -316,20 +779,20 @@ public class ReservaDAO implements IReservaDAO {
      */
     @Override
     public boolean verificarReservaciones(Cliente cliente) throws DAOException {
+        if (cliente == null || cliente.getId() == null) {
+            return false; // un cliente sin guardar no tiene reservaciones
+        }
         EntityManager em = null;
         try {
             LocalDateTime horaActual = LocalDateTime.now();
             em = conexion.getEntityManager();
 
-            TypedQuery<Long> query = em.createQuery(
-                    "SELECT COUNT(r) FROM Reserva r "
-                    + "WHERE r.cliente = :cliente "
-                    + "AND r.estado = 'ACTIVA' "
-                    + "AND r.fechaHoraReserva >= :horaActual", Long.class); // Ajuste en el operador
-            query.setParameter("cliente", cliente);
-            query.setParameter("horaActual", horaActual);
-
-            return query.getSingleResult() > 0;
+            // Basta con encontrar una; no hace falta contarlas todas
+            return !em.createNamedQuery("Reserva.activaDeCliente", Long.class)
+                    .setParameter("clienteId", cliente.getId())
+                    .setParameter("desde", horaActual)
+                    .setMaxResults(1)
+                    .getResultList().isEmpty();
 
         } catch (PersistenceException pe) {
             LOG.log(Level.SEVERE, "Error al verificar las reservaciones "
@@ -362,7 +825,7 @@ public class ReservaDAO implements IReservaDAO {
             em.getTransaction().begin(); // Iniciar la transacción
 
             // Crear y ejecutar la consulta
-            reservas = em.createQuery("SELECT r FROM Reserva r", Reserva.class).getResultList();
+            reservas = em.createNamedQuery("Reserva.obtenerTodas", Reserva.class).getResultList();
 
             em.getTransaction().commit(); // Confirmar la transacción
         } catch (PersistenceException pe) {
@@ -387,6 +850,350 @@ public class ReservaDAO implements IReservaDAO {
         return reservas; // Devolver la lista de reservas
     }
 
+    /**
+     * Obtiene el id y el último cambio de las reservas insertadas o
+     * actualizadas desde la fecha y hora dadas. Es un rango sobre el índice
+     * de {@code actualizado_en}, que ya incluye el id, así que no se leen las
+     * filas y el costo depende de los cambios y no del total de reservas.
+     *
+     * @param desde Fecha y hora del servidor desde la que se buscan cambios.
+     * @return lista con el id y el último cambio de cada reserva.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public List<VersionReserva> obtenerVersionesReservas(LocalDateTime desde)
+            throws DAOException {
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
+            return em.createNamedQuery("Reserva.versionesDesde", VersionReserva.class)
+                    .setParameter("desde", desde)
+                    .getResultList();
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al obtener las versiones de las reservas", pe);
+            throw new DAOException("Error al consultar las reservas cambiadas", pe);
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al consultar las reservas cambiadas", ex);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Obtiene las reservas con los ids dados, con una consulta IN por cada
+     * {@value #IDS_POR_CONSULTA} ids.
+     *
+     * @param ids Ids de las reservas.
+     * @return lista de las reservas encontradas, ordenadas por id.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public List<Reserva> obtenerReservasPorIds(List<Long> ids) throws DAOException {
+        List<Reserva> reservas = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return reservas;
+        }
+        List<Long> ordenados = new ArrayList<>(ids);
+        Collections.sort(ordenados);
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
+            TypedQuery<Reserva> query = em.createNamedQuery("Reserva.porIds", Reserva.class);
+            for (int i = 0; i < ordenados.size(); i += IDS_POR_CONSULTA) {
+                query.setParameter("ids", ordenados.subList(i,
+                        Math.min(i + IDS_POR_CONSULTA, ordenados.size())));
+                reservas.addAll(query.getResultList());
+            }
+            return reservas;
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al obtener las reservas por id", pe);
+            throw new DAOException("Error al consultar las reservas", pe);
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al consultar las reservas", ex);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Obtiene las filas que muestran las tablas de reservas (mesa, fecha,
+     * tipo, ubicación y cliente), ordenadas por fecha y hora. Las columnas se
+     * leen directamente en la consulta, sin construir las entidades.
+     *
+     * @return lista con las filas de todas las reservas.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public List<ReservaFila> obtenerFilasReservas() throws DAOException {
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
+            return em.createNamedQuery("Reserva.filas", ReservaFila.class)
+                    .getResultList();
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al obtener las filas de reservas", pe);
+            throw new DAOException("Error al consultar las reservas", pe);
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al consultar las reservas", ex);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Obtiene la ocupación de las mesas (id de la reserva, código de la mesa y
+     * hora de inicio) de las reservas activas posteriores a la fecha dada.
+     * Solo se leen esas tres columnas, sin construir las entidades.
+     *
+     * @param desde Fecha a partir de la cual se consultan las reservas.
+     * @return lista con la ocupación de las mesas.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public List<OcupacionMesa> obtenerOcupacionActiva(LocalDateTime desde)
+            throws DAOException {
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
+            return em.createNamedQuery("Reserva.ocupacionActiva", OcupacionMesa.class)
+                    .setParameter("desde", desde)
+                    .getResultList();
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al obtener la ocupación de las mesas", pe);
+            throw new DAOException("Error al obtener la ocupación de las mesas", pe);
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al obtener la ocupación de las mesas", ex);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Obtiene la ocupación de una mesa (id de la reserva, código de la mesa y
+     * hora de inicio) de sus reservas activas entre dos fechas, excluidas.
+     *
+     * @param codigoMesa Código de la mesa.
+     * @param desde Inicio del intervalo.
+     * @param hasta Fin del intervalo.
+     * @return lista con la ocupación de la mesa.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public List<OcupacionMesa> obtenerOcupacionMesa(String codigoMesa,
+            LocalDateTime desde, LocalDateTime hasta) throws DAOException {
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
+            return em.createNamedQuery("Reserva.ocupacionMesa", OcupacionMesa.class)
+                    .setParameter("codigoMesa", codigoMesa)
+                    .setParameter("desde", desde)
+                    .setParameter("hasta", hasta)
+                    .getResultList();
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al obtener la ocupación de la mesa", pe);
+            throw new DAOException("Error al obtener la ocupación de la mesa", pe);
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al obtener la ocupación de la mesa", ex);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Cuenta las reservas registradas, de cualquier estado.
+     *
+     * @return el número de reservas.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public long contarReservas() throws DAOException {
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
+            return em.createNamedQuery("Reserva.contar", Long.class).getSingleResult();
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al contar las reservas", pe);
+            throw new DAOException("Error al contar las reservas", pe);
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al contar las reservas", ex);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Obtiene una página de reservas recorriendo el orden (fecha, id) a
+     * partir de una reserva de referencia (paginación por llave, sin
+     * OFFSET).
+     *
+     * @param fecha Fecha y hora de la reserva de referencia, o null para
+     * empezar desde un extremo.
+     * @param id Id de la reserva de referencia.
+     * @param adelante true para avanzar, false para retroceder.
+     * @param limite Número máximo de reservas.
+     * @return Las reservas de la página en orden ascendente.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public List<Reserva> obtenerPaginaReservas(LocalDateTime fecha, Long id,
+            boolean adelante, int limite) throws DAOException {
+        EntityManager em = null;
+        try {
+            em = conexion.getEntityManager();
+            TypedQuery<Reserva> query;
+            if (fecha == null) {
+                query = em.createNamedQuery(adelante ? "Reserva.paginaPrimera"
+                        : "Reserva.paginaUltima", Reserva.class);
+            } else {
+                query = em.createNamedQuery(adelante ? "Reserva.paginaSiguiente"
+                        : "Reserva.paginaAnterior", Reserva.class)
+                        .setParameter("fecha", fecha)
+                        .setParameter("id", id != null ? id : (adelante ? 0L : Long.MAX_VALUE));
+            }
+            List<Reserva> reservas = new ArrayList<>(query
+                    .setMaxResults(limite)
+                    .getResultList());
+            if (!adelante) {
+                Collections.reverse(reservas); // Se leyeron en orden inverso
+            }
+            return reservas;
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al obtener la página de reservas: {0}", pe.getMessage());
+            throw new DAOException("Error al consultar las reservas");
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al consultar las reservas");
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Recorre las reservas de un rango de fechas con un cursor de solo
+     * avance. El driver entrega las filas en bloques de
+     * {@value #TAMANO_BLOQUE_LECTURA} y, al terminar cada bloque, se
+     * descartan las reservas ya entregadas, así que la memoria usada no crece
+     * con el rango. El cliente se lee en la misma consulta porque, con un
+     * cursor, la lectura por lotes lo pediría reserva por reserva.
+     *
+     * @param inicio Fecha y hora de inicio del rango.
+     * @param fin Fecha y hora de fin del rango.
+     * @param consumidor Recibe cada reserva leída.
+     * @return Número de reservas recorridas.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    @Override
+    public long recorrerReservas(LocalDateTime inicio, LocalDateTime fin,
+            Consumer<Reserva> consumidor) throws DAOException {
+        EntityManager em = null;
+        ScrollableCursor cursor = null;
+        long leidas = 0;
+        try {
+            em = conexion.getEntityManager();
+            cursor = (ScrollableCursor) em.createNamedQuery("Reserva.exportarRango")
+                    .setParameter("inicio", inicio)
+                    .setParameter("fin", fin)
+                    .setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE)
+                    .setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly)
+                    .setHint(QueryHints.RESULT_SET_CONCURRENCY, ResultSetConcurrency.ReadOnly)
+                    .setHint(QueryHints.JDBC_FETCH_SIZE, TAMANO_BLOQUE_LECTURA)
+                    .getSingleResult();
+            while (cursor.hasNext()) {
+                consumidor.accept((Reserva) cursor.next());
+                if (++leidas % TAMANO_BLOQUE_LECTURA == 0) {
+                    liberarBloque(em, cursor);
+                }
+            }
+            LOG.log(Level.FINE, "Reservas recorridas: {0}", leidas);
+            return leidas;
+        } catch (PersistenceException pe) {
+            LOG.log(Level.SEVERE, "Error al recorrer las reservas: {0}", pe.getMessage());
+            throw new DAOException("Error al consultar las reservas", pe);
+        } catch (ConexionException ex) {
+            LOG.log(Level.SEVERE, "Error al realizar la conexion", ex);
+            throw new DAOException("Error al consultar las reservas", ex);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Descarta las reservas ya entregadas por el cursor. Además del cursor y
+     * del contexto de persistencia, se vacían las filas que guarda la lectura
+     * por lotes ({@code @BatchFetch}) de la consulta: con un cursor las va
+     * acumulando todas para armar sus consultas IN y nunca las suelta. Sin
+     * esto {@code RecorrerReservasMemoriaTest} se queda sin memoria.
+     *
+     * @param em EntityManager de la consulta.
+     * @param cursor Cursor de la consulta.
+     */
+    private void liberarBloque(EntityManager em, ScrollableCursor cursor) {
+        cursor.clear();
+        em.clear();
+        if (cursor.getQuery() instanceof ObjectLevelReadQuery) {
+            BatchFetchPolicy lotes = ((ObjectLevelReadQuery) cursor.getQuery())
+                    .getBatchFetchPolicy();
+            if (lotes != null && lotes.getDataResults() != null) {
+                lotes.getDataResults().values().forEach(List::clear);
+            }
+        }
+    }
+
+    /**
+     * Construye la consulta JPQL de {@link #buscarReservas} con los filtros
+     * indicados. Es pública para que la herramienta de pruebas
+     * {@code Herramientas.AsesorIndices} revise el plan de la misma consulta
+     * que se ejecuta.
+     *
+     * El orden por fecha e id hace que la base de datos recorra el índice de
+     * fechas en lugar de todos los clientes cuando se filtra por fechas.
+     *
+     * @param porNombre Si se filtra por nombre del cliente ({@code :nombre}).
+     * @param desde Si se filtra por fecha inicial ({@code :inicio}).
+     * @param hasta Si se filtra por fecha final ({@code :fin}).
+     * @return La consulta JPQL.
+     */
+    public static String consultaBuscarReservas(boolean porNombre, boolean desde,
+            boolean hasta) {
+        StringBuilder jpql = new StringBuilder("SELECT r FROM Reserva r "
+                + "JOIN FETCH r.cliente WHERE 1=1");
+        if (porNombre) {
+            jpql.append(" AND r.cliente.nombre LIKE :nombre");
+        }
+        if (desde) {
+            jpql.append(" AND r.fechaHoraReserva >= :inicio");
+        }
+        if (hasta) {
+            jpql.append(" AND r.fechaHoraReserva <= :fin");
+        }
+        return jpql.append(" ORDER BY r.fechaHoraReserva, r.id").toString();
+    }
+
     /**
      * Buscar reservas por nombre y intervalo de fechas. Esta opción permite
      * buscar únicamente por nombre, buscar por intervalo de fechas o todos en
@@ -408,22 +1215,11 @@ public class ReservaDAO implements IReservaDAO {
             em = conexion.getEntityManager();
             em.getTransaction().begin();
 
-            // Construir la consulta base
-            StringBuilder jpql = new StringBuilder("SELECT r FROM Reserva r WHERE 1=1");
-
-            // Filtros dinámicos
-            if (nombre != null && !nombre.isEmpty()) {
-                jpql.append(" AND r.cliente.nombre LIKE :nombre");
-            }
-            if (inicio != null) {
-                jpql.append(" AND r.fechaHoraReserva >= :inicio");
-            }
-            if (fin != null) {
-                jpql.append(" AND r.fechaHoraReserva <= :fin");
-            }
-
-            // Crear la consulta con el JPQL construido
-            TypedQuery<Reserva> query = em.createQuery(jpql.toString(), Reserva.class);
+            // Crear la consulta con los filtros que se usan
+            String jpql = consultaBuscarReservas(nombre != null && !nombre.isEmpty(),
+                    inicio != null, fin != null);
+            TypedQuery<Reserva> query = em.createQuery(jpql, Reserva.class)
+                    .setHint(QueryHints.READ_ONLY, HintValues.TRUE);
 
             // Establecer los parámetros según corresponda
             if (nombre != null && !nombre.isEmpty()) {
@@ -504,5 +1300,22 @@ public class ReservaDAO implements IReservaDAO {
                 em.close();
             }
         }
-    }    
+    }
+
+    /**
+     * Calcula el indice ciego de un telefono para compararlo con la columna
+     * {@code telefono_idx} de los clientes.
+     *
+     * @param telefono Telefono en texto plano.
+     * @return Indice ciego del telefono.
+     * @throws DAOException Si no se puede calcular el indice.
+     */
+    private String indiceTelefono(String telefono) throws DAOException {
+        try {
+            return phoneCipher.indiceCiego(telefono);
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Error al calcular el indice del telefono", e);
+            throw new DAOException("Error al procesar el telefono", e);
+        }
+    }
 }
@@ -41,7 +41,7 @@ public class RestauranteDAO implements IRestauranteDAO {
         Restaurante restaurante = null;
         try {
             em = conexion.getEntityManager(); // Obtener el EntityManager
-            restaurante = em.createQuery("SELECT r FROM Restaurante r", Restaurante.class)
+            restaurante = em.createNamedQuery("Restaurante.obtenerTodos", Restaurante.class)
                     .setMaxResults(1)
                     .getSingleResult(); // Consultar el único restaurante
 
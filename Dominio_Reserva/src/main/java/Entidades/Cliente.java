@@ -6,28 +6,53 @@ package Entidades;
 
 import java.io.Serializable;
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Transient;
 
 /**
  * Clase encargada de modelar la entidad Cliente.
  * 
+ * Los clientes no se guardan en la caché compartida: su teléfono se descifra
+ * sobre la misma entidad y no debe quedar en texto plano para otras
+ * consultas.
+ * 
  * @author Sebastian Murrieta Verduzco - 233463
  */
 @Entity
 @Table(name = "clientes")
+@Cacheable(false)
+@NamedQueries({
+    @NamedQuery(name = "Cliente.obtenerTodos",
+            query = "SELECT c FROM Cliente c"),
+    @NamedQuery(name = "Cliente.buscarPorTelefonoIdx",
+            query = "SELECT c FROM Cliente c WHERE c.telefonoIdx = :idx")
+})
 public class Cliente implements Serializable{
     
     private static final long serialVersionUID = 1L;
+
+    // ids que se reservan de la tabla secuencias en cada consulta
+    static final int IDS_POR_BLOQUE = 500;
     
+    // El id se asigna al persistir, sin esperar al INSERT, para que la
+    // inserción masiva pueda enviar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "secuencia_clientes")
+    @TableGenerator(name = "secuencia_clientes", table = "secuencias",
+            pkColumnName = "nombre", valueColumnName = "valor",
+            pkColumnValue = "clientes", allocationSize = IDS_POR_BLOQUE)
     private Long id; // id del cliente
     
     @Column(name = "nombre",nullable = false)
@@ -36,9 +61,17 @@ public class Cliente implements Serializable{
     @Column(name = "telefono", nullable = false, unique = true)
     private String telefono; // telefono del cliente 
     
+    // Se escribe solo al insertar: los clientes que llegan de un DTO no lo
+    // traen y, al hacer merge, no deben borrar el de la base de datos
+    @Column(name = "telefono_idx", unique = true, length = 64, updatable = false)
+    private String telefonoIdx; // indice ciego (HMAC) del telefono.
+    
     @OneToMany(mappedBy = "cliente", cascade = CascadeType.PERSIST)
     private List<Reserva> reservas; // lista de reservas del cliente.
 
+    @Transient
+    private boolean telefonoCifrado; // indica si telefono esta cifrado.
+
     /**
      * Constructor por defecto de la clase 
      */
@@ -99,6 +132,22 @@ public class Cliente implements Serializable{
         this.telefono = telefono;
     }
 
+    public String getTelefonoIdx() {
+        return telefonoIdx;
+    }
+
+    public void setTelefonoIdx(String telefonoIdx) {
+        this.telefonoIdx = telefonoIdx;
+    }
+
+    public boolean isTelefonoCifrado() {
+        return telefonoCifrado;
+    }
+
+    public void setTelefonoCifrado(boolean telefonoCifrado) {
+        this.telefonoCifrado = telefonoCifrado;
+    }
+
     public List<Reserva> getReservas() {
         return reservas;
     }
@@ -107,6 +156,15 @@ public class Cliente implements Serializable{
         this.reservas = reservas;
     }
 
+    /**
+     * Marca el telefono como cifrado cuando el cliente se lee de la base de
+     * datos, ya que ahi siempre se almacena cifrado.
+     */
+    @PostLoad
+    private void marcarTelefonoCifrado() {
+        this.telefonoCifrado = true;
+    }
+
     /**
      * Metodo toString para obtener los atributos de la clase.
      * 
@@ -5,31 +5,82 @@
 package Entidades;
 
 import java.io.Serializable;
-import java.util.List;
-import javax.persistence.CascadeType;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
-import javax.persistence.OneToMany;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheType;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 
 /**
- * Clase encargada de modelar la entidad Mesa
+ * Clase encargada de modelar la entidad Mesa.
+ * 
+ * Las mesas casi no cambian, así que se guardan en la caché compartida de
+ * EclipseLink (hasta 500 con referencia fuerte) y los resultados de las
+ * consultas de mesas se guardan 5 minutos; al agregar mesas la caché se
+ * invalida en {@code MesaDAO.agregarMesas}. La mesa no mapea la lista de sus
+ * reservas: las reservas no van en la caché compartida y esa relación
+ * obligaría a EclipseLink a sacar también a la mesa de ella.
  * 
  * @author Sebastian Murrieta Verduzco - 233463
  */
 @Entity
-@Table(name = "mesas")
+@Table(name = "mesas", indexes = {
+    @Index(name = "ix_mesas_tipo_mesa", columnList = "tipo_mesa"),
+    @Index(name = "ix_mesas_ubicacion", columnList = "ubicacion")
+})
+@Cacheable(true)
+@Cache(type = CacheType.SOFT_WEAK, size = 500)
+@NamedQueries({
+    @NamedQuery(name = "Mesa.obtenerTodas",
+            query = "SELECT m FROM Mesa m",
+            hints = {
+                @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE, value = HintValues.TRUE),
+                @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE_SIZE, value = "1"),
+                @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE_EXPIRY, value = "300000")
+            }),
+    @NamedQuery(name = "Mesa.obtenerPorTipo",
+            query = "SELECT m FROM Mesa m WHERE m.tipoMesa = :tipo",
+            hints = {
+                @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE, value = HintValues.TRUE),
+                @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE_SIZE, value = "20"),
+                @QueryHint(name = QueryHints.QUERY_RESULTS_CACHE_EXPIRY, value = "300000")
+            }),
+    @NamedQuery(name = "Mesa.buscarPorCodigo",
+            query = "SELECT m FROM Mesa m WHERE m.codigoMesa = :codigoMesa"),
+    @NamedQuery(name = "Mesa.codigosExistentes",
+            query = "SELECT m.codigoMesa FROM Mesa m WHERE m.codigoMesa IN :codigos"),
+    @NamedQuery(name = "Mesa.contarPorUbicacion",
+            query = "SELECT COUNT(m) FROM Mesa m WHERE m.ubicacion = :ubicacion")
+})
 public class Mesa implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // ids que se reservan de la tabla secuencias en cada consulta
+    static final int IDS_POR_BLOQUE = 500;
+
+    // El id se asigna al persistir, sin esperar al INSERT, para que
+    // agregarMesas pueda enviar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "secuencia_mesas")
+    @TableGenerator(name = "secuencia_mesas", table = "secuencias",
+            pkColumnName = "nombre", valueColumnName = "valor",
+            pkColumnValue = "mesas", allocationSize = IDS_POR_BLOQUE)
     private Long id; // id de la mesa.
 
     @Column(name = "codigo_mesa", nullable = false, unique = true)
@@ -49,11 +100,9 @@ public class Mesa implements Serializable {
 
     @ManyToOne
     @JoinColumn(name = "restaurante_id", nullable = false)
+    @BatchFetch(value = BatchFetchType.IN, size = Reserva.TAMANO_LOTE)
     private Restaurante restaurante; // restaurante asociado a la mesa.
 
-    @OneToMany(mappedBy = "mesa", cascade = CascadeType.PERSIST)
-    private List<Reserva> reservas; // lista de reservas asociada a la mesa.
-
     /**
      * Constructor por defecto de la clase.
      */
@@ -90,11 +139,10 @@ public class Mesa implements Serializable {
      * @param capacidadMaxima capacidad maxima de la mesa.
      * @param ubicacion ubicacion de la mesa.
      * @param restaurante restaurante asociado a la mesa. 
-     * @param reservas lista de reservas asociada a la mesa.
      */
     public Mesa(Long id, String codigoMesa, String tipoMesa, 
             int capacidadMinima, int capacidadMaxima, String ubicacion, 
-            Restaurante restaurante, List<Reserva> reservas) {
+            Restaurante restaurante) {
         this.id = id;
         this.codigoMesa = codigoMesa;
         this.tipoMesa = tipoMesa;
@@ -102,7 +150,6 @@ public class Mesa implements Serializable {
         this.capacidadMaxima = capacidadMaxima;
         this.ubicacion = ubicacion;
         this.restaurante = restaurante;
-        this.reservas = reservas;
     }
 
     //Getters y Setters
@@ -163,14 +210,6 @@ public class Mesa implements Serializable {
         this.restaurante = restaurante;
     }
 
-    public List<Reserva> getReservas() {
-        return reservas;
-    }
-
-    public void setReservas(List<Reserva> reservas) {
-        this.reservas = reservas;
-    }
-
     /**
      * Metodo toString para representar en linea de texto los atributos 
      * de la clase.
@@ -182,8 +221,7 @@ public class Mesa implements Serializable {
         return "Mesa{" + "id=" + id + ", codigoMesa=" + codigoMesa + 
                 ", tipoMesa=" + tipoMesa + ", capacidadMinima=" + 
                 capacidadMinima + ", capacidadMaxima=" + capacidadMaxima + 
-                ", ubicacion=" + ubicacion + ", restaurante=" + restaurante + 
-                ", reservas=" + reservas + '}';
+                ", ubicacion=" + ubicacion + ", restaurante=" + restaurante + '}';
     }
 
         
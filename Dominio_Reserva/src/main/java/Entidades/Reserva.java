@@ -6,26 +6,117 @@ package Entidades;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 
 /**
  * Clase encargada de modelar la entidad Reserva.
  *
+ * Las reservas cambian con frecuencia y desde varias terminales, así que no
+ * se guardan en la caché compartida; siempre se leen de la base de datos.
+ *
  * @author Sebastian Murrieta Verduzco - 233463
  */
 @Entity
-@Table(name = "reservas")
+@Cacheable(false)
+@Table(name = "reservas", indexes = {
+    @Index(name = "ix_reservas_mesa_estado_fecha",
+            columnList = "mesa_id, estado, fecha_hora_reserva"),
+    @Index(name = "ix_reservas_fecha_id",
+            columnList = "fecha_hora_reserva, id"),
+    @Index(name = "ix_reservas_fecha_id_desc",
+            columnList = "fecha_hora_reserva DESC, id DESC"),
+    @Index(name = "ix_reservas_cliente_estado_fecha",
+            columnList = "cliente_id, estado, fecha_hora_reserva"),
+    @Index(name = "ix_reservas_actualizado_en",
+            columnList = "actualizado_en")
+})
+@NamedQueries({
+    @NamedQuery(name = "Reserva.obtenerTodas",
+            query = "SELECT r FROM Reserva r JOIN FETCH r.cliente ORDER BY r.id",
+            hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)),
+    @NamedQuery(name = "Reserva.versionesDesde",
+            query = "SELECT NEW Proyecciones.VersionReserva(r.id, r.actualizadoEn) "
+            + "FROM Reserva r WHERE r.actualizadoEn >= :desde"),
+    @NamedQuery(name = "Reserva.porIds",
+            query = "SELECT r FROM Reserva r JOIN FETCH r.cliente "
+            + "WHERE r.id IN :ids ORDER BY r.id",
+            hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)),
+    @NamedQuery(name = "Reserva.paginaPrimera",
+            query = "SELECT r FROM Reserva r "
+            + "ORDER BY r.fechaHoraReserva, r.id"),
+    @NamedQuery(name = "Reserva.paginaUltima",
+            query = "SELECT r FROM Reserva r "
+            + "ORDER BY r.fechaHoraReserva DESC, r.id DESC"),
+    @NamedQuery(name = "Reserva.paginaSiguiente",
+            query = "SELECT r FROM Reserva r "
+            + "WHERE r.fechaHoraReserva >= :fecha "
+            + "AND (r.fechaHoraReserva > :fecha OR r.id > :id) "
+            + "ORDER BY r.fechaHoraReserva, r.id"),
+    @NamedQuery(name = "Reserva.paginaAnterior",
+            query = "SELECT r FROM Reserva r "
+            + "WHERE r.fechaHoraReserva <= :fecha "
+            + "AND (r.fechaHoraReserva < :fecha OR r.id < :id) "
+            + "ORDER BY r.fechaHoraReserva DESC, r.id DESC"),
+    @NamedQuery(name = "Reserva.exportarRango",
+            query = "SELECT r FROM Reserva r JOIN FETCH r.cliente "
+            + "WHERE r.fechaHoraReserva BETWEEN :inicio AND :fin "
+            + "ORDER BY r.fechaHoraReserva, r.id",
+            hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)),
+    @NamedQuery(name = "Reserva.consultarPorFecha",
+            query = "SELECT r FROM Reserva r JOIN FETCH r.cliente "
+            + "WHERE r.fechaHoraReserva BETWEEN :inicio AND :fin "
+            + "ORDER BY r.fechaHoraReserva, r.id"),
+    @NamedQuery(name = "Reserva.traslapePorMesa",
+            query = "SELECT r.id FROM Reserva r WHERE r.mesa.id = :mesaId "
+            + "AND r.estado = 'ACTIVA' AND r.fechaHoraReserva > :desde "
+            + "AND r.fechaHoraReserva < :hasta"),
+    @NamedQuery(name = "Reserva.traslapePorCodigoMesa",
+            query = "SELECT r.id FROM Reserva r WHERE r.mesa.codigoMesa = :codigoMesa "
+            + "AND r.estado = 'ACTIVA' AND r.fechaHoraReserva > :desde "
+            + "AND r.fechaHoraReserva < :hasta"),
+    @NamedQuery(name = "Reserva.activaDeCliente",
+            query = "SELECT r.id FROM Reserva r WHERE r.cliente.id = :clienteId "
+            + "AND r.estado = 'ACTIVA' AND r.fechaHoraReserva >= :desde"),
+    @NamedQuery(name = "Reserva.ocupacionActiva",
+            query = "SELECT NEW Proyecciones.OcupacionMesa(r.id, r.mesa.codigoMesa, "
+            + "r.fechaHoraReserva) FROM Reserva r WHERE r.estado = 'ACTIVA' "
+            + "AND r.fechaHoraReserva > :desde"),
+    @NamedQuery(name = "Reserva.ocupacionMesa",
+            query = "SELECT NEW Proyecciones.OcupacionMesa(r.id, r.mesa.codigoMesa, "
+            + "r.fechaHoraReserva) FROM Reserva r WHERE r.mesa.codigoMesa = :codigoMesa "
+            + "AND r.estado = 'ACTIVA' AND r.fechaHoraReserva > :desde "
+            + "AND r.fechaHoraReserva < :hasta"),
+    @NamedQuery(name = "Reserva.contar",
+            query = "SELECT COUNT(r) FROM Reserva r"),
+    @NamedQuery(name = "Reserva.filas",
+            query = "SELECT NEW Proyecciones.ReservaFila(r.id, m.codigoMesa, "
+            + "r.fechaHoraReserva, m.tipoMesa, m.ubicacion, c.nombre) "
+            + "FROM Reserva r JOIN r.mesa m JOIN r.cliente c "
+            + "ORDER BY r.fechaHoraReserva, r.id")
+})
 public class Reserva implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // ids por consulta IN al leer las relaciones de una lista de reservas
+    static final int TAMANO_LOTE = 500;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id; // id de la reserva.
@@ -42,18 +133,30 @@ public class Reserva implements Serializable {
     @Column(nullable = false)
     private String estado; // Estado de la reserva Ejemplo: activa, cancelada.
 
+    // Las relaciones de una lista de reservas se leen con una consulta IN
+    // por relacion, no con una consulta por cada reserva
     @ManyToOne
     @JoinColumn(name = "cliente_id", nullable = false)
+    @BatchFetch(value = BatchFetchType.IN, size = TAMANO_LOTE)
     private Cliente cliente; // Cliente al que le pertenece la reserva.
 
     @ManyToOne
     @JoinColumn(name = "mesa_id", nullable = false)
+    @BatchFetch(value = BatchFetchType.IN, size = TAMANO_LOTE)
     private Mesa mesa; // Mesa a la que le pertenece la reserva.
 
     @ManyToOne
     @JoinColumn(name = "restaurante_id", nullable = false)
+    @BatchFetch(value = BatchFetchType.IN, size = TAMANO_LOTE)
     private Restaurante restaurante; // Restaurante al que pertenece la reserva.
 
+    // Fecha y hora del último cambio de la fila; la asigna la base de datos
+    // al insertar y al actualizar, así que JPA solo la lee
+    @Column(name = "actualizado_en", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) "
+            + "ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime actualizadoEn;
+
     /**
      * Constructor por defecto de la clase.
      *
@@ -175,6 +278,10 @@ public class Reserva implements Serializable {
         this.restaurante = restaurante;
     }
 
+    public LocalDateTime getActualizadoEn() {
+        return actualizadoEn;
+    }
+
     /**
      * Metodo toString para representar en linea de texto los atributos de la
      * clase.
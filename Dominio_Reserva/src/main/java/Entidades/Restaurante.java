@@ -7,22 +7,37 @@ package Entidades;
 import java.io.Serializable;
 import java.time.LocalTime;
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheType;
 
 /**
  * Clase encargada de modelar la entidad Restaurante.
  * 
+ * El restaurante se guarda en la caché compartida de EclipseLink por 5
+ * minutos, para que un cambio de horario hecho en otra terminal se vea sin
+ * reiniciar la aplicación.
+ * 
  * @author Sebastian Murrieta Verduzco - 233463
  */
 @Entity
 @Table(name = "restaurantes")
+@Cacheable(true)
+@Cache(type = CacheType.SOFT_WEAK, size = 10, expiry = 300000)
+@NamedQueries({
+    @NamedQuery(name = "Restaurante.obtenerTodos",
+            query = "SELECT r FROM Restaurante r")
+})
 public class Restaurante implements Serializable {
 
     private static final long serialVersionUID = 1L;
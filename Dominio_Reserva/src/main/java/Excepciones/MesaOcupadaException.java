@@ -0,0 +1,22 @@
+package Excepciones;
+
+/**
+ * Excepción que indica que no se pudo guardar una reserva porque la mesa ya
+ * tiene otra reserva activa que se traslapa con el horario solicitado. Se
+ * lanza cuando la verificación hecha dentro de la transacción, con la mesa
+ * bloqueada, encuentra el traslape.
+ * 
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MesaOcupadaException extends DAOException {
+
+    /**
+     * Constructor que crea una nueva instancia de 
+     * {@code MesaOcupadaException} con un mensaje específico.
+     * 
+     * @param message El mensaje de error que describe la excepción.
+     */
+    public MesaOcupadaException(String message) {
+        super(message);
+    }
+}
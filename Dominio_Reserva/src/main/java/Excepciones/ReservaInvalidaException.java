@@ -0,0 +1,40 @@
+package Excepciones;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Excepción que indica que una reserva no se guardó porque no cumple una o
+ * más reglas de negocio. Lleva todos los errores encontrados para poder
+ * informarlos al usuario de una sola vez.
+ * 
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class ReservaInvalidaException extends DAOException {
+
+    private static final long serialVersionUID = 1L;
+
+    // Arreglo y no lista, para que la excepción siga siendo serializable
+    private final String[] errores; // errores de validacion encontrados.
+
+    /**
+     * Constructor que crea una nueva instancia de 
+     * {@code ReservaInvalidaException} con los errores encontrados.
+     * 
+     * @param errores Los mensajes de los errores de validación.
+     */
+    public ReservaInvalidaException(List<String> errores) {
+        super(String.join("\n", errores));
+        this.errores = errores.toArray(new String[0]);
+    }
+
+    /**
+     * Obtiene los errores de validación de la reserva.
+     * 
+     * @return Lista no modificable con los mensajes de error.
+     */
+    public List<String> getErrores() {
+        return Collections.unmodifiableList(Arrays.asList(errores));
+    }
+}
@@ -0,0 +1,250 @@
+package Filtros;
+
+import java.time.LocalDateTime;
+
+/**
+ * Criterios de una búsqueda de reservas: cliente (nombre, teléfono o id),
+ * tipo y ubicación de la mesa, capacidad, estado y rango de fecha y hora,
+ * con el orden y la página del resultado. Un criterio null (o texto vacío) no
+ * se aplica.
+ *
+ * El mismo filtro se puede resolver en la base de datos
+ * ({@code ReservaDAO.buscarReservas(FiltroReserva)}, una sola consulta con
+ * parámetros) o sobre reservas ya cargadas en memoria, con los mismos
+ * resultados:
+ * <ul>
+ * <li>el nombre se busca contenido y el tipo de mesa, la ubicación y el estado
+ * se comparan sin distinguir mayúsculas;</li>
+ * <li>el rango de fecha y hora incluye sus extremos;</li>
+ * <li>la capacidad es la de una mesa en la que cabe ese número de
+ * personas.</li>
+ * </ul>
+ *
+ * Las páginas se piden por posición y no por número: con
+ * {@link #setDespuesDe} la búsqueda continúa después de la última reserva de
+ * la página anterior, en el orden pedido, sin contar las filas anteriores.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class FiltroReserva {
+
+    /**
+     * Orden del resultado: por fecha y hora, y por id entre reservas a la
+     * misma hora.
+     */
+    public enum Orden {
+        FECHA_ASCENDENTE,
+        FECHA_DESCENDENTE
+    }
+
+    private String nombreCliente; // texto contenido en el nombre del cliente.
+    private String telefonoCliente; // telefono del cliente, en texto plano.
+    private Long idCliente; // id del cliente.
+    private String tipoMesa; // tipo de la mesa.
+    private String ubicacion; // ubicacion de la mesa.
+    private Integer capacidad; // personas que deben caber en la mesa.
+    private String estado; // estado de la reserva.
+    private LocalDateTime desde; // inicio del rango de fecha y hora.
+    private LocalDateTime hasta; // fin del rango de fecha y hora.
+    private Orden orden; // orden del resultado; null = sin orden.
+    private Integer limite; // maximo de reservas; null = todas.
+    private LocalDateTime despuesDeFecha; // fecha de la ultima reserva vista.
+    private Long despuesDeId; // id de la ultima reserva vista.
+
+    /**
+     * Crea un filtro sin criterios, que encuentra todas las reservas.
+     */
+    public FiltroReserva() {
+    }
+
+    /**
+     * Crea una copia de otro filtro, para cambiar algún criterio sin
+     * modificar el original.
+     *
+     * @param otro Filtro a copiar.
+     */
+    public FiltroReserva(FiltroReserva otro) {
+        this.nombreCliente = otro.nombreCliente;
+        this.telefonoCliente = otro.telefonoCliente;
+        this.idCliente = otro.idCliente;
+        this.tipoMesa = otro.tipoMesa;
+        this.ubicacion = otro.ubicacion;
+        this.capacidad = otro.capacidad;
+        this.estado = otro.estado;
+        this.desde = otro.desde;
+        this.hasta = otro.hasta;
+        this.orden = otro.orden;
+        this.limite = otro.limite;
+        this.despuesDeFecha = otro.despuesDeFecha;
+        this.despuesDeId = otro.despuesDeId;
+    }
+
+    public String getNombreCliente() {
+        return nombreCliente;
+    }
+
+    public void setNombreCliente(String nombreCliente) {
+        this.nombreCliente = nombreCliente;
+    }
+
+    public String getTelefonoCliente() {
+        return telefonoCliente;
+    }
+
+    public void setTelefonoCliente(String telefonoCliente) {
+        this.telefonoCliente = telefonoCliente;
+    }
+
+    public Long getIdCliente() {
+        return idCliente;
+    }
+
+    public void setIdCliente(Long idCliente) {
+        this.idCliente = idCliente;
+    }
+
+    public String getTipoMesa() {
+        return tipoMesa;
+    }
+
+    public void setTipoMesa(String tipoMesa) {
+        this.tipoMesa = tipoMesa;
+    }
+
+    public String getUbicacion() {
+        return ubicacion;
+    }
+
+    public void setUbicacion(String ubicacion) {
+        this.ubicacion = ubicacion;
+    }
+
+    public Integer getCapacidad() {
+        return capacidad;
+    }
+
+    public void setCapacidad(Integer capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public LocalDateTime getDesde() {
+        return desde;
+    }
+
+    public void setDesde(LocalDateTime desde) {
+        this.desde = desde;
+    }
+
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(LocalDateTime hasta) {
+        this.hasta = hasta;
+    }
+
+    public Orden getOrden() {
+        return orden;
+    }
+
+    public void setOrden(Orden orden) {
+        this.orden = orden;
+    }
+
+    public Integer getLimite() {
+        return limite;
+    }
+
+    /**
+     * Limita la cantidad de reservas del resultado (el tamaño de página).
+     *
+     * @param limite Máximo de reservas, o null para todas.
+     */
+    public void setLimite(Integer limite) {
+        this.limite = limite;
+    }
+
+    public LocalDateTime getDespuesDeFecha() {
+        return despuesDeFecha;
+    }
+
+    public Long getDespuesDeId() {
+        return despuesDeId;
+    }
+
+    /**
+     * Continúa la búsqueda después de una reserva (la última de la página
+     * anterior). Solo se aplica si hay orden.
+     *
+     * @param fecha Fecha y hora de la reserva, o null para empezar desde el
+     * inicio.
+     * @param id Id de la reserva.
+     */
+    public void setDespuesDe(LocalDateTime fecha, Long id) {
+        this.despuesDeFecha = fecha;
+        this.despuesDeId = fecha != null ? id : null;
+    }
+
+    /**
+     * Indica si un criterio de texto se aplica.
+     *
+     * @param valor Valor del criterio.
+     * @return true si no es null ni vacío.
+     */
+    public static boolean aplica(String valor) {
+        return valor != null && !valor.isEmpty();
+    }
+
+    /**
+     * Indica si la búsqueda continúa después de una reserva.
+     *
+     * @return true si hay orden y reserva de referencia.
+     */
+    public boolean tieneCursor() {
+        return orden != null && despuesDeFecha != null && despuesDeId != null;
+    }
+
+    /**
+     * Obtiene la forma del filtro: qué criterios se aplican, el orden y si
+     * continúa después de una reserva, sin sus valores. Dos filtros con la
+     * misma forma se resuelven con la misma consulta y distintos parámetros.
+     *
+     * @return Texto que identifica la forma, por ejemplo {@code "nd-h-FA+"}.
+     */
+    public String forma() {
+        StringBuilder forma = new StringBuilder();
+        forma.append(aplica(nombreCliente) ? 'n' : '-')
+                .append(aplica(telefonoCliente) ? 't' : '-')
+                .append(idCliente != null ? 'c' : '-')
+                .append(aplica(tipoMesa) ? 'm' : '-')
+                .append(aplica(ubicacion) ? 'u' : '-')
+                .append(capacidad != null ? 'p' : '-')
+                .append(aplica(estado) ? 'e' : '-')
+                .append(desde != null ? 'd' : '-')
+                .append(hasta != null ? 'h' : '-');
+        if (orden != null) {
+            forma.append(orden == Orden.FECHA_ASCENDENTE ? "-FA" : "-FD");
+            if (tieneCursor()) {
+                forma.append('+');
+            }
+        }
+        return forma.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "FiltroReserva{" + "forma=" + forma() + ", nombreCliente=" + nombreCliente
+                + ", idCliente=" + idCliente + ", tipoMesa=" + tipoMesa
+                + ", ubicacion=" + ubicacion + ", capacidad=" + capacidad
+                + ", estado=" + estado + ", desde=" + desde + ", hasta=" + hasta
+                + ", limite=" + limite + '}';
+    }
+}
@@ -35,4 +35,25 @@ public interface IClienteDAO {
     
     public void insercionMasivaClientes(List<Cliente> clientes) throws DAOException;
     
+    /**
+     * Busca un cliente por su teléfono usando el indice ciego de la columna
+     * {@code telefono_idx}, sin descifrar el resto de la tabla.
+     * 
+     * @param telefono Teléfono del cliente en texto plano.
+     * @return El cliente con el teléfono descifrado, o {@code null} si no 
+     *         existe.
+     * @throws Excepciones.DAOException En caso de error en la base de datos.
+     */
+    public Cliente obtenerClientePorTelefono(String telefono) 
+            throws DAOException;
+    
+    /**
+     * Descifra el teléfono de un cliente que llegó cifrado.
+     * 
+     * @param telefonoCifrado Teléfono cifrado.
+     * @return El teléfono en texto plano.
+     * @throws Excepciones.DAOException Si el teléfono no se puede descifrar.
+     */
+    public String descifrarTelefono(String telefonoCifrado) throws DAOException;
+    
 }
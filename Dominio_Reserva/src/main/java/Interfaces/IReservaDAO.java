@@ -5,9 +5,16 @@ import Entidades.Cliente;
 import Entidades.Mesa;
 import Entidades.Reserva;
 import Excepciones.DAOException;
+import Filtros.FiltroReserva;
+import Proyecciones.ContextoReserva;
+import Proyecciones.OcupacionMesa;
+import Proyecciones.ReservaFila;
+import Proyecciones.VersionReserva;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Interfaz que define las operaciones básicas para la gestión de reservas en 
@@ -27,6 +34,32 @@ public interface IReservaDAO {
      */
     public void agregarReserva(Reserva reserva) throws DAOException;
     
+    /**
+     * Valida y guarda una reserva en una sola transacción. Los datos que
+     * necesitan las reglas de negocio se leen dentro de la transacción, con la
+     * mesa bloqueada, y se entregan a la validación; si esta devuelve errores
+     * la reserva no se guarda.
+     * 
+     * @param reserva El objeto {@link Reserva} que se desea guardar.
+     * @param validacion Reglas a evaluar sobre el contexto de la reserva; 
+     *        devuelve los mensajes de error o una lista vacía.
+     * @throws Excepciones.ReservaInvalidaException Si la validación encontró
+     *         errores.
+     * @throws Excepciones.DAOException En caso de error en la base de datos.
+     */
+    public void reservar(Reserva reserva,
+            Function<ContextoReserva, List<String>> validacion) throws DAOException;
+    
+    /**
+     * Lee con un solo EntityManager, sin transacción ni bloqueos, los datos
+     * con los que se valida una reserva antes de confirmarla.
+     * 
+     * @param reserva La reserva a validar, con fecha, cliente y mesa.
+     * @return El contexto de la reserva.
+     * @throws Excepciones.DAOException En caso de error en la base de datos.
+     */
+    public ContextoReserva obtenerContexto(Reserva reserva) throws DAOException;
+    
     /**
      * Consulta y recupera una lista de reservas en un rango de fechas 
      * específico.
@@ -41,13 +74,13 @@ public interface IReservaDAO {
             LocalDateTime fin)throws DAOException;
     
     /**
-     * Consulta y recupera una lista de reservas para un día específico.
+     * Verifica si una mesa está libre a una fecha y hora, es decir, si no
+     * tiene reservas activas que empiecen a menos de 5 horas de ella.
      * 
-     * @param mesa
-     * @param dia La fecha del día para el cual se desean consultar las 
-     *            reservas.
-     * @return Una lista de objetos {@link Reserva} que representan las 
-     * reservas del día especificado.
+     * @param mesa La mesa a verificar, identificada por su id o su código.
+     * @param dia La fecha y hora deseada para la reserva.
+     * @return true si la mesa está disponible, false si se traslapa con otra
+     * reserva activa.
      * @throws Excepciones.DAOException En caso de error en la base de datos.
      */
     public boolean verificarPorDia(Mesa mesa, LocalDateTime dia) 
@@ -60,11 +93,11 @@ public interface IReservaDAO {
      * 
      * @param nombreCliente Nombre del cliente.
      * @param telefonoCliente Telefono del cliente.
-     * @param fechaReserva Fecha en que fue realizada la reserva.
-     * @param areaRestaurante Area del restaurante.
+     * @param fechaReserva Día de la reserva.
+     * @param areaRestaurante Area del restaurante (ubicación de la mesa).
      * @param fechaInicio Fecha de inicio para la busqueda.
      * @param fechaFin Fecha de fin para la busqueda.
-     * @param tamanoMesa Tamaño de la mesa.
+     * @param tamanoMesa Personas que deben caber en la mesa.
      * 
      * @return Retorna lista de reservaciones que mas se adapten a 
      *         los parametros.
@@ -75,6 +108,17 @@ public interface IReservaDAO {
         String areaRestaurante, LocalDate fechaInicio, 
         LocalDate fechaFin, Integer tamanoMesa) throws DAOException;
     
+    /**
+     * Busca las reservas que cumplen un filtro con una sola consulta con 
+     * parámetros, en el orden del filtro y hasta su límite. Las búsquedas 
+     * con la misma forma de filtro reutilizan la consulta ya preparada.
+     * 
+     * @param filtro Criterios, orden y página de la búsqueda.
+     * @return Lista de las reservas encontradas, con su cliente.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public List<Reserva> buscarReservas(FiltroReserva filtro) throws DAOException;
+    
     /**
      * Verifica que el cliente dado en el parametro ya no tenga mas 
      * reservaciones a partir de la hora y fecha dada, en caso de tener 
@@ -96,6 +140,66 @@ public interface IReservaDAO {
      */
     public List<Reserva> obtenerReservas() throws DAOException;
     
+    /**
+     * Obtiene el id y el último cambio ({@code actualizado_en}) de las 
+     * reservas insertadas o actualizadas desde la fecha y hora dadas, sin 
+     * cargar las entidades.
+     * 
+     * @param desde Fecha y hora del servidor desde la que se buscan cambios 
+     *        (inclusiva).
+     * @return Lista con el id y el último cambio de cada reserva.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public List<VersionReserva> obtenerVersionesReservas(LocalDateTime desde) 
+            throws DAOException;
+    
+    /**
+     * Obtiene las reservas con los ids dados.
+     * 
+     * @param ids Ids de las reservas.
+     * @return Lista de las reservas encontradas, con su cliente, ordenadas 
+     *         por id.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public List<Reserva> obtenerReservasPorIds(List<Long> ids) throws DAOException;
+    
+    /**
+     * Obtiene una página de reservas en orden de fecha y hora (y de id para 
+     * las que coinciden), partiendo de la reserva de referencia sin 
+     * incluirla. Se recorre un índice por (fecha, id), así que el costo de 
+     * una página no depende de cuántas reservas haya antes.
+     * 
+     * @param fecha Fecha y hora de la reserva de referencia, o null para 
+     *        empezar desde el inicio (hacia adelante) o desde el final 
+     *        (hacia atrás).
+     * @param id Id de la reserva de referencia; se ignora si la fecha es 
+     *        null.
+     * @param adelante true para las reservas posteriores a la referencia, 
+     *        false para las anteriores.
+     * @param limite Número máximo de reservas a obtener.
+     * @return Las reservas de la página, siempre en orden ascendente.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public List<Reserva> obtenerPaginaReservas(LocalDateTime fecha, Long id,
+            boolean adelante, int limite) throws DAOException;
+    
+    /**
+     * Recorre las reservas de un rango de fechas, en orden de fecha y hora, 
+     * entregándolas una por una al consumidor a medida que se leen de la 
+     * base de datos. Nunca se tienen en memoria más que las reservas del 
+     * bloque que se está leyendo, así que sirve para exportar rangos muy 
+     * grandes. Las reservas entregadas son de solo lectura y el consumidor 
+     * no debe guardarlas.
+     * 
+     * @param inicio Fecha y hora de inicio del rango (inclusiva).
+     * @param fin Fecha y hora de fin del rango (inclusiva).
+     * @param consumidor Recibe cada reserva leída.
+     * @return Número de reservas recorridas.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public long recorrerReservas(LocalDateTime inicio, LocalDateTime fin,
+            Consumer<Reserva> consumidor) throws DAOException;
+    
     /**
      * Buscar por nombre por nombre y intervalo de fechas, esta la opcion de
      * buscar unicamente por Nombre o buscar por intervalo de fechas o 
@@ -118,6 +222,49 @@ public interface IReservaDAO {
      *         base de datos.
      */
     public void actualizarReserva(Reserva reserva) throws DAOException;
+    
+    /**
+     * Obtiene las filas que muestran las tablas de reservas, con solo las 
+     * columnas necesarias y sin construir las entidades.
+     * 
+     * @return Lista con las filas de todas las reservas, ordenadas por fecha 
+     *         y hora.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public List<ReservaFila> obtenerFilasReservas() throws DAOException;
+    
+    /**
+     * Obtiene la ocupación de las mesas: el id, el código de mesa y la hora de
+     * inicio de cada reserva activa posterior a la fecha dada, sin cargar las
+     * entidades.
+     * 
+     * @param desde Fecha a partir de la cual se consultan las reservas.
+     * @return lista con la ocupación de las mesas.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public List<OcupacionMesa> obtenerOcupacionActiva(LocalDateTime desde)
+            throws DAOException;
+
+    /**
+     * Obtiene la ocupación de una mesa: el id, el código de mesa y la hora de
+     * inicio de sus reservas activas entre dos fechas, excluidas.
+     * 
+     * @param codigoMesa Código de la mesa.
+     * @param desde Inicio del intervalo.
+     * @param hasta Fin del intervalo.
+     * @return lista con la ocupación de la mesa.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public List<OcupacionMesa> obtenerOcupacionMesa(String codigoMesa,
+            LocalDateTime desde, LocalDateTime hasta) throws DAOException;
+
+    /**
+     * Cuenta las reservas registradas, de cualquier estado.
+     * 
+     * @return el número de reservas.
+     * @throws DAOException En caso de error en la base de datos.
+     */
+    public long contarReservas() throws DAOException;
 }
 
 
@@ -0,0 +1,219 @@
+package Migraciones;
+
+import DAO.PhoneCipher;
+import Entidades.Cliente;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Migración que calcula el indice ciego ({@code telefono_idx}) de los
+ * clientes registrados antes del script V2, que agregó la columna vacía.
+ * Sin él la búsqueda por teléfono no encuentra a esos clientes.
+ *
+ * Recorre los clientes sin indice por páginas, en orden de id, descifra los
+ * teléfonos de cada página en paralelo con
+ * {@link PhoneCipher#descifrarTodos} y confirma cada página, para no retener
+ * una transacción ni bloquear la tabla completa en bases de datos grandes.
+ *
+ * El índice único de V2 no deja guardar dos veces el mismo indice, pero el
+ * UNIQUE anterior comparaba el teléfono cifrado con sal aleatoria y no
+ * impedía que dos clientes tuvieran el mismo teléfono. Por eso, antes de
+ * actualizar cada página se buscan los indices que ya tiene otro cliente (o
+ * que se repiten en la página): esos clientes se dejan sin indice y se
+ * informan en el log al final, en lugar de detener el arranque. Igual se
+ * dejan sin indice los clientes cuyo teléfono no se puede descifrar.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class LlenadoIndiceTelefono implements MigracionJava {
+
+    private static final Logger LOG = Logger.getLogger(LlenadoIndiceTelefono.class.getName());
+
+    // Clientes que se leen y se confirman a la vez
+    private static final int TAMANO_PAGINA = 500;
+
+    private final PhoneCipher phoneCipher;
+
+    private final int tamanoPagina;
+
+    /**
+     * Constructor por defecto.
+     */
+    public LlenadoIndiceTelefono() {
+        this(new PhoneCipher(), TAMANO_PAGINA);
+    }
+
+    /**
+     * Constructor que recibe el servicio de cifrado y el tamaño de página.
+     *
+     * @param phoneCipher Servicio de cifrado de teléfonos.
+     * @param tamanoPagina Clientes por página.
+     */
+    public LlenadoIndiceTelefono(PhoneCipher phoneCipher, int tamanoPagina) {
+        this.phoneCipher = phoneCipher;
+        this.tamanoPagina = tamanoPagina;
+    }
+
+    /**
+     * Llena el indice ciego de los clientes que no lo tienen, una página a
+     * la vez. Los clientes con teléfono repetido o ilegible se dejan sin
+     * indice.
+     *
+     * @param conexion Conexión a la base de datos, sin autocommit.
+     * @throws SQLException si hay un error de base de datos.
+     */
+    @Override
+    public void migrar(Connection conexion) throws SQLException {
+        long ultimoId = 0;
+        int actualizados = 0;
+        int ilegibles = 0;
+        // Cliente con teléfono repetido -> cliente que ya tiene ese indice
+        Map<Long, Long> repetidos = new LinkedHashMap<>();
+        List<Cliente> pagina;
+        try (PreparedStatement consulta = conexion.prepareStatement(
+                "SELECT id, telefono FROM clientes WHERE telefono_idx IS NULL "
+                + "AND id > ? ORDER BY id LIMIT ?");
+                PreparedStatement actualizacion = conexion.prepareStatement(
+                        "UPDATE clientes SET telefono_idx = ? WHERE id = ?")) {
+            do {
+                pagina = leerPagina(consulta, ultimoId);
+                if (pagina.isEmpty()) {
+                    break;
+                }
+                ultimoId = pagina.get(pagina.size() - 1).getId();
+
+                Set<Cliente> fallidos = Collections.newSetFromMap(new IdentityHashMap<>());
+                fallidos.addAll(phoneCipher.descifrarTodos(pagina));
+                ilegibles += fallidos.size();
+
+                Map<String, Long> indices = new LinkedHashMap<>();
+                for (Cliente cliente : pagina) {
+                    if (fallidos.contains(cliente)) {
+                        continue;
+                    }
+                    String indice = indice(cliente);
+                    if (indice == null) {
+                        ilegibles++;
+                        continue;
+                    }
+                    Long primero = indices.putIfAbsent(indice, cliente.getId());
+                    if (primero != null) {
+                        repetidos.put(cliente.getId(), primero);
+                    }
+                }
+
+                Map<String, Long> existentes = buscarExistentes(conexion, indices.keySet());
+                for (Map.Entry<String, Long> entrada : indices.entrySet()) {
+                    Long existente = existentes.get(entrada.getKey());
+                    if (existente != null) {
+                        repetidos.put(entrada.getValue(), existente);
+                        continue;
+                    }
+                    actualizacion.setString(1, entrada.getKey());
+                    actualizacion.setLong(2, entrada.getValue());
+                    actualizacion.addBatch();
+                    actualizados++;
+                }
+                actualizacion.executeBatch();
+                conexion.commit();
+            } while (pagina.size() == tamanoPagina);
+        }
+        LOG.log(Level.INFO, "Indice de teléfono calculado para {0} clientes ({1} "
+                + "sin teléfono legible, {2} con teléfono repetido)",
+                new Object[]{actualizados, ilegibles, repetidos.size()});
+        if (!repetidos.isEmpty()) {
+            LOG.log(Level.WARNING, "Clientes sin indice de teléfono porque otro cliente "
+                    + "tiene el mismo teléfono (cliente=cliente con el indice): {0}",
+                    repetidos);
+        }
+    }
+
+    /**
+     * Lee la siguiente página de clientes sin indice, con el teléfono aún
+     * cifrado.
+     *
+     * @param consulta Consulta de la página.
+     * @param ultimoId Id del último cliente de la página anterior.
+     * @return Los clientes de la página, en orden de id.
+     * @throws SQLException si hay un error de base de datos.
+     */
+    private List<Cliente> leerPagina(PreparedStatement consulta, long ultimoId)
+            throws SQLException {
+        consulta.setLong(1, ultimoId);
+        consulta.setInt(2, tamanoPagina);
+        List<Cliente> pagina = new ArrayList<>();
+        try (ResultSet filas = consulta.executeQuery()) {
+            while (filas.next()) {
+                Cliente cliente = new Cliente();
+                cliente.setId(filas.getLong(1));
+                cliente.setTelefono(filas.getString(2));
+                cliente.setTelefonoCifrado(true);
+                pagina.add(cliente);
+            }
+        }
+        return pagina;
+    }
+
+    /**
+     * Busca qué indices ya tiene guardados algún cliente.
+     *
+     * @param conexion Conexión a la base de datos.
+     * @param indices Indices a buscar.
+     * @return El id del cliente que tiene cada indice encontrado.
+     * @throws SQLException si hay un error de base de datos.
+     */
+    private Map<String, Long> buscarExistentes(Connection conexion, Set<String> indices)
+            throws SQLException {
+        Map<String, Long> existentes = new HashMap<>();
+        if (indices.isEmpty()) {
+            return existentes;
+        }
+        String parametros = String.join(",", Collections.nCopies(indices.size(), "?"));
+        try (PreparedStatement consulta = conexion.prepareStatement(
+                "SELECT telefono_idx, id FROM clientes WHERE telefono_idx IN ("
+                + parametros + ")")) {
+            int posicion = 1;
+            for (String indice : indices) {
+                consulta.setString(posicion++, indice);
+            }
+            try (ResultSet filas = consulta.executeQuery()) {
+                while (filas.next()) {
+                    existentes.put(filas.getString(1), filas.getLong(2));
+                }
+            }
+        }
+        return existentes;
+    }
+
+    /**
+     * Calcula el indice ciego del teléfono ya descifrado de un cliente.
+     *
+     * @param cliente Cliente con el teléfono en texto plano.
+     * @return El indice, o null si no tiene teléfono o no se puede calcular.
+     */
+    private String indice(Cliente cliente) {
+        if (cliente.getTelefono() == null || cliente.getTelefono().trim().isEmpty()) {
+            LOG.log(Level.WARNING, "El cliente {0} no tiene teléfono", cliente.getId());
+            return null;
+        }
+        try {
+            return phoneCipher.indiceCiego(cliente.getTelefono());
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "No se pudo indexar el teléfono del cliente {0}",
+                    cliente.getId());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package Migraciones;
+
+import java.util.List;
+
+/**
+ * Migración versionada: un script ya leído y dividido en sentencias, o una
+ * {@link MigracionJava}.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class Migracion {
+
+    private final int version; // version del script.
+    private final String descripcion; // descripcion tomada del nombre.
+    private final String script; // nombre del archivo del script.
+    private final String checksum; // SHA-256 del contenido del script.
+    private final List<String> sentencias; // sentencias SQL del script.
+    private final MigracionJava tarea; // migracion Java; null si es un script.
+
+    /**
+     * Constructor que inicializa todos los atributos de la clase.
+     *
+     * @param version Versión del script.
+     * @param descripcion Descripción tomada del nombre del archivo.
+     * @param script Nombre del archivo del script.
+     * @param checksum SHA-256 del contenido del script.
+     * @param sentencias Sentencias SQL del script.
+     */
+    public Migracion(int version, String descripcion, String script,
+            String checksum, List<String> sentencias) {
+        this.version = version;
+        this.descripcion = descripcion;
+        this.script = script;
+        this.checksum = checksum;
+        this.sentencias = sentencias;
+        this.tarea = null;
+    }
+
+    /**
+     * Constructor de una migración Java. Su script es el nombre de la clase.
+     *
+     * @param version Versión de la migración.
+     * @param descripcion Descripción de la migración.
+     * @param checksum SHA-256 del nombre de la clase.
+     * @param tarea Migración a ejecutar.
+     */
+    public Migracion(int version, String descripcion, String checksum,
+            MigracionJava tarea) {
+        this.version = version;
+        this.descripcion = descripcion;
+        this.script = tarea.getClass().getName();
+        this.checksum = checksum;
+        this.sentencias = List.of();
+        this.tarea = tarea;
+    }
+
+    /**
+     * Obtiene la versión del script.
+     *
+     * @return La versión del script.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Obtiene la descripción del script.
+     *
+     * @return La descripción del script.
+     */
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    /**
+     * Obtiene el nombre del archivo del script.
+     *
+     * @return El nombre del archivo.
+     */
+    public String getScript() {
+        return script;
+    }
+
+    /**
+     * Obtiene el checksum SHA-256 del script.
+     *
+     * @return El checksum en hexadecimal.
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Obtiene las sentencias SQL del script.
+     *
+     * @return Las sentencias SQL, en orden.
+     */
+    public List<String> getSentencias() {
+        return sentencias;
+    }
+
+    /**
+     * Obtiene la migración Java.
+     *
+     * @return La migración, o null si es un script SQL.
+     */
+    public MigracionJava getTarea() {
+        return tarea;
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + " " + descripcion;
+    }
+}
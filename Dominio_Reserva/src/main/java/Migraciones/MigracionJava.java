@@ -0,0 +1,28 @@
+package Migraciones;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Migración que se escribe en Java en lugar de SQL, para los cambios de datos
+ * que necesitan algo que la base de datos no tiene, como la clave de cifrado
+ * de la aplicación. Se aplica en el orden de su versión junto con los scripts
+ * y se registra igual en la tabla de versiones, así que corre una sola vez.
+ *
+ * La migración recibe la conexión del migrador sin autocommit y puede
+ * confirmar por partes: si falla, lo ya confirmado se conserva y la versión
+ * no se registra, de modo que vuelve a correr en el siguiente arranque. Por
+ * eso debe poder repetirse sin dañar los datos.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public interface MigracionJava {
+
+    /**
+     * Aplica la migración.
+     *
+     * @param conexion Conexión a la base de datos, sin autocommit.
+     * @throws SQLException si hay un error de base de datos.
+     */
+    void migrar(Connection conexion) throws SQLException;
+}
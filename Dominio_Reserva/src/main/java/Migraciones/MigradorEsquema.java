@@ -0,0 +1,504 @@
+package Migraciones;
+
+import Excepciones.ConexionException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+
+/**
+ * Clase responsable de llevar el esquema de la base de datos a la versión que
+ * espera la aplicación. Los scripts versionados viven en el classpath, en
+ * {@code db/migraciones}, y se aplican en el orden que indica
+ * {@code indice.txt}. Cada script aplicado se registra en la tabla
+ * {@code esquema_version} con su checksum SHA-256, de modo que un script
+ * modificado después de aplicarse se detecta al arrancar.
+ *
+ * Si la base de datos ya tiene las tablas de la aplicación pero no la tabla
+ * de versiones (creada con {@code reservasys.sql} o por JPA), se registra
+ * como línea base hasta la versión configurada sin ejecutar esos scripts.
+ *
+ * Los cambios de datos que no se pueden escribir en SQL se agregan como
+ * {@link MigracionJava} con {@link #agregar}; se aplican en el orden de su
+ * versión, entre los scripts, y se registran con su clase como script.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MigradorEsquema {
+
+    private static final Logger LOG = Logger.getLogger(MigradorEsquema.class.getName());
+
+    private static final String UBICACION = "db/migraciones/";
+
+    private static final String INDICE = "indice.txt";
+
+    private static final String TABLA_VERSIONES = "esquema_version";
+
+    // Tabla que indica que la base de datos ya tiene el esquema de la app
+    private static final String TABLA_APLICACION = "reservas";
+
+    private static final String CANDADO_MYSQL = "reservasys_migraciones";
+
+    private static final Pattern NOMBRE_SCRIPT = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final Pattern DIRECTIVA_DELIMITADOR = Pattern.compile(
+            "^\\s*DELIMITER\\s+(\\S+)\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private final DataSource dataSource;
+
+    private final int versionBase;
+
+    private final String ubicacion; // Carpeta de los scripts en el classpath.
+
+    // Migraciones Java por versión
+    private final Map<Integer, MigracionJava> migracionesJava = new TreeMap<>();
+
+    private final Map<Integer, String> descripciones = new TreeMap<>();
+
+    /**
+     * Constructor que recibe el origen de conexiones y la versión hasta la
+     * que se considera aplicado el esquema de una base de datos existente.
+     *
+     * @param dataSource Origen de las conexiones a la base de datos.
+     * @param versionBase Versión de la línea base para bases de datos
+     *        existentes sin tabla de versiones.
+     */
+    public MigradorEsquema(DataSource dataSource, int versionBase) {
+        this(dataSource, versionBase, UBICACION);
+    }
+
+    /**
+     * Constructor que además recibe la carpeta de los scripts, para probar el
+     * migrador con otros scripts.
+     *
+     * @param dataSource Origen de las conexiones a la base de datos.
+     * @param versionBase Versión de la línea base.
+     * @param ubicacion Carpeta del classpath con {@code indice.txt} y los
+     *        scripts, terminada en {@code /}.
+     */
+    MigradorEsquema(DataSource dataSource, int versionBase, String ubicacion) {
+        this.dataSource = dataSource;
+        this.versionBase = versionBase;
+        this.ubicacion = ubicacion;
+    }
+
+    /**
+     * Agrega una migración Java.
+     *
+     * @param version Versión de la migración; no debe ser la de un script.
+     * @param descripcion Descripción de la migración.
+     * @param migracion Migración a ejecutar.
+     * @return Este migrador.
+     */
+    public MigradorEsquema agregar(int version, String descripcion,
+            MigracionJava migracion) {
+        migracionesJava.put(version, migracion);
+        descripciones.put(version, descripcion);
+        return this;
+    }
+
+    /**
+     * Ejecuta el migrador en el modo indicado.
+     *
+     * @param modo Modo de ejecución.
+     * @throws ConexionException si el esquema no es válido o falla algún script.
+     */
+    public void ejecutar(ModoMigracion modo) throws ConexionException {
+        if (modo == ModoMigracion.NINGUNO) {
+            LOG.info("Migraciones desactivadas");
+            return;
+        }
+        long inicio = System.nanoTime();
+        List<Migracion> migraciones = cargarMigraciones();
+
+        try (Connection conexion = dataSource.getConnection()) {
+            boolean mysql = conexion.getMetaData().getDatabaseProductName()
+                    .toLowerCase().contains("mysql");
+            if (mysql) {
+                obtenerCandado(conexion);
+            }
+            try {
+                Map<Integer, String> aplicadas = leerVersionesAplicadas(conexion,
+                        modo == ModoMigracion.MIGRAR, migraciones);
+                List<Migracion> pendientes = validar(migraciones, aplicadas);
+
+                if (modo == ModoMigracion.VALIDAR) {
+                    if (!pendientes.isEmpty()) {
+                        throw new ConexionException("El esquema no está al día; "
+                                + "migraciones pendientes: " + pendientes);
+                    }
+                } else {
+                    for (Migracion migracion : pendientes) {
+                        aplicar(conexion, migracion);
+                    }
+                }
+            } finally {
+                if (mysql) {
+                    liberarCandado(conexion);
+                }
+            }
+        } catch (SQLException e) {
+            throw new ConexionException("Error al revisar el esquema de la base de datos", e);
+        }
+        LOG.log(Level.INFO, "Esquema revisado en modo {0} en {1} ms",
+                new Object[]{modo, (System.nanoTime() - inicio) / 1_000_000});
+    }
+
+    /**
+     * Compara los scripts del classpath con las versiones aplicadas.
+     *
+     * @param migraciones Scripts del classpath, ordenados por versión.
+     * @param aplicadas Checksums de las versiones aplicadas.
+     * @return Los scripts que faltan por aplicar, en orden.
+     * @throws ConexionException si un script aplicado cambió o ya no existe.
+     */
+    private List<Migracion> validar(List<Migracion> migraciones,
+            Map<Integer, String> aplicadas) throws ConexionException {
+        List<Migracion> pendientes = new ArrayList<>();
+        for (Migracion migracion : migraciones) {
+            String checksum = aplicadas.remove(migracion.getVersion());
+            if (checksum == null) {
+                pendientes.add(migracion);
+            } else if (!checksum.equals(migracion.getChecksum())) {
+                throw new ConexionException("El script " + migracion.getScript()
+                        + " cambió después de aplicarse (checksum distinto)");
+            }
+        }
+        if (!aplicadas.isEmpty()) {
+            throw new ConexionException("La base de datos tiene versiones que la "
+                    + "aplicación no conoce: " + aplicadas.keySet());
+        }
+        return pendientes;
+    }
+
+    /**
+     * Aplica un script y lo registra en la tabla de versiones.
+     *
+     * @param conexion Conexión a la base de datos.
+     * @param migracion Script a aplicar.
+     * @throws ConexionException si falla alguna sentencia del script.
+     */
+    private void aplicar(Connection conexion, Migracion migracion)
+            throws ConexionException {
+        long inicio = System.nanoTime();
+        int numero = 0;
+        try {
+            conexion.setAutoCommit(false);
+            if (migracion.getTarea() != null) {
+                migracion.getTarea().migrar(conexion);
+            } else {
+                try (Statement sentencia = conexion.createStatement()) {
+                    for (String sql : migracion.getSentencias()) {
+                        numero++;
+                        sentencia.execute(sql);
+                    }
+                }
+            }
+            registrar(conexion, migracion, migracion.getTarea() != null ? "JAVA" : "SQL",
+                    (System.nanoTime() - inicio) / 1_000_000);
+            conexion.commit();
+            if (migracion.getTarea() != null) {
+                LOG.log(Level.INFO, "Migración {0} aplicada ({1})",
+                        new Object[]{migracion, migracion.getScript()});
+            } else {
+                LOG.log(Level.INFO, "Migración {0} aplicada ({1} sentencias)",
+                        new Object[]{migracion, numero});
+            }
+        } catch (SQLException e) {
+            try {
+                conexion.rollback();
+            } catch (SQLException ex) {
+                LOG.log(Level.WARNING, "No se pudo deshacer la migración", ex);
+            }
+            if (migracion.getTarea() != null) {
+                throw new ConexionException("Error en la migración " + migracion
+                        + ": " + e.getMessage(), e);
+            }
+            // MySQL confirma el DDL de forma implícita, así que las sentencias
+            // anteriores a la que falló pueden haber quedado aplicadas
+            throw new ConexionException("Error en la sentencia " + numero
+                    + " de " + migracion.getScript() + ": " + e.getMessage(), e);
+        } finally {
+            try {
+                conexion.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, "No se pudo restaurar el autocommit", e);
+            }
+        }
+    }
+
+    /**
+     * Lee las versiones aplicadas. Si la tabla de versiones no existe y se
+     * permite, la crea y, si la base de datos ya tenía el esquema de la
+     * aplicación, registra la línea base.
+     *
+     * @param conexion Conexión a la base de datos.
+     * @param crear Si se permite crear la tabla de versiones.
+     * @param migraciones Scripts del classpath, para la línea base.
+     * @return Checksum de cada versión aplicada, por versión.
+     * @throws SQLException si hay un error de base de datos.
+     * @throws ConexionException si la tabla no existe y no se puede crear.
+     */
+    private Map<Integer, String> leerVersionesAplicadas(Connection conexion,
+            boolean crear, List<Migracion> migraciones)
+            throws SQLException, ConexionException {
+        if (!existeTabla(conexion, TABLA_VERSIONES)) {
+            if (!crear) {
+                throw new ConexionException("La base de datos no tiene la tabla "
+                        + TABLA_VERSIONES + "; arranque en modo migrar");
+            }
+            boolean existente = existeTabla(conexion, TABLA_APLICACION);
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("CREATE TABLE " + TABLA_VERSIONES + " ("
+                        + "version INT PRIMARY KEY, "
+                        + "descripcion VARCHAR(200) NOT NULL, "
+                        + "tipo VARCHAR(10) NOT NULL, "
+                        + "script VARCHAR(200) NOT NULL, "
+                        + "checksum CHAR(64) NOT NULL, "
+                        + "duracion_ms BIGINT NOT NULL, "
+                        + "instalado_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+            if (existente) {
+                for (Migracion migracion : migraciones) {
+                    if (migracion.getVersion() <= versionBase) {
+                        registrar(conexion, migracion, "BASE", 0);
+                    }
+                }
+                LOG.log(Level.INFO, "Base de datos existente registrada con línea "
+                        + "base en la versión {0}", versionBase);
+            }
+        }
+
+        Map<Integer, String> aplicadas = new TreeMap<>();
+        try (Statement sentencia = conexion.createStatement();
+                ResultSet filas = sentencia.executeQuery(
+                        "SELECT version, checksum FROM " + TABLA_VERSIONES)) {
+            while (filas.next()) {
+                aplicadas.put(filas.getInt(1), filas.getString(2));
+            }
+        }
+        return aplicadas;
+    }
+
+    /**
+     * Registra una versión en la tabla de versiones.
+     *
+     * @param conexion Conexión a la base de datos.
+     * @param migracion Script que se registra.
+     * @param tipo SQL o JAVA si se ejecutó, BASE si se registró como línea
+     *        base.
+     * @param duracion Duración de la ejecución en milisegundos.
+     * @throws SQLException si hay un error de base de datos.
+     */
+    private void registrar(Connection conexion, Migracion migracion, String tipo,
+            long duracion) throws SQLException {
+        try (PreparedStatement sentencia = conexion.prepareStatement("INSERT INTO "
+                + TABLA_VERSIONES + " (version, descripcion, tipo, script, checksum, "
+                + "duracion_ms) VALUES (?, ?, ?, ?, ?, ?)")) {
+            sentencia.setInt(1, migracion.getVersion());
+            sentencia.setString(2, migracion.getDescripcion());
+            sentencia.setString(3, tipo);
+            sentencia.setString(4, migracion.getScript());
+            sentencia.setString(5, migracion.getChecksum());
+            sentencia.setLong(6, duracion);
+            sentencia.executeUpdate();
+        }
+    }
+
+    /**
+     * Indica si una tabla existe en la base de datos de la conexión.
+     *
+     * @param conexion Conexión a la base de datos.
+     * @param tabla Nombre de la tabla.
+     * @return true si la tabla existe.
+     * @throws SQLException si hay un error de base de datos.
+     */
+    private boolean existeTabla(Connection conexion, String tabla) throws SQLException {
+        DatabaseMetaData metadatos = conexion.getMetaData();
+        for (String nombre : new String[]{tabla, tabla.toUpperCase()}) {
+            try (ResultSet tablas = metadatos.getTables(conexion.getCatalog(),
+                    null, nombre, new String[]{"TABLE"})) {
+                if (tablas.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Toma un candado con nombre de MySQL para que dos instancias de la
+     * aplicación no migren al mismo tiempo.
+     *
+     * @param conexion Conexión a la base de datos.
+     * @throws SQLException si hay un error de base de datos.
+     * @throws ConexionException si no se obtiene el candado a tiempo.
+     */
+    private void obtenerCandado(Connection conexion) throws SQLException, ConexionException {
+        try (Statement sentencia = conexion.createStatement();
+                ResultSet resultado = sentencia.executeQuery(
+                        "SELECT GET_LOCK('" + CANDADO_MYSQL + "', 60)")) {
+            if (!resultado.next() || resultado.getInt(1) != 1) {
+                throw new ConexionException("Otra instancia está migrando el esquema");
+            }
+        }
+    }
+
+    /**
+     * Libera el candado con nombre de MySQL.
+     *
+     * @param conexion Conexión a la base de datos.
+     */
+    private void liberarCandado(Connection conexion) {
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("SELECT RELEASE_LOCK('" + CANDADO_MYSQL + "')");
+        } catch (SQLException e) {
+            LOG.log(Level.WARNING, "No se pudo liberar el candado de migraciones", e);
+        }
+    }
+
+    /**
+     * Lee el índice de scripts y carga cada uno, junto con las migraciones
+     * Java, ordenados por versión.
+     *
+     * @return Los scripts del classpath y las migraciones Java.
+     * @throws ConexionException si falta un script, su nombre no es válido o
+     *         una versión se repite.
+     */
+    private List<Migracion> cargarMigraciones() throws ConexionException {
+        Map<Integer, Migracion> migraciones = new TreeMap<>();
+        for (String linea : leerRecurso(ubicacion + INDICE).split("\n")) {
+            String script = linea.trim();
+            if (script.isEmpty() || script.startsWith("#")) {
+                continue;
+            }
+            Matcher nombre = NOMBRE_SCRIPT.matcher(script);
+            if (!nombre.matches()) {
+                throw new ConexionException("Nombre de script de migración inválido: " + script);
+            }
+            int version = Integer.parseInt(nombre.group(1));
+            String contenido = leerRecurso(ubicacion + script);
+            Migracion migracion = new Migracion(version,
+                    nombre.group(2).replace('_', ' '), script,
+                    checksum(contenido), dividirSentencias(contenido));
+            if (migraciones.put(version, migracion) != null) {
+                throw new ConexionException("Versión de migración repetida: " + version);
+            }
+        }
+        for (Map.Entry<Integer, MigracionJava> java : migracionesJava.entrySet()) {
+            Migracion migracion = new Migracion(java.getKey(),
+                    descripciones.get(java.getKey()),
+                    checksum(java.getValue().getClass().getName()), java.getValue());
+            if (migraciones.put(java.getKey(), migracion) != null) {
+                throw new ConexionException("Versión de migración repetida: "
+                        + java.getKey());
+            }
+        }
+        return new ArrayList<>(migraciones.values());
+    }
+
+    /**
+     * Divide un script en sentencias. Respeta la directiva {@code DELIMITER}
+     * del cliente de MySQL, necesaria para los cuerpos de los triggers, y
+     * omite los comentarios de línea que están entre sentencias.
+     *
+     * @param contenido Contenido del script.
+     * @return Las sentencias del script, sin el delimitador final.
+     */
+    static List<String> dividirSentencias(String contenido) {
+        List<String> sentencias = new ArrayList<>();
+        String delimitador = ";";
+        StringBuilder actual = new StringBuilder();
+
+        for (String linea : contenido.split("\n")) {
+            Matcher directiva = DIRECTIVA_DELIMITADOR.matcher(linea);
+            if (directiva.matches()) {
+                delimitador = directiva.group(1);
+                continue;
+            }
+            String recortada = linea.trim();
+            if (actual.length() == 0 && (recortada.isEmpty() || recortada.startsWith("--"))) {
+                continue;
+            }
+            actual.append(linea).append('\n');
+
+            String acumulado = actual.toString().trim();
+            if (acumulado.endsWith(delimitador)) {
+                String sentencia = acumulado.substring(0,
+                        acumulado.length() - delimitador.length()).trim();
+                if (!sentencia.isEmpty()) {
+                    sentencias.add(sentencia);
+                }
+                actual.setLength(0);
+            }
+        }
+        if (actual.toString().trim().length() > 0) {
+            sentencias.add(actual.toString().trim());
+        }
+        return sentencias;
+    }
+
+    /**
+     * Lee un recurso de texto del classpath, normalizando los saltos de línea
+     * para que el checksum no dependa del sistema operativo.
+     *
+     * @param recurso Ruta del recurso.
+     * @return El contenido del recurso.
+     * @throws ConexionException si el recurso no existe o no se puede leer.
+     */
+    private String leerRecurso(String recurso) throws ConexionException {
+        try (InputStream entrada = MigradorEsquema.class.getClassLoader()
+                .getResourceAsStream(recurso)) {
+            if (entrada == null) {
+                throw new ConexionException("No se encontró el recurso " + recurso);
+            }
+            StringBuilder contenido = new StringBuilder();
+            try (BufferedReader lector = new BufferedReader(
+                    new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+                String linea;
+                while ((linea = lector.readLine()) != null) {
+                    contenido.append(linea).append('\n');
+                }
+            }
+            return contenido.toString();
+        } catch (IOException e) {
+            throw new ConexionException("Error al leer el recurso " + recurso, e);
+        }
+    }
+
+    /**
+     * Calcula el SHA-256 de un texto.
+     *
+     * @param contenido Texto del script, o nombre de la clase de una
+     *        migración Java.
+     * @return El checksum en hexadecimal.
+     */
+    private static String checksum(String contenido) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(
+                    digest.digest(contenido.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
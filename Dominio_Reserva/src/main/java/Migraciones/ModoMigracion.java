@@ -0,0 +1,55 @@
+package Migraciones;
+
+import java.util.Locale;
+
+/**
+ * Modos en los que puede arrancar el migrador de esquema.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public enum ModoMigracion {
+
+    /**
+     * Aplica los scripts pendientes después de validar los ya aplicados.
+     */
+    MIGRAR,
+
+    /**
+     * Solo comprueba que el esquema esté al día y que los scripts aplicados
+     * no hayan cambiado; no ejecuta nada.
+     */
+    VALIDAR,
+
+    /**
+     * No revisa ni modifica el esquema.
+     */
+    NINGUNO;
+
+    /**
+     * Obtiene el modo a partir de su nombre en la configuración. Acepta los
+     * nombres en español y sus equivalentes en inglés (migrate, validate,
+     * none).
+     *
+     * @param valor Nombre del modo.
+     * @return El modo correspondiente; {@link #MIGRAR} si el valor es nulo.
+     * @throws IllegalArgumentException si el valor no corresponde a ningún modo.
+     */
+    public static ModoMigracion desde(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return MIGRAR;
+        }
+        switch (valor.trim().toLowerCase(Locale.ROOT)) {
+            case "migrar":
+            case "migrate":
+                return MIGRAR;
+            case "validar":
+            case "validate":
+                return VALIDAR;
+            case "ninguno":
+            case "none":
+                return NINGUNO;
+            default:
+                throw new IllegalArgumentException("Modo de migración desconocido: " + valor);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package Proyecciones;
+
+import Entidades.Mesa;
+import Entidades.Restaurante;
+
+/**
+ * Datos que se leen de la base de datos, dentro de la transacción que guarda
+ * una reserva, para validarla: el restaurante, la mesa (ya bloqueada), si el
+ * cliente tiene otra reserva activa y si la mesa está ocupada en ese horario.
+ * Con esto las reglas de negocio se evalúan sin volver a consultar la base de
+ * datos.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class ContextoReserva {
+
+    private final Restaurante restaurante; // restaurante de la reserva.
+    private final Mesa mesa; // mesa bloqueada para la reserva.
+    private final boolean clienteConReservaActiva; // el cliente ya tiene reserva.
+    private final boolean mesaOcupada; // la mesa se traslapa con otra reserva.
+
+    /**
+     * Constructor que inicializa todos los datos del contexto.
+     *
+     * @param restaurante Restaurante de la reserva.
+     * @param mesa Mesa que se va a reservar.
+     * @param clienteConReservaActiva Si el cliente ya tiene una reserva activa.
+     * @param mesaOcupada Si la mesa ya está reservada en ese horario.
+     */
+    public ContextoReserva(Restaurante restaurante, Mesa mesa,
+            boolean clienteConReservaActiva, boolean mesaOcupada) {
+        this.restaurante = restaurante;
+        this.mesa = mesa;
+        this.clienteConReservaActiva = clienteConReservaActiva;
+        this.mesaOcupada = mesaOcupada;
+    }
+
+    /**
+     * Obtiene el restaurante de la reserva.
+     *
+     * @return El restaurante.
+     */
+    public Restaurante getRestaurante() {
+        return restaurante;
+    }
+
+    /**
+     * Obtiene la mesa que se va a reservar.
+     *
+     * @return La mesa.
+     */
+    public Mesa getMesa() {
+        return mesa;
+    }
+
+    /**
+     * Indica si el cliente ya tiene una reserva activa a partir de ahora.
+     *
+     * @return true si el cliente ya tiene una reserva activa.
+     */
+    public boolean isClienteConReservaActiva() {
+        return clienteConReservaActiva;
+    }
+
+    /**
+     * Indica si la mesa ya está reservada en un horario que se traslapa.
+     *
+     * @return true si la mesa está ocupada.
+     */
+    public boolean isMesaOcupada() {
+        return mesaOcupada;
+    }
+}
@@ -0,0 +1,58 @@
+package Proyecciones;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo lectura con lo mínimo para saber cuándo está ocupada una
+ * mesa: el id de la reserva, el código de la mesa y la hora de inicio. Se
+ * construye directamente en la consulta JPQL, sin cargar las entidades.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class OcupacionMesa {
+
+    private final Long idReserva; // id de la reserva.
+    private final String codigoMesa; // codigo de la mesa reservada.
+    private final LocalDateTime fechaHoraReserva; // inicio de la reserva.
+
+    /**
+     * Constructor usado por la expresión {@code SELECT NEW} de la consulta.
+     *
+     * @param idReserva Id de la reserva.
+     * @param codigoMesa Código de la mesa reservada.
+     * @param fechaHoraReserva Fecha y hora de inicio de la reserva.
+     */
+    public OcupacionMesa(Long idReserva, String codigoMesa,
+            LocalDateTime fechaHoraReserva) {
+        this.idReserva = idReserva;
+        this.codigoMesa = codigoMesa;
+        this.fechaHoraReserva = fechaHoraReserva;
+    }
+
+    /**
+     * Obtiene el id de la reserva.
+     *
+     * @return El id de la reserva.
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Obtiene el código de la mesa reservada.
+     *
+     * @return El código de la mesa.
+     */
+    public String getCodigoMesa() {
+        return codigoMesa;
+    }
+
+    /**
+     * Obtiene la fecha y hora de inicio de la reserva.
+     *
+     * @return La fecha y hora de la reserva.
+     */
+    public LocalDateTime getFechaHoraReserva() {
+        return fechaHoraReserva;
+    }
+}
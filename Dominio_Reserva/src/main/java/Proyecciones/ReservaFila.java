@@ -0,0 +1,96 @@
+package Proyecciones;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo lectura con las columnas que muestran las tablas de
+ * reservas: código, tipo y ubicación de la mesa, fecha y hora, y nombre del
+ * cliente. Se construye directamente en la consulta JPQL, sin cargar las
+ * entidades ni sus copias para el seguimiento de cambios.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class ReservaFila {
+
+    private final Long idReserva; // id de la reserva.
+    private final String codigoMesa; // codigo de la mesa reservada.
+    private final LocalDateTime fechaHoraReserva; // inicio de la reserva.
+    private final String tipoMesa; // tipo (tamano) de la mesa.
+    private final String ubicacion; // ubicacion de la mesa.
+    private final String nombreCliente; // nombre del cliente.
+
+    /**
+     * Constructor usado por la expresión {@code SELECT NEW} de la consulta.
+     *
+     * @param idReserva Id de la reserva.
+     * @param codigoMesa Código de la mesa reservada.
+     * @param fechaHoraReserva Fecha y hora de inicio de la reserva.
+     * @param tipoMesa Tipo de la mesa.
+     * @param ubicacion Ubicación de la mesa.
+     * @param nombreCliente Nombre del cliente.
+     */
+    public ReservaFila(Long idReserva, String codigoMesa,
+            LocalDateTime fechaHoraReserva, String tipoMesa, String ubicacion,
+            String nombreCliente) {
+        this.idReserva = idReserva;
+        this.codigoMesa = codigoMesa;
+        this.fechaHoraReserva = fechaHoraReserva;
+        this.tipoMesa = tipoMesa;
+        this.ubicacion = ubicacion;
+        this.nombreCliente = nombreCliente;
+    }
+
+    /**
+     * Obtiene el id de la reserva.
+     *
+     * @return El id de la reserva.
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Obtiene el código de la mesa reservada.
+     *
+     * @return El código de la mesa.
+     */
+    public String getCodigoMesa() {
+        return codigoMesa;
+    }
+
+    /**
+     * Obtiene la fecha y hora de inicio de la reserva.
+     *
+     * @return La fecha y hora de la reserva.
+     */
+    public LocalDateTime getFechaHoraReserva() {
+        return fechaHoraReserva;
+    }
+
+    /**
+     * Obtiene el tipo de la mesa.
+     *
+     * @return El tipo de la mesa.
+     */
+    public String getTipoMesa() {
+        return tipoMesa;
+    }
+
+    /**
+     * Obtiene la ubicación de la mesa.
+     *
+     * @return La ubicación de la mesa.
+     */
+    public String getUbicacion() {
+        return ubicacion;
+    }
+
+    /**
+     * Obtiene el nombre del cliente.
+     *
+     * @return El nombre del cliente.
+     */
+    public String getNombreCliente() {
+        return nombreCliente;
+    }
+}
@@ -0,0 +1,46 @@
+package Proyecciones;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo lectura con el id de una reserva y la fecha y hora de su
+ * último cambio ({@code actualizado_en}). Sirve para saber qué reservas
+ * cambiaron sin cargar las entidades. Se construye directamente en la
+ * consulta JPQL.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class VersionReserva {
+
+    private final Long idReserva; // id de la reserva.
+    private final LocalDateTime actualizadoEn; // ultimo cambio de la reserva.
+
+    /**
+     * Constructor usado por la expresión {@code SELECT NEW} de la consulta.
+     *
+     * @param idReserva Id de la reserva.
+     * @param actualizadoEn Fecha y hora del último cambio de la reserva.
+     */
+    public VersionReserva(Long idReserva, LocalDateTime actualizadoEn) {
+        this.idReserva = idReserva;
+        this.actualizadoEn = actualizadoEn;
+    }
+
+    /**
+     * Obtiene el id de la reserva.
+     *
+     * @return El id de la reserva.
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Obtiene la fecha y hora del último cambio de la reserva.
+     *
+     * @return La fecha y hora del último cambio.
+     */
+    public LocalDateTime getActualizadoEn() {
+        return actualizadoEn;
+    }
+}
@@ -0,0 +1,12 @@
+-- V2: indice ciego del telefono de los clientes.
+-- Los telefonos se guardan cifrados con sal aleatoria, por lo que no se pueden
+-- buscar por igualdad; telefono_idx guarda un HMAC determinista del telefono.
+
+ALTER TABLE clientes
+    ADD COLUMN telefono_idx VARCHAR(64) NULL;
+
+CREATE UNIQUE INDEX ux_clientes_telefono_idx ON clientes (telefono_idx);
+
+-- El HMAC requiere la clave de la aplicacion, asi que el llenado de los
+-- clientes existentes se hace desde Java una sola vez despues de este script:
+--   new ClienteBO().reconstruirIndicesTelefono();
@@ -0,0 +1,7 @@
+-- V3: indice para la verificacion de disponibilidad por mesa.
+-- ReservaDAO.verificarPorDia busca reservas ACTIVA de una mesa dentro de una
+-- ventana de tiempo; con este indice la consulta es un rango sobre
+-- (mesa_id, estado) en lugar de recorrer las reservas del dia.
+
+CREATE INDEX ix_reservas_mesa_estado_fecha
+    ON reservas (mesa_id, estado, fecha_hora_reserva);
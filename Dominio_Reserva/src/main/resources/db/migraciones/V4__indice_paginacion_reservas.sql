@@ -0,0 +1,8 @@
+-- V4: indice para listar las reservas por paginas.
+-- ReservaDAO.obtenerPaginaReservas recorre las reservas en orden de
+-- (fecha_hora_reserva, id) a partir de la ultima fila de la pagina anterior;
+-- con este indice cada pagina es un rango corto, sin importar cuantas
+-- reservas haya antes.
+
+CREATE INDEX ix_reservas_fecha_id
+    ON reservas (fecha_hora_reserva, id);
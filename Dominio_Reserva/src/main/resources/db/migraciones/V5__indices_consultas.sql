@@ -0,0 +1,24 @@
+-- V5: indices para las demas consultas de ReservaDAO y MesaDAO.
+-- Salen de revisar con AsesorIndices el plan de cada consulta:
+--  * Reserva.activaDeCliente (y verificarReservaciones) busca las reservas
+--    ACTIVA de un cliente desde cierta hora: rango sobre
+--    (cliente_id, estado, fecha_hora_reserva).
+--  * Reserva.paginaUltima y paginaAnterior leen las reservas de la mas
+--    reciente hacia atras; con el indice descendente la pagina se lee en
+--    orden, sin ordenar toda la tabla.
+--  * Mesa.obtenerPorTipo y Mesa.contarPorUbicacion filtran las mesas por
+--    tipo y por ubicacion.
+-- Reserva.ocupacionActiva ya usa ix_reservas_mesa_estado_fecha (V3), una
+-- busqueda por mesa, y no necesita un indice propio.
+
+CREATE INDEX ix_reservas_cliente_estado_fecha
+    ON reservas (cliente_id, estado, fecha_hora_reserva);
+
+CREATE INDEX ix_reservas_fecha_id_desc
+    ON reservas (fecha_hora_reserva DESC, id DESC);
+
+CREATE INDEX ix_mesas_tipo_mesa
+    ON mesas (tipo_mesa);
+
+CREATE INDEX ix_mesas_ubicacion
+    ON mesas (ubicacion);
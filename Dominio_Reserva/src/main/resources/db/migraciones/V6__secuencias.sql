@@ -0,0 +1,19 @@
+-- V6: tabla de secuencias para los ids de clientes y mesas.
+-- Cliente y Mesa toman sus ids de esta tabla por bloques (@TableGenerator)
+-- en lugar de AUTO_INCREMENT, de modo que EclipseLink conoce el id al
+-- persistir y puede enviar los INSERT de una insercion masiva en lotes.
+-- Cada fila guarda el ultimo id reservado; se inicia con el mayor id actual.
+-- Las columnas conservan AUTO_INCREMENT, pero los INSERT hechos fuera de la
+-- aplicacion deben dar el id o actualizar esta tabla para no chocar con los
+-- bloques ya reservados.
+
+CREATE TABLE secuencias (
+    nombre VARCHAR(50) PRIMARY KEY,
+    valor BIGINT NOT NULL
+);
+
+INSERT INTO secuencias (nombre, valor)
+SELECT 'clientes', COALESCE(MAX(id), 0) FROM clientes;
+
+INSERT INTO secuencias (nombre, valor)
+SELECT 'mesas', COALESCE(MAX(id), 0) FROM mesas;
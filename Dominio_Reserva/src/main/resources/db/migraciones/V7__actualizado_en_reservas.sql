@@ -0,0 +1,13 @@
+-- V7: fecha y hora del ultimo cambio de cada reserva.
+-- La cache de reservas de la capa de negocio (BO.CacheReservas) carga todas
+-- las reservas una vez y despues solo lee las que cambiaron desde la ultima
+-- consulta, con un rango sobre esta columna. La asigna MySQL al insertar y
+-- al actualizar la fila, con el reloj del servidor, asi que no depende del
+-- reloj de cada terminal. Las filas existentes toman la hora de la migracion.
+
+ALTER TABLE reservas
+    ADD COLUMN actualizado_en DATETIME(6) NOT NULL
+        DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+CREATE INDEX ix_reservas_actualizado_en
+    ON reservas (actualizado_en);
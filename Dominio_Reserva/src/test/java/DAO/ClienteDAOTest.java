@@ -0,0 +1,107 @@
+package DAO;
+
+import Entidades.Cliente;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Pruebas de {@link ClienteDAO} como frontera de cifrado, sobre la base de
+ * datos embebida: cuenta las operaciones de {@link PhoneCipher} de cada
+ * método para comprobar que ningún teléfono se cifra ni se descifra dos
+ * veces. Corre con {@code mvn -Pembebida test}.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+@EnabledIfSystemProperty(named = "reservasys.entorno", matches = "embebida")
+public class ClienteDAOTest {
+
+    private static final int CLIENTES = 120;
+
+    private PhoneCipherContador cipher;
+
+    private ClienteDAO dao;
+
+    // Cada prueba inserta sus clientes con otro prefijo de teléfono
+    private static final AtomicInteger PRUEBAS = new AtomicInteger();
+
+    private String prefijo;
+
+    @BeforeEach
+    public void preparar() {
+        cipher = new PhoneCipherContador();
+        dao = new ClienteDAO(cipher);
+        prefijo = String.format("55%02d", PRUEBAS.incrementAndGet());
+    }
+
+    /**
+     * Crea clientes con teléfono en texto plano.
+     *
+     * @return Los clientes.
+     */
+    private List<Cliente> clientes() {
+        List<Cliente> clientes = new ArrayList<>();
+        for (int i = 0; i < CLIENTES; i++) {
+            clientes.add(new Cliente("Cliente " + i, prefijo + String.format("%06d", i)));
+        }
+        return clientes;
+    }
+
+    @Test
+    public void insercionMasivaCifraCadaTelefonoUnaVez() throws Exception {
+        List<Cliente> clientes = clientes();
+
+        dao.insercionMasivaClientes(clientes);
+        assertEquals(CLIENTES, cipher.cifrados.get());
+        assertEquals(CLIENTES, cipher.indices.get());
+
+        // Los mismos clientes ya llevan el teléfono cifrado
+        for (Cliente cliente : clientes) {
+            cipher.cifrar(cliente);
+        }
+        assertEquals(CLIENTES, cipher.cifrados.get());
+        assertEquals(0, cipher.descifrados.get());
+    }
+
+    @Test
+    public void obtenerClientesDescifraCadaTelefonoUnaVez() throws Exception {
+        dao.insercionMasivaClientes(clientes());
+        cipher.reiniciar();
+
+        List<Cliente> clientes = dao.obtenerClientes();
+        assertEquals(clientes.size(), cipher.descifrados.get());
+        assertEquals(0, cipher.cifrados.get());
+
+        // Ya vienen descifrados: descifrarlos otra vez no hace nada
+        for (Cliente cliente : clientes) {
+            assertFalse(cliente.isTelefonoCifrado());
+            cipher.descifrar(cliente);
+        }
+        assertEquals(clientes.size(), cipher.descifrados.get());
+    }
+
+    @Test
+    public void obtenerClientePorTelefonoDescifraSoloEseCliente() throws Exception {
+        dao.insercionMasivaClientes(clientes());
+        cipher.reiniciar();
+
+        Cliente cliente = dao.obtenerClientePorTelefono(prefijo + "000042");
+
+        assertNotNull(cliente);
+        assertEquals(prefijo + "000042", cliente.getTelefono());
+        assertEquals(1, cipher.indices.get());
+        assertEquals(1, cipher.descifrados.get());
+
+        cipher.reiniciar();
+        Cliente mismo = dao.obtenerCliente(cliente.getId());
+        assertEquals(prefijo + "000042", mismo.getTelefono());
+        assertEquals(1, cipher.descifrados.get());
+        assertEquals(0, cipher.indices.get());
+    }
+}
@@ -0,0 +1,38 @@
+package DAO;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+
+/**
+ * Oyente de la sesión de EclipseLink que cuenta las sentencias SQL que se
+ * envían a la base de datos, incluidas las de la lectura por lotes de las
+ * relaciones. La cuenta es segura entre hilos.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+class ContadorConsultas extends SessionEventAdapter {
+
+    private final AtomicInteger sentencias = new AtomicInteger();
+
+    @Override
+    public void preExecuteCall(SessionEvent event) {
+        sentencias.incrementAndGet();
+    }
+
+    /**
+     * Devuelve las sentencias contadas desde la última vez que se reinició.
+     *
+     * @return Las sentencias enviadas.
+     */
+    int sentencias() {
+        return sentencias.get();
+    }
+
+    /**
+     * Pone la cuenta en cero.
+     */
+    void reiniciar() {
+        sentencias.set(0);
+    }
+}
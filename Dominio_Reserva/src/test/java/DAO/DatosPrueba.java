@@ -0,0 +1,85 @@
+package DAO;
+
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Restaurante;
+import Excepciones.DAOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.h2.engine.Mode;
+
+/**
+ * Datos de las pruebas sobre la base de datos embebida. La base de datos vive
+ * mientras corren las pruebas, así que cada llamada crea mesas y clientes con
+ * códigos y teléfonos propios que no chocan con los de otras pruebas.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+final class DatosPrueba {
+
+    private static final AtomicInteger LOTES = new AtomicInteger();
+
+    static {
+        // En modo MySQL, H2 ajusta la secuencia de las columnas AUTO_INCREMENT
+        // después de cada INSERT sin hacerlo de forma atómica; con INSERT
+        // concurrentes la secuencia retrocede y repite ids de reservas. Las
+        // pruebas no insertan ids a mano, así que el ajuste no hace falta.
+        Mode.getInstance("MySQL").updateSequenceOnManualIdentityInsertion = false;
+    }
+
+    private DatosPrueba() {
+    }
+
+    /**
+     * Guarda un restaurante abierto todo el día, con nombre único.
+     *
+     * @return El restaurante guardado.
+     * @throws DAOException si no se puede guardar.
+     */
+    static Restaurante restaurante() throws DAOException {
+        Restaurante restaurante = new Restaurante("Restaurante de prueba "
+                + LOTES.incrementAndGet(), "Calle 1",
+                "6440000000", LocalTime.MIN, LocalTime.of(23, 59));
+        new RestauranteDAO().agregar(restaurante);
+        return restaurante;
+    }
+
+    /**
+     * Guarda mesas medianas en la terraza del restaurante.
+     *
+     * @param restaurante Restaurante de las mesas.
+     * @param cantidad Cantidad de mesas.
+     * @return Las mesas guardadas, con código único.
+     * @throws DAOException si no se pueden guardar.
+     */
+    static List<Mesa> mesas(Restaurante restaurante, int cantidad) throws DAOException {
+        int lote = LOTES.incrementAndGet();
+        List<Mesa> mesas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            mesas.add(new Mesa(String.format("P%02d-%03d", lote, i), "MEDIANA", 3, 4,
+                    "TERRAZA", restaurante));
+        }
+        new MesaDAO().agregarMesas(mesas);
+        return mesas;
+    }
+
+    /**
+     * Guarda clientes con teléfono único.
+     *
+     * @param cantidad Cantidad de clientes.
+     * @return Los clientes guardados, con id.
+     * @throws DAOException si no se pueden guardar.
+     */
+    static List<Cliente> clientes(int cantidad) throws DAOException {
+        int lote = LOTES.incrementAndGet();
+        List<Cliente> clientes = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            clientes.add(new Cliente("Cliente " + lote + "-" + i,
+                    String.format("66%02d%06d", lote, i)));
+        }
+        new ClienteDAO().insercionMasivaClientes(clientes);
+        return clientes;
+    }
+}
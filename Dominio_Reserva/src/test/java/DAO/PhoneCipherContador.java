@@ -0,0 +1,44 @@
+package DAO;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio de cifrado que cuenta cuántas veces se cifra, se descifra y se
+ * calcula el indice ciego de un teléfono. Las cuentas son seguras entre
+ * hilos, porque el descifrado masivo reparte el trabajo en un pool.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+class PhoneCipherContador extends PhoneCipher {
+
+    final AtomicInteger cifrados = new AtomicInteger();
+    final AtomicInteger descifrados = new AtomicInteger();
+    final AtomicInteger indices = new AtomicInteger();
+
+    @Override
+    public String cifrarTexto(String telefono) throws Exception {
+        cifrados.incrementAndGet();
+        return super.cifrarTexto(telefono);
+    }
+
+    @Override
+    public String descifrarTexto(String telefonoCifrado) throws Exception {
+        descifrados.incrementAndGet();
+        return super.descifrarTexto(telefonoCifrado);
+    }
+
+    @Override
+    public String indiceCiego(String telefono) throws Exception {
+        indices.incrementAndGet();
+        return super.indiceCiego(telefono);
+    }
+
+    /**
+     * Pone las cuentas en cero.
+     */
+    void reiniciar() {
+        cifrados.set(0);
+        descifrados.set(0);
+        indices.set(0);
+    }
+}
@@ -0,0 +1,86 @@
+package DAO;
+
+import Entidades.Cliente;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de {@link PhoneCipher}: cada teléfono se cifra y se descifra una
+ * sola vez, aunque se pida más de una vez.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class PhoneCipherTest {
+
+    @Test
+    public void cifrarDosVecesCifraUnaSola() throws Exception {
+        PhoneCipherContador cipher = new PhoneCipherContador();
+        Cliente cliente = new Cliente("Ana", "6441234567");
+
+        cipher.cifrar(cliente);
+        String cifrado = cliente.getTelefono();
+        cipher.cifrar(cliente);
+
+        assertTrue(cliente.isTelefonoCifrado());
+        assertNotEquals("6441234567", cifrado);
+        assertEquals(cifrado, cliente.getTelefono());
+        assertEquals(1, cipher.cifrados.get());
+        assertEquals(1, cipher.indices.get());
+    }
+
+    @Test
+    public void descifrarDosVecesDescifraUnaSola() throws Exception {
+        PhoneCipherContador cipher = new PhoneCipherContador();
+        Cliente cliente = new Cliente("Ana", "6441234567");
+        cipher.cifrar(cliente);
+
+        cipher.descifrar(cliente);
+        cipher.descifrar(cliente);
+
+        assertFalse(cliente.isTelefonoCifrado());
+        assertEquals("6441234567", cliente.getTelefono());
+        assertEquals(1, cipher.descifrados.get());
+    }
+
+    @Test
+    public void descifrarTodosDescifraCadaTelefonoUnaVez() throws Exception {
+        PhoneCipherContador cipher = new PhoneCipherContador();
+        List<Cliente> clientes = new ArrayList<>();
+        // Más clientes que el mínimo para repartir el trabajo entre hilos
+        for (int i = 0; i < 500; i++) {
+            Cliente cliente = new Cliente("Cliente " + i, String.format("644%07d", i));
+            cipher.cifrar(cliente);
+            clientes.add(cliente);
+        }
+        clientes.add(new Cliente("Sin cifrar", "6449999999"));
+
+        List<Cliente> fallidos = cipher.descifrarTodos(clientes);
+        assertTrue(fallidos.isEmpty());
+        assertEquals(500, cipher.descifrados.get());
+
+        cipher.descifrarTodos(clientes);
+        assertEquals(500, cipher.descifrados.get());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(String.format("644%07d", i), clientes.get(i).getTelefono());
+        }
+    }
+
+    @Test
+    public void descifrarTodosDevuelveLosQueFallan() {
+        PhoneCipherContador cipher = new PhoneCipherContador();
+        Cliente danado = new Cliente("Dañado", "no es base64");
+        danado.setTelefonoCifrado(true);
+        List<Cliente> clientes = new ArrayList<>(List.of(danado));
+
+        List<Cliente> fallidos = cipher.descifrarTodos(clientes);
+
+        assertEquals(List.of(danado), fallidos);
+        assertTrue(danado.isTelefonoCifrado());
+        assertEquals(1, cipher.descifrados.get());
+    }
+}
@@ -0,0 +1,105 @@
+package DAO;
+
+import Conexion.Conexion;
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Reserva;
+import Entidades.Restaurante;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Prueba de carga del pool de conexiones sobre la base de datos embebida:
+ * 64 hilos agregan reservas al mismo tiempo con {@link ReservaDAO}, más hilos
+ * que conexiones en el pool. Todas las reservas deben guardarse sin agotar el
+ * tiempo de espera del pool, sin abrir más conexiones que el máximo y sin
+ * dejar conexiones prestadas. Registra la mediana (p50) y el percentil 99
+ * del tiempo de cada reserva. Corre con {@code mvn -Pembebida test}.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+@EnabledIfSystemProperty(named = "reservasys.entorno", matches = "embebida")
+public class PoolConexionesTest {
+
+    private static final Logger LOG = Logger.getLogger(PoolConexionesTest.class.getName());
+
+    private static final int HILOS = 64;
+
+    private static final int RESERVAS_POR_HILO = 20;
+
+    // pool.maximo y pool.tiempoEsperaMs de conexion-embebida.properties
+    private static final int MAXIMO_POOL = 8;
+
+    private static final long TIEMPO_ESPERA_POOL_MS = 10_000;
+
+    @Test
+    public void sesentaYCuatroHilosReservanConElPoolAcotado() throws Exception {
+        Restaurante restaurante = DatosPrueba.restaurante();
+        List<Mesa> mesas = DatosPrueba.mesas(restaurante, HILOS);
+        List<Cliente> clientes = DatosPrueba.clientes(HILOS);
+        LocalDateTime inicio = LocalDateTime.now().plusDays(1).withHour(12)
+                .withMinute(0).withSecond(0).withNano(0);
+
+        // Cada hilo reserva su mesa un día tras otro; no hay traslapes
+        List<Callable<long[]>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            Mesa mesa = mesas.get(h);
+            Cliente cliente = clientes.get(h);
+            tareas.add(() -> {
+                ReservaDAO dao = new ReservaDAO();
+                long[] tiempos = new long[RESERVAS_POR_HILO];
+                for (int i = 0; i < RESERVAS_POR_HILO; i++) {
+                    Reserva reserva = new Reserva(inicio.plusDays(i), 3, 100.0,
+                            "ACTIVA", cliente, mesa, restaurante);
+                    long antes = System.nanoTime();
+                    dao.agregarReserva(reserva);
+                    tiempos[i] = System.nanoTime() - antes;
+                }
+                return tiempos;
+            });
+        }
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        long[] tiempos = new long[HILOS * RESERVAS_POR_HILO];
+        try {
+            int n = 0;
+            for (Future<long[]> resultado : hilos.invokeAll(tareas)) {
+                for (long tiempo : resultado.get()) {
+                    tiempos[n++] = tiempo;
+                }
+            }
+            assertEquals(tiempos.length, n);
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        Arrays.sort(tiempos);
+        long p50 = tiempos[tiempos.length / 2] / 1_000_000;
+        long p99 = tiempos[tiempos.length * 99 / 100] / 1_000_000;
+        LOG.log(Level.INFO, "{0} hilos x {1} reservas: p50 {2} ms, p99 {3} ms. {4}",
+                new Object[]{HILOS, RESERVAS_POR_HILO, p50, p99, Conexion.estadisticasPool()});
+
+        assertTrue(tiempos[tiempos.length - 1] / 1_000_000 < TIEMPO_ESPERA_POOL_MS,
+                "Alguna reserva esperó una conexión más que el tiempo de espera del pool");
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pool = new ObjectName("com.zaxxer.hikari:type=Pool (reservasys)");
+        assertTrue((Integer) servidor.getAttribute(pool, "TotalConnections") <= MAXIMO_POOL);
+        assertEquals(0, servidor.getAttribute(pool, "ActiveConnections"));
+        assertEquals(0, servidor.getAttribute(pool, "ThreadsAwaitingConnection"));
+    }
+}
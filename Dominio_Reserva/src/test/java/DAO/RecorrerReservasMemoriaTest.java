@@ -0,0 +1,99 @@
+package DAO;
+
+import Conexion.Conexion;
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Restaurante;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManager;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Prueba de memoria de {@link ReservaDAO#recorrerReservas}: recorre
+ * {@value #RESERVAS} reservas en una JVM con poca memoria, que no alcanza
+ * para tenerlas todas a la vez. La ejecución {@code memoria-acotada} del
+ * perfil embebida la corre con {@code -Xmx64m} y una base H2 en archivo, para
+ * que las filas no ocupen la memoria de la prueba:
+ * {@code mvn -Pembebida test}. Sin vaciar las filas que acumula la lectura
+ * por lotes del cursor la prueba termina con {@link OutOfMemoryError}.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+@EnabledIfSystemProperty(named = "reservasys.prueba.memoriaAcotada", matches = "true")
+public class RecorrerReservasMemoriaTest {
+
+    private static final int RESERVAS = 300_000;
+
+    private static final int MESAS = 50;
+
+    private static final int CLIENTES = 200;
+
+    private static final int LOTE_INSERCION = 5_000;
+
+    @Test
+    public void recorrerTodasLasReservasNoLasRetieneEnMemoria() throws Exception {
+        LocalDateTime inicio = LocalDateTime.now().plusDays(1).withNano(0);
+        guardarReservas(inicio);
+
+        AtomicLong mesas = new AtomicLong();
+        long leidas = new ReservaDAO().recorrerReservas(inicio,
+                inicio.plusMinutes(RESERVAS), reserva -> {
+                    // Lo mismo que lee la exportación de cada reserva
+                    reserva.getCliente().getNombre();
+                    reserva.getRestaurante().getNombre();
+                    mesas.addAndGet(reserva.getMesa().getCapacidadMaxima());
+                });
+
+        assertEquals(RESERVAS, leidas);
+        assertEquals(RESERVAS * 4L, mesas.get());
+    }
+
+    /**
+     * Guarda las reservas, una por minuto desde el inicio, con sentencias
+     * por lotes sobre la conexión del EntityManager; con JPA la inserción
+     * llenaría la memoria que se quiere medir.
+     *
+     * @param inicio Fecha y hora de la primera reserva.
+     * @throws Exception si no se pueden guardar.
+     */
+    private static void guardarReservas(LocalDateTime inicio) throws Exception {
+        Restaurante restaurante = DatosPrueba.restaurante();
+        List<Mesa> mesas = DatosPrueba.mesas(restaurante, MESAS);
+        List<Cliente> clientes = DatosPrueba.clientes(CLIENTES);
+
+        EntityManager em = new Conexion().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            Connection conexion = em.unwrap(Connection.class);
+            try (PreparedStatement insercion = conexion.prepareStatement(
+                    "INSERT INTO reservas (fecha_hora_reserva, numero_personas, costo, "
+                    + "estado, cliente_id, mesa_id, restaurante_id) "
+                    + "VALUES (?, 3, 100.0, 'ACTIVA', ?, ?, ?)")) {
+                for (int i = 0; i < RESERVAS; i++) {
+                    insercion.setTimestamp(1, Timestamp.valueOf(inicio.plusMinutes(i)));
+                    insercion.setLong(2, clientes.get(i % CLIENTES).getId());
+                    insercion.setLong(3, mesas.get(i % MESAS).getId());
+                    insercion.setLong(4, restaurante.getId());
+                    insercion.addBatch();
+                    if ((i + 1) % LOTE_INSERCION == 0) {
+                        insercion.executeBatch();
+                    }
+                }
+                insercion.executeBatch();
+            }
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package DAO;
+
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Reserva;
+import Entidades.Restaurante;
+import Excepciones.MesaOcupadaException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Prueba de contención de {@link ReservaDAO#agregarReserva} sobre la base de
+ * datos embebida: varios hilos reservan la misma mesa a la misma hora al
+ * mismo tiempo. El bloqueo de la mesa dentro de la transacción debe dejar
+ * pasar exactamente una reserva; las demás terminan con
+ * {@link MesaOcupadaException}. Corre con {@code mvn -Pembebida test}.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+@EnabledIfSystemProperty(named = "reservasys.entorno", matches = "embebida")
+public class ReservaDAOConcurrenciaTest {
+
+    private static final int HILOS = 32;
+
+    @Test
+    public void soloUnaDeTreintaYDosReservasSimultaneasGanaLaMesa() throws Exception {
+        Restaurante restaurante = DatosPrueba.restaurante();
+        Mesa mesa = DatosPrueba.mesas(restaurante, 1).get(0);
+        List<Cliente> clientes = DatosPrueba.clientes(HILOS);
+        LocalDateTime fecha = LocalDateTime.now().plusDays(2).withHour(20)
+                .withMinute(0).withSecond(0).withNano(0);
+
+        // Todos los hilos esperan la salida para chocar en la misma mesa
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Callable<Reserva>> tareas = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            // Horas distintas dentro de la ventana de 5 horas de la reserva
+            Reserva reserva = new Reserva(fecha.plusMinutes(i), 3, 100.0, "ACTIVA",
+                    clientes.get(i), mesa, restaurante);
+            tareas.add(() -> {
+                salida.await();
+                new ReservaDAO().agregarReserva(reserva);
+                return reserva;
+            });
+        }
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        int guardadas = 0;
+        int ocupadas = 0;
+        try {
+            List<Future<Reserva>> resultados = new ArrayList<>();
+            for (Callable<Reserva> tarea : tareas) {
+                resultados.add(hilos.submit(tarea));
+            }
+            salida.countDown();
+            for (Future<Reserva> resultado : resultados) {
+                try {
+                    assertTrue(resultado.get().getId() != null);
+                    guardadas++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof MesaOcupadaException,
+                            "Error inesperado: " + e.getCause());
+                    ocupadas++;
+                }
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        assertEquals(1, guardadas);
+        assertEquals(HILOS - 1, ocupadas);
+        assertTrue(!new ReservaDAO().verificarPorDia(mesa, fecha));
+        assertEquals(1, new ReservaDAO().obtenerOcupacionMesa(mesa.getCodigoMesa(),
+                fecha.minusHours(5), fecha.plusHours(5)).size());
+    }
+}
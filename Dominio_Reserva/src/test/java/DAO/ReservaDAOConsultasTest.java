@@ -0,0 +1,176 @@
+package DAO;
+
+import Conexion.Conexion;
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Reserva;
+import Entidades.Restaurante;
+import Filtros.FiltroReserva;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.server.Server;
+import org.junit.jupiter.api.AfterAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Cuenta las sentencias SQL de las lecturas de listas de {@link ReservaDAO}
+ * sobre la base de datos embebida: con 10 y con 500 reservas, cada una con
+ * su propia mesa y su propio cliente, deben ser las mismas. Si una relación
+ * se leyera reserva por reserva, la cuenta crecería con las reservas. Antes
+ * de cada lectura se vacía la caché compartida para que las mesas y el
+ * restaurante se lean de la base de datos. Corre con
+ * {@code mvn -Pembebida test}; el perfil usa una JVM (y una base) por clase
+ * de prueba, así que solo cuentan las reservas de esta clase.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+@EnabledIfSystemProperty(named = "reservasys.entorno", matches = "embebida")
+public class ReservaDAOConsultasTest {
+
+    private static final int POCAS = 10;
+
+    // Hasta Reserva.TAMANO_LOTE cada relación se lee con una sola consulta
+    private static final int MUCHAS = 500;
+
+    private static final LocalDate DIA_POCAS = LocalDate.now().plusDays(7);
+
+    private static final LocalDate DIA_MUCHAS = DIA_POCAS.plusDays(1);
+
+    private static Server sesion;
+
+    private static ContadorConsultas contador;
+
+    // obtenerReservas lee toda la tabla; se mide antes de agregar las demás
+    private static int consultasTodasConPocas;
+
+    private final ReservaDAO dao = new ReservaDAO();
+
+    @BeforeAll
+    public static void preparar() throws Exception {
+        sesion = JpaHelper.getServerSession(new Conexion().getEntityManagerFactory());
+        contador = new ContadorConsultas();
+        sesion.getEventManager().addListener(contador);
+
+        Restaurante restaurante = DatosPrueba.restaurante();
+        guardarReservas(restaurante, POCAS, DIA_POCAS);
+        consultasTodasConPocas = contarConsultas(() -> new ReservaDAO().obtenerReservas(),
+                POCAS);
+        guardarReservas(restaurante, MUCHAS - POCAS, DIA_MUCHAS);
+    }
+
+    @AfterAll
+    public static void terminar() {
+        sesion.getEventManager().removeListener(contador);
+    }
+
+    /**
+     * Guarda reservas activas a la misma hora, cada una en su propia mesa y
+     * con su propio cliente.
+     *
+     * @param restaurante Restaurante de las reservas.
+     * @param cantidad Cantidad de reservas.
+     * @param dia Día de las reservas.
+     * @throws Exception si no se pueden guardar.
+     */
+    private static void guardarReservas(Restaurante restaurante, int cantidad,
+            LocalDate dia) throws Exception {
+        List<Mesa> mesas = DatosPrueba.mesas(restaurante, cantidad);
+        List<Cliente> clientes = DatosPrueba.clientes(cantidad);
+        ReservaDAO dao = new ReservaDAO();
+        for (int i = 0; i < cantidad; i++) {
+            dao.agregarReserva(new Reserva(dia.atTime(20, 0), 3, 100.0, "ACTIVA",
+                    clientes.get(i), mesas.get(i), restaurante));
+        }
+    }
+
+    /**
+     * Ejecuta una lectura con la caché compartida vacía, recorre las
+     * relaciones de cada reserva y cuenta las sentencias SQL. Antes se
+     * ejecuta una vez sin contar, para que la preparación de la consulta no
+     * entre en la cuenta.
+     *
+     * @param lectura Lectura a medir.
+     * @param esperadas Reservas que debe devolver la lectura.
+     * @return Las sentencias SQL de la lectura.
+     * @throws Exception si la lectura falla.
+     */
+    private static int contarConsultas(Callable<List<Reserva>> lectura, int esperadas)
+            throws Exception {
+        lectura.call();
+        sesion.getIdentityMapAccessor().initializeAllIdentityMaps();
+        contador.reiniciar();
+        List<Reserva> reservas = lectura.call();
+        for (Reserva reserva : reservas) {
+            reserva.getCliente().getNombre();
+            reserva.getMesa().getCodigoMesa();
+            reserva.getRestaurante().getNombre();
+        }
+        int sentencias = contador.sentencias();
+        assertEquals(esperadas, reservas.size());
+        return sentencias;
+    }
+
+    /**
+     * Filtro por rango de fechas, del inicio del primer día al final del
+     * último.
+     *
+     * @param primero Primer día.
+     * @param ultimo Último día.
+     * @return El filtro.
+     */
+    private static FiltroReserva filtroDias(LocalDate primero, LocalDate ultimo) {
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setDesde(primero.atStartOfDay());
+        filtro.setHasta(ultimo.atTime(LocalTime.MAX));
+        filtro.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+        return filtro;
+    }
+
+    @Test
+    public void obtenerReservasHaceLasMismasConsultasConDiezYQuinientas() throws Exception {
+        int consultasTodasConMuchas = contarConsultas(() -> dao.obtenerReservas(), MUCHAS);
+
+        assertEquals(consultasTodasConPocas, consultasTodasConMuchas);
+    }
+
+    @Test
+    public void buscarReservasConFiltroHaceLasMismasConsultasConDiezYQuinientas()
+            throws Exception {
+        int pocas = contarConsultas(() -> dao.buscarReservas(
+                filtroDias(DIA_POCAS, DIA_POCAS)), POCAS);
+        int muchas = contarConsultas(() -> dao.buscarReservas(
+                filtroDias(DIA_POCAS, DIA_MUCHAS)), MUCHAS);
+
+        assertEquals(pocas, muchas);
+    }
+
+    @Test
+    public void buscarReservasPorNombreHaceLasMismasConsultasConDiezYQuinientas()
+            throws Exception {
+        LocalDateTime inicio = DIA_POCAS.atStartOfDay();
+        int pocas = contarConsultas(() -> dao.buscarReservas("Cliente", inicio,
+                DIA_POCAS.atTime(LocalTime.MAX)), POCAS);
+        int muchas = contarConsultas(() -> dao.buscarReservas("Cliente", inicio,
+                DIA_MUCHAS.atTime(LocalTime.MAX)), MUCHAS);
+
+        assertEquals(pocas, muchas);
+    }
+
+    @Test
+    public void buscarReservasPorFiltrosHaceLasMismasConsultasConDiezYQuinientas()
+            throws Exception {
+        int pocas = contarConsultas(() -> dao.buscarReservasPorFiltros(null, null,
+                null, null, DIA_POCAS, DIA_POCAS, null), POCAS);
+        int muchas = contarConsultas(() -> dao.buscarReservasPorFiltros(null, null,
+                null, null, DIA_POCAS, DIA_MUCHAS, null), MUCHAS);
+
+        assertEquals(pocas, muchas);
+    }
+}
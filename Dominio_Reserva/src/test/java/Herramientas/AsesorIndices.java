@@ -0,0 +1,454 @@
+package Herramientas;
+
+import Conexion.Conexion;
+import DAO.ReservaDAO;
+import Excepciones.ConexionException;
+import Filtros.FiltroReserva;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.internal.databaseaccess.DatabaseCall;
+import org.eclipse.persistence.internal.sessions.AbstractRecord;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.jpa.JpaQuery;
+import org.eclipse.persistence.mappings.DatabaseMapping;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.queries.ReadQuery;
+
+/**
+ * Herramienta que revisa el plan de ejecución de las consultas de los DAO.
+ * Traduce a SQL cada consulta con nombre de las entidades y cada consulta
+ * JPQL que los DAO arman en el código, ejecuta {@code EXPLAIN} sobre ella en
+ * la base de datos configurada (MySQL o la embebida H2) y reporta las que
+ * recorren completa una tabla que crece sin límite.
+ *
+ * Los listados completos (consultas sin {@code WHERE}) leen toda la tabla a
+ * propósito y no se marcan, salvo las páginas, que se revisan con su límite
+ * de filas. Termina con excepción si alguna consulta falla la revisión, para
+ * que el build se detenga. El perfil {@code indices} la corre con las clases
+ * de prueba al final del build, sobre la base embebida o sobre la MySQL de
+ * {@code conexion.properties}:
+ * <pre>
+ * mvn -Pembebida,indices -Dreservasys.entorno=embebida verify
+ * mvn -Pindices verify
+ * </pre>
+ * o sola, sin correr las pruebas:
+ * <pre>
+ * mvn -Pembebida test-compile exec:java -Dreservasys.entorno=embebida \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=Herramientas.AsesorIndices
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class AsesorIndices {
+
+    private static final Logger LOG = Logger.getLogger(AsesorIndices.class.getName());
+
+    // Tablas que crecen con el uso; en ellas un recorrido completo es un problema
+    private static final Set<String> TABLAS_GRANDES = Set.of("reservas", "clientes");
+
+    // Filas que lee cada página del listado de reservas
+    private static final int TAMANO_PAGINA = 50;
+
+    private static final Set<String> PAGINADAS = Set.of("Reserva.paginaPrimera",
+            "Reserva.paginaUltima", "Reserva.paginaSiguiente", "Reserva.paginaAnterior");
+
+    private static final Pattern WHERE = Pattern.compile("\\bWHERE\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    // Alias que EclipseLink da a cada tabla en el SQL: "reservas t1"
+    private static final Pattern ALIAS = Pattern.compile("\\b(\\w+) (t\\d+)\\b");
+
+    // Tabla en el plan de H2: FROM "public"."reservas" "t1"
+    private static final Pattern TABLA_H2 = Pattern.compile(
+            "^\\s*(?:FROM|INNER JOIN|LEFT OUTER JOIN)\\s+\"?\\w+\"?\\.\"?(\\w+)\"?");
+
+    // Acceso a la tabla en el plan de H2, con condición si usa el índice
+    // para buscar: /* public.ix_reservas_fecha_id: fecha_hora_reserva >= ... */
+    private static final Pattern ACCESO_H2 = Pattern.compile(
+            "^\\s*/\\* [\\w\".]+\\.(\\w+)(:)?");
+
+    private final EntityManagerFactory fabrica;
+
+    /**
+     * Constructor que recibe la fábrica de la unidad de persistencia.
+     *
+     * @param fabrica Fábrica con las consultas con nombre y la conexión.
+     */
+    public AsesorIndices(EntityManagerFactory fabrica) {
+        this.fabrica = fabrica;
+    }
+
+    /**
+     * Revisa la base de datos configurada para el entorno actual
+     * ({@code reservasys.entorno}).
+     *
+     * @param args No se usan.
+     * @throws ConexionException si no se puede abrir la base de datos.
+     */
+    public static void main(String[] args) throws ConexionException {
+        try {
+            List<String> fallas = new AsesorIndices(
+                    new Conexion().getEntityManagerFactory()).revisar();
+            if (!fallas.isEmpty()) {
+                throw new IllegalStateException(fallas.size()
+                        + " consultas recorren tablas completas: " + fallas);
+            }
+        } finally {
+            Conexion.closeEntityManagerFactory();
+        }
+    }
+
+    /**
+     * Revisa el plan de todas las consultas y escribe una línea por consulta
+     * con su resultado.
+     *
+     * @return Los nombres de las consultas que no pasaron la revisión.
+     * @throws ConexionException si falla la traducción o el EXPLAIN.
+     */
+    public List<String> revisar() throws ConexionException {
+        Map<String, Consulta> consultas = catalogo();
+        List<String> fallas = new ArrayList<>();
+        EntityManager em = fabrica.createEntityManager();
+        try {
+            AbstractSession sesion = (AbstractSession) JpaHelper
+                    .getEntityManager(em).getActiveSession();
+            em.getTransaction().begin();
+            Connection conexion = em.unwrap(Connection.class);
+            boolean mysql = conexion.getMetaData().getDatabaseProductName()
+                    .toLowerCase(Locale.ROOT).contains("mysql");
+
+            for (Map.Entry<String, Consulta> entrada : consultas.entrySet()) {
+                Consulta consulta = entrada.getValue();
+                String sql = traducir(em, sesion, consulta);
+                Set<String> recorridas = mysql
+                        ? recorridasMySQL(conexion, sql, consulta.paginada)
+                        : recorridasH2(conexion, sql, consulta.paginada);
+                recorridas.retainAll(TABLAS_GRANDES);
+                Set<String> permitidas = new TreeSet<>(recorridas);
+                permitidas.retainAll(consulta.recorridosPermitidos);
+                recorridas.removeAll(consulta.recorridosPermitidos);
+
+                String resultado;
+                if (recorridas.isEmpty()) {
+                    resultado = permitidas.isEmpty() ? "ok"
+                            : "ok (recorre " + permitidas + ", permitido)";
+                } else if (!consulta.paginada && consulta.jpql != null
+                        && !WHERE.matcher(consulta.jpql).find()) {
+                    resultado = "listado completo";
+                } else {
+                    resultado = "RECORRE " + recorridas;
+                    fallas.add(entrada.getKey());
+                }
+                System.out.printf("%-45s %s%n", entrada.getKey(), resultado);
+            }
+            em.getTransaction().rollback();
+        } catch (SQLException | PersistenceException e) {
+            throw new ConexionException("Error al revisar el plan de las consultas", e);
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+        LOG.log(Level.INFO, "{0} consultas revisadas, {1} con recorrido completo",
+                new Object[]{consultas.size(), fallas.size()});
+        return fallas;
+    }
+
+    /**
+     * Arma la lista de consultas a revisar: todas las consultas con nombre de
+     * la unidad de persistencia, las combinaciones de filtros de
+     * {@code ReservaDAO.buscarReservas}, que se arma en el código, y las
+     * formas de {@link FiltroReserva} que usan las fachadas, que se registran
+     * como consultas con nombre al usarse y aquí se registran antes.
+     *
+     * @return Las consultas por nombre, en orden.
+     */
+    private Map<String, Consulta> catalogo() {
+        Map<String, Consulta> consultas = new LinkedHashMap<>();
+        for (String nombre : new TreeSet<>(JpaHelper.getServerSession(fabrica)
+                .getQueries().keySet())) {
+            if (nombre.startsWith(ReservaDAO.PREFIJO_CONSULTA_FILTRO)) {
+                continue; // Se agregan abajo con su descripción
+            }
+            DatabaseQuery consulta = JpaHelper.getServerSession(fabrica)
+                    .getQuery(nombre);
+            consultas.put(nombre, new Consulta(nombre, consulta.getJPQLString(),
+                    PAGINADAS.contains(nombre)));
+        }
+
+        consultas.put("ReservaDAO.buscarReservas(fechas)", new Consulta(null,
+                ReservaDAO.consultaBuscarReservas(false, true, true), false));
+        consultas.put("ReservaDAO.buscarReservas(nombre, fechas)", new Consulta(null,
+                ReservaDAO.consultaBuscarReservas(true, true, true), false));
+        // LIKE '%nombre%' no puede usar un índice: se recorren los clientes
+        // (o las reservas en orden, si la base estima que hay pocas)
+        consultas.put("ReservaDAO.buscarReservas(nombre)", new Consulta(null,
+                ReservaDAO.consultaBuscarReservas(true, false, false), false,
+                "clientes", "reservas"));
+
+        EntityManager em = fabrica.createEntityManager();
+        try {
+            LocalDateTime hoy = LocalDate.now().atStartOfDay();
+            FiltroReserva dia = ordenadoPorFecha();
+            dia.setDesde(hoy);
+            dia.setHasta(hoy.plusDays(1));
+            agregarFiltro(em, consultas, "día", dia, false);
+
+            FiltroReserva nombre = ordenadoPorFecha();
+            nombre.setNombreCliente("a");
+            agregarFiltro(em, consultas, "nombre", nombre, false, "clientes", "reservas");
+
+            FiltroReserva telefono = ordenadoPorFecha();
+            telefono.setTelefonoCliente("a");
+            agregarFiltro(em, consultas, "teléfono", telefono, false);
+
+            FiltroReserva cliente = ordenadoPorFecha();
+            cliente.setIdCliente(1L);
+            agregarFiltro(em, consultas, "cliente", cliente, false);
+
+            FiltroReserva mesa = ordenadoPorFecha();
+            mesa.setTipoMesa("a");
+            mesa.setUbicacion("a");
+            mesa.setDesde(hoy);
+            mesa.setHasta(hoy.plusDays(1));
+            agregarFiltro(em, consultas, "mesa y fechas", mesa, false);
+
+            FiltroReserva tipo = ordenadoPorFecha();
+            tipo.setTipoMesa("a");
+            agregarFiltro(em, consultas, "tipo de mesa", tipo, false);
+
+            FiltroReserva pagina = ordenadoPorFecha();
+            pagina.setDespuesDe(hoy, 1L);
+            pagina.setLimite(TAMANO_PAGINA);
+            agregarFiltro(em, consultas, "página siguiente", pagina, true);
+        } finally {
+            em.close();
+        }
+        return consultas;
+    }
+
+    /**
+     * Crea un filtro sin criterios ordenado por fecha, como los de las
+     * fachadas.
+     *
+     * @return El filtro.
+     */
+    private static FiltroReserva ordenadoPorFecha() {
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+        return filtro;
+    }
+
+    /**
+     * Registra la consulta de la forma de un filtro y la agrega a la lista.
+     *
+     * @param em EntityManager con el que se registra la consulta.
+     * @param consultas Lista de consultas a revisar.
+     * @param descripcion Descripción de la forma.
+     * @param filtro Filtro de ejemplo con la forma.
+     * @param paginada Si la consulta lee un número limitado de filas.
+     * @param recorridosPermitidos Tablas que puede recorrer completas.
+     */
+    private static void agregarFiltro(EntityManager em, Map<String, Consulta> consultas,
+            String descripcion, FiltroReserva filtro, boolean paginada,
+            String... recorridosPermitidos) {
+        ReservaDAO.consultaFiltro(em, filtro);
+        String nombre = ReservaDAO.nombreConsultaFiltro(filtro);
+        consultas.put("FiltroReserva(" + descripcion + ")",
+                new Consulta(nombre, null, paginada, recorridosPermitidos));
+    }
+
+    /**
+     * Traduce una consulta a SQL con valores de ejemplo en sus parámetros.
+     *
+     * @param em EntityManager para crear la consulta.
+     * @param sesion Sesión de EclipseLink con la plataforma de la base.
+     * @param consulta Consulta a traducir.
+     * @return La sentencia SQL con los valores ya escritos.
+     */
+    private String traducir(EntityManager em, AbstractSession sesion, Consulta consulta) {
+        Query query = consulta.nombre != null
+                ? em.createNamedQuery(consulta.nombre)
+                : em.createQuery(consulta.jpql);
+        DatabaseQuery original = query.unwrap(JpaQuery.class).getDatabaseQuery();
+        DatabaseQuery copia = (DatabaseQuery) original.clone();
+        if (consulta.paginada && copia instanceof ReadQuery) {
+            ((ReadQuery) copia).setMaxRows(TAMANO_PAGINA);
+        }
+
+        List<Object> valores = new ArrayList<>();
+        for (Class<?> tipo : copia.getArgumentTypes()) {
+            valores.add(valorEjemplo(sesion, tipo, valores.size()));
+        }
+        AbstractRecord fila = copia.rowFromArguments(valores, sesion);
+        if (consulta.paginada) {
+            // El límite de filas también va como parámetro de la sentencia
+            fila.put(DatabaseCall.FIRSTRESULT_FIELD, 0);
+            fila.put(DatabaseCall.MAXROW_FIELD, TAMANO_PAGINA);
+        }
+        return copia.getTranslatedSQLString(sesion, fila);
+    }
+
+    /**
+     * Genera un valor de ejemplo para un parámetro del tipo dado. Las fechas
+     * avanzan un día por posición, para que un rango {@code :inicio} a
+     * {@code :fin} cubra un día como en la aplicación. Para las entidades
+     * crea una instancia con solo la llave primaria, y para las listas de
+     * una consulta {@code IN} dos números, que también se convierten a texto
+     * si la columna lo es (el tipo de los elementos no se conoce).
+     *
+     * @param sesion Sesión con los descriptores de las entidades.
+     * @param tipo Tipo del parámetro.
+     * @param posicion Posición del parámetro en la consulta.
+     * @return Un valor del tipo indicado.
+     */
+    private static Object valorEjemplo(AbstractSession sesion, Class<?> tipo,
+            int posicion) {
+        if (tipo == String.class) {
+            return "%a%";
+        }
+        if (tipo == Long.class || tipo == long.class) {
+            return 1L;
+        }
+        if (tipo == Integer.class || tipo == int.class) {
+            return 1;
+        }
+        if (tipo == Double.class || tipo == double.class) {
+            return 1.0;
+        }
+        if (tipo == LocalDateTime.class) {
+            return LocalDate.now().atStartOfDay().plusDays(posicion);
+        }
+        if (tipo == LocalDate.class) {
+            return LocalDate.now().plusDays(posicion);
+        }
+        if (Collection.class.isAssignableFrom(tipo)) {
+            return List.of(1L, 2L);
+        }
+        ClassDescriptor descriptor = sesion.getDescriptor(tipo);
+        if (descriptor == null) {
+            return null;
+        }
+        Object entidad = descriptor.getObjectBuilder().buildNewInstance();
+        for (DatabaseMapping mapeo : descriptor.getMappings()) {
+            if (mapeo.isPrimaryKeyMapping()) {
+                mapeo.setAttributeValueInObject(entidad, 1L);
+            }
+        }
+        return entidad;
+    }
+
+    /**
+     * Ejecuta EXPLAIN en MySQL y devuelve las tablas que se leen completas:
+     * acceso {@code ALL}, o {@code index} (el índice entero) salvo en las
+     * páginas, donde la lectura se detiene al juntar las filas.
+     *
+     * @param conexion Conexión de la transacción en curso.
+     * @param sql Sentencia a revisar.
+     * @param paginada Si la sentencia lee un número limitado de filas.
+     * @return Las tablas recorridas completas.
+     * @throws SQLException si falla el EXPLAIN.
+     */
+    private static Set<String> recorridasMySQL(Connection conexion, String sql,
+            boolean paginada) throws SQLException {
+        Map<String, String> alias = new LinkedHashMap<>();
+        Matcher nombres = ALIAS.matcher(sql);
+        while (nombres.find()) {
+            alias.put(nombres.group(2), nombres.group(1));
+        }
+        Set<String> tablas = new TreeSet<>();
+        try (Statement sentencia = conexion.createStatement();
+                ResultSet rs = sentencia.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                String tipo = rs.getString("type");
+                String tabla = rs.getString("table");
+                if (tabla != null && ("ALL".equals(tipo)
+                        || "index".equals(tipo) && !paginada)) {
+                    tablas.add(alias.getOrDefault(tabla, tabla).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return tablas;
+    }
+
+    /**
+     * Ejecuta EXPLAIN en H2 y devuelve las tablas que el plan recorre
+     * completas: {@code tableScan}, o un índice leído sin condición salvo en
+     * las páginas.
+     *
+     * @param conexion Conexión de la transacción en curso.
+     * @param sql Sentencia a revisar.
+     * @param paginada Si la sentencia lee un número limitado de filas.
+     * @return Las tablas recorridas completas.
+     * @throws SQLException si falla el EXPLAIN.
+     */
+    private static Set<String> recorridasH2(Connection conexion, String sql,
+            boolean paginada) throws SQLException {
+        Set<String> tablas = new TreeSet<>();
+        try (Statement sentencia = conexion.createStatement();
+                ResultSet rs = sentencia.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                String tabla = null;
+                for (String linea : rs.getString(1).split("\\R")) {
+                    Matcher encontrada = TABLA_H2.matcher(linea);
+                    Matcher acceso = ACCESO_H2.matcher(linea);
+                    if (encontrada.find()) {
+                        tabla = encontrada.group(1).toLowerCase(Locale.ROOT);
+                    } else if (tabla != null && acceso.find()) {
+                        boolean sinCondicion = acceso.group(2) == null;
+                        if ("tableScan".equals(acceso.group(1))
+                                || sinCondicion && !paginada) {
+                            tablas.add(tabla);
+                        }
+                        tabla = null;
+                    }
+                }
+            }
+        }
+        return tablas;
+    }
+
+    /**
+     * Consulta a revisar: con nombre (la JPQL es null si se armó con
+     * Criteria) o JPQL armada en el código, y las tablas
+     * que puede recorrer completas sin que sea una falla.
+     */
+    private static final class Consulta {
+
+        private final String nombre;
+        private final String jpql;
+        private final boolean paginada;
+        private final Set<String> recorridosPermitidos;
+
+        private Consulta(String nombre, String jpql, boolean paginada,
+                String... recorridosPermitidos) {
+            this.nombre = nombre;
+            this.jpql = jpql;
+            this.paginada = paginada;
+            this.recorridosPermitidos = Set.of(recorridosPermitidos);
+        }
+    }
+}
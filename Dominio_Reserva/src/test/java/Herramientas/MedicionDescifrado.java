@@ -0,0 +1,174 @@
+package Herramientas;
+
+import DAO.DesEncryptionUtil;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Medición del descifrado de teléfonos con
+ * {@link DesEncryptionUtil#descifrarTelefono}, sin base de datos. Para cada
+ * cantidad de teléfonos mide:
+ * <ul>
+ * <li>el formato con jerarquía de claves ({@code v2:}) que escribe hoy
+ * {@link DesEncryptionUtil#cifrarTelefono}, que deriva la clave de cada
+ * registro con HKDF;</li>
+ * <li>el formato original (sal, IV y datos en Base64), cuya primera lectura
+ * deriva una clave PBKDF2 por registro, como antes de la caché, y cuyas
+ * lecturas siguientes toman la clave de la caché.</li>
+ * </ul>
+ * El formato original se mide sobre una muestra de {@value #MUESTRA_ORIGINAL}
+ * teléfonos y se estima para la cantidad completa, porque cifrarlos y leerlos
+ * la primera vez cuesta una derivación PBKDF2 cada uno.
+ *
+ * Las mediciones del formato actual y de la caché se repiten después de un
+ * calentamiento y se reporta la mejor vuelta:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionDescifrado -Dexec.args="10000 100000"
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionDescifrado {
+
+    private static final String CLAVE = "clave-medicion";
+
+    private static final int MUESTRA_ORIGINAL = 200;
+
+    private static final int CALENTAMIENTO = 5;
+
+    private static final int VUELTAS = 10;
+
+    // Evita que la JVM descarte los descifrados medidos
+    private static long resultado;
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidades de teléfonos a descifrar (por omisión 10000 y
+     * 100000).
+     * @throws Exception si falla el cifrado o el descifrado.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] cantidades = args.length > 0 ? new int[args.length] : new int[]{10_000, 100_000};
+        for (int i = 0; i < args.length; i++) {
+            cantidades[i] = Integer.parseInt(args[i]);
+        }
+
+        // El formato original no depende de la cantidad: se mide una vez
+        List<String> originales = new ArrayList<>(MUESTRA_ORIGINAL);
+        for (int i = 0; i < MUESTRA_ORIGINAL; i++) {
+            originales.add(cifrarFormatoOriginal(telefono(i)));
+        }
+        long inicio = System.nanoTime();
+        descifrar(originales);
+        double primeraLectura = (System.nanoTime() - inicio) / (double) MUESTRA_ORIGINAL;
+        double conCache = mejorVuelta(originales) / (double) MUESTRA_ORIGINAL;
+
+        for (int cantidad : cantidades) {
+            List<String> cifrados = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                cifrados.add(DesEncryptionUtil.cifrarTelefono(telefono(i), CLAVE));
+            }
+            escribir("v2 (HKDF por registro)", cantidad,
+                    mejorVuelta(cifrados) / (double) cantidad, false);
+            escribir("original, PBKDF2 por registro", cantidad, primeraLectura, true);
+            escribir("original, clave en caché", cantidad, conCache, true);
+        }
+    }
+
+    /**
+     * Teléfono de prueba de diez dígitos.
+     *
+     * @param i Número del teléfono.
+     * @return El teléfono.
+     */
+    private static String telefono(int i) {
+        return String.format("644%07d", i);
+    }
+
+    /**
+     * Descifra todos los teléfonos.
+     *
+     * @param cifrados Teléfonos cifrados.
+     * @throws Exception si alguno no se puede descifrar.
+     */
+    private static void descifrar(List<String> cifrados) throws Exception {
+        long longitud = 0;
+        for (String cifrado : cifrados) {
+            longitud += DesEncryptionUtil.descifrarTelefono(cifrado, CLAVE).length();
+        }
+        resultado = longitud;
+    }
+
+    /**
+     * Descifra los teléfonos varias veces después de un calentamiento.
+     *
+     * @param cifrados Teléfonos cifrados.
+     * @return El mejor tiempo en nanosegundos.
+     * @throws Exception si alguno no se puede descifrar.
+     */
+    private static long mejorVuelta(List<String> cifrados) throws Exception {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            descifrar(cifrados);
+        }
+        long mejorTiempo = Long.MAX_VALUE;
+        for (int i = 0; i < VUELTAS; i++) {
+            long inicio = System.nanoTime();
+            descifrar(cifrados);
+            mejorTiempo = Math.min(mejorTiempo, System.nanoTime() - inicio);
+        }
+        return mejorTiempo;
+    }
+
+    /**
+     * Cifra un teléfono con el formato original: una clave PBKDF2 por
+     * registro y sal, IV y datos cifrados en Base64, sin prefijo.
+     *
+     * @param telefono Teléfono a cifrar.
+     * @return Teléfono cifrado.
+     * @throws Exception si falla el cifrado.
+     */
+    private static String cifrarFormatoOriginal(String telefono) throws Exception {
+        byte[] sal = new byte[16];
+        new SecureRandom().nextBytes(sal);
+        byte[] clave = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec(CLAVE.toCharArray(), sal, 65536, 256))
+                .getEncoded();
+
+        Cipher cifrador = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cifrador.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(clave, "AES"));
+        byte[] iv = cifrador.getIV();
+        byte[] datos = cifrador.doFinal(telefono.getBytes(StandardCharsets.UTF_8));
+
+        byte[] combinados = new byte[sal.length + iv.length + datos.length];
+        System.arraycopy(sal, 0, combinados, 0, sal.length);
+        System.arraycopy(iv, 0, combinados, sal.length, iv.length);
+        System.arraycopy(datos, 0, combinados, sal.length + iv.length, datos.length);
+        return Base64.getEncoder().encodeToString(combinados);
+    }
+
+    /**
+     * Escribe el tiempo total para la cantidad de teléfonos, el tiempo por
+     * teléfono y los teléfonos por segundo.
+     *
+     * @param nombre Nombre de la medición.
+     * @param cantidad Cantidad de teléfonos.
+     * @param nanosPorTelefono Tiempo por teléfono en nanosegundos.
+     * @param estimado Si el total se estima a partir de la muestra.
+     */
+    private static void escribir(String nombre, int cantidad, double nanosPorTelefono,
+            boolean estimado) {
+        System.out.printf("%-30s %,9d teléfonos %,12.1f ms %,10.2f µs/teléfono "
+                + "%,12.0f teléfonos/s%s%n", nombre, cantidad,
+                nanosPorTelefono * cantidad / 1e6, nanosPorTelefono / 1e3,
+                1e9 / nanosPorTelefono, estimado ? " (estimado)" : "");
+    }
+}
@@ -0,0 +1,126 @@
+package Herramientas;
+
+import DAO.PhoneCipher;
+import Entidades.Cliente;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Medición del descifrado masivo de teléfonos con
+ * {@link PhoneCipher#descifrarTodos}, sin base de datos. Cifra los teléfonos
+ * de una lista de clientes y compara el descifrado cliente por cliente en el
+ * hilo que llama con {@code descifrarTodos}, que reparte la lista entre los
+ * hilos del pool de {@link PhoneCipher}.
+ *
+ * Los hilos del pool se fijan al cargar {@link PhoneCipher}, así que cada
+ * cantidad de hilos se mide en su propia corrida; para 1, 4 y 16 hilos sobre
+ * 100000 clientes:
+ * <pre>
+ * for hilos in 1 4 16; do
+ *     mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=Herramientas.MedicionDescifradoParalelo \
+ *         -Dexec.args="100000" -Dreservasys.descifrado.hilos=$hilos
+ * done
+ * </pre>
+ * Cada medición se repite después de un calentamiento y se reporta la mejor
+ * vuelta.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionDescifradoParalelo {
+
+    private static final int CLIENTES = 100_000;
+
+    private static final int CALENTAMIENTO = 5;
+
+    private static final int VUELTAS = 10;
+
+    /**
+     * Forma de descifrar la lista de clientes.
+     */
+    @FunctionalInterface
+    private interface Descifrado {
+
+        void descifrar(List<Cliente> clientes) throws Exception;
+    }
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidad de clientes (por omisión 100000).
+     * @throws Exception si falla el cifrado o el descifrado.
+     */
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : CLIENTES;
+        // Lo mismo que lee PhoneCipher al cargarse
+        int hilos = Math.max(1, Integer.getInteger("reservasys.descifrado.hilos",
+                Runtime.getRuntime().availableProcessors()));
+
+        PhoneCipher cifrador = new PhoneCipher();
+        List<Cliente> clientes = new ArrayList<>(cantidad);
+        String[] cifrados = new String[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            Cliente cliente = new Cliente((long) i + 1, "Cliente " + i,
+                    String.format("644%07d", i), null);
+            cifrador.cifrar(cliente);
+            cifrados[i] = cliente.getTelefono();
+            clientes.add(cliente);
+        }
+
+        medir("secuencial", 1, clientes, cifrados, lista -> {
+            for (Cliente cliente : lista) {
+                cifrador.descifrar(cliente);
+            }
+        });
+        medir("descifrarTodos", hilos, clientes, cifrados, lista -> {
+            List<Cliente> fallidos = cifrador.descifrarTodos(lista);
+            if (!fallidos.isEmpty()) {
+                throw new IllegalStateException(fallidos.size()
+                        + " teléfonos sin descifrar");
+            }
+        });
+    }
+
+    /**
+     * Deja a los clientes con su teléfono cifrado, como los lee la base de
+     * datos.
+     *
+     * @param clientes Clientes de la medición.
+     * @param cifrados Teléfono cifrado de cada cliente.
+     */
+    private static void restaurar(List<Cliente> clientes, String[] cifrados) {
+        for (int i = 0; i < cifrados.length; i++) {
+            clientes.get(i).setTelefono(cifrados[i]);
+            clientes.get(i).setTelefonoCifrado(true);
+        }
+    }
+
+    /**
+     * Mide una forma de descifrado y escribe el mejor tiempo y los clientes
+     * por segundo.
+     *
+     * @param nombre Nombre del descifrado.
+     * @param hilos Hilos que usa el descifrado.
+     * @param clientes Clientes de la medición.
+     * @param cifrados Teléfono cifrado de cada cliente.
+     * @param descifrado Descifrado a medir.
+     * @throws Exception si el descifrado falla.
+     */
+    private static void medir(String nombre, int hilos, List<Cliente> clientes,
+            String[] cifrados, Descifrado descifrado) throws Exception {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            restaurar(clientes, cifrados);
+            descifrado.descifrar(clientes);
+        }
+        long mejorTiempo = Long.MAX_VALUE;
+        for (int i = 0; i < VUELTAS; i++) {
+            restaurar(clientes, cifrados);
+            long inicio = System.nanoTime();
+            descifrado.descifrar(clientes);
+            mejorTiempo = Math.min(mejorTiempo, System.nanoTime() - inicio);
+        }
+        System.out.printf("%-16s %3d hilos %,9d clientes %9.1f ms %,12.0f clientes/s%n",
+                nombre, hilos, clientes.size(), mejorTiempo / 1e6,
+                clientes.size() * 1e9 / mejorTiempo);
+    }
+}
@@ -0,0 +1,324 @@
+package Herramientas;
+
+import Conexion.Conexion;
+import DAO.ClienteDAO;
+import DAO.MesaDAO;
+import DAO.ReservaDAO;
+import DAO.RestauranteDAO;
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Reserva;
+import Entidades.Restaurante;
+import Excepciones.ConexionException;
+import Excepciones.DAOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.persistence.EntityManager;
+
+/**
+ * Medición de la revisión de disponibilidad de {@link ReservaDAO#verificarPorDia}.
+ * Guarda {@value #RESERVAS_POR_DIA} reservas activas por mesa y por día para
+ * 200 mesas durante 90 días y revisa horarios al azar, en intervalos de
+ * media hora, con:
+ * <ul>
+ * <li>la consulta anterior, que leía todas las reservas activas del día de
+ * todo el restaurante y las recorría en Java sin mirar la mesa;</li>
+ * <li>{@link ReservaDAO#verificarPorDia}, que busca en la base de datos una
+ * reserva de la mesa en la ventana de cinco horas.</li>
+ * </ul>
+ * Escribe el tiempo por revisión y cuántas respuestas no coinciden con las
+ * reservas guardadas. Antes de medir se hace un calentamiento con
+ * {@value #CALENTAMIENTO} revisiones.
+ *
+ * Deja los datos de prueba en la base de datos, por lo que solo corre contra
+ * la base embebida, salvo que se confirme con
+ * {@code -Dreservasys.medicion.confirmar=true} (usar una base desechable):
+ * <pre>
+ * mvn -Pembebida test-compile exec:java -Dreservasys.entorno=embebida \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionDisponibilidad -Dexec.args="200 90 2000"
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionDisponibilidad {
+
+    private static final int MESAS = 200;
+
+    private static final int DIAS = 90;
+
+    private static final int REVISIONES = 2_000;
+
+    private static final int RESERVAS_POR_DIA = 2;
+
+    private static final int CLIENTES = 500;
+
+    private static final int LOTE_INSERCION = 5_000;
+
+    private static final int CALENTAMIENTO = 200;
+
+    // Una reserva ocupa la mesa cinco horas
+    private static final Duration DURACION = Duration.ofHours(5);
+
+    /**
+     * Forma de revisar si la mesa está libre.
+     */
+    @FunctionalInterface
+    private interface Revision {
+
+        boolean disponible(Mesa mesa, LocalDateTime horario) throws DAOException;
+    }
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidad de mesas, de días y de revisiones (por omisión 200,
+     * 90 y 2000).
+     * @throws DAOException si falla una revisión o la preparación de los
+     * datos.
+     * @throws ConexionException si no se puede abrir o cerrar la conexión.
+     * @throws SQLException si no se pueden guardar las reservas.
+     */
+    public static void main(String[] args) throws DAOException, ConexionException,
+            SQLException {
+        int cantidadMesas = args.length > 0 ? Integer.parseInt(args[0]) : MESAS;
+        int dias = args.length > 1 ? Integer.parseInt(args[1]) : DIAS;
+        int revisiones = args.length > 2 ? Integer.parseInt(args[2]) : REVISIONES;
+
+        if (!"embebida".equals(System.getProperty("reservasys.entorno"))
+                && !Boolean.getBoolean("reservasys.medicion.confirmar")) {
+            throw new IllegalStateException("La medición deja datos de prueba en la "
+                    + "base de datos; use la base embebida o confirme con "
+                    + "-Dreservasys.medicion.confirmar=true");
+        }
+
+        // Prefijo único para poder repetir la medición sobre la misma base
+        String corrida = Long.toString(System.currentTimeMillis(), 36);
+        try {
+            Restaurante restaurante = new Restaurante("Restaurante " + corrida,
+                    "Sin dirección", "0000000000", LocalTime.of(8, 0), LocalTime.of(23, 0));
+            new RestauranteDAO().agregar(restaurante);
+            List<Mesa> mesas = new ArrayList<>(cantidadMesas);
+            for (int i = 0; i < cantidadMesas; i++) {
+                mesas.add(new Mesa(corrida + "-" + i, "MEDIANA", 1, 4, "TERRAZA",
+                        restaurante));
+            }
+            new MesaDAO().agregarMesas(mesas);
+            List<Cliente> clientes = new ArrayList<>(CLIENTES);
+            for (int i = 0; i < CLIENTES; i++) {
+                clientes.add(new Cliente("Cliente " + corrida + " " + i, corrida + "-" + i));
+            }
+            new ClienteDAO().insercionMasivaClientes(clientes);
+
+            LocalDate primerDia = LocalDate.now().plusDays(1);
+            guardarReservas(primerDia, dias, restaurante, mesas, clientes);
+            System.out.printf("%,d mesas x %,d días: %,d reservas%n", cantidadMesas, dias,
+                    (long) cantidadMesas * dias * RESERVAS_POR_DIA);
+
+            ReservaDAO dao = new ReservaDAO();
+            medir("consulta del día (anterior)", mesas, primerDia, dias, revisiones,
+                    MedicionDisponibilidad::disponibleConsultaDelDia);
+            medir("verificarPorDia", mesas, primerDia, dias, revisiones,
+                    dao::verificarPorDia);
+        } finally {
+            Conexion.closeEntityManagerFactory();
+        }
+    }
+
+    /**
+     * Hora de la reserva número {@code r} del día de una mesa, cada doce
+     * horas para que quede la mesa libre a media tarde. Las mesas empiezan en
+     * distintas medias horas para que el restaurante no tenga todas las
+     * reservas a la misma hora.
+     *
+     * @param mesa Posición de la mesa.
+     * @param r Número de la reserva en el día.
+     * @return La hora de la reserva.
+     */
+    private static LocalTime horaReserva(int mesa, int r) {
+        return LocalTime.of(9, 0).plusMinutes(30L * (mesa % 4)).plusHours(12L * r);
+    }
+
+    /**
+     * Indica, a partir de las reservas guardadas, si la mesa está libre en el
+     * horario.
+     *
+     * @param mesa Posición de la mesa.
+     * @param horario Horario a revisar.
+     * @param primerDia Primer día con reservas.
+     * @param dias Días con reservas.
+     * @return true si ninguna reserva de la mesa empieza a menos de cinco
+     * horas del horario.
+     */
+    private static boolean disponibleEsperado(int mesa, LocalDateTime horario,
+            LocalDate primerDia, int dias) {
+        for (int d = -1; d <= 1; d++) {
+            LocalDate dia = horario.toLocalDate().plusDays(d);
+            if (dia.isBefore(primerDia) || !dia.isBefore(primerDia.plusDays(dias))) {
+                continue;
+            }
+            for (int r = 0; r < RESERVAS_POR_DIA; r++) {
+                Duration distancia = Duration.between(dia.atTime(horaReserva(mesa, r)),
+                        horario).abs();
+                if (distancia.compareTo(DURACION) < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Revisión como la hacía antes {@code verificarPorDia}: lee las reservas
+     * activas del día de todas las mesas y busca en Java una que empiece menos
+     * de cinco horas antes del horario.
+     *
+     * @param mesa Mesa a revisar (no se usa, como antes).
+     * @param horario Horario a revisar.
+     * @return true si no encontró una reserva que lo ocupe.
+     * @throws DAOException si no se puede abrir la conexión.
+     */
+    private static boolean disponibleConsultaDelDia(Mesa mesa, LocalDateTime horario)
+            throws DAOException {
+        EntityManager em = null;
+        try {
+            em = new Conexion().getEntityManager();
+            List<Reserva> reservas = em.createQuery("SELECT r FROM Reserva r "
+                    + "WHERE r.fechaHoraReserva BETWEEN :inicioDelDia AND :finDelDia "
+                    + "AND r.estado = 'ACTIVA'", Reserva.class)
+                    .setParameter("inicioDelDia", horario.toLocalDate().atStartOfDay())
+                    .setParameter("finDelDia", horario.toLocalDate().atTime(23, 59, 59))
+                    .getResultList();
+            LocalTime miHora = horario.toLocalTime();
+            for (Reserva reserva : reservas) {
+                LocalTime minimo = reserva.getFechaHoraReserva().toLocalTime();
+                if (miHora.isAfter(minimo) && miHora.isBefore(minimo.plusHours(5L))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (ConexionException e) {
+            throw new DAOException("No se pudo abrir la conexión", e);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Guarda las reservas de cada mesa y cada día con sentencias por lotes
+     * sobre la conexión del EntityManager.
+     *
+     * @param primerDia Primer día con reservas.
+     * @param dias Días con reservas.
+     * @param restaurante Restaurante de las reservas.
+     * @param mesas Mesas de las reservas.
+     * @param clientes Clientes entre los que se reparten.
+     * @throws ConexionException si no se puede abrir la conexión.
+     * @throws SQLException si no se pueden guardar.
+     */
+    private static void guardarReservas(LocalDate primerDia, int dias,
+            Restaurante restaurante, List<Mesa> mesas, List<Cliente> clientes)
+            throws ConexionException, SQLException {
+        EntityManager em = new Conexion().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            Connection conexion = em.unwrap(Connection.class);
+            try (PreparedStatement insercion = conexion.prepareStatement(
+                    "INSERT INTO reservas (fecha_hora_reserva, numero_personas, costo, "
+                    + "estado, cliente_id, mesa_id, restaurante_id) "
+                    + "VALUES (?, 3, 100.0, 'ACTIVA', ?, ?, ?)")) {
+                int guardadas = 0;
+                for (int d = 0; d < dias; d++) {
+                    LocalDate dia = primerDia.plusDays(d);
+                    for (int m = 0; m < mesas.size(); m++) {
+                        for (int r = 0; r < RESERVAS_POR_DIA; r++) {
+                            insercion.setTimestamp(1, Timestamp.valueOf(
+                                    dia.atTime(horaReserva(m, r))));
+                            insercion.setLong(2, clientes.get(guardadas % clientes.size())
+                                    .getId());
+                            insercion.setLong(3, mesas.get(m).getId());
+                            insercion.setLong(4, restaurante.getId());
+                            insercion.addBatch();
+                            if (++guardadas % LOTE_INSERCION == 0) {
+                                insercion.executeBatch();
+                            }
+                        }
+                    }
+                }
+                insercion.executeBatch();
+            }
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * Revisa horarios al azar, los mismos para cada forma de revisión, y
+     * escribe el tiempo por revisión y las respuestas que no coinciden con
+     * las reservas guardadas.
+     *
+     * @param nombre Nombre de la revisión.
+     * @param mesas Mesas con reservas.
+     * @param primerDia Primer día con reservas.
+     * @param dias Días con reservas.
+     * @param revisiones Cantidad de revisiones medidas.
+     * @param revision Revisión a medir.
+     * @throws DAOException si una revisión falla.
+     */
+    private static void medir(String nombre, List<Mesa> mesas, LocalDate primerDia,
+            int dias, int revisiones, Revision revision) throws DAOException {
+        Random azar = new Random(42);
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            int mesa = azar.nextInt(mesas.size());
+            revision.disponible(mesas.get(mesa), horario(azar, primerDia, dias));
+        }
+
+        int libres = 0;
+        int erroneas = 0;
+        long tiempo = 0;
+        for (int i = 0; i < revisiones; i++) {
+            int mesa = azar.nextInt(mesas.size());
+            LocalDateTime horario = horario(azar, primerDia, dias);
+            long inicio = System.nanoTime();
+            boolean disponible = revision.disponible(mesas.get(mesa), horario);
+            tiempo += System.nanoTime() - inicio;
+            if (disponible) {
+                libres++;
+            }
+            if (disponible != disponibleEsperado(mesa, horario, primerDia, dias)) {
+                erroneas++;
+            }
+        }
+        System.out.printf("%-28s %,7d revisiones %9.3f ms/revisión %,7d libres "
+                + "%,7d erróneas%n", nombre, revisiones, tiempo / 1e6 / revisiones,
+                libres, erroneas);
+    }
+
+    /**
+     * Horario al azar entre las 8:00 y las 23:00, en intervalos de media hora.
+     *
+     * @param azar Generador de números al azar.
+     * @param primerDia Primer día con reservas.
+     * @param dias Días con reservas.
+     * @return El horario.
+     */
+    private static LocalDateTime horario(Random azar, LocalDate primerDia, int dias) {
+        return primerDia.plusDays(azar.nextInt(dias))
+                .atTime(8, 0).plusMinutes(30L * azar.nextInt(31));
+    }
+}
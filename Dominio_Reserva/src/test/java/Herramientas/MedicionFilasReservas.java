@@ -0,0 +1,269 @@
+package Herramientas;
+
+import Conexion.Conexion;
+import DAO.ClienteDAO;
+import DAO.MesaDAO;
+import DAO.ReservaDAO;
+import DAO.RestauranteDAO;
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Reserva;
+import Entidades.Restaurante;
+import Excepciones.ConexionException;
+import Excepciones.DAOException;
+import Proyecciones.ReservaFila;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.eclipse.persistence.config.QueryHints;
+
+/**
+ * Medición de la memoria que asignan las lecturas de las tablas de reservas.
+ * Compara, por reserva leída:
+ * <ul>
+ * <li>la consulta de {@link ReservaDAO#obtenerReservas} sin la sugerencia
+ * {@code eclipselink.read-only}, con las copias para el seguimiento de
+ * cambios, como se leía antes;</li>
+ * <li>{@link ReservaDAO#obtenerReservas}, que lee las entidades como solo
+ * lectura;</li>
+ * <li>{@link ReservaDAO#obtenerFilasReservas}, que construye las filas de
+ * {@link ReservaFila} en la consulta.</li>
+ * </ul>
+ * En las entidades se leen también la mesa y el cliente, como lo hacen las
+ * tablas. Los bytes asignados se leen del contador del hilo de la JVM; la
+ * base embebida corre en el mismo hilo, así que incluyen lo que asigna H2.
+ * Cada lectura se repite después de un calentamiento y se reporta la mejor
+ * vuelta.
+ *
+ * Guarda reservas de prueba hasta llegar a cada cantidad, por lo que solo
+ * corre contra la base embebida, salvo que se confirme con
+ * {@code -Dreservasys.medicion.confirmar=true} (usar una base desechable):
+ * <pre>
+ * mvn -Pembebida test-compile exec:java -Dreservasys.entorno=embebida \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionFilasReservas -Dexec.args="10000 100000"
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionFilasReservas {
+
+    private static final int MESAS = 200;
+
+    private static final int CLIENTES = 5_000;
+
+    private static final int LOTE_INSERCION = 5_000;
+
+    private static final int CALENTAMIENTO = 3;
+
+    private static final int VUELTAS = 5;
+
+    // Contador de bytes asignados por hilo de la JVM
+    private static final com.sun.management.ThreadMXBean HILOS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Evita que la JVM descarte las lecturas medidas
+    private static long resultado;
+
+    /**
+     * Lectura medida; devuelve las filas leídas.
+     */
+    @FunctionalInterface
+    private interface Lectura {
+
+        int leer() throws DAOException;
+    }
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidades de reservas a leer (por omisión 10000 y 100000).
+     * @throws DAOException si falla una lectura o la preparación de los datos.
+     * @throws ConexionException si no se puede abrir o cerrar la conexión.
+     * @throws SQLException si no se pueden guardar las reservas.
+     */
+    public static void main(String[] args) throws DAOException, ConexionException,
+            SQLException {
+        int[] cantidades = args.length > 0 ? new int[args.length] : new int[]{10_000, 100_000};
+        for (int i = 0; i < args.length; i++) {
+            cantidades[i] = Integer.parseInt(args[i]);
+        }
+
+        if (!"embebida".equals(System.getProperty("reservasys.entorno"))
+                && !Boolean.getBoolean("reservasys.medicion.confirmar")) {
+            throw new IllegalStateException("La medición deja datos de prueba en la "
+                    + "base de datos; use la base embebida o confirme con "
+                    + "-Dreservasys.medicion.confirmar=true");
+        }
+
+        // Prefijo único para poder repetir la medición sobre la misma base
+        String corrida = Long.toString(System.currentTimeMillis(), 36);
+        try {
+            Restaurante restaurante = new Restaurante("Restaurante " + corrida,
+                    "Sin dirección", "0000000000", LocalTime.of(8, 0), LocalTime.of(23, 0));
+            new RestauranteDAO().agregar(restaurante);
+            List<Mesa> mesas = new ArrayList<>(MESAS);
+            for (int i = 0; i < MESAS; i++) {
+                mesas.add(new Mesa(corrida + "-" + i, "MEDIANA", 1, 4, "TERRAZA",
+                        restaurante));
+            }
+            new MesaDAO().agregarMesas(mesas);
+            List<Cliente> clientes = new ArrayList<>(CLIENTES);
+            for (int i = 0; i < CLIENTES; i++) {
+                clientes.add(new Cliente("Cliente " + corrida + " " + i, corrida + "-" + i));
+            }
+            new ClienteDAO().insercionMasivaClientes(clientes);
+
+            ReservaDAO dao = new ReservaDAO();
+            LocalDateTime inicio = LocalDateTime.now().plusDays(1).withNano(0);
+            for (int cantidad : cantidades) {
+                long faltantes = cantidad - dao.contarReservas();
+                if (faltantes > 0) {
+                    guardarReservas(inicio, (int) faltantes, restaurante, mesas, clientes);
+                    inicio = inicio.plusMinutes(faltantes);
+                }
+                medir("entidades sin read-only", MedicionFilasReservas::leerSinSoloLectura);
+                medir("obtenerReservas", () -> {
+                    List<Reserva> reservas = dao.obtenerReservas();
+                    recorrer(reservas);
+                    return reservas.size();
+                });
+                medir("obtenerFilasReservas", () -> {
+                    List<ReservaFila> filas = dao.obtenerFilasReservas();
+                    long longitud = 0;
+                    for (ReservaFila fila : filas) {
+                        longitud += fila.getCodigoMesa().length()
+                                + fila.getNombreCliente().length();
+                    }
+                    resultado = longitud;
+                    return filas.size();
+                });
+            }
+        } finally {
+            Conexion.closeEntityManagerFactory();
+        }
+    }
+
+    /**
+     * Lee las reservas con la consulta de {@link ReservaDAO#obtenerReservas}
+     * pero sin la sugerencia de solo lectura.
+     *
+     * @return Las reservas leídas.
+     * @throws DAOException si no se puede abrir la conexión.
+     */
+    private static int leerSinSoloLectura() throws DAOException {
+        EntityManager em = null;
+        try {
+            em = new Conexion().getEntityManager();
+            em.getTransaction().begin();
+            List<Reserva> reservas = em.createNamedQuery("Reserva.obtenerTodas", Reserva.class)
+                    .setHint(QueryHints.READ_ONLY, false)
+                    .getResultList();
+            recorrer(reservas);
+            em.getTransaction().commit();
+            return reservas.size();
+        } catch (ConexionException e) {
+            throw new DAOException("No se pudo abrir la conexión", e);
+        } finally {
+            if (em != null && em.isOpen()) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Lee de cada reserva las columnas que muestran las tablas.
+     *
+     * @param reservas Reservas leídas.
+     */
+    private static void recorrer(List<Reserva> reservas) {
+        long longitud = 0;
+        for (Reserva reserva : reservas) {
+            Mesa mesa = reserva.getMesa();
+            longitud += mesa.getCodigoMesa().length() + mesa.getTipoMesa().length()
+                    + mesa.getUbicacion().length()
+                    + reserva.getCliente().getNombre().length();
+        }
+        resultado = longitud;
+    }
+
+    /**
+     * Guarda reservas activas, una por minuto desde el inicio, con sentencias
+     * por lotes sobre la conexión del EntityManager.
+     *
+     * @param inicio Fecha y hora de la primera reserva.
+     * @param cantidad Cantidad de reservas.
+     * @param restaurante Restaurante de las reservas.
+     * @param mesas Mesas entre las que se reparten.
+     * @param clientes Clientes entre los que se reparten.
+     * @throws ConexionException si no se puede abrir la conexión.
+     * @throws SQLException si no se pueden guardar.
+     */
+    private static void guardarReservas(LocalDateTime inicio, int cantidad,
+            Restaurante restaurante, List<Mesa> mesas, List<Cliente> clientes)
+            throws ConexionException, SQLException {
+        EntityManager em = new Conexion().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            Connection conexion = em.unwrap(Connection.class);
+            try (PreparedStatement insercion = conexion.prepareStatement(
+                    "INSERT INTO reservas (fecha_hora_reserva, numero_personas, costo, "
+                    + "estado, cliente_id, mesa_id, restaurante_id) "
+                    + "VALUES (?, 3, 100.0, 'ACTIVA', ?, ?, ?)")) {
+                for (int i = 0; i < cantidad; i++) {
+                    insercion.setTimestamp(1, Timestamp.valueOf(inicio.plusMinutes(i)));
+                    insercion.setLong(2, clientes.get(i % clientes.size()).getId());
+                    insercion.setLong(3, mesas.get(i % mesas.size()).getId());
+                    insercion.setLong(4, restaurante.getId());
+                    insercion.addBatch();
+                    if ((i + 1) % LOTE_INSERCION == 0) {
+                        insercion.executeBatch();
+                    }
+                }
+                insercion.executeBatch();
+            }
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * Mide una lectura y escribe el mejor tiempo y los bytes asignados por
+     * reserva.
+     *
+     * @param nombre Nombre de la lectura.
+     * @param lectura Lectura a medir.
+     * @throws DAOException si la lectura falla.
+     */
+    private static void medir(String nombre, Lectura lectura) throws DAOException {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            lectura.leer();
+        }
+        int filas = 0;
+        long mejorTiempo = Long.MAX_VALUE;
+        long mejorBytes = Long.MAX_VALUE;
+        for (int i = 0; i < VUELTAS; i++) {
+            long bytes = HILOS.getCurrentThreadAllocatedBytes();
+            long inicio = System.nanoTime();
+            filas = lectura.leer();
+            mejorTiempo = Math.min(mejorTiempo, System.nanoTime() - inicio);
+            mejorBytes = Math.min(mejorBytes, HILOS.getCurrentThreadAllocatedBytes() - bytes);
+        }
+        System.out.printf("%-24s %,9d reservas %9.1f ms %,7d bytes/reserva%n",
+                nombre, filas, mejorTiempo / 1e6, mejorBytes / Math.max(1, filas));
+    }
+}
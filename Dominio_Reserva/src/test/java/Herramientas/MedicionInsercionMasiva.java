@@ -0,0 +1,151 @@
+package Herramientas;
+
+import Conexion.Conexion;
+import DAO.ClienteDAO;
+import DAO.MesaDAO;
+import DAO.RestauranteDAO;
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Restaurante;
+import Excepciones.ConexionException;
+import Excepciones.DAOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Medición de las inserciones masivas de {@link MesaDAO#agregarMesas} y
+ * {@link ClienteDAO#insercionMasivaClientes}. Inserta mesas y clientes de
+ * prueba con códigos y teléfonos únicos por corrida, vuelve a enviar las
+ * mismas mesas para medir la revisión de duplicados y escribe el tiempo y
+ * las filas por segundo de cada paso.
+ *
+ * Deja los datos de prueba en la base de datos, por lo que solo corre contra
+ * la base embebida, salvo que se confirme con
+ * {@code -Dreservasys.medicion.confirmar=true} (usar una base desechable):
+ * <pre>
+ * mvn -Pembebida test-compile exec:java -Dreservasys.entorno=embebida \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionInsercionMasiva -Dexec.args="10000 100000"
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionInsercionMasiva {
+
+    private static final Logger LOG = Logger.getLogger(MedicionInsercionMasiva.class.getName());
+
+    private static final int MESAS = 10_000;
+
+    private static final int CLIENTES = 100_000;
+
+    /**
+     * Paso medido, que puede fallar con un error de la capa de datos.
+     */
+    @FunctionalInterface
+    private interface Paso {
+
+        void ejecutar() throws DAOException;
+    }
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidad de mesas y de clientes (por omisión 10000 y 100000).
+     * @throws DAOException si falla alguna inserción.
+     * @throws ConexionException si no se puede cerrar la conexión.
+     */
+    public static void main(String[] args) throws DAOException, ConexionException {
+        int cantidadMesas = args.length > 0 ? Integer.parseInt(args[0]) : MESAS;
+        int cantidadClientes = args.length > 1 ? Integer.parseInt(args[1]) : CLIENTES;
+
+        if (!"embebida".equals(System.getProperty("reservasys.entorno"))
+                && !Boolean.getBoolean("reservasys.medicion.confirmar")) {
+            throw new IllegalStateException("La medición deja datos de prueba en la "
+                    + "base de datos; use la base embebida o confirme con "
+                    + "-Dreservasys.medicion.confirmar=true");
+        }
+
+        // Prefijo único para poder repetir la medición sobre la misma base
+        String corrida = Long.toString(System.currentTimeMillis(), 36);
+        try {
+            Restaurante restaurante = obtenerRestaurante();
+
+            MesaDAO mesaDAO = new MesaDAO();
+            medir("agregarMesas", cantidadMesas,
+                    () -> mesaDAO.agregarMesas(crearMesas(corrida, cantidadMesas, restaurante)));
+            medir("agregarMesas (todas duplicadas)", cantidadMesas,
+                    () -> mesaDAO.agregarMesas(crearMesas(corrida, cantidadMesas, restaurante)));
+
+            ClienteDAO clienteDAO = new ClienteDAO();
+            List<Cliente> clientes = new ArrayList<>(cantidadClientes);
+            for (int i = 0; i < cantidadClientes; i++) {
+                clientes.add(new Cliente("Cliente " + corrida + " " + i, corrida + "-" + i));
+            }
+            medir("insercionMasivaClientes", cantidadClientes,
+                    () -> clienteDAO.insercionMasivaClientes(clientes));
+        } finally {
+            Conexion.closeEntityManagerFactory();
+        }
+    }
+
+    /**
+     * Obtiene el restaurante de la base de datos, o crea uno si no hay.
+     *
+     * @return El restaurante al que pertenecerán las mesas.
+     * @throws DAOException si no se puede crear el restaurante.
+     */
+    private static Restaurante obtenerRestaurante() throws DAOException {
+        RestauranteDAO restauranteDAO = new RestauranteDAO();
+        try {
+            Restaurante restaurante = restauranteDAO.consultar();
+            if (restaurante != null) {
+                return restaurante;
+            }
+        } catch (DAOException e) {
+            LOG.info("No hay restaurante; se crea uno para la medición");
+        }
+        Restaurante restaurante = new Restaurante("Restaurante de medición",
+                "Sin dirección", "0000000000", LocalTime.of(8, 0), LocalTime.of(23, 0));
+        restauranteDAO.agregar(restaurante);
+        return restaurante;
+    }
+
+    /**
+     * Crea mesas nuevas con códigos únicos para la corrida.
+     *
+     * @param corrida Prefijo de la corrida.
+     * @param cantidad Cantidad de mesas.
+     * @param restaurante Restaurante de las mesas.
+     * @return Las mesas creadas, sin guardar.
+     */
+    private static List<Mesa> crearMesas(String corrida, int cantidad, Restaurante restaurante) {
+        String[] tipos = {"PEQUEÑA", "MEDIANA", "GRANDE"};
+        String[] ubicaciones = {"TERRAZA", "VENTANA", "GENERAL"};
+        List<Mesa> mesas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            mesas.add(new Mesa(corrida + "-" + i, tipos[i % 3], 1, 2 + 2 * (i % 3),
+                    ubicaciones[(i / 3) % 3], restaurante));
+        }
+        return mesas;
+    }
+
+    /**
+     * Ejecuta un paso y escribe su tiempo y las filas por segundo.
+     *
+     * @param nombre Nombre del paso.
+     * @param filas Filas que procesa el paso.
+     * @param paso Paso a medir.
+     * @throws DAOException si el paso falla.
+     */
+    private static void medir(String nombre, int filas, Paso paso) throws DAOException {
+        long inicio = System.nanoTime();
+        paso.ejecutar();
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        System.out.printf("%-34s %,9d filas %,9d ms %,10.0f filas/s%n", nombre, filas,
+                milisegundos, filas * 1000.0 / Math.max(1, milisegundos));
+        LOG.log(Level.INFO, "{0}: {1} filas en {2} ms", new Object[]{nombre, filas, milisegundos});
+    }
+}
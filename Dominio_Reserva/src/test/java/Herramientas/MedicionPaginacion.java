@@ -0,0 +1,248 @@
+package Herramientas;
+
+import Conexion.Conexion;
+import DAO.ClienteDAO;
+import DAO.MesaDAO;
+import DAO.ReservaDAO;
+import DAO.RestauranteDAO;
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Reserva;
+import Entidades.Restaurante;
+import Excepciones.ConexionException;
+import Excepciones.DAOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+
+/**
+ * Medición de la lectura de páginas de reservas sobre una tabla grande.
+ * Compara, para páginas cada vez más profundas en el orden (fecha, id):
+ * <ul>
+ * <li>la paginación por posición, con {@code OFFSET}, que recorre todas las
+ * reservas anteriores a la página;</li>
+ * <li>la paginación por llave de {@link ReservaDAO#obtenerPaginaReservas},
+ * que empieza a leer en la última reserva de la página anterior;</li>
+ * </ul>
+ * y, como referencia, la carga completa de {@link ReservaDAO#obtenerReservas}
+ * que hacían antes las pantallas.
+ *
+ * Si la base tiene menos reservas que las pedidas, guarda las que faltan,
+ * así que solo corre contra la base embebida, salvo que se confirme con
+ * {@code -Dreservasys.medicion.confirmar=true} (usar una base desechable).
+ * Con un millón de reservas conviene una base H2 en archivo, que además se
+ * reutiliza entre corridas, y memoria para la carga completa:
+ * <pre>
+ * MAVEN_OPTS=-Xmx3g mvn -Pembebida test-compile exec:java \
+ *     -Dreservasys.entorno=embebida -Dexec.classpathScope=test \
+ *     -Dreservasys.db.url="jdbc:h2:file:./target/paginacion/reservasys;MODE=MySQL;DATABASE_TO_LOWER=TRUE" \
+ *     -Dexec.mainClass=Herramientas.MedicionPaginacion -Dexec.args="1000000 50"
+ * </pre>
+ * Cada página se lee después de un calentamiento y se reporta la mejor
+ * vuelta; la carga completa se mide una sola vez después de una lectura de
+ * calentamiento.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionPaginacion {
+
+    private static final int RESERVAS = 1_000_000;
+
+    private static final int TAMANO_PAGINA = 50;
+
+    private static final int MESAS = 200;
+
+    private static final int CLIENTES = 5_000;
+
+    private static final int LOTE_INSERCION = 10_000;
+
+    private static final int CALENTAMIENTO = 3;
+
+    private static final int VUELTAS = 5;
+
+    // Profundidad de las páginas medidas, como fracción de la tabla
+    private static final double[] PROFUNDIDADES = {0.0, 0.1, 0.5, 0.99};
+
+    /**
+     * Lectura medida; devuelve las reservas leídas.
+     */
+    @FunctionalInterface
+    private interface Lectura {
+
+        int leer() throws DAOException;
+    }
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidad de reservas y tamaño de página (por omisión
+     * 1000000 y 50).
+     * @throws DAOException si falla una lectura o la preparación de los datos.
+     * @throws ConexionException si no se puede abrir o cerrar la conexión.
+     * @throws SQLException si no se pueden guardar las reservas.
+     */
+    public static void main(String[] args) throws DAOException, ConexionException,
+            SQLException {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : RESERVAS;
+        int tamano = args.length > 1 ? Integer.parseInt(args[1]) : TAMANO_PAGINA;
+
+        if (!"embebida".equals(System.getProperty("reservasys.entorno"))
+                && !Boolean.getBoolean("reservasys.medicion.confirmar")) {
+            throw new IllegalStateException("La medición deja datos de prueba en la "
+                    + "base de datos; use la base embebida o confirme con "
+                    + "-Dreservasys.medicion.confirmar=true");
+        }
+
+        try {
+            ReservaDAO dao = new ReservaDAO();
+            long faltantes = cantidad - dao.contarReservas();
+            if (faltantes > 0) {
+                guardarReservas((int) faltantes);
+            }
+            long total = dao.contarReservas();
+            System.out.printf("%,d reservas, páginas de %,d%n", total, tamano);
+
+            for (double profundidad : PROFUNDIDADES) {
+                int posicion = (int) (total * profundidad);
+                String pagina = String.format("página en %,d", posicion);
+                medir("OFFSET, " + pagina, () -> leerConOffset(posicion, tamano).size());
+
+                // La llave es la reserva anterior a la página; buscarla no se mide
+                Reserva anterior = posicion > 0 ? leerConOffset(posicion - 1, 1).get(0) : null;
+                LocalDateTime fecha = anterior != null ? anterior.getFechaHoraReserva() : null;
+                Long id = anterior != null ? anterior.getId() : null;
+                medir("llave, " + pagina, () -> dao.obtenerPaginaReservas(fecha, id, true,
+                        tamano).size());
+            }
+
+            dao.obtenerReservas();
+            long inicio = System.nanoTime();
+            int leidas = dao.obtenerReservas().size();
+            escribir("carga completa (obtenerReservas)", leidas, System.nanoTime() - inicio);
+        } finally {
+            Conexion.closeEntityManagerFactory();
+        }
+    }
+
+    /**
+     * Lee una página por posición, con el mismo orden que la paginación por
+     * llave.
+     *
+     * @param posicion Posición de la primera reserva de la página.
+     * @param tamano Tamaño de la página.
+     * @return Las reservas de la página.
+     * @throws DAOException si no se puede abrir la conexión.
+     */
+    private static List<Reserva> leerConOffset(int posicion, int tamano) throws DAOException {
+        EntityManager em = null;
+        try {
+            em = new Conexion().getEntityManager();
+            return em.createNamedQuery("Reserva.paginaPrimera", Reserva.class)
+                    .setFirstResult(posicion)
+                    .setMaxResults(tamano)
+                    .getResultList();
+        } catch (ConexionException e) {
+            throw new DAOException("No se pudo abrir la conexión", e);
+        } finally {
+            if (em != null && em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Guarda reservas activas, una por minuto a partir de mañana, repartidas
+     * entre mesas y clientes nuevos, con sentencias por lotes sobre la
+     * conexión del EntityManager.
+     *
+     * @param cantidad Cantidad de reservas.
+     * @throws DAOException si no se pueden guardar las mesas o los clientes.
+     * @throws ConexionException si no se puede abrir la conexión.
+     * @throws SQLException si no se pueden guardar las reservas.
+     */
+    private static void guardarReservas(int cantidad) throws DAOException,
+            ConexionException, SQLException {
+        // Prefijo único para poder agregar reservas sobre la misma base
+        String corrida = Long.toString(System.currentTimeMillis(), 36);
+        Restaurante restaurante = new Restaurante("Restaurante " + corrida,
+                "Sin dirección", "0000000000", LocalTime.of(8, 0), LocalTime.of(23, 0));
+        new RestauranteDAO().agregar(restaurante);
+        List<Mesa> mesas = new ArrayList<>(MESAS);
+        for (int i = 0; i < MESAS; i++) {
+            mesas.add(new Mesa(corrida + "-" + i, "MEDIANA", 1, 4, "TERRAZA", restaurante));
+        }
+        new MesaDAO().agregarMesas(mesas);
+        List<Cliente> clientes = new ArrayList<>(CLIENTES);
+        for (int i = 0; i < CLIENTES; i++) {
+            clientes.add(new Cliente("Cliente " + corrida + " " + i, corrida + "-" + i));
+        }
+        new ClienteDAO().insercionMasivaClientes(clientes);
+
+        LocalDateTime inicio = LocalDateTime.now().plusDays(1).withNano(0);
+        EntityManager em = new Conexion().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            Connection conexion = em.unwrap(Connection.class);
+            try (PreparedStatement insercion = conexion.prepareStatement(
+                    "INSERT INTO reservas (fecha_hora_reserva, numero_personas, costo, "
+                    + "estado, cliente_id, mesa_id, restaurante_id) "
+                    + "VALUES (?, 3, 100.0, 'ACTIVA', ?, ?, ?)")) {
+                for (int i = 0; i < cantidad; i++) {
+                    insercion.setTimestamp(1, Timestamp.valueOf(inicio.plusMinutes(i)));
+                    insercion.setLong(2, clientes.get(i % CLIENTES).getId());
+                    insercion.setLong(3, mesas.get(i % MESAS).getId());
+                    insercion.setLong(4, restaurante.getId());
+                    insercion.addBatch();
+                    if ((i + 1) % LOTE_INSERCION == 0) {
+                        insercion.executeBatch();
+                    }
+                }
+                insercion.executeBatch();
+            }
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * Mide una lectura y escribe el mejor tiempo.
+     *
+     * @param nombre Nombre de la lectura.
+     * @param lectura Lectura a medir.
+     * @throws DAOException si la lectura falla.
+     */
+    private static void medir(String nombre, Lectura lectura) throws DAOException {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            lectura.leer();
+        }
+        int leidas = 0;
+        long mejorTiempo = Long.MAX_VALUE;
+        for (int i = 0; i < VUELTAS; i++) {
+            long inicio = System.nanoTime();
+            leidas = lectura.leer();
+            mejorTiempo = Math.min(mejorTiempo, System.nanoTime() - inicio);
+        }
+        escribir(nombre, leidas, mejorTiempo);
+    }
+
+    /**
+     * Escribe el tiempo de una lectura.
+     *
+     * @param nombre Nombre de la lectura.
+     * @param leidas Reservas leídas.
+     * @param nanos Tiempo en nanosegundos.
+     */
+    private static void escribir(String nombre, int leidas, long nanos) {
+        System.out.printf("%-36s %,9d reservas %,12.2f ms%n", nombre, leidas, nanos / 1e6);
+    }
+}
@@ -0,0 +1,84 @@
+package Migraciones;
+
+import DAO.PhoneCipher;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import org.h2.jdbcx.JdbcDataSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Pruebas de {@link LlenadoIndiceTelefono} sobre una tabla de clientes en H2
+ * con el índice único de V2. Clientes anteriores a V2 pueden compartir
+ * teléfono; la migración debe dejar sin indice a los repetidos en lugar de
+ * fallar. Corre con {@code mvn -Pembebida test}.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+@EnabledIfSystemProperty(named = "reservasys.entorno", matches = "embebida")
+public class LlenadoIndiceTelefonoTest {
+
+    @Test
+    public void telefonosRepetidosQuedanSinIndiceSinDetenerLaMigracion() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:llenadoIndice;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        PhoneCipher phoneCipher = new PhoneCipher();
+
+        try (Connection conexion = dataSource.getConnection()) {
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("CREATE TABLE clientes (id BIGINT PRIMARY KEY, "
+                        + "telefono VARCHAR(255) NOT NULL, telefono_idx VARCHAR(64) NULL)");
+                sentencia.execute("CREATE UNIQUE INDEX ux_clientes_telefono_idx "
+                        + "ON clientes (telefono_idx)");
+            }
+            try (PreparedStatement insercion = conexion.prepareStatement(
+                    "INSERT INTO clientes VALUES (?, ?, ?)")) {
+                // El cliente 1 ya tiene indice (registrado después de V2)
+                Object[][] clientes = {
+                    {1L, phoneCipher.cifrarTexto("6441000001"), phoneCipher.indiceCiego("6441000001")},
+                    {2L, phoneCipher.cifrarTexto("6441000001"), null},
+                    {3L, phoneCipher.cifrarTexto("6441000003"), null},
+                    {4L, phoneCipher.cifrarTexto("6441000003"), null},
+                    {5L, "no es un teléfono cifrado", null},
+                    {6L, phoneCipher.cifrarTexto("6441000006"), null},
+                    {7L, phoneCipher.cifrarTexto("6441000003"), null}
+                };
+                for (Object[] cliente : clientes) {
+                    insercion.setLong(1, (Long) cliente[0]);
+                    insercion.setString(2, (String) cliente[1]);
+                    insercion.setString(3, (String) cliente[2]);
+                    insercion.executeUpdate();
+                }
+            }
+
+            conexion.setAutoCommit(false);
+            // Páginas de dos clientes: los repetidos caen en la misma página
+            // (3 y 4) y en páginas distintas (1 y 2, 3 y 7)
+            new LlenadoIndiceTelefono(phoneCipher, 2).migrar(conexion);
+            conexion.setAutoCommit(true);
+
+            Map<Long, String> indices = new HashMap<>();
+            try (Statement sentencia = conexion.createStatement();
+                    ResultSet filas = sentencia.executeQuery(
+                            "SELECT id, telefono_idx FROM clientes")) {
+                while (filas.next()) {
+                    indices.put(filas.getLong(1), filas.getString(2));
+                }
+            }
+            assertEquals(phoneCipher.indiceCiego("6441000001"), indices.get(1L));
+            assertNull(indices.get(2L));
+            assertEquals(phoneCipher.indiceCiego("6441000003"), indices.get(3L));
+            assertNull(indices.get(4L));
+            assertNull(indices.get(5L));
+            assertEquals(phoneCipher.indiceCiego("6441000006"), indices.get(6L));
+            assertNull(indices.get(7L));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package Migraciones;
+
+import Excepciones.ConexionException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.h2.jdbcx.JdbcDataSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Pruebas de {@link MigradorEsquema} sobre bases de datos H2 nuevas, con los
+ * scripts de prueba de {@code db/migraciones-prueba} (los scripts reales usan
+ * triggers de MySQL que H2 no soporta). Cubren los modos migrar y validar, el
+ * checksum de un script modificado, la línea base de una base de datos
+ * existente y las migraciones Java. Corre con {@code mvn -Pembebida test}.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+@EnabledIfSystemProperty(named = "reservasys.entorno", matches = "embebida")
+public class MigradorEsquemaTest {
+
+    private static final Logger LOG = Logger.getLogger(MigradorEsquemaTest.class.getName());
+
+    private static final String PRUEBA = "db/migraciones-prueba/";
+
+    private static final String CAMBIADA = "db/migraciones-cambiada/";
+
+    private static final AtomicInteger BASES = new AtomicInteger();
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    public void crearBase() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migrador" + BASES.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+    }
+
+    /**
+     * Lee la tabla de versiones.
+     *
+     * @return El tipo de cada versión registrada, por versión.
+     * @throws SQLException si hay un error de base de datos.
+     */
+    private Map<Integer, String> versiones() throws SQLException {
+        Map<Integer, String> versiones = new TreeMap<>();
+        try (Connection conexion = dataSource.getConnection();
+                Statement sentencia = conexion.createStatement();
+                ResultSet filas = sentencia.executeQuery(
+                        "SELECT version, tipo FROM esquema_version")) {
+            while (filas.next()) {
+                versiones.put(filas.getInt(1), filas.getString(2));
+            }
+        }
+        return versiones;
+    }
+
+    /**
+     * Ejecuta una sentencia en la base de datos de la prueba.
+     *
+     * @param sql Sentencia a ejecutar.
+     * @throws SQLException si hay un error de base de datos.
+     */
+    private void ejecutar(String sql) throws SQLException {
+        try (Connection conexion = dataSource.getConnection();
+                Statement sentencia = conexion.createStatement()) {
+            sentencia.execute(sql);
+        }
+    }
+
+    @Test
+    public void migrarAplicaLosScriptsUnaSolaVez() throws Exception {
+        long inicio = System.nanoTime();
+        new MigradorEsquema(dataSource, 1, PRUEBA).ejecutar(ModoMigracion.MIGRAR);
+        long conDdl = System.nanoTime();
+        new MigradorEsquema(dataSource, 1, PRUEBA).ejecutar(ModoMigracion.MIGRAR);
+        long sinDdl = System.nanoTime();
+        new MigradorEsquema(dataSource, 1, PRUEBA).ejecutar(ModoMigracion.VALIDAR);
+        long validado = System.nanoTime();
+        LOG.log(Level.INFO, "Arranque con DDL {0} ms, ya migrado {1} ms, validar {2} ms",
+                new Object[]{(conDdl - inicio) / 1_000_000, (sinDdl - conDdl) / 1_000_000,
+                    (validado - sinDdl) / 1_000_000});
+
+        assertEquals(Map.of(1, "SQL", 2, "SQL"), versiones());
+        ejecutar("INSERT INTO reservas (id, fecha_hora_reserva, cliente_id) "
+                + "VALUES (1, CURRENT_TIMESTAMP, 1)");
+    }
+
+    @Test
+    public void validarFallaSiHayVersionesPendientes() throws Exception {
+        ConexionException sinTabla = assertThrows(ConexionException.class,
+                () -> new MigradorEsquema(dataSource, 1, PRUEBA)
+                        .ejecutar(ModoMigracion.VALIDAR));
+        assertTrue(sinTabla.getMessage().contains("esquema_version"));
+
+        new MigradorEsquema(dataSource, 1, PRUEBA).ejecutar(ModoMigracion.MIGRAR);
+        ConexionException pendiente = assertThrows(ConexionException.class,
+                () -> new MigradorEsquema(dataSource, 1, PRUEBA)
+                        .agregar(3, "pendiente", conexion -> {
+                        })
+                        .ejecutar(ModoMigracion.VALIDAR));
+        assertTrue(pendiente.getMessage().contains("pendientes"));
+        assertEquals(Map.of(1, "SQL", 2, "SQL"), versiones());
+    }
+
+    @Test
+    public void scriptModificadoDespuesDeAplicarseDetieneElArranque() throws Exception {
+        new MigradorEsquema(dataSource, 1, PRUEBA).ejecutar(ModoMigracion.MIGRAR);
+
+        for (ModoMigracion modo : List.of(ModoMigracion.MIGRAR, ModoMigracion.VALIDAR)) {
+            ConexionException error = assertThrows(ConexionException.class,
+                    () -> new MigradorEsquema(dataSource, 1, CAMBIADA).ejecutar(modo));
+            assertTrue(error.getMessage().contains("V1__tablas.sql"), error.getMessage());
+            assertTrue(error.getMessage().contains("checksum"), error.getMessage());
+        }
+    }
+
+    @Test
+    public void baseExistenteSeRegistraComoLineaBase() throws Exception {
+        // Esquema creado antes de las migraciones, equivalente a V1
+        ejecutar("CREATE TABLE clientes (id BIGINT PRIMARY KEY, nombre VARCHAR(100) NOT NULL)");
+        ejecutar("CREATE TABLE reservas (id BIGINT PRIMARY KEY, "
+                + "fecha_hora_reserva TIMESTAMP NOT NULL, cliente_id BIGINT NOT NULL)");
+
+        new MigradorEsquema(dataSource, 1, PRUEBA).ejecutar(ModoMigracion.MIGRAR);
+
+        assertEquals(Map.of(1, "BASE", 2, "SQL"), versiones());
+        ejecutar("SELECT estado FROM reservas");
+    }
+
+    @Test
+    public void baseNuevaNoUsaLineaBase() throws Exception {
+        new MigradorEsquema(dataSource, 2, PRUEBA).ejecutar(ModoMigracion.MIGRAR);
+
+        assertEquals(Map.of(1, "SQL", 2, "SQL"), versiones());
+    }
+
+    @Test
+    public void migracionJavaCorreUnaVezEnSuOrden() throws Exception {
+        AtomicInteger corridas = new AtomicInteger();
+        MigracionJava llenado = conexion -> {
+            corridas.incrementAndGet();
+            try (Statement sentencia = conexion.createStatement()) {
+                // V2 ya se aplicó: la columna estado existe
+                sentencia.executeUpdate("UPDATE reservas SET estado = 'ACTIVA'");
+            }
+        };
+
+        new MigradorEsquema(dataSource, 1, PRUEBA).agregar(3, "llenado", llenado)
+                .ejecutar(ModoMigracion.MIGRAR);
+        new MigradorEsquema(dataSource, 1, PRUEBA).agregar(3, "llenado", llenado)
+                .ejecutar(ModoMigracion.MIGRAR);
+
+        assertEquals(1, corridas.get());
+        assertEquals(Map.of(1, "SQL", 2, "SQL", 3, "JAVA"), versiones());
+    }
+
+    @Test
+    public void migracionJavaFallidaSeReintentaEnElSiguienteArranque() throws Exception {
+        MigracionJava fallida = conexion -> {
+            throw new SQLException("falla de prueba");
+        };
+        ConexionException error = assertThrows(ConexionException.class,
+                () -> new MigradorEsquema(dataSource, 1, PRUEBA).agregar(3, "llenado", fallida)
+                        .ejecutar(ModoMigracion.MIGRAR));
+        assertTrue(error.getMessage().contains("falla de prueba"));
+        assertEquals(Map.of(1, "SQL", 2, "SQL"), versiones());
+
+        new MigradorEsquema(dataSource, 1, PRUEBA).agregar(3, "llenado", conexion -> {
+        }).ejecutar(ModoMigracion.MIGRAR);
+        assertEquals(Map.of(1, "SQL", 2, "SQL", 3, "JAVA"), versiones());
+    }
+
+    @Test
+    public void versionRepetidaEntreScriptYMigracionJava() {
+        assertThrows(ConexionException.class,
+                () -> new MigradorEsquema(dataSource, 1, PRUEBA).agregar(2, "repetida",
+                        conexion -> {
+                        }).ejecutar(ModoMigracion.MIGRAR));
+    }
+
+    @Test
+    public void dividirSentenciasRespetaDelimitadorYComentarios() {
+        List<String> sentencias = MigradorEsquema.dividirSentencias(
+                "-- comentario\n"
+                + "CREATE TABLE t (id INT);\n"
+                + "\n"
+                + "DELIMITER //\n"
+                + "CREATE TRIGGER tr BEFORE INSERT ON t FOR EACH ROW\n"
+                + "BEGIN\n"
+                + "  SET NEW.id = 1;\n"
+                + "END//\n"
+                + "DELIMITER ;\n"
+                + "DROP TABLE t;\n");
+
+        assertEquals(3, sentencias.size());
+        assertEquals("CREATE TABLE t (id INT)", sentencias.get(0));
+        assertTrue(sentencias.get(1).startsWith("CREATE TRIGGER tr"));
+        assertTrue(sentencias.get(1).endsWith("END"));
+        assertEquals("DROP TABLE t", sentencias.get(2));
+    }
+}
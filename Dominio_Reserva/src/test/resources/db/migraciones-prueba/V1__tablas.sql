@@ -0,0 +1,12 @@
+-- V1 de prueba: tablas minimas.
+
+CREATE TABLE clientes (
+    id BIGINT PRIMARY KEY,
+    nombre VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE reservas (
+    id BIGINT PRIMARY KEY,
+    fecha_hora_reserva TIMESTAMP NOT NULL,
+    cliente_id BIGINT NOT NULL
+);
@@ -0,0 +1,5 @@
+-- V2 de prueba: columna e indice nuevos.
+
+ALTER TABLE reservas ADD COLUMN estado VARCHAR(20) DEFAULT 'ACTIVA';
+
+CREATE INDEX ix_reservas_estado_fecha ON reservas (estado, fecha_hora_reserva);
@@ -0,0 +1,376 @@
+package BO;
+
+import Convertidores.ReservaCVR;
+import DAO.ReservaDAO;
+import DTOs.ReservaDTO;
+import Entidades.Reserva;
+import Excepciones.BOException;
+import Excepciones.DAOException;
+import Interfaces.IReservaDAO;
+import Proyecciones.VersionReserva;
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caché de todas las reservas, compartida por toda la aplicación. La primera
+ * consulta lee todas las reservas de la base de datos; después solo se leen
+ * las que cambiaron desde la última lectura, según la columna
+ * {@code actualizado_en} que asigna el servidor (V7).
+ *
+ * Cada reserva conserva su posición en la lista: una reserva que cambió
+ * reemplaza a la anterior en el mismo lugar y una nueva se agrega al final.
+ * La lista que se entrega no cambia; cada cambio crea otra y se avisa a los
+ * {@link Oyente oyentes} con las posiciones que cambiaron, para que actualicen
+ * lo que calcularon sobre ella sin recorrerla completa.
+ *
+ * Los cambios se leen cuando se pide con {@link #refrescar()}, cuando
+ * {@link ReservaBO} avisa que guardó una reserva o, al consultar, si pasó el
+ * tiempo de refresco ({@code -Dreservasys.reservas.refrescoSegundos=N}, 30 por
+ * omisión; con 0 solo se leen al pedirlo o al avisar). Así las reservas de otra
+ * terminal llegan a más tardar en ese tiempo.
+ *
+ * Una transacción que confirma tarde puede dejar una fila con una hora menor
+ * que la última leída; por eso cada lectura de cambios empieza un margen
+ * antes ({@code -Dreservasys.reservas.margenSegundos=N}, 30 por omisión).
+ * Primero se leen solo el id y la hora de cambio de esas filas y después se
+ * cargan completas solo las que no se tenían con la misma hora.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public final class CacheReservas {
+
+    private static final Logger LOG = Logger.getLogger(CacheReservas.class.getName());
+
+    private static final CacheReservas INSTANCIA = new CacheReservas();
+
+    // Tiempo tras el cual una consulta lee los cambios; 0 = solo al pedirlo
+    private static final long REFRESCO_NANOS = TimeUnit.SECONDS.toNanos(Math.max(0,
+            Long.getLong("reservasys.reservas.refrescoSegundos", 30L)));
+
+    // Margen hacia atrás de cada lectura de cambios
+    private static final long MARGEN_SEGUNDOS = Math.max(0,
+            Long.getLong("reservasys.reservas.margenSegundos", 30L));
+
+    private static final long SIN_VERSION = Long.MIN_VALUE;
+
+    /**
+     * Recibe los cambios de la lista de reservas. Se llama en el hilo que
+     * leyó los cambios y con la caché bloqueada, así que no debe volver a
+     * consultarla ni esperar a otro hilo que lo haga.
+     */
+    @FunctionalInterface
+    public interface Oyente {
+
+        /**
+         * Avisa que la lista de reservas cambió.
+         *
+         * @param reservas La lista nueva.
+         * @param posiciones Posiciones que cambiaron o se agregaron, en orden;
+         * null si se cargó la lista completa.
+         */
+        void reservasActualizadas(List<ReservaDTO> reservas, int[] posiciones);
+    }
+
+    private final IReservaDAO reservaDAO;
+    private final ReservaCVR reservaCVR;
+
+    // Se guardan referencias débiles para no retener las pantallas cerradas
+    private final List<WeakReference<Oyente>> oyentes = new ArrayList<>();
+
+    // Lista actual; null mientras no se carga
+    private volatile List<ReservaDTO> reservas;
+
+    // Ids de las reservas en orden y la posición de cada uno en la lista
+    private long[] ids = new long[0];
+    private int[] posicionesPorId = new int[0];
+
+    // actualizado_en de cada posición, para descartar las filas ya leídas
+    private long[] versiones = new long[0];
+
+    // Mayor actualizado_en leído
+    private LocalDateTime marca;
+
+    private volatile long refrescadoEn;
+    private volatile boolean pendiente;
+
+    /**
+     * Constructor privado; se usa la instancia compartida.
+     */
+    private CacheReservas() {
+        this.reservaDAO = new ReservaDAO();
+        this.reservaCVR = new ReservaCVR();
+    }
+
+    /**
+     * Obtiene la instancia compartida de la caché.
+     *
+     * @return La instancia de la caché.
+     */
+    public static CacheReservas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Obtiene las reservas. Si aún no se cargan, si se avisó un cambio o si
+     * pasó el tiempo de refresco, antes se leen de la base de datos.
+     *
+     * @return Lista de solo lectura con las reservas.
+     * @throws BOException Si ocurre un error al leer las reservas.
+     */
+    public List<ReservaDTO> obtener() throws BOException {
+        List<ReservaDTO> actual = reservas;
+        if (actual != null && !pendiente && vigente()) {
+            return actual;
+        }
+        return refrescar();
+    }
+
+    /**
+     * Lee de la base de datos las reservas que cambiaron desde la última
+     * lectura, o todas si aún no se cargan, y avisa a los oyentes.
+     *
+     * @return Lista de solo lectura con las reservas.
+     * @throws BOException Si ocurre un error al leer las reservas.
+     */
+    public synchronized List<ReservaDTO> refrescar() throws BOException {
+        pendiente = false;
+        try {
+            if (reservas == null) {
+                cargarTodas();
+            } else {
+                aplicarCambios();
+            }
+        } catch (DAOException de) {
+            pendiente = true;
+            LOG.log(Level.SEVERE, "Error al leer las reservas", de);
+            throw new BOException("Error al consultar las reservas: " + de.getMessage());
+        }
+        refrescadoEn = System.nanoTime();
+        return reservas;
+    }
+
+    /**
+     * Indica que se guardó una reserva, para que la siguiente consulta lea
+     * los cambios.
+     */
+    public void avisarCambio() {
+        pendiente = true;
+    }
+
+    /**
+     * Registra un oyente de los cambios. Se guarda con una referencia débil:
+     * quien lo registra debe conservarlo mientras lo necesite.
+     *
+     * @param oyente Oyente a registrar.
+     */
+    public synchronized void agregarOyente(Oyente oyente) {
+        oyentes.add(new WeakReference<>(oyente));
+    }
+
+    /**
+     * Quita un oyente registrado.
+     *
+     * @param oyente Oyente a quitar.
+     */
+    public synchronized void quitarOyente(Oyente oyente) {
+        oyentes.removeIf(referencia -> {
+            Oyente registrado = referencia.get();
+            return registrado == null || registrado == oyente;
+        });
+    }
+
+    /**
+     * Carga todas las reservas y avisa a los oyentes.
+     *
+     * @throws DAOException Si ocurre un error al leer las reservas.
+     */
+    private void cargarTodas() throws DAOException {
+        long inicio = System.nanoTime();
+        // Las reservas llegan ordenadas por id
+        List<Reserva> entidades = reservaDAO.obtenerReservas();
+        List<ReservaDTO> dtos = reservaCVR.toDTOs(entidades);
+        int total = entidades.size();
+        ids = new long[total];
+        posicionesPorId = new int[total];
+        versiones = new long[total];
+        marca = null;
+        for (int i = 0; i < total; i++) {
+            Reserva reserva = entidades.get(i);
+            ids[i] = reserva.getId();
+            posicionesPorId[i] = i;
+            versiones[i] = version(reserva.getActualizadoEn());
+            marca = mayor(marca, reserva.getActualizadoEn());
+        }
+        reservas = Collections.unmodifiableList(dtos);
+        LOG.log(Level.INFO, "{0} reservas cargadas en caché en {1} ms",
+                new Object[]{total, (System.nanoTime() - inicio) / 1_000_000});
+        avisar(null);
+    }
+
+    /**
+     * Lee el id y la versión de las reservas que cambiaron desde la marca
+     * (menos el margen) y carga solo las que no se tenían con esa versión;
+     * las pone en su posición o al final y avisa a los oyentes.
+     *
+     * @throws DAOException Si ocurre un error al leer las reservas.
+     */
+    private void aplicarCambios() throws DAOException {
+        long inicio = System.nanoTime();
+        LocalDateTime desde = marca != null ? marca.minusSeconds(MARGEN_SEGUNDOS)
+                : LocalDateTime.of(1970, 1, 1, 0, 0);
+        List<Long> idsCambiados = new ArrayList<>();
+        for (VersionReserva leida : reservaDAO.obtenerVersionesReservas(desde)) {
+            marca = mayor(marca, leida.getActualizadoEn());
+            int lugar = Arrays.binarySearch(ids, leida.getIdReserva());
+            if (lugar < 0 || versiones[posicionesPorId[lugar]] != version(leida.getActualizadoEn())) {
+                idsCambiados.add(leida.getIdReserva());
+            }
+        }
+        if (idsCambiados.isEmpty()) {
+            LOG.log(Level.FINE, "Sin cambios en las reservas ({0} ms)",
+                    (System.nanoTime() - inicio) / 1_000_000);
+            return;
+        }
+        // Las reservas llegan ordenadas por id
+        List<Reserva> entidades = reservaDAO.obtenerReservasPorIds(idsCambiados);
+
+        List<ReservaDTO> nuevas = null;
+        int[] posiciones = new int[entidades.size()];
+        int cambiadas = 0;
+        // Ids nuevos, en orden porque las filas llegan ordenadas por id
+        long[] idsNuevos = new long[entidades.size()];
+        int agregadas = 0;
+        List<ReservaDTO> dtos = reservaCVR.toDTOs(entidades);
+        for (int i = 0; i < entidades.size(); i++) {
+            Reserva reserva = entidades.get(i);
+            ReservaDTO dto = dtos.get(i);
+            marca = mayor(marca, reserva.getActualizadoEn());
+            int lugar = Arrays.binarySearch(ids, reserva.getId());
+            if (dto == null) {
+                continue;
+            }
+            if (nuevas == null) {
+                nuevas = new ArrayList<>(reservas);
+            }
+            int posicion;
+            if (lugar >= 0) {
+                posicion = posicionesPorId[lugar];
+                nuevas.set(posicion, dto);
+            } else {
+                posicion = nuevas.size();
+                nuevas.add(dto);
+                idsNuevos[agregadas++] = reserva.getId();
+            }
+            if (posicion >= versiones.length) {
+                versiones = Arrays.copyOf(versiones, Math.max(posicion + 1,
+                        versiones.length + versiones.length / 8 + 16));
+            }
+            versiones[posicion] = version(reserva.getActualizadoEn());
+            posiciones[cambiadas++] = posicion;
+        }
+        if (nuevas == null) {
+            return;
+        }
+        if (agregadas > 0) {
+            registrarIds(idsNuevos, agregadas, reservas.size());
+        }
+        posiciones = Arrays.copyOf(posiciones, cambiadas);
+        Arrays.sort(posiciones);
+        reservas = Collections.unmodifiableList(nuevas);
+        LOG.log(Level.INFO, "{0} reservas actualizadas en caché en {1} ms",
+                new Object[]{cambiadas, (System.nanoTime() - inicio) / 1_000_000});
+        avisar(posiciones);
+    }
+
+    /**
+     * Agrega al orden por id las reservas agregadas al final de la lista.
+     *
+     * @param idsNuevos Ids de las reservas agregadas, en orden.
+     * @param cantidad Cantidad de ids.
+     * @param primeraPosicion Posición en la lista de la primera agregada.
+     */
+    private void registrarIds(long[] idsNuevos, int cantidad, int primeraPosicion) {
+        int total = ids.length + cantidad;
+        long[] idsUnidos = new long[total];
+        int[] posicionesUnidas = new int[total];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            if (j >= cantidad || (i < ids.length && ids[i] < idsNuevos[j])) {
+                idsUnidos[k] = ids[i];
+                posicionesUnidas[k] = posicionesPorId[i++];
+            } else {
+                idsUnidos[k] = idsNuevos[j];
+                posicionesUnidas[k] = primeraPosicion + j++;
+            }
+        }
+        ids = idsUnidos;
+        posicionesPorId = posicionesUnidas;
+    }
+
+    /**
+     * Avisa a los oyentes registrados y quita los que ya no existen.
+     *
+     * @param posiciones Posiciones que cambiaron, o null si se cargó todo.
+     */
+    private void avisar(int[] posiciones) {
+        Iterator<WeakReference<Oyente>> iterador = oyentes.iterator();
+        while (iterador.hasNext()) {
+            Oyente oyente = iterador.next().get();
+            if (oyente == null) {
+                iterador.remove();
+                continue;
+            }
+            try {
+                oyente.reservasActualizadas(reservas, posiciones);
+            } catch (RuntimeException re) {
+                LOG.log(Level.WARNING, "Error al avisar un cambio de reservas", re);
+            }
+        }
+    }
+
+    /**
+     * Indica si la última lectura sigue dentro del tiempo de refresco.
+     *
+     * @return true si aún no hay que leer los cambios.
+     */
+    private boolean vigente() {
+        return REFRESCO_NANOS == 0 || System.nanoTime() - refrescadoEn < REFRESCO_NANOS;
+    }
+
+    /**
+     * Convierte un actualizado_en en un número comparable.
+     *
+     * @param fechaHora Fecha y hora, puede ser null.
+     * @return El número, o {@link #SIN_VERSION} si es null.
+     */
+    private static long version(LocalDateTime fechaHora) {
+        if (fechaHora == null) {
+            return SIN_VERSION;
+        }
+        return fechaHora.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + fechaHora.getNano();
+    }
+
+    /**
+     * Obtiene la mayor de dos fechas.
+     *
+     * @param actual Fecha actual, puede ser null.
+     * @param otra Otra fecha, puede ser null.
+     * @return La mayor, o null si ambas son null.
+     */
+    private static LocalDateTime mayor(LocalDateTime actual, LocalDateTime otra) {
+        if (actual == null || (otra != null && otra.isAfter(actual))) {
+            return otra;
+        }
+        return actual;
+    }
+}
@@ -0,0 +1,169 @@
+package BO;
+
+import Conexion.Conexion;
+import Convertidores.RestauranteCVR;
+import DAO.RestauranteDAO;
+import DTOs.RestauranteDTO;
+import Entidades.Restaurante;
+import Excepciones.BOException;
+import Excepciones.ConversionException;
+import Excepciones.DAOException;
+import Interfaces.IRestauranteDAO;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caché de lectura del único restaurante del sistema, compartida por toda la
+ * aplicación. La primera consulta lee el restaurante de la base de datos y las
+ * siguientes lo toman de memoria hasta que la caché se invalida (al cambiar el
+ * horario) o, si se configuró, hasta que vence su tiempo de vida.
+ *
+ * El tiempo de vida se configura en segundos con
+ * {@code -Dreservasys.restaurante.ttlSegundos=N}; con 0 la caché solo se
+ * renueva al invalidarla. Sirve para que otras terminales vean, tarde o
+ * temprano, un cambio de horario hecho en otra. Al recargar se descarta
+ * también el restaurante de la caché compartida de EclipseLink, para que el
+ * tiempo de vida de esta caché sea el único retraso y no se sume al de la
+ * entidad.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public final class CacheRestaurante {
+
+    private static final Logger LOG = Logger.getLogger(CacheRestaurante.class.getName());
+
+    private static final CacheRestaurante INSTANCIA = new CacheRestaurante();
+
+    // Tiempo de vida de la caché; 0 = sin vencimiento
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(Math.max(0,
+            Long.getLong("reservasys.restaurante.ttlSegundos", 300L)));
+
+    private final IRestauranteDAO restauranteDAO;
+    private final RestauranteCVR restauranteCVR;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+
+    private volatile RestauranteDTO restaurante;
+    private volatile long cargadoEn;
+
+    /**
+     * Constructor privado; se usa la instancia compartida.
+     */
+    private CacheRestaurante() {
+        this.restauranteDAO = new RestauranteDAO();
+        this.restauranteCVR = new RestauranteCVR();
+    }
+
+    /**
+     * Obtiene la instancia compartida de la caché.
+     *
+     * @return La instancia de la caché.
+     */
+    public static CacheRestaurante getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Obtiene los datos del restaurante, de memoria si están vigentes o de la
+     * base de datos si no. Se devuelve una copia, de modo que quien la reciba
+     * puede modificarla sin afectar la caché.
+     *
+     * @return Los datos del restaurante, o null si no hay restaurante.
+     * @throws BOException Si ocurre un error al consultar el restaurante.
+     */
+    public RestauranteDTO obtener() throws BOException {
+        RestauranteDTO actual = restaurante;
+        if (actual != null && vigente()) {
+            aciertos.incrementAndGet();
+            return copiar(actual);
+        }
+        synchronized (this) {
+            actual = restaurante;
+            if (actual != null && vigente()) {
+                aciertos.incrementAndGet();
+                return copiar(actual);
+            }
+            fallos.incrementAndGet();
+            try {
+                // Sin esto la consulta devolvería el restaurante de la caché
+                // de EclipseLink, que puede tener hasta 5 minutos más
+                Conexion.invalidarCache(Restaurante.class);
+                actual = restauranteCVR.toDTO(restauranteDAO.consultar());
+            } catch (DAOException de) {
+                LOG.log(Level.SEVERE, "Error en la consulta del restaurante", de);
+                throw new BOException("Error al consultar los datos del restaurante: " + de.getMessage());
+            } catch (ConversionException ce) {
+                LOG.log(Level.SEVERE, "Error en la conversión de datos del restaurante", ce);
+                throw new BOException("Error al procesar los datos del restaurante: " + ce.getMessage());
+            }
+            // Sin restaurante no se guarda nada, para volver a buscarlo
+            restaurante = actual;
+            cargadoEn = System.nanoTime();
+            LOG.log(Level.FINE, "Restaurante cargado en caché");
+            return copiar(actual);
+        }
+    }
+
+    /**
+     * Descarta los datos en memoria para que la siguiente consulta los lea de
+     * la base de datos. Se usa después de modificar el restaurante.
+     */
+    public synchronized void invalidar() {
+        restaurante = null;
+        LOG.log(Level.INFO, "Caché del restaurante invalidada ({0})", estadisticas());
+    }
+
+    /**
+     * Obtiene el número de consultas atendidas desde memoria.
+     *
+     * @return Aciertos de la caché.
+     */
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    /**
+     * Obtiene el número de consultas que tuvieron que ir a la base de datos.
+     *
+     * @return Fallos de la caché.
+     */
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    /**
+     * Devuelve un resumen del uso de la caché, útil para los registros.
+     *
+     * @return Aciertos y fallos de la caché.
+     */
+    public String estadisticas() {
+        return "aciertos=" + aciertos.get() + ", fallos=" + fallos.get();
+    }
+
+    /**
+     * Indica si los datos en memoria siguen dentro de su tiempo de vida.
+     *
+     * @return true si no han vencido.
+     */
+    private boolean vigente() {
+        return TTL_NANOS == 0 || System.nanoTime() - cargadoEn < TTL_NANOS;
+    }
+
+    /**
+     * Copia los datos del restaurante.
+     *
+     * @param origen Datos a copiar, puede ser null.
+     * @return La copia, o null si el origen es null.
+     */
+    private RestauranteDTO copiar(RestauranteDTO origen) {
+        if (origen == null) {
+            return null;
+        }
+        return new RestauranteDTO(origen.getId(), origen.getNombre(),
+                origen.getDireccion(), origen.getTelefono(),
+                origen.getHoraApertura(), origen.getHoraCierre());
+    }
+}
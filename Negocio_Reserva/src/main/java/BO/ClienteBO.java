@@ -1,6 +1,5 @@
 package BO;
 
-import DAO.DesEncryptionUtil;
 import DTOs.ClienteDTO;
 import Excepciones.NegocioException;
 import Interfaces.IClienteBO;
@@ -42,43 +41,37 @@ public class ClienteBO implements IClienteBO {
      */
     public ClienteBO() {
         this.clienteDAO = new ClienteDAO();  // Se instancia un DAO de cliente
-        this.clienteCVR = new ClienteCVR();  // Se instancia un convertidor de cliente
+        this.clienteCVR = new ClienteCVR(clienteDAO);  // Se instancia un convertidor de cliente
     }
 
+    /**
+     * Realiza la inserción masiva de clientes. El cifrado del teléfono lo
+     * realiza únicamente la capa de datos, por lo que aquí solo se convierten
+     * los DTO a entidades.
+     *
+     * @param clientes Lista de clientes a insertar.
+     * @throws NegocioException Si ocurre un error en la conversión o en la
+     * inserción.
+     */
+    @Override
     public void insercionMasivaClientes(List<ClienteDTO> clientes) throws NegocioException {
         try {
-            // Convert ClienteDTO to Cliente entities with phone encryption
+            // Convertir los DTO a entidades; el teléfono viaja en texto plano
             List<Cliente> clientesEntidad = new ArrayList<>();
             for (ClienteDTO clienteDTO : clientes) {
-                // Encrypt phone number before converting to entity
-                String telefonoCifrado = DesEncryptionUtil.cifrarTelefono(
-                        clienteDTO.getTelefono(),
-                        "sebas123" // Use the same key as in ClienteDAO
-                );
-
-                // Update DTO with encrypted phone number
-                clienteDTO.setTelefono(telefonoCifrado);
-
-                // Convert to entity
-                Cliente cliente = clienteCVR.toEntity(clienteDTO);
-                clientesEntidad.add(cliente);
+                clientesEntidad.add(clienteCVR.toEntity(clienteDTO));
             }
 
-            // Perform mass insertion using DAO
+            // Realizar la inserción masiva con el DAO
             clienteDAO.insercionMasivaClientes(clientesEntidad);
 
             LOG.log(Level.INFO, "Inserción masiva de clientes exitosa");
-        } catch (Exception ex) {
-            if (ex instanceof ConversionException) {
-                LOG.log(Level.SEVERE, "Error en la conversión de DTO a Entidad", ex);
-                throw new NegocioException("Error al convertir clientes para inserción masiva");
-            } else if (ex instanceof DAOException) {
-                LOG.log(Level.SEVERE, "Error en la inserción masiva de clientes", ex);
-                throw new NegocioException("Error al insertar clientes masivamente");
-            } else {
-                LOG.log(Level.SEVERE, "Error al cifrar teléfono", ex);
-                throw new NegocioException("Error al cifrar número de teléfono");
-            }
+        } catch (ConversionException ex) {
+            LOG.log(Level.SEVERE, "Error en la conversión de DTO a Entidad", ex);
+            throw new NegocioException("Error al convertir clientes para inserción masiva");
+        } catch (DAOException ex) {
+            LOG.log(Level.SEVERE, "Error en la inserción masiva de clientes", ex);
+            throw new NegocioException("Error al insertar clientes masivamente");
         }
     }
 
@@ -96,27 +89,17 @@ public class ClienteBO implements IClienteBO {
     @Override
     public ClienteDTO obtenerCliente(Long id) throws BOException {
         try {
-            // Obtener el cliente desde el DAO
+            // Obtener el cliente desde el DAO, con el teléfono ya descifrado
             Cliente cliente = clienteDAO.obtenerCliente(id);
 
-            // Descifrar el teléfono si está cifrado
-            if (cliente.getTelefono() != null) {
-                String telefonoDescifrado = DesEncryptionUtil.descifrarTelefono(
-                        cliente.getTelefono(),
-                        "sebas123"
-                );
-                cliente.setTelefono(telefonoDescifrado);
-            }
-
             // Convertir el cliente en una instancia DTO
             ClienteDTO clienteDTO = clienteCVR.toDTO(cliente);
 
             LOG.log(Level.INFO, "Éxito al obtener al cliente por ID en BO");
 
             return clienteDTO;
-        } catch (Exception e) {
-            // Handle potential decryption or conversion errors
-            LOG.log(Level.SEVERE, "Error al obtener o descifrar el cliente", e);
+        } catch (DAOException | ConversionException e) {
+            LOG.log(Level.SEVERE, "Error al obtener el cliente", e);
             throw new BOException("Error al obtener el cliente por ID");
         }
     }
@@ -133,39 +116,33 @@ public class ClienteBO implements IClienteBO {
     @Override
     public List<ClienteDTO> obtenerClientes() throws BOException {
         try {
-            List<Cliente> entidades = clienteDAO.obtenerClientes();
-            List<ClienteDTO> dto = new ArrayList<>();
-
-            for (Cliente cliente : entidades) {
-                try {
-                    // Verificación adicional antes de descifrar
-                    if (cliente.getTelefono() != null && !cliente.getTelefono().isEmpty()) {
-                        String telefonoDescifrado = DesEncryptionUtil.descifrarTelefono(
-                                cliente.getTelefono(),
-                                "sebas123"
-                        );
-                        cliente.setTelefono(telefonoDescifrado);
-                    }
-                    dto.add(clienteCVR.toDTO(cliente));
-                } catch (Exception ex) {
-                    // Log detallado
-                    LOG.log(Level.SEVERE,
-                            "Error al procesar cliente: "
-                            + (cliente != null ? cliente.getNombre() : "Cliente nulo"),
-                            ex
-                    );
-                    // Opcional: mantener el cliente original sin descifrar
-                    // dto.add(clienteCVR.toDTO(cliente));
-                }
-            }
-
-            return dto;
+            // Los teléfonos ya vienen descifrados desde el DAO
+            return clienteCVR.toDTOs(clienteDAO.obtenerClientes());
         } catch (DAOException de) {
             LOG.log(Level.SEVERE, "Error al obtener los clientes en BO", de);
             throw new BOException("Error al obtener los clientes", de);
-        } catch (Exception ex) {
-            LOG.log(Level.SEVERE, "Error inesperado al obtener los clientes", ex);
-            throw new BOException("Error inesperado al obtener los clientes", ex);
+        } catch (ConversionException ce) {
+            LOG.log(Level.SEVERE, "Error al convertir los clientes en BO", ce);
+            throw new BOException("Error al convertir los clientes", ce);
+        }
+    }
+
+    /**
+     * Método para obtener un cliente por su teléfono. La búsqueda se hace por
+     * el indice ciego del teléfono, por lo que no recorre toda la tabla.
+     *
+     * @param telefono Teléfono del cliente en texto plano.
+     * @return ClienteDTO del cliente o {@code null} si no existe.
+     * @throws BOException Si ocurre un error en la capa DAO o durante la
+     * conversión.
+     */
+    @Override
+    public ClienteDTO obtenerClientePorTelefono(String telefono) throws BOException {
+        try {
+            return clienteCVR.toDTO(clienteDAO.obtenerClientePorTelefono(telefono));
+        } catch (DAOException | ConversionException e) {
+            LOG.log(Level.SEVERE, "Error al obtener el cliente por teléfono", e);
+            throw new BOException("Error al obtener el cliente por teléfono", e);
         }
     }
 }
@@ -0,0 +1,294 @@
+package BO;
+
+import DAO.ReservaDAO;
+import DTOs.MesaDTO;
+import Excepciones.BOException;
+import Excepciones.DAOException;
+import Interfaces.IMesaBO;
+import Interfaces.IReservaDAO;
+import Proyecciones.OcupacionMesa;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Índice en memoria de la ocupación de las mesas, compartido por toda la
+ * aplicación. Guarda, por código de mesa, las horas de inicio de sus reservas
+ * activas ordenadas, de modo que saber si una mesa está libre a cierta hora es
+ * una búsqueda de rango en un mapa ordenado, sin ir a la base de datos.
+ *
+ * El índice se carga la primera vez que se consulta y se mantiene al día con
+ * {@link ReservaBO#agregarReserva} y {@link ReservaBO#actualizarReserva}. Las
+ * reservas hechas desde otra terminal no llegan aquí, por lo que la base de
+ * datos sigue siendo la autoridad: cuando una verificación en ella no
+ * coincide con el índice, se vuelve a leer solo el día de esa mesa
+ * ({@link #corregir}). Las reservas que ya terminaron se quitan del índice
+ * cada cierto tiempo, para que no crezca mientras la aplicación sigue abierta.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public final class DisponibilidadIndex {
+
+    private static final Logger LOG = Logger.getLogger(DisponibilidadIndex.class.getName());
+
+    private static final DisponibilidadIndex INSTANCIA = new DisponibilidadIndex();
+
+    // horas que ocupa una reserva en la mesa
+    private static final long HORAS_RESERVA = 5L;
+
+    // tiempo mínimo entre dos podas de las reservas terminadas
+    private static final long INTERVALO_PODA_MS = 60_000L;
+
+    private final IReservaDAO reservaDAO;
+    private final IMesaBO mesaBO;
+
+    // horas de inicio de las reservas activas de cada mesa, con su cantidad
+    private final Map<String, NavigableMap<LocalDateTime, Integer>> ocupacion
+            = new ConcurrentHashMap<>();
+
+    // mesa y hora de cada reserva indexada, para poder quitarla por id
+    private final Map<Long, OcupacionMesa> reservas = new ConcurrentHashMap<>();
+
+    private volatile List<MesaDTO> mesas = new ArrayList<>();
+
+    private volatile boolean cargado;
+
+    private volatile long ultimaPoda; // System.currentTimeMillis() de la última poda.
+
+    /**
+     * Constructor privado; se usa la instancia compartida.
+     */
+    private DisponibilidadIndex() {
+        this.reservaDAO = new ReservaDAO();
+        this.mesaBO = new MesaBO();
+    }
+
+    /**
+     * Obtiene la instancia compartida del índice.
+     *
+     * @return La instancia del índice.
+     */
+    public static DisponibilidadIndex getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Indica si la mesa está libre a la hora dada, es decir, si no tiene
+     * reservas activas que empiecen a menos de 5 horas de ella.
+     *
+     * @param codigoMesa Código de la mesa.
+     * @param fechaHora Fecha y hora deseada.
+     * @return true si la mesa está libre según el índice.
+     * @throws BOException Si no se pudo cargar el índice.
+     */
+    public boolean estaLibre(String codigoMesa, LocalDateTime fechaHora) throws BOException {
+        asegurarCargado();
+        podarSiToca();
+        NavigableMap<LocalDateTime, Integer> horas = ocupacion.get(codigoMesa);
+        return horas == null || horas.subMap(fechaHora.minusHours(HORAS_RESERVA), false,
+                fechaHora.plusHours(HORAS_RESERVA), false).isEmpty();
+    }
+
+    /**
+     * Obtiene las mesas con capacidad para el número de personas dado que
+     * están libres a la hora indicada.
+     *
+     * @param numPersonas Número de personas.
+     * @param fechaHora Fecha y hora deseada.
+     * @return Las mesas libres que admiten ese número de personas.
+     * @throws BOException Si no se pudo cargar el índice.
+     */
+    public List<MesaDTO> mesasLibres(int numPersonas, LocalDateTime fechaHora) throws BOException {
+        asegurarCargado();
+        List<MesaDTO> libres = new ArrayList<>();
+        for (MesaDTO mesa : mesas) {
+            if (numPersonas >= mesa.getCapacidadMinima()
+                    && numPersonas <= mesa.getCapacidadMaxima()
+                    && estaLibre(mesa.getCodigoMesa(), fechaHora)) {
+                libres.add(mesa);
+            }
+        }
+        return libres;
+    }
+
+    /**
+     * Registra una reserva activa en el índice. Si el índice aún no se ha
+     * cargado no hace nada, porque la carga ya la incluirá.
+     *
+     * @param idReserva Id de la reserva.
+     * @param codigoMesa Código de la mesa reservada.
+     * @param fechaHora Fecha y hora de inicio de la reserva.
+     */
+    public synchronized void registrar(Long idReserva, String codigoMesa,
+            LocalDateTime fechaHora) {
+        if (!cargado || idReserva == null || codigoMesa == null || fechaHora == null) {
+            return;
+        }
+        quitar(idReserva);
+        agregar(new OcupacionMesa(idReserva, codigoMesa, fechaHora));
+    }
+
+    /**
+     * Quita una reserva del índice, por ejemplo al cancelarla.
+     *
+     * @param idReserva Id de la reserva.
+     */
+    public synchronized void quitar(Long idReserva) {
+        OcupacionMesa anterior = idReserva != null ? reservas.remove(idReserva) : null;
+        if (anterior == null) {
+            return;
+        }
+        NavigableMap<LocalDateTime, Integer> horas = ocupacion.get(anterior.getCodigoMesa());
+        if (horas != null) {
+            horas.computeIfPresent(anterior.getFechaHoraReserva(),
+                    (hora, cantidad) -> cantidad > 1 ? cantidad - 1 : null);
+        }
+    }
+
+    /**
+     * Indica si el índice ya está cargado, sin cargarlo.
+     *
+     * @return true si el índice está cargado.
+     */
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    /**
+     * Vuelve a leer de la base de datos las reservas activas de una mesa en
+     * el día de la fecha dada (más las horas que ocupa una reserva a cada
+     * lado) y reemplaza con ellas las de ese intervalo en el índice. Se usa
+     * cuando el índice no coincide con la base de datos, por ejemplo por una
+     * reserva hecha desde otra terminal; el resto del índice se conserva. Si
+     * el índice no está cargado no hace nada.
+     *
+     * @param codigoMesa Código de la mesa.
+     * @param fechaHora Fecha y hora que no coincidió.
+     * @throws BOException Si no se pudo consultar la mesa.
+     */
+    public void corregir(String codigoMesa, LocalDateTime fechaHora) throws BOException {
+        if (!cargado || codigoMesa == null || fechaHora == null) {
+            return;
+        }
+        LocalDateTime desde = fechaHora.toLocalDate().atStartOfDay().minusHours(HORAS_RESERVA);
+        LocalDateTime hasta = fechaHora.toLocalDate().plusDays(1).atStartOfDay()
+                .plusHours(HORAS_RESERVA);
+        List<OcupacionMesa> actuales;
+        try {
+            actuales = reservaDAO.obtenerOcupacionMesa(codigoMesa, desde, hasta);
+        } catch (DAOException ex) {
+            LOG.log(Level.SEVERE, "Error al corregir el índice de disponibilidad", ex);
+            throw new BOException("Error al corregir el índice de disponibilidad: "
+                    + ex.getMessage());
+        }
+        synchronized (this) {
+            if (!cargado) {
+                return;
+            }
+            reservas.values().removeIf(reserva -> codigoMesa.equals(reserva.getCodigoMesa())
+                    && reserva.getFechaHoraReserva().isAfter(desde)
+                    && reserva.getFechaHoraReserva().isBefore(hasta));
+            NavigableMap<LocalDateTime, Integer> horas = ocupacion.get(codigoMesa);
+            if (horas != null) {
+                horas.subMap(desde, false, hasta, false).clear();
+            }
+            for (OcupacionMesa reserva : actuales) {
+                agregar(reserva);
+            }
+        }
+        LOG.log(Level.INFO, "Índice de disponibilidad corregido para la mesa {0} el {1}: "
+                + "{2} reservas", new Object[]{codigoMesa, fechaHora.toLocalDate(),
+                    actuales.size()});
+    }
+
+    /**
+     * Quita del índice las reservas que ya no pueden traslaparse con una
+     * nueva, es decir, las que empezaron hace más de las horas que ocupa una
+     * reserva. Corre como mucho una vez por {@link #INTERVALO_PODA_MS}.
+     */
+    private void podarSiToca() {
+        long ahora = System.currentTimeMillis();
+        if (ahora - ultimaPoda < INTERVALO_PODA_MS) {
+            return;
+        }
+        synchronized (this) {
+            if (ahora - ultimaPoda < INTERVALO_PODA_MS) {
+                return;
+            }
+            ultimaPoda = ahora;
+            LocalDateTime limite = LocalDateTime.now().minusHours(HORAS_RESERVA);
+            int antes = reservas.size();
+            reservas.values().removeIf(reserva -> !reserva.getFechaHoraReserva().isAfter(limite));
+            for (NavigableMap<LocalDateTime, Integer> horas : ocupacion.values()) {
+                horas.headMap(limite, true).clear();
+            }
+            if (antes != reservas.size() && LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "Índice de disponibilidad podado: {0} reservas terminadas",
+                        antes - reservas.size());
+            }
+        }
+    }
+
+    /**
+     * Descarta el contenido del índice para que se vuelva a cargar en la
+     * siguiente consulta. Se usa cuando cambian las mesas.
+     */
+    public synchronized void invalidar() {
+        cargado = false;
+        LOG.info("Índice de disponibilidad invalidado");
+    }
+
+    /**
+     * Carga el índice desde la base de datos si aún no está cargado.
+     *
+     * @throws BOException Si no se pudieron consultar las reservas o mesas.
+     */
+    private void asegurarCargado() throws BOException {
+        if (cargado) {
+            return;
+        }
+        synchronized (this) {
+            if (cargado) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            try {
+                List<OcupacionMesa> activas = reservaDAO.obtenerOcupacionActiva(
+                        LocalDateTime.now().minusHours(HORAS_RESERVA));
+                mesas = mesaBO.consultarMesas();
+                ocupacion.clear();
+                reservas.clear();
+                for (OcupacionMesa reserva : activas) {
+                    agregar(reserva);
+                }
+                cargado = true;
+                ultimaPoda = System.currentTimeMillis();
+                LOG.log(Level.INFO, "Índice de disponibilidad cargado: {0} reservas "
+                        + "de {1} mesas en {2} ms", new Object[]{activas.size(),
+                            mesas.size(), (System.nanoTime() - inicio) / 1_000_000});
+            } catch (DAOException ex) {
+                LOG.log(Level.SEVERE, "Error al cargar el índice de disponibilidad", ex);
+                throw new BOException("Error al cargar el índice de disponibilidad: "
+                        + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Agrega una reserva a las estructuras del índice.
+     *
+     * @param reserva Ocupación de la reserva.
+     */
+    private void agregar(OcupacionMesa reserva) {
+        reservas.put(reserva.getIdReserva(), reserva);
+        ocupacion.computeIfAbsent(reserva.getCodigoMesa(),
+                codigo -> new ConcurrentSkipListMap<>())
+                .merge(reserva.getFechaHoraReserva(), 1, Integer::sum);
+    }
+}
@@ -60,6 +60,9 @@ public class MesaBO implements IMesaBO {
             LOG.log(Level.INFO, "Exito al agregar las mesas en BO");
             
             mesaDAO.agregarMesas(entidades);
+
+            // El índice de disponibilidad debe conocer las mesas nuevas
+            DisponibilidadIndex.getInstancia().invalidar();
         }
         catch(DAOException de){
             LOG.log(Level.SEVERE, "Error al agregar las mesas en BO", de);
@@ -83,13 +86,8 @@ public class MesaBO implements IMesaBO {
     @Override
     public List<MesaDTO> consultarMesas() throws BOException {
         try{
-           List<Mesa> entidades = mesaDAO.consultarMesas();
-           List<MesaDTO> dto = new ArrayList<>();
-           
-            for (Mesa mesa : entidades) {
-                dto.add(mesaCVR.toDTO(mesa));
-            }
-            
+           List<MesaDTO> dto = mesaCVR.toDTOs(mesaDAO.consultarMesas());
+
             LOG.log(Level.INFO, "Exito al consultar las mesas en BO");
            
             return dto;
@@ -137,13 +135,8 @@ public class MesaBO implements IMesaBO {
     @Override
     public List<MesaDTO> obtenerMesasPorTipo(String tipo) throws BOException {
         try{
-           List<Mesa> entidades = mesaDAO.obtenerMesasPorTipo(tipo);
-           List<MesaDTO> dto = new ArrayList<>();
-           
-            for (Mesa mesa : entidades) {
-                dto.add(mesaCVR.toDTO(mesa));
-            }
-           
+           List<MesaDTO> dto = mesaCVR.toDTOs(mesaDAO.obtenerMesasPorTipo(tipo));
+
             LOG.log(Level.INFO, "Exito al consultar las mesas por tipo en BO");
             
             return dto;
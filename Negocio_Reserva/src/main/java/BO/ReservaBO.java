@@ -3,20 +3,30 @@ package BO;
 import Convertidores.ClienteCVR;
 import Convertidores.MesaCVR;
 import Convertidores.ReservaCVR;
+import Convertidores.RestauranteCVR;
 import DAO.ReservaDAO;
 import DTOs.*;
 import Entidades.*;
 import Excepciones.BOException;
 import Excepciones.ConversionException;
 import Excepciones.DAOException;
+import Excepciones.ReservaInvalidaException;
+import Filtros.FiltroReserva;
 import Interfaces.IReservaBO;
 import Interfaces.IReservaDAO;
+import Proyecciones.ContextoReserva;
+import Proyecciones.ReservaFila;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Clase Business Object que actúa como intermediario entre la capa DAO y la
@@ -29,10 +39,19 @@ public class ReservaBO implements IReservaBO {
 
     private static final Logger LOG = Logger.getLogger(ReservaBO.class.getName());
 
+    private static final int HORAS_ANTICIPACION = 24;
+    private static final int MESES_MAXIMOS = 1;
+    private static final int HORAS_MARGEN_CIERRE = 1;
+    private static final int TAMANO_MAXIMO_PAGINA = 500;
+
     private final IReservaDAO reservaDAO;
     private final ReservaCVR reservaCVR;
     private final ClienteCVR clienteCVR;
     private final MesaCVR mesaCVR;
+    private final RestauranteCVR restauranteCVR;
+    private final DisponibilidadIndex disponibilidad;
+    private final CacheRestaurante cacheRestaurante;
+    private final CacheReservas cacheReservas;
 
     /**
      * Constructor que inicializa las dependencias necesarias para la gestión de
@@ -43,11 +62,17 @@ public class ReservaBO implements IReservaBO {
         this.reservaCVR = new ReservaCVR();
         this.clienteCVR = new ClienteCVR();
         this.mesaCVR = new MesaCVR();
+        this.restauranteCVR = new RestauranteCVR();
+        this.disponibilidad = DisponibilidadIndex.getInstancia();
+        this.cacheRestaurante = CacheRestaurante.getInstancia();
+        this.cacheReservas = CacheReservas.getInstancia();
     }
 
     /**
      * Agrega una nueva reserva al sistema convirtiendo el DTO en entidad y
-     * delegando la persistencia al DAO.
+     * delegando la persistencia al DAO. Al guardarse, el id generado se
+     * asigna al DTO, la reserva se registra en el índice de disponibilidad y
+     * se avisa a la caché de reservas.
      *
      * @param reserva El objeto {@link ReservaDTO} que contiene los datos de la
      * reserva a agregar. No debe ser {@code null}.
@@ -59,11 +84,182 @@ public class ReservaBO implements IReservaBO {
         try {
             Reserva reservaEntity = reservaCVR.toEntity(reserva);
             reservaDAO.agregarReserva(reservaEntity);
+
+            reserva.setId(String.valueOf(reservaEntity.getId()));
+            disponibilidad.registrar(reservaEntity.getId(),
+                    reservaEntity.getMesa().getCodigoMesa(),
+                    reservaEntity.getFechaHoraReserva());
+            cacheReservas.avisarCambio();
         } catch (DAOException ex) {
             logAndThrowBOException("Error adding reservation", ex);
         }
     }
 
+    /**
+     * Valida y registra una reserva en una sola transacción. Las reglas que no
+     * dependen de la base de datos (número de personas y anticipación) se
+     * revisan primero; las demás (reserva activa del cliente, horario del
+     * restaurante, capacidad y disponibilidad de la mesa) se revisan con los
+     * datos leídos dentro de la misma transacción que guarda la reserva. Si
+     * alguna regla no se cumple no se guarda nada y se informan todos los
+     * errores juntos, uno por línea.
+     *
+     * @param cliente El cliente que realiza la reserva.
+     * @param mesa La mesa que se reserva.
+     * @param fechaHora La fecha y hora de la reserva.
+     * @param numPersonas El número de personas.
+     * @param costo El costo de la reserva.
+     * @return La reserva registrada, con su id.
+     * @throws BOException Si la reserva no es válida o si ocurre un error al
+     * guardarla.
+     */
+    @Override
+    public ReservaDTO reservar(ClienteDTO cliente, MesaDTO mesa,
+            LocalDateTime fechaHora, int numPersonas, double costo) throws BOException {
+        if (cliente == null || mesa == null || fechaHora == null) {
+            throw new BOException("Los datos de la reserva no pueden ser nulos");
+        }
+        List<String> erroresPrevios = validarSinBaseDeDatos(fechaHora, numPersonas);
+
+        try {
+            Reserva reserva = new Reserva();
+            reserva.setFechaHoraReserva(fechaHora);
+            reserva.setNumeroPersonas(numPersonas);
+            reserva.setCosto(costo);
+            reserva.setEstado("ACTIVA");
+            reserva.setCliente(clienteCVR.toEntity(cliente));
+            reserva.setMesa(mesaCVR.toEntity(mesa));
+            // El restaurante en caché evita leerlo de nuevo al validar
+            reserva.setRestaurante(restauranteCVR.toEntity(cacheRestaurante.obtener()));
+
+            reservaDAO.reservar(reserva, contexto -> {
+                List<String> errores = new ArrayList<>(erroresPrevios);
+                errores.addAll(validarConContexto(contexto, fechaHora, numPersonas));
+                return errores;
+            });
+
+            disponibilidad.registrar(reserva.getId(),
+                    reserva.getMesa().getCodigoMesa(), reserva.getFechaHoraReserva());
+            cacheReservas.avisarCambio();
+            return reservaCVR.toDTO(reserva);
+        } catch (ReservaInvalidaException ex) {
+            LOG.log(Level.WARNING, "Reserva rechazada: {0}", ex.getErrores());
+            throw new BOException(ex.getMessage());
+        } catch (DAOException | ConversionException ex) {
+            logAndThrowBOException("Error adding reservation", ex);
+            return null; // Never reached, just to satisfy compiler
+        }
+    }
+
+    /**
+     * Revisa las mismas reglas que {@link #reservar} sin guardar la reserva
+     * ni bloquear la mesa: primero las que no necesitan la base de datos y,
+     * con el restaurante en caché, la reserva activa del cliente y la
+     * disponibilidad de la mesa, leídas con un solo EntityManager. Sirve para
+     * avisar de los errores antes de la confirmación; {@link #reservar} las
+     * vuelve a revisar con la mesa bloqueada.
+     *
+     * @param cliente El cliente que realiza la reserva.
+     * @param mesa La mesa que se reserva.
+     * @param fechaHora La fecha y hora de la reserva.
+     * @param numPersonas El número de personas.
+     * @return Los mensajes de los errores encontrados.
+     * @throws BOException Si faltan datos o si ocurre un error al leerlos.
+     */
+    @Override
+    public List<String> validarReserva(ClienteDTO cliente, MesaDTO mesa,
+            LocalDateTime fechaHora, int numPersonas) throws BOException {
+        if (cliente == null || mesa == null || fechaHora == null) {
+            throw new BOException("Los datos de la reserva no pueden ser nulos");
+        }
+        List<String> errores = validarSinBaseDeDatos(fechaHora, numPersonas);
+        try {
+            Reserva reserva = new Reserva();
+            reserva.setFechaHoraReserva(fechaHora);
+            reserva.setCliente(clienteCVR.toEntity(cliente));
+            reserva.setMesa(mesaCVR.toEntity(mesa));
+            reserva.setRestaurante(restauranteCVR.toEntity(cacheRestaurante.obtener()));
+
+            ContextoReserva contexto = reservaDAO.obtenerContexto(reserva);
+            revisarIndice(mesa, fechaHora, !contexto.isMesaOcupada());
+            errores.addAll(validarConContexto(contexto, fechaHora, numPersonas));
+            return errores;
+        } catch (DAOException | ConversionException ex) {
+            logAndThrowBOException("Error validating reservation", ex);
+            return null; // Never reached, just to satisfy compiler
+        }
+    }
+
+    /**
+     * Revisa las reglas de la reserva que no necesitan la base de datos: el
+     * número de personas y la anticipación (al menos 24 horas y no más de un
+     * mes).
+     *
+     * @param fechaHora La fecha y hora de la reserva.
+     * @param numPersonas El número de personas.
+     * @return Los mensajes de los errores encontrados.
+     */
+    private List<String> validarSinBaseDeDatos(LocalDateTime fechaHora, int numPersonas) {
+        List<String> errores = new ArrayList<>();
+        if (numPersonas <= 0) {
+            errores.add("El número de personas debe ser positivo");
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        if (fechaHora.isBefore(ahora.plusHours(HORAS_ANTICIPACION))) {
+            errores.add("Las reservaciones requieren " + HORAS_ANTICIPACION
+                    + " horas de anticipación");
+        }
+        if (fechaHora.isAfter(ahora.plusMonths(MESES_MAXIMOS))) {
+            errores.add("No se permiten reservaciones con más de " + MESES_MAXIMOS
+                    + " mes de anticipación");
+        }
+        return errores;
+    }
+
+    /**
+     * Revisa las reglas de la reserva con los datos leídos en la transacción:
+     * reserva activa del cliente, horario del restaurante, capacidad y
+     * disponibilidad de la mesa.
+     *
+     * @param contexto Datos leídos de la base de datos.
+     * @param fechaHora La fecha y hora de la reserva.
+     * @param numPersonas El número de personas.
+     * @return Los mensajes de los errores encontrados.
+     */
+    private List<String> validarConContexto(ContextoReserva contexto,
+            LocalDateTime fechaHora, int numPersonas) {
+        List<String> errores = new ArrayList<>();
+        if (contexto.isClienteConReservaActiva()) {
+            errores.add("El cliente ya tiene una reservación activa");
+        }
+
+        Restaurante restaurante = contexto.getRestaurante();
+        LocalTime hora = fechaHora.toLocalTime();
+        if (hora.isAfter(restaurante.getHoraCierre().minusHours(HORAS_MARGEN_CIERRE))) {
+            errores.add("La última reservación debe ser " + HORAS_MARGEN_CIERRE
+                    + " hora antes del cierre (" + restaurante.getHoraCierre() + ")");
+        }
+        if (hora.isBefore(restaurante.getHoraApertura())) {
+            errores.add("No se aceptan reservaciones antes de abrir ("
+                    + restaurante.getHoraApertura() + ")");
+        }
+
+        Mesa mesa = contexto.getMesa();
+        if (numPersonas > 0 && numPersonas < mesa.getCapacidadMinima()) {
+            errores.add(String.format("El número de personas (%d) es menor que el "
+                    + "mínimo para la mesa (%d)", numPersonas, mesa.getCapacidadMinima()));
+        }
+        if (numPersonas > mesa.getCapacidadMaxima()) {
+            errores.add(String.format("El número de personas (%d) excede la "
+                    + "capacidad de la mesa (%d)", numPersonas, mesa.getCapacidadMaxima()));
+        }
+        if (contexto.isMesaOcupada()) {
+            errores.add(String.format("Mesa %s no disponible para la fecha y hora "
+                    + "seleccionada", mesa.getCodigoMesa()));
+        }
+        return errores;
+    }
+
     /**
      * Consulta las reservas dentro de un rango de fechas específico.
      *
@@ -79,9 +275,7 @@ public class ReservaBO implements IReservaBO {
     public List<ReservaDTO> consultarPorFecha(LocalDateTime inicio,
             LocalDateTime fin) throws BOException {
         try {
-            return reservaDAO.consultarPorFecha(inicio, fin).stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return reservaCVR.toDTOs(reservaDAO.consultarPorFecha(inicio, fin));
         } catch (DAOException ex) {
             logAndThrowBOException("Error querying reservations by date", ex);
             return null; // Never reached, just to satisfy compiler
@@ -89,7 +283,10 @@ public class ReservaBO implements IReservaBO {
     }
 
     /**
-     * Verifica la disponibilidad de una mesa en una fecha específica.
+     * Verifica la disponibilidad de una mesa en una fecha específica contra
+     * la base de datos. Si el resultado no coincide con el índice de
+     * disponibilidad (por ejemplo, por una reserva hecha o cancelada desde
+     * otra terminal), el índice se invalida para que se vuelva a cargar.
      *
      * @param mesa El objeto {@link MesaDTO} que representa la mesa a verificar.
      * No debe ser {@code null}.
@@ -104,13 +301,71 @@ public class ReservaBO implements IReservaBO {
     public boolean verificarPorDia(MesaDTO mesa, LocalDateTime dia) throws BOException {
         try {
             Mesa mesaEntidad = mesaCVR.toEntity(mesa);
-            return reservaDAO.verificarPorDia(mesaEntidad, dia);
+            boolean libre = reservaDAO.verificarPorDia(mesaEntidad, dia);
+            revisarIndice(mesa, dia, libre);
+            return libre;
         } catch (DAOException | ConversionException ex) {
             logAndThrowBOException("Error verifying table availability", ex);
             return false; // Never reached, just to satisfy compiler
         }
     }
 
+    /**
+     * Compara la disponibilidad obtenida de la base de datos con la del
+     * índice en memoria y, si no coinciden, corrige en el índice el día de
+     * esa mesa. Si el índice aún no está cargado no se revisa, para no
+     * cargarlo durante una verificación. Un error al corregir el índice no
+     * afecta la verificación.
+     *
+     * @param mesa La mesa verificada.
+     * @param dia La fecha y hora verificada.
+     * @param libre La disponibilidad según la base de datos.
+     */
+    private void revisarIndice(MesaDTO mesa, LocalDateTime dia, boolean libre) {
+        if (!disponibilidad.estaCargado()) {
+            return;
+        }
+        try {
+            if (disponibilidad.estaLibre(mesa.getCodigoMesa(), dia) != libre) {
+                LOG.log(Level.WARNING, "El índice de disponibilidad no coincide "
+                        + "con la base de datos para la mesa {0}", mesa.getCodigoMesa());
+                disponibilidad.corregir(mesa.getCodigoMesa(), dia);
+            }
+        } catch (BOException ex) {
+            LOG.log(Level.WARNING, "No se pudo revisar el índice de disponibilidad", ex);
+        }
+    }
+
+    /**
+     * Indica, usando el índice en memoria, si una mesa está libre a una fecha
+     * y hora. No consulta la base de datos, por lo que sirve para dar
+     * respuesta inmediata en pantalla; antes de guardar una reserva se debe
+     * confirmar con {@link #verificarPorDia}.
+     *
+     * @param mesa La mesa a consultar.
+     * @param dia La fecha y hora deseada.
+     * @return {@code true} si la mesa está libre según el índice.
+     * @throws BOException Si no se pudo cargar el índice.
+     */
+    @Override
+    public boolean mesaLibre(MesaDTO mesa, LocalDateTime dia) throws BOException {
+        return disponibilidad.estaLibre(mesa.getCodigoMesa(), dia);
+    }
+
+    /**
+     * Obtiene, usando el índice en memoria, las mesas con capacidad para el
+     * número de personas dado que están libres a una fecha y hora.
+     *
+     * @param numPersonas El número de personas.
+     * @param dia La fecha y hora deseada.
+     * @return Las mesas libres que admiten ese número de personas.
+     * @throws BOException Si no se pudo cargar el índice.
+     */
+    @Override
+    public List<MesaDTO> mesasLibres(int numPersonas, LocalDateTime dia) throws BOException {
+        return disponibilidad.mesasLibres(numPersonas, dia);
+    }
+
     /**
      * Busca reservas aplicando filtros específicos como nombre del cliente,
      * teléfono, fecha y tamaño de la mesa.
@@ -144,12 +399,9 @@ public class ReservaBO implements IReservaBO {
             LocalDate fechaFin,
             Integer tamanoMesa) throws BOException {
         try {
-            return reservaDAO.buscarReservasPorFiltros(
+            return reservaCVR.toDTOs(reservaDAO.buscarReservasPorFiltros(
                     nombreCliente, telefonoCliente, fechaReserva,
-                    areaRestaurante, fechaInicio, fechaFin, tamanoMesa)
-                    .stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+                    areaRestaurante, fechaInicio, fechaFin, tamanoMesa));
         } catch (DAOException ex) {
             logAndThrowBOException("Error searching reservations by filters", ex);
             return null; // Never reached, just to satisfy compiler
@@ -188,15 +440,174 @@ public class ReservaBO implements IReservaBO {
     @Override
     public List<ReservaDTO> obtenerReservas() throws BOException {
         try {
-            return reservaDAO.obtenerReservas().stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return reservaCVR.toDTOs(reservaDAO.obtenerReservas());
         } catch (DAOException ex) {
             logAndThrowBOException("Error retrieving all reservations", ex);
             return null; // Never reached, just to satisfy compiler
         }
     }
 
+    /**
+     * Cuenta las reservas registradas, de cualquier estado, sin leerlas.
+     *
+     * @return El número de reservas.
+     * @throws BOException Si ocurre un error en la base de datos.
+     */
+    @Override
+    public long contarReservas() throws BOException {
+        try {
+            return reservaDAO.contarReservas();
+        } catch (DAOException ex) {
+            logAndThrowBOException("Error counting reservations", ex);
+            return 0; // Never reached, just to satisfy compiler
+        }
+    }
+
+    /**
+     * Obtiene las filas para las tablas de reservas. Se leen como proyección,
+     * así que no se construyen ni se convierten las entidades de la reserva,
+     * su cliente, su mesa y su restaurante.
+     *
+     * @return Lista de filas ordenadas por fecha y hora.
+     * @throws BOException Si ocurre un error en la base de datos.
+     */
+    @Override
+    public List<ReservaFilaDTO> obtenerFilasReservas() throws BOException {
+        try {
+            List<ReservaFila> filas = reservaDAO.obtenerFilasReservas();
+            List<ReservaFilaDTO> resultado = new ArrayList<>(filas.size());
+            for (ReservaFila fila : filas) {
+                resultado.add(new ReservaFilaDTO(String.valueOf(fila.getIdReserva()),
+                        fila.getCodigoMesa(), fila.getFechaHoraReserva(),
+                        fila.getTipoMesa(), fila.getUbicacion(),
+                        fila.getNombreCliente()));
+            }
+            return resultado;
+        } catch (DAOException ex) {
+            logAndThrowBOException("Error retrieving reservation rows", ex);
+            return null; // Never reached, just to satisfy compiler
+        }
+    }
+
+    /**
+     * Recorre las reservas de un rango de fechas convirtiendo cada una a DTO
+     * conforme se lee. El consumidor recibe las reservas mientras la consulta
+     * sigue abierta, por lo que debe procesarlas sin guardarlas todas.
+     *
+     * @param inicio Fecha y hora de inicio del rango.
+     * @param fin Fecha y hora de fin del rango.
+     * @param consumidor Recibe cada reserva convertida a DTO.
+     * @return Número de reservas entregadas.
+     * @throws BOException Si el rango no es válido o ocurre un error en la
+     * base de datos.
+     */
+    @Override
+    public long exportarReservas(LocalDateTime inicio, LocalDateTime fin,
+            Consumer<ReservaDTO> consumidor) throws BOException {
+        if (inicio == null || fin == null || consumidor == null) {
+            throw new BOException("El rango de fechas y el consumidor son obligatorios");
+        }
+        if (inicio.isAfter(fin)) {
+            throw new BOException("La fecha de inicio no puede ser posterior a la de fin");
+        }
+        try {
+            return reservaDAO.recorrerReservas(inicio, fin,
+                    reserva -> consumidor.accept(convertToDTO(reserva)));
+        } catch (DAOException ex) {
+            logAndThrowBOException("Error exporting reservations", ex);
+            return 0; // Never reached, just to satisfy compiler
+        }
+    }
+
+    /**
+     * Obtiene una página de reservas en orden de fecha y hora. La página se
+     * pide con el cursor de la página anterior (o ninguno, para empezar por
+     * un extremo) y la dirección; cada página cuesta una consulta corta sobre
+     * el índice (fecha, id), sin importar cuántas reservas haya.
+     *
+     * @param cursor Cursor devuelto en una página previa, o null.
+     * @param direccion Dirección en la que se avanza desde el cursor.
+     * @param tamano Número de reservas por página (de 1 a 500).
+     * @return La página de reservas con sus cursores.
+     * @throws BOException Si el cursor no es válido o si ocurre un error en
+     * la base de datos.
+     */
+    @Override
+    public PaginaDTO<ReservaDTO> obtenerReservasPaginadas(String cursor,
+            DireccionPagina direccion, int tamano) throws BOException {
+        if (tamano < 1 || tamano > TAMANO_MAXIMO_PAGINA) {
+            throw new BOException("El tamaño de página debe estar entre 1 y "
+                    + TAMANO_MAXIMO_PAGINA);
+        }
+        boolean adelante = direccion != DireccionPagina.ANTERIOR;
+        LocalDateTime fecha = null;
+        Long id = null;
+        if (cursor != null) {
+            String[] partes = decodificarCursor(cursor);
+            fecha = LocalDateTime.parse(partes[0]);
+            id = Long.valueOf(partes[1]);
+        }
+
+        try {
+            // Se pide una reserva de más para saber si hay otra página
+            List<Reserva> reservas = reservaDAO.obtenerPaginaReservas(
+                    fecha, id, adelante, tamano + 1);
+            boolean hayMas = reservas.size() > tamano;
+            if (hayMas) {
+                reservas = adelante ? reservas.subList(0, tamano)
+                        : reservas.subList(1, reservas.size());
+            }
+            boolean hayAnterior = adelante ? cursor != null : hayMas;
+            boolean haySiguiente = adelante ? hayMas : cursor != null;
+
+            List<ReservaDTO> elementos = reservaCVR.toDTOs(reservas);
+            return new PaginaDTO<>(elementos,
+                    hayAnterior && !reservas.isEmpty() ? codificarCursor(reservas.get(0)) : null,
+                    haySiguiente && !reservas.isEmpty()
+                    ? codificarCursor(reservas.get(reservas.size() - 1)) : null);
+        } catch (DAOException ex) {
+            logAndThrowBOException("Error retrieving reservations page", ex);
+            return null; // Never reached, just to satisfy compiler
+        }
+    }
+
+    /**
+     * Genera el cursor que apunta a una reserva: su fecha y hora y su id,
+     * codificados en Base64 para que la presentación los trate como opacos.
+     *
+     * @param reserva Reserva a la que apunta el cursor.
+     * @return El cursor.
+     */
+    private String codificarCursor(Reserva reserva) {
+        String llave = reserva.getFechaHoraReserva() + "|" + reserva.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(llave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Obtiene la fecha y hora y el id guardados en un cursor.
+     *
+     * @param cursor Cursor generado por {@link #codificarCursor}.
+     * @return Arreglo con la fecha y hora (ISO) y el id.
+     * @throws BOException Si el cursor no es válido.
+     */
+    private String[] decodificarCursor(String cursor) throws BOException {
+        try {
+            String llave = new String(Base64.getUrlDecoder().decode(cursor),
+                    StandardCharsets.UTF_8);
+            String[] partes = llave.split("\\|");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException(llave);
+            }
+            LocalDateTime.parse(partes[0]);
+            Long.valueOf(partes[1]);
+            return partes;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            LOG.log(Level.WARNING, "Cursor de página inválido: {0}", cursor);
+            throw new BOException("El cursor de la página no es válido");
+        }
+    }
+
     /**
      * Busca reservas que coincidan con un nombre y rango de fechas específicos.
      *
@@ -213,9 +624,7 @@ public class ReservaBO implements IReservaBO {
             LocalDateTime inicio,
             LocalDateTime fin) throws BOException {
         try {
-            return reservaDAO.buscarReservas(nombre, inicio, fin).stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return reservaCVR.toDTOs(reservaDAO.buscarReservas(nombre, inicio, fin));
         } catch (DAOException ex) {
             logAndThrowBOException("Error searching reservations", ex);
             return null; // Never reached, just to satisfy compiler
@@ -223,7 +632,28 @@ public class ReservaBO implements IReservaBO {
     }
 
     /**
-     * Actualiza los datos de una reserva existente.
+     * Busca en la base de datos las reservas que cumplen un filtro, en el
+     * orden y con el límite del filtro, con una sola consulta.
+     *
+     * @param filtro criterios, orden y página de la búsqueda.
+     * @return una lista de objetos ReservaDTO que cumplen con el filtro.
+     * @throws BOException si ocurre un error durante la operación en la base de
+     * datos.
+     */
+    @Override
+    public List<ReservaDTO> buscarReservas(FiltroReserva filtro) throws BOException {
+        try {
+            return reservaCVR.toDTOs(reservaDAO.buscarReservas(filtro));
+        } catch (DAOException ex) {
+            logAndThrowBOException("Error searching reservations by filter", ex);
+            return null; // Never reached, just to satisfy compiler
+        }
+    }
+
+    /**
+     * Actualiza los datos de una reserva existente y refleja el cambio en el
+     * índice de disponibilidad (una reserva cancelada libera la mesa) y en la
+     * caché de reservas.
      *
      * @param reservaDTO el objeto ReservaDTO que contiene los datos
      * actualizados de la reserva.
@@ -235,6 +665,13 @@ public class ReservaBO implements IReservaBO {
         try {
             Reserva reserva = reservaCVR.toEntity(reservaDTO);
             reservaDAO.actualizarReserva(reserva);
+            cacheReservas.avisarCambio();
+
+            disponibilidad.quitar(reserva.getId());
+            if ("ACTIVA".equalsIgnoreCase(reserva.getEstado()) && reserva.getMesa() != null) {
+                disponibilidad.registrar(reserva.getId(),
+                        reserva.getMesa().getCodigoMesa(), reserva.getFechaHoraReserva());
+            }
         } catch (DAOException ex) {
             logAndThrowBOException("Error updating reservation", ex);
         }
@@ -1,11 +1,10 @@
 package BO;
 
-import Convertidores.RestauranteCVR;
+import Conexion.Conexion;
 import DAO.RestauranteDAO;
 import DTOs.RestauranteDTO;
 import Entidades.Restaurante;
 import Excepciones.BOException;
-import Excepciones.ConversionException;
 import Excepciones.DAOException;
 import Interfaces.IRestauranteBO;
 import Interfaces.IRestauranteDAO;
@@ -24,36 +23,28 @@ public class RestauranteBO implements IRestauranteBO {
 
     private static final Logger LOG = Logger.getLogger(RestauranteBO.class.getName());
     private final IRestauranteDAO restauranteDAO;
-    private final RestauranteCVR restauranteCVR;
+    private final CacheRestaurante cache;
 
     /**
      * Constructor por defecto de la clase.
      */
     public RestauranteBO() {
         this.restauranteDAO = new RestauranteDAO();
-        this.restauranteCVR = new RestauranteCVR();
+        this.cache = CacheRestaurante.getInstancia();
     }
 
     /**
-     * Consulta los datos del restaurante.
+     * Consulta los datos del restaurante. Se leen de la caché compartida, que
+     * solo va a la base de datos la primera vez o cuando fue invalidada.
      * 
      * @return RestauranteDTO con los datos del restaurante.
      * @throws BOException Si ocurre un error en la consulta o conversión.
      */
     @Override
     public RestauranteDTO consultar() throws BOException {
-        try {
-            Restaurante restaurante = restauranteDAO.consultar();
-            RestauranteDTO restauranteDTO = restauranteCVR.toDTO(restaurante);
-            LOG.log(Level.INFO, "Consulta exitosa del restaurante");
-            return restauranteDTO;
-        } catch (DAOException de) {
-            LOG.log(Level.SEVERE, "Error en la consulta del restaurante", de);
-            throw new BOException("Error al consultar los datos del restaurante: " + de.getMessage());
-        } catch (ConversionException ce) {
-            LOG.log(Level.SEVERE, "Error en la conversión de datos del restaurante", ce);
-            throw new BOException("Error al procesar los datos del restaurante: " + ce.getMessage());
-        }
+        RestauranteDTO restauranteDTO = cache.obtener();
+        LOG.log(Level.FINE, "Consulta exitosa del restaurante");
+        return restauranteDTO;
     }
 
     /**
@@ -75,6 +66,9 @@ public class RestauranteBO implements IRestauranteBO {
         }
 
         try {
+            // Se lee de la base de datos y no de la caché de EclipseLink, para
+            // no volver a guardar datos viejos si otra terminal lo cambió
+            Conexion.invalidarCache(Restaurante.class);
             Restaurante restaurante = restauranteDAO.consultar();
 
             if (restaurante == null) {
@@ -86,6 +80,7 @@ public class RestauranteBO implements IRestauranteBO {
             restaurante.setHoraCierre(horaCierre);
 
             restauranteDAO.actualizar(restaurante);
+            cache.invalidar();
 
             LOG.log(Level.INFO, "Horario actualizado exitosamente. Apertura: {0}, Cierre: {1}", 
                     new Object[]{horaApertura, horaCierre});
@@ -103,26 +98,21 @@ public class RestauranteBO implements IRestauranteBO {
      * @throws BOException Si ocurre un error al consultar los horarios.
      */
     public boolean estaAbierto(LocalTime hora) throws BOException {
-        try {
-            Restaurante restaurante = restauranteDAO.consultar();
-
-            if (restaurante.getHoraApertura() == null || restaurante.getHoraCierre() == null) {
-                LOG.log(Level.WARNING, "Horarios no establecidos en el restaurante");
-                return false;
-            }
+        RestauranteDTO restaurante = consultar();
 
-            boolean estaAbierto = !hora.isBefore(restaurante.getHoraApertura()) && 
-                                 hora.isBefore(restaurante.getHoraCierre());
+        if (restaurante == null || restaurante.getHoraApertura() == null
+                || restaurante.getHoraCierre() == null) {
+            LOG.log(Level.WARNING, "Horarios no establecidos en el restaurante");
+            return false;
+        }
 
-            LOG.log(Level.INFO, "Consulta de estado del restaurante para hora {0}: {1}", 
-                    new Object[]{hora, estaAbierto ? "Abierto" : "Cerrado"});
+        boolean estaAbierto = !hora.isBefore(restaurante.getHoraApertura()) && 
+                             hora.isBefore(restaurante.getHoraCierre());
 
-            return estaAbierto;
+        LOG.log(Level.INFO, "Consulta de estado del restaurante para hora {0}: {1}", 
+                new Object[]{hora, estaAbierto ? "Abierto" : "Cerrado"});
 
-        } catch (DAOException de) {
-            LOG.log(Level.SEVERE, "Error al consultar los horarios del restaurante", de);
-            throw new BOException("Error al verificar el horario del restaurante: " + de.getMessage());
-        }
+        return estaAbierto;
     }
 
     /**
@@ -133,18 +123,10 @@ public class RestauranteBO implements IRestauranteBO {
      * @throws BOException Si ocurre un error al consultar los horarios.
      */
     public long tiempoHastaCierre(LocalTime horaActual) throws BOException {
-        try {
-            Restaurante restaurante = restauranteDAO.consultar();
-
-            if (!estaAbierto(horaActual)) {
-                return -1;
-            }
-
-            return java.time.Duration.between(horaActual, restaurante.getHoraCierre()).toMinutes();
-
-        } catch (DAOException de) {
-            LOG.log(Level.SEVERE, "Error al calcular el tiempo hasta el cierre", de);
-            throw new BOException("Error al calcular el tiempo hasta el cierre: " + de.getMessage());
+        if (!estaAbierto(horaActual)) {
+            return -1;
         }
+        RestauranteDTO restaurante = consultar();
+        return java.time.Duration.between(horaActual, restaurante.getHoraCierre()).toMinutes();
     }
 }
@@ -1,8 +1,13 @@
 package Convertidores;
 
+import DAO.ClienteDAO;
 import DTOs.ClienteDTO;
 import Entidades.Cliente;
 import Excepciones.ConversionException;
+import Excepciones.DAOException;
+import Interfaces.IClienteDAO;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,10 +21,23 @@ public class ClienteCVR {
     private static final Logger LOG = Logger.getLogger(ClienteCVR.class.getName());
     private static final String ERROR_CONVERSION = "Error en la conversión";
 
+    // Descifra bajo demanda los teléfonos que llegan cifrados
+    private final IClienteDAO clienteDAO;
+
     /**
      * Constructor por defecto.
      */
     public ClienteCVR() {
+        this(new ClienteDAO());
+    }
+
+    /**
+     * Constructor que recibe el DAO con el que se descifran los teléfonos.
+     *
+     * @param clienteDAO DAO de clientes.
+     */
+    public ClienteCVR(IClienteDAO clienteDAO) {
+        this.clienteDAO = clienteDAO;
     }
 
     /**
@@ -39,9 +57,17 @@ public class ClienteCVR {
             Cliente cliente = new Cliente();
             cliente.setId(Long.valueOf(clienteDTO.getId()));
             cliente.setNombre(clienteDTO.getNombre());
-            cliente.setTelefono(clienteDTO.getTelefono());
+            // Si el teléfono sigue cifrado se pasa tal cual, sin descifrarlo.
+            // El indice ciego no viaja en el DTO; la columna no se actualiza
+            // con merge (Cliente.telefonoIdx), así que se conserva
+            if (clienteDTO.getTelefonoCifrado() != null) {
+                cliente.setTelefono(clienteDTO.getTelefonoCifrado());
+                cliente.setTelefonoCifrado(true);
+            } else {
+                cliente.setTelefono(clienteDTO.getTelefono());
+            }
 
-            LOG.log(Level.INFO, "Conversión exitosa de ClienteDTO a Cliente");
+            LOG.log(Level.FINE, "Conversión exitosa de ClienteDTO a Cliente");
             return cliente;
         } catch (Exception ex) {
             LOG.log(Level.SEVERE, ERROR_CONVERSION + " a Cliente", ex);
@@ -58,6 +84,40 @@ public class ClienteCVR {
      * @throws ConversionException Si ocurre un error durante la conversión.
      */
     public ClienteDTO toDTO(Cliente cliente) throws ConversionException {
+        return convertir(cliente);
+    }
+
+    /**
+     * Convierte un cliente a DTO dentro de un contexto de conversión; si ya
+     * se convirtió en el mismo contexto se devuelve el mismo DTO, de modo que
+     * las reservas de un cliente comparten un solo ClienteDTO.
+     *
+     * @param cliente Cliente a convertir.
+     * @param contexto Contexto de la conversión, o null para no compartir.
+     * @return ClienteDTO del cliente.
+     * @throws ConversionException Si ocurre un error durante la conversión.
+     */
+    public ClienteDTO toDTO(Cliente cliente, ContextoConversion contexto)
+            throws ConversionException {
+        if (contexto == null || cliente == null || cliente.getId() == null) {
+            return convertir(cliente);
+        }
+        ClienteDTO clienteDTO = contexto.buscar(ClienteDTO.class, cliente.getId());
+        if (clienteDTO == null) {
+            clienteDTO = convertir(cliente);
+            contexto.guardar(ClienteDTO.class, cliente.getId(), clienteDTO);
+        }
+        return clienteDTO;
+    }
+
+    /**
+     * Convierte los atributos de un cliente a un ClienteDTO nuevo.
+     *
+     * @param cliente Cliente a convertir.
+     * @return ClienteDTO convertido o null si el cliente es null.
+     * @throws ConversionException Si ocurre un error durante la conversión.
+     */
+    private ClienteDTO convertir(Cliente cliente) throws ConversionException {
         if (cliente == null) {
             return null;
         }
@@ -66,13 +126,56 @@ public class ClienteCVR {
             ClienteDTO clienteDTO = new ClienteDTO();
             clienteDTO.setId(String.valueOf(cliente.getId()));
             clienteDTO.setNombre(cliente.getNombre() != null ? cliente.getNombre() : "");
-            clienteDTO.setTelefono(cliente.getTelefono() != null ? cliente.getTelefono() : "");
+            // El teléfono cifrado se descifra hasta que alguien lo consulte
+            if (cliente.isTelefonoCifrado() && cliente.getTelefono() != null) {
+                Long id = cliente.getId();
+                String cifrado = cliente.getTelefono();
+                clienteDTO.setTelefonoCifrado(cifrado, () -> descifrar(id, cifrado));
+            } else {
+                clienteDTO.setTelefono(cliente.getTelefono() != null ? cliente.getTelefono() : "");
+            }
 
-            LOG.log(Level.INFO, "Conversión exitosa de Cliente a ClienteDTO");
+            LOG.log(Level.FINE, "Conversión exitosa de Cliente a ClienteDTO");
             return clienteDTO;
         } catch (Exception ex) {
             LOG.log(Level.SEVERE, ERROR_CONVERSION + " a ClienteDTO", ex);
             throw new ConversionException(ERROR_CONVERSION + " a ClienteDTO: " + ex.getMessage(), ex);
         }
     }
+
+    /**
+     * Descifra el teléfono de un cliente con el DAO de clientes.
+     *
+     * @param id Id del cliente, para el mensaje de error.
+     * @param cifrado Teléfono cifrado.
+     * @return El teléfono en texto plano.
+     * @throws IllegalStateException Si el teléfono no se puede descifrar.
+     */
+    private String descifrar(Long id, String cifrado) {
+        try {
+            return clienteDAO.descifrarTelefono(cifrado);
+        } catch (DAOException e) {
+            LOG.log(Level.WARNING, "No se pudo descifrar el teléfono del cliente {0}", id);
+            throw new IllegalStateException("No se pudo descifrar el teléfono del cliente "
+                    + id, e);
+        }
+    }
+
+    /**
+     * Convierte una lista de clientes a DTO en una sola llamada.
+     *
+     * @param clientes Clientes a convertir.
+     * @return Lista de ClienteDTO en el mismo orden.
+     * @throws ConversionException Si falla la conversión de algún cliente.
+     */
+    public List<ClienteDTO> toDTOs(List<Cliente> clientes) throws ConversionException {
+        List<ClienteDTO> clientesDTO = new ArrayList<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            clientesDTO.add(toDTO(cliente));
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "{0} clientes convertidos a DTO", clientesDTO.size());
+        }
+        return clientesDTO;
+    }
 }
@@ -0,0 +1,64 @@
+package Convertidores;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contexto de una conversión de entidades a DTO. Guarda cada DTO creado por
+ * tipo e id de la entidad, de modo que dentro de una misma llamada cada
+ * cliente, mesa y restaurante se convierte una sola vez y todas las reservas
+ * que lo referencian comparten el mismo DTO.
+ *
+ * Un contexto vive lo que dura la conversión de una lista (o de un recorrido
+ * como la exportación) y no se comparte entre hilos. Las entidades sin id
+ * (aún no guardadas) no se registran.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public final class ContextoConversion {
+
+    // DTOs creados, por tipo de DTO y por id de la entidad
+    private final Map<Class<?>, Map<Long, Object>> convertidos = new HashMap<>();
+
+    /**
+     * Crea un contexto vacío.
+     */
+    public ContextoConversion() {
+    }
+
+    /**
+     * Busca el DTO ya creado para una entidad.
+     *
+     * @param <D> Tipo del DTO.
+     * @param tipo Clase del DTO.
+     * @param id Id de la entidad.
+     * @return El DTO creado antes en este contexto, o null si no hay.
+     */
+    <D> D buscar(Class<D> tipo, Long id) {
+        Map<Long, Object> porId = convertidos.get(tipo);
+        return porId != null ? tipo.cast(porId.get(id)) : null;
+    }
+
+    /**
+     * Registra el DTO creado para una entidad.
+     *
+     * @param <D> Tipo del DTO.
+     * @param tipo Clase del DTO.
+     * @param id Id de la entidad.
+     * @param dto DTO creado.
+     */
+    <D> void guardar(Class<D> tipo, Long id, D dto) {
+        convertidos.computeIfAbsent(tipo, t -> new HashMap<>()).put(id, dto);
+    }
+
+    /**
+     * Obtiene cuántos DTOs distintos de un tipo hay en el contexto.
+     *
+     * @param tipo Clase del DTO.
+     * @return Número de DTOs registrados de ese tipo.
+     */
+    public int contar(Class<?> tipo) {
+        Map<Long, Object> porId = convertidos.get(tipo);
+        return porId != null ? porId.size() : 0;
+    }
+}
@@ -7,6 +7,8 @@ package Convertidores;
 import DTOs.MesaDTO;
 import Entidades.Mesa;
 import Excepciones.ConversionException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -70,7 +72,7 @@ public class MesaCVR {
 //            mesa.setReservas(reservas);
 //        }
         
-        LOG.log(Level.INFO, "Exito en la conversion de DTO a Entidad");
+        LOG.log(Level.FINE, "Exito en la conversion de DTO a Entidad");
         
         return mesa;
         
@@ -90,6 +92,62 @@ public class MesaCVR {
      * @throws Excepciones.ConversionException
      */
     public MesaDTO toDTO(Mesa mesa) throws ConversionException {
+        return convertir(mesa, null);
+    }
+
+    /**
+     * Convierte una lista de mesas a DTO. Las mesas del mismo restaurante
+     * comparten un solo RestauranteDTO en lugar de una copia por mesa.
+     *
+     * @param mesas Mesas a convertir.
+     * @return Lista de MesaDTO en el mismo orden.
+     * @throws Excepciones.ConversionException
+     */
+    public List<MesaDTO> toDTOs(List<Mesa> mesas) throws ConversionException {
+        ContextoConversion contexto = new ContextoConversion();
+        List<MesaDTO> mesasDTO = new ArrayList<>(mesas.size());
+        for (Mesa mesa : mesas) {
+            mesasDTO.add(convertir(mesa, contexto));
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "{0} mesas convertidas a DTO", mesasDTO.size());
+        }
+        return mesasDTO;
+    }
+
+    /**
+     * Convierte una mesa a DTO dentro de un contexto de conversión; si ya se
+     * convirtió en el mismo contexto se devuelve el mismo DTO.
+     *
+     * @param mesa Mesa a convertir.
+     * @param contexto Contexto de la conversión, o null para no compartir.
+     * @return MesaDTO de la mesa.
+     * @throws Excepciones.ConversionException
+     */
+    public MesaDTO toDTO(Mesa mesa, ContextoConversion contexto)
+            throws ConversionException {
+        if (contexto == null || mesa == null || mesa.getId() == null) {
+            return convertir(mesa, contexto);
+        }
+        MesaDTO mesaDTO = contexto.buscar(MesaDTO.class, mesa.getId());
+        if (mesaDTO == null) {
+            mesaDTO = convertir(mesa, contexto);
+            contexto.guardar(MesaDTO.class, mesa.getId(), mesaDTO);
+        }
+        return mesaDTO;
+    }
+
+    /**
+     * Convierte los atributos de una mesa a un MesaDTO nuevo; su restaurante
+     * se toma del contexto.
+     *
+     * @param mesa Mesa a convertir.
+     * @param contexto Contexto de la conversión, o null.
+     * @return MesaDTO convertida.
+     * @throws Excepciones.ConversionException
+     */
+    private MesaDTO convertir(Mesa mesa, ContextoConversion contexto)
+            throws ConversionException {
         try{
         
         if (mesa == null) {
@@ -106,7 +164,7 @@ public class MesaCVR {
 
         // Convierte el restaurante utilizando el convertidor
         if (mesa.getRestaurante() != null) {
-            mesaDTO.setRestaurante(restauranteCVR.toDTO(mesa.getRestaurante()));
+            mesaDTO.setRestaurante(restauranteCVR.toDTO(mesa.getRestaurante(), contexto));
         }
 
 //        // Convierte la lista de reservas usando el convertidor
@@ -118,7 +176,7 @@ public class MesaCVR {
 //            mesaDTO.setReservas(reservasDTO);
 //        }
 
-        LOG.log(Level.INFO, "Exito en la conversion de Cliente a DTO");
+        LOG.log(Level.FINE, "Exito en la conversion de Mesa a DTO");
         
         return mesaDTO;
         
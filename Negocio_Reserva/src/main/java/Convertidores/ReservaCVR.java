@@ -4,9 +4,14 @@
  */
 package Convertidores;
 
+import DTOs.ClienteDTO;
+import DTOs.MesaDTO;
 import DTOs.ReservaDTO;
+import DTOs.RestauranteDTO;
 import Entidades.Reserva;
 import Excepciones.ConversionException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -73,7 +78,7 @@ public class ReservaCVR {
                     toEntity(reservaDTO.getRestaurante()));
         }
 
-        LOG.log(Level.INFO, "Exito en la conversion de DTO a Entidad Reserva");
+        LOG.log(Level.FINE, "Exito en la conversion de DTO a Entidad Reserva");
         
         return reserva;
         
@@ -93,6 +98,44 @@ public class ReservaCVR {
      * @return Reserva convertida en DTO.
      */
     public ReservaDTO toDTO(Reserva reserva) {
+        return toDTO(reserva, null);
+    }
+
+    /**
+     * Convierte una lista de reservas a DTO con un solo contexto de
+     * conversión: cada cliente, mesa y restaurante se convierte una vez y su
+     * DTO se comparte entre todas las reservas que lo referencian. Una
+     * reserva que no se puede convertir queda como null, igual que con
+     * {@link #toDTO(Reserva)}.
+     *
+     * @param reservas Reservas a convertir.
+     * @return Lista de ReservaDTO en el mismo orden.
+     */
+    public List<ReservaDTO> toDTOs(List<Reserva> reservas) {
+        ContextoConversion contexto = new ContextoConversion();
+        List<ReservaDTO> reservasDTO = new ArrayList<>(reservas.size());
+        for (Reserva reserva : reservas) {
+            reservasDTO.add(toDTO(reserva, contexto));
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "{0} reservas convertidas a DTO con {1} clientes, "
+                    + "{2} mesas y {3} restaurantes", new Object[]{reservasDTO.size(),
+                        contexto.contar(ClienteDTO.class), contexto.contar(MesaDTO.class),
+                        contexto.contar(RestauranteDTO.class)});
+        }
+        return reservasDTO;
+    }
+
+    /**
+     * Convierte una reserva a DTO tomando su cliente, mesa y restaurante del
+     * contexto de conversión. Las reservas no se registran en el contexto:
+     * cada una aparece una sola vez en una lista.
+     *
+     * @param reserva Reserva a convertir.
+     * @param contexto Contexto de la conversión, o null para no compartir.
+     * @return Reserva convertida en DTO, o null si no se pudo convertir.
+     */
+    public ReservaDTO toDTO(Reserva reserva, ContextoConversion contexto) {
        try{
         
         if (reserva == null) {
@@ -108,21 +151,21 @@ public class ReservaCVR {
 
         // Conversión de cliente
         if (reserva.getCliente() != null) {
-            reservaDTO.setCliente(clienteCVR.toDTO(reserva.getCliente()));
+            reservaDTO.setCliente(clienteCVR.toDTO(reserva.getCliente(), contexto));
         }
 
         // Conversión de mesa
         if (reserva.getMesa() != null) {
-            reservaDTO.setMesa(mesaCVR.toDTO(reserva.getMesa()));
+            reservaDTO.setMesa(mesaCVR.toDTO(reserva.getMesa(), contexto));
         }
 
         // Conversión de restaurante
         if (reserva.getRestaurante() != null) {
             reservaDTO.setRestaurante(restauranteCVR.
-                    toDTO(reserva.getRestaurante()));
+                    toDTO(reserva.getRestaurante(), contexto));
         }
 
-        LOG.log(Level.INFO, "Exito en la conversion de Entidad Reserva a DTO");
+        LOG.log(Level.FINE, "Exito en la conversion de Entidad Reserva a DTO");
         
         return reservaDTO;
         
@@ -52,7 +52,7 @@ public class RestauranteCVR {
             restaurante.setHoraApertura(restauranteDTO.getHoraApertura());
             restaurante.setHoraCierre(restauranteDTO.getHoraCierre());
 
-            LOG.log(Level.INFO, "Exito en la conversion de DTO a Entidad "
+            LOG.log(Level.FINE, "Exito en la conversion de DTO a Entidad "
                     + "Restaurante");
 
             return restaurante;
@@ -74,6 +74,41 @@ public class RestauranteCVR {
      * @throws Excepciones.ConversionException
      */
     public RestauranteDTO toDTO(Restaurante restaurante) throws ConversionException {
+        return convertir(restaurante);
+    }
+
+    /**
+     * Convierte un restaurante a DTO dentro de un contexto de conversión; si
+     * ya se convirtió en el mismo contexto se devuelve el mismo DTO.
+     *
+     * @param restaurante Restaurante a convertir.
+     * @param contexto Contexto de la conversión, o null para no compartir.
+     * @return RestauranteDTO del restaurante.
+     * @throws Excepciones.ConversionException
+     */
+    public RestauranteDTO toDTO(Restaurante restaurante,
+            ContextoConversion contexto) throws ConversionException {
+        if (contexto == null || restaurante == null || restaurante.getId() == null) {
+            return convertir(restaurante);
+        }
+        RestauranteDTO restauranteDTO = contexto.buscar(RestauranteDTO.class,
+                restaurante.getId());
+        if (restauranteDTO == null) {
+            restauranteDTO = convertir(restaurante);
+            contexto.guardar(RestauranteDTO.class, restaurante.getId(), restauranteDTO);
+        }
+        return restauranteDTO;
+    }
+
+    /**
+     * Convierte los atributos de un restaurante a un RestauranteDTO nuevo.
+     *
+     * @param restaurante Restaurante a convertir.
+     * @return RestauranteDTO convertido.
+     * @throws Excepciones.ConversionException
+     */
+    private RestauranteDTO convertir(Restaurante restaurante)
+            throws ConversionException {
         try {
 
             if (restaurante == null) {
@@ -88,7 +123,7 @@ public class RestauranteCVR {
             restauranteDTO.setHoraApertura(restaurante.getHoraApertura());
             restauranteDTO.setHoraCierre(restaurante.getHoraCierre());
 
-            LOG.log(Level.INFO, "Exito en la conversion de Entidad Restaurante "
+            LOG.log(Level.FINE, "Exito en la conversion de Entidad Restaurante "
                     + "a DTO");
 
             return restauranteDTO;
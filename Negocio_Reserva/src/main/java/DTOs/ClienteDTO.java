@@ -2,6 +2,7 @@ package DTOs;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Objeto de transferencia de datos para el cliente.
@@ -12,6 +13,13 @@ import java.util.List;
  * 
  * Este DTO se utiliza en escenarios donde se necesita encapsular y transportar 
  * los datos del cliente sin exponer la entidad de la base de datos directamente.
+ * 
+ * Cuando el cliente proviene de la base de datos con el teléfono cifrado, el 
+ * DTO conserva el texto cifrado y la función que lo descifra (la da el 
+ * convertidor, que la toma de la capa de datos); el teléfono se descifra la 
+ * primera vez que se llama a {@link #getTelefono()} y el resultado se 
+ * conserva. El mismo DTO se comparte entre hilos, así que el descifrado 
+ * ocurre una sola vez aunque varios lo pidan al mismo tiempo.
  *
  * @author Sebastian Murrieta Verduzco - 233463
  */
@@ -24,7 +32,13 @@ public class ClienteDTO {
     private String nombre;
 
     // Teléfono de contacto del cliente.
-    private String telefono;
+    private volatile String telefono;
+
+    // Teléfono cifrado pendiente de descifrar (null si ya se descifró).
+    private volatile String telefonoCifrado;
+
+    // Descifra telefonoCifrado; null si no hay nada pendiente.
+    private volatile Supplier<String> descifrador;
 
     // Lista de reservas asociadas al cliente.
     private List<ReservaDTO> reservas;
@@ -112,11 +126,26 @@ public class ClienteDTO {
     }
 
     /**
-     * Obtiene el teléfono de contacto del cliente.
+     * Obtiene el teléfono de contacto del cliente. Si el teléfono llegó 
+     * cifrado, se descifra en este momento y el resultado se conserva para 
+     * las siguientes llamadas.
      * 
      * @return El teléfono de contacto del cliente.
+     * @throws IllegalStateException Si el teléfono no se puede descifrar; el
+     *         teléfono sigue pendiente y se intenta de nuevo en la siguiente
+     *         llamada.
      */
     public String getTelefono() {
+        if (descifrador != null) {
+            synchronized (this) {
+                Supplier<String> pendiente = descifrador;
+                if (pendiente != null) {
+                    telefono = pendiente.get();
+                    telefonoCifrado = null;
+                    descifrador = null;
+                }
+            }
+        }
         return telefono;
     }
 
@@ -125,18 +154,45 @@ public class ClienteDTO {
      * 
      * @param telefono El teléfono de contacto del cliente.
      */
-    public void setTelefono(String telefono) {
+    public synchronized void setTelefono(String telefono) {
         this.telefono = telefono;
+        this.telefonoCifrado = null;
+        this.descifrador = null;
+    }
+
+    /**
+     * Obtiene el teléfono cifrado que aún no se ha descifrado.
+     * 
+     * @return El teléfono cifrado, o {@code null} si no hay o ya se descifró.
+     */
+    public String getTelefonoCifrado() {
+        return telefonoCifrado;
+    }
+
+    /**
+     * Establece el teléfono cifrado del cliente, que se descifrará hasta que
+     * se consulte con {@link #getTelefono()}.
+     * 
+     * @param telefonoCifrado El teléfono cifrado del cliente.
+     * @param descifrador Función que devuelve el teléfono descifrado o lanza
+     *        una excepción no verificada si no se puede descifrar.
+     */
+    public synchronized void setTelefonoCifrado(String telefonoCifrado,
+            Supplier<String> descifrador) {
+        this.telefono = null;
+        this.telefonoCifrado = telefonoCifrado;
+        this.descifrador = descifrador;
     }
 
     /**
      * Devuelve una representación en cadena de los datos básicos del cliente.
+     * No descifra el teléfono: si sigue cifrado no se incluye.
      * 
      * @return Una cadena con el nombre y teléfono del cliente.
      */
     @Override
     public String toString() {
-        return nombre + ", " + telefono;
+        return nombre + ", " + (descifrador != null ? "(teléfono cifrado)" : telefono);
     }
 }
 
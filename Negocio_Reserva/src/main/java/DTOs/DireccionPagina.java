@@ -0,0 +1,19 @@
+package DTOs;
+
+/**
+ * Dirección en la que se recorre un listado paginado a partir de un cursor.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public enum DireccionPagina {
+
+    /**
+     * Los elementos posteriores al cursor; sin cursor, la primera página.
+     */
+    SIGUIENTE,
+
+    /**
+     * Los elementos anteriores al cursor; sin cursor, la última página.
+     */
+    ANTERIOR
+}
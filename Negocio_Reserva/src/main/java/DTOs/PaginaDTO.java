@@ -0,0 +1,97 @@
+package DTOs;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Objeto de transferencia de datos para una página de un listado.
+ *
+ * Además de los elementos, lleva los cursores para pedir la página anterior y
+ * la siguiente. Los cursores son cadenas opacas: la capa de presentación solo
+ * las guarda y las devuelve tal cual junto con la {@link DireccionPagina}.
+ *
+ * @param <T> Tipo de los elementos de la página.
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class PaginaDTO<T> {
+
+    // Elementos de la pagina, en orden.
+    private final List<T> elementos;
+
+    // Cursor para pedir la pagina anterior, null si no hay.
+    private final String cursorAnterior;
+
+    // Cursor para pedir la pagina siguiente, null si no hay.
+    private final String cursorSiguiente;
+
+    /**
+     * Constructor con todos los datos de la página.
+     *
+     * @param elementos Elementos de la página.
+     * @param cursorAnterior Cursor de la página anterior, o null si no hay.
+     * @param cursorSiguiente Cursor de la página siguiente, o null si no hay.
+     */
+    public PaginaDTO(List<T> elementos, String cursorAnterior,
+            String cursorSiguiente) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.cursorAnterior = cursorAnterior;
+        this.cursorSiguiente = cursorSiguiente;
+    }
+
+    /**
+     * Obtiene los elementos de la página.
+     *
+     * @return Lista de solo lectura con los elementos.
+     */
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * Obtiene el cursor para pedir la página anterior.
+     *
+     * @return El cursor, o null si esta es la primera página.
+     */
+    public String getCursorAnterior() {
+        return cursorAnterior;
+    }
+
+    /**
+     * Obtiene el cursor para pedir la página siguiente.
+     *
+     * @return El cursor, o null si esta es la última página.
+     */
+    public String getCursorSiguiente() {
+        return cursorSiguiente;
+    }
+
+    /**
+     * Indica si hay una página anterior.
+     *
+     * @return true si hay una página anterior.
+     */
+    public boolean hayAnterior() {
+        return cursorAnterior != null;
+    }
+
+    /**
+     * Indica si hay una página siguiente.
+     *
+     * @return true si hay una página siguiente.
+     */
+    public boolean haySiguiente() {
+        return cursorSiguiente != null;
+    }
+
+    /**
+     * Metodo toString para representar la página en línea de texto.
+     *
+     * @return String con el tamaño de la página y sus cursores.
+     */
+    @Override
+    public String toString() {
+        return "PaginaDTO{" + "elementos=" + elementos.size()
+                + ", cursorAnterior=" + cursorAnterior
+                + ", cursorSiguiente=" + cursorSiguiente + '}';
+    }
+}
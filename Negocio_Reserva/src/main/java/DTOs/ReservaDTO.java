@@ -99,6 +99,24 @@ public class ReservaDTO {
         this.restaurante = restaurante;
     }
 
+    /**
+     * Crea una copia de otra reserva, para cambiar algún campo sin modificar
+     * el original, que puede estar compartido con la caché de reservas. El
+     * cliente, la mesa y el restaurante no se copian.
+     *
+     * @param otra Reserva a copiar.
+     */
+    public ReservaDTO(ReservaDTO otra) {
+        this.id = otra.id;
+        this.fechaHoraReserva = otra.fechaHoraReserva;
+        this.numeroPersonas = otra.numeroPersonas;
+        this.costo = otra.costo;
+        this.estado = otra.estado;
+        this.cliente = otra.cliente;
+        this.mesa = otra.mesa;
+        this.restaurante = otra.restaurante;
+    }
+
     // Getters y Setters
     /**
      * Obtiene el ID de la reserva.
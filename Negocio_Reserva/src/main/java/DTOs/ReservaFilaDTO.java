@@ -0,0 +1,138 @@
+package DTOs;
+
+import java.time.LocalDateTime;
+
+/**
+ * Objeto de transferencia de datos con una fila de las tablas de reservas.
+ *
+ * Lleva solo lo que muestran las pantallas de consulta, historial y reportes
+ * (mesa, fecha y hora, tipo, ubicación y cliente), de modo que llenar una
+ * tabla no requiere cargar ni convertir la reserva completa con su cliente,
+ * mesa y restaurante. Es inmutable.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class ReservaFilaDTO {
+
+    // Identificador de la reserva
+    private final String id;
+
+    // Código de la mesa reservada
+    private final String codigoMesa;
+
+    // Fecha y hora de la reserva
+    private final LocalDateTime fechaHoraReserva;
+
+    // Tipo (tamaño) de la mesa
+    private final String tipoMesa;
+
+    // Ubicación de la mesa
+    private final String ubicacion;
+
+    // Nombre del cliente
+    private final String nombreCliente;
+
+    /**
+     * Constructor con todos los datos de la fila.
+     *
+     * @param id Identificador de la reserva
+     * @param codigoMesa Código de la mesa
+     * @param fechaHoraReserva Fecha y hora de la reserva
+     * @param tipoMesa Tipo de la mesa
+     * @param ubicacion Ubicación de la mesa
+     * @param nombreCliente Nombre del cliente
+     */
+    public ReservaFilaDTO(String id, String codigoMesa,
+            LocalDateTime fechaHoraReserva, String tipoMesa, String ubicacion,
+            String nombreCliente) {
+        this.id = id;
+        this.codigoMesa = codigoMesa;
+        this.fechaHoraReserva = fechaHoraReserva;
+        this.tipoMesa = tipoMesa;
+        this.ubicacion = ubicacion;
+        this.nombreCliente = nombreCliente;
+    }
+
+    /**
+     * Crea la fila de una reserva completa, para mostrar en la misma tabla
+     * los resultados de los filtros que trabajan con {@link ReservaDTO}.
+     *
+     * @param reserva Reserva completa.
+     * @return La fila con los datos de la reserva.
+     */
+    public static ReservaFilaDTO de(ReservaDTO reserva) {
+        return new ReservaFilaDTO(reserva.getId(),
+                reserva.getMesa().getCodigoMesa(),
+                reserva.getFechaHoraReserva(),
+                reserva.getMesa().getTipoMesa(),
+                reserva.getMesa().getUbicacion(),
+                reserva.getCliente().getNombre());
+    }
+
+    /**
+     * Obtiene el identificador de la reserva.
+     *
+     * @return El identificador de la reserva
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene el código de la mesa.
+     *
+     * @return El código de la mesa
+     */
+    public String getCodigoMesa() {
+        return codigoMesa;
+    }
+
+    /**
+     * Obtiene la fecha y hora de la reserva.
+     *
+     * @return La fecha y hora de la reserva
+     */
+    public LocalDateTime getFechaHoraReserva() {
+        return fechaHoraReserva;
+    }
+
+    /**
+     * Obtiene el tipo de la mesa.
+     *
+     * @return El tipo de la mesa
+     */
+    public String getTipoMesa() {
+        return tipoMesa;
+    }
+
+    /**
+     * Obtiene la ubicación de la mesa.
+     *
+     * @return La ubicación de la mesa
+     */
+    public String getUbicacion() {
+        return ubicacion;
+    }
+
+    /**
+     * Obtiene el nombre del cliente.
+     *
+     * @return El nombre del cliente
+     */
+    public String getNombreCliente() {
+        return nombreCliente;
+    }
+
+    /**
+     * Representación en texto de la fila.
+     *
+     * @return Cadena con los datos de la fila
+     */
+    @Override
+    public String toString() {
+        return "ReservaFilaDTO{" + "id=" + id + ", codigoMesa=" + codigoMesa
+                + ", fechaHoraReserva=" + fechaHoraReserva + ", tipoMesa="
+                + tipoMesa + ", ubicacion=" + ubicacion + ", nombreCliente="
+                + nombreCliente + '}';
+    }
+}
@@ -0,0 +1,54 @@
+package Fachada;
+
+import Conexion.Conexion;
+import Excepciones.ConexionException;
+import Excepciones.FacadeException;
+import interfacesFachada.IArranqueFCD;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Clase fachada para las tareas de arranque de la aplicación. Permite a la
+ * presentación calentar la persistencia sin depender de la capa de dominio.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class ArranqueFCD implements IArranqueFCD {
+
+    private static final Logger LOG = Logger.getLogger(ArranqueFCD.class.getName());
+
+    /**
+     * Prepara la capa de persistencia para que la primera pantalla no tenga
+     * que esperar por ella.
+     *
+     * @throws FacadeException si no se pudo preparar la persistencia.
+     */
+    @Override
+    public void prepararPersistencia() throws FacadeException {
+        try {
+            Conexion.warmUp();
+        } catch (ConexionException e) {
+            LOG.log(Level.SEVERE, "Error al preparar la persistencia", e);
+            throw new FacadeException("Error al preparar la persistencia", e);
+        }
+    }
+
+    /**
+     * Lanza la preparación de la persistencia en un hilo en segundo plano.
+     * Si falla, el error queda en el log y la persistencia se inicializará
+     * con la primera consulta, como antes.
+     */
+    @Override
+    public void prepararPersistenciaEnSegundoPlano() {
+        Thread hilo = new Thread(() -> {
+            try {
+                prepararPersistencia();
+            } catch (FacadeException e) {
+                LOG.log(Level.WARNING, "No se pudo preparar la persistencia "
+                        + "al iniciar: {0}", e.getMessage());
+            }
+        }, "calentamiento-persistencia");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+}
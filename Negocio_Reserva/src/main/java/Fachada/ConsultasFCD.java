@@ -1,93 +1,128 @@
 package Fachada;
 
 import DTOs.ReservaDTO;
+import Filtros.FiltroReserva;
 import interfacesFachada.IConsultasFCD;
+import interfacesFachada.IFiltrosFCD;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Clase que implementa el sistema de consultas de reservas.
  * Proporciona métodos para consultar reservas según diferentes criterios
  * como fechas, tipo de mesa y ubicación.
- * 
+ *
  * <p>
- * Esta clase permite realizar consultas sobre una lista simulada de reservas 
- * utilizando flujos (streams) para filtrar los datos de forma eficiente.
+ * Cada consulta se traduce a un {@link FiltroReserva} y se resuelve con
+ * {@link FiltrosFCD}: en memoria sobre la caché de reservas (o en la base de
+ * datos con una sola consulta, si son demasiadas para la memoria), o en
+ * memoria sobre una lista de reservas dada. Los resultados van ordenados por
+ * fecha y hora.
  * </p>
- * 
+ *
  * @author Sebastian Murrieta Verduzco - 233463
  */
 public class ConsultasFCD implements IConsultasFCD {
 
-    private List<ReservaDTO> reservas; // Lista simulada de reservas
+    private final IFiltrosFCD filtros; // Resuelve los filtros de las consultas
 
     /**
-     * Constructor que inicializa la lista de reservas.
-     * 
+     * Constructor por defecto; las consultas se resuelven como los filtros
+     * de {@link FiltrosFCD#crear()}.
+     */
+    public ConsultasFCD() {
+        this.filtros = FiltrosFCD.crear();
+    }
+
+    /**
+     * Constructor que inicializa la lista de reservas. Las consultas se
+     * aplican en memoria solo sobre esa lista.
+     *
      * @param reservas Lista de reservas a utilizar en las consultas.
      */
     public ConsultasFCD(List<ReservaDTO> reservas) {
-        this.reservas = reservas;
+        this.filtros = new FiltrosFCD(reservas);
+    }
+
+    /**
+     * Consulta las reservas que cumplen un filtro, en el orden y con el
+     * límite del filtro.
+     *
+     * @param filtro Criterios, orden y página de la consulta.
+     * @return Lista de reservas que cumplen el filtro.
+     */
+    @Override
+    public List<ReservaDTO> consultar(FiltroReserva filtro) {
+        return filtros.buscarReservas(filtro);
     }
 
     /**
      * Consulta reservas en un rango de fechas especificado.
-     * 
-     * @param fechaInicio La fecha y hora de inicio del rango.
-     * @param fechaFin La fecha y hora de fin del rango.
+     *
+     * @param fechaInicio La fecha y hora de inicio del rango (excluida).
+     * @param fechaFin La fecha y hora de fin del rango (excluida).
      * @return Lista de reservas que se encuentran en el rango de fechas especificado.
      */
     @Override
     public List<ReservaDTO> consultarReservasPorFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        return reservas.stream()
-                .filter(reserva -> reserva.getFechaHoraReserva().isAfter(fechaInicio) &&
-                                   reserva.getFechaHoraReserva().isBefore(fechaFin))
-                .collect(Collectors.toList());
+        return consultar(filtro(fechaInicio, fechaFin, null, null));
     }
 
     /**
      * Consulta reservas según el tipo de mesa especificado.
-     * 
+     *
      * @param tipoMesa El tipo de mesa para filtrar las reservas.
      * @return Lista de reservas que coinciden con el tipo de mesa especificado.
      */
     @Override
     public List<ReservaDTO> consultarReservasPorTipoMesa(String tipoMesa) {
-        return reservas.stream()
-                .filter(reserva -> reserva.getMesa().getTipoMesa().equalsIgnoreCase(tipoMesa))
-                .collect(Collectors.toList());
+        return consultar(filtro(null, null, tipoMesa, null));
     }
 
     /**
      * Consulta reservas según la ubicación especificada.
-     * 
+     *
      * @param ubicacion La ubicación para filtrar las reservas.
      * @return Lista de reservas que coinciden con la ubicación especificada.
      */
     @Override
     public List<ReservaDTO> consultarReservasPorUbicacion(String ubicacion) {
-        return reservas.stream()
-                .filter(reserva -> reserva.getMesa().getUbicacion().equalsIgnoreCase(ubicacion))
-                .collect(Collectors.toList());
+        return consultar(filtro(null, null, null, ubicacion));
     }
 
     /**
      * Consulta reservas según un rango de fechas, tipo de mesa y ubicación.
-     * 
-     * @param fechaInicio La fecha y hora de inicio del rango.
-     * @param fechaFin La fecha y hora de fin del rango.
+     *
+     * @param fechaInicio La fecha y hora de inicio del rango (excluida).
+     * @param fechaFin La fecha y hora de fin del rango (excluida).
      * @param tipoMesa El tipo de mesa para filtrar las reservas.
      * @param ubicacion La ubicación para filtrar las reservas.
      * @return Lista de reservas que cumplen todos los criterios de filtrado.
      */
     @Override
     public List<ReservaDTO> consultarReservas(LocalDateTime fechaInicio, LocalDateTime fechaFin, String tipoMesa, String ubicacion) {
-        return reservas.stream()
-                .filter(reserva -> reserva.getFechaHoraReserva().isAfter(fechaInicio) &&
-                                   reserva.getFechaHoraReserva().isBefore(fechaFin) &&
-                                   reserva.getMesa().getTipoMesa().equalsIgnoreCase(tipoMesa) &&
-                                   reserva.getMesa().getUbicacion().equalsIgnoreCase(ubicacion))
-                .collect(Collectors.toList());
+        return consultar(filtro(fechaInicio, fechaFin, tipoMesa, ubicacion));
+    }
+
+    /**
+     * Crea el filtro de una consulta, ordenado por fecha y hora. El rango del
+     * filtro incluye sus extremos y el de las consultas no, así que se
+     * recorre un nanosegundo hacia adentro.
+     *
+     * @param fechaInicio Inicio del rango (excluido), o null.
+     * @param fechaFin Fin del rango (excluido), o null.
+     * @param tipoMesa Tipo de mesa, o null.
+     * @param ubicacion Ubicación de la mesa, o null.
+     * @return El filtro.
+     */
+    private static FiltroReserva filtro(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+            String tipoMesa, String ubicacion) {
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setDesde(fechaInicio != null ? fechaInicio.plusNanos(1) : null);
+        filtro.setHasta(fechaFin != null ? fechaFin.minusNanos(1) : null);
+        filtro.setTipoMesa(tipoMesa);
+        filtro.setUbicacion(ubicacion);
+        filtro.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+        return filtro;
     }
 }
@@ -1,28 +1,51 @@
 package Fachada;
 
+import BO.CacheReservas;
+import BO.ClienteBO;
 import BO.ReservaBO;
+import DTOs.ClienteDTO;
 import DTOs.ReservaDTO;
 import Excepciones.BOException;
+import Filtros.FiltroReserva;
+import Interfaces.IClienteBO;
+import Interfaces.IReservaBO;
 import interfacesFachada.IFiltrosFCD;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Clase para filtrar reservas según criterios de cliente, teléfono y fecha.
  * 
  * <p>
  * Implementa el patrón Facade para proporcionar una interfaz simplificada para
- * gestionar el filtrado de reservas. Utiliza una lista de {@code ReservaDTO} y
- * un objeto de lógica de negocio ({@code ReservaBO}) para realizar las
- * operaciones de filtrado.
+ * gestionar el filtrado de reservas. Cada filtro se traduce a un
+ * {@link FiltroReserva}, que se resuelve en memoria sobre la lista de
+ * {@code ReservaDTO} de la caché compartida de reservas
+ * ({@code CacheReservas}), con índices. Solo si hay más reservas de las que
+ * conviene tener en memoria cada filtro se resuelve en cambio en la base de
+ * datos con una sola consulta, sin cargar las reservas: el límite es
+ * {@code -Dreservasys.filtros.maximoEnMemoria=N} reservas, 100 000 por
+ * omisión (unos 130 MB de caché e índices). Se decide con el primer
+ * {@link #crear()} de la ejecución, contando las reservas, y si no se pueden
+ * contar se usa la base de datos.
+ * </p>
+ *
+ * <p>
+ * Se crea con {@link #crear()}, que elige como se indicó, o explícitamente
+ * en memoria con {@link #crear(CacheReservas)} o en la base de datos con
+ * {@link #crear(IReservaBO)}; los que usan la caché se registran en ella ya
+ * construidos. Las pantallas se suscriben con
+ * {@link #agregarOyente(Runnable)} para volver a filtrar cuando la caché
+ * aplica cambios de reservas.
  * </p>
  * 
  * <p>
@@ -34,109 +57,313 @@ import java.util.stream.Collectors;
  * @author Sebastian Murrieta Verduzco - 233463
 
  */
-public class FiltrosFCD implements IFiltrosFCD {
+public class FiltrosFCD implements IFiltrosFCD, CacheReservas.Oyente {
 
     private static final Logger LOG = Logger.getLogger(FiltrosFCD.class.getName());
+
+    // Con más reservas no se cargan en memoria y se filtra en la base de datos
+    private static final long MAXIMO_EN_MEMORIA = Math.max(0,
+            Long.getLong("reservasys.filtros.maximoEnMemoria", 100_000L));
+
+    // Si los filtros por defecto usan la caché; null mientras no se decide
+    private static volatile Boolean enMemoria;
+
     private List<ReservaDTO> reservas;
-    private final ReservaBO reservaBO; // Capa de lógica de negocio para reservas.
+
+    // Índices de la lista de reservas; se construyen en el primer filtro
+    // después de cargarlas y se actualizan con los cambios de la caché
+    private IndiceReservas indice;
+    private final CacheReservas cache; // Reservas compartidas; null si no se usa.
+    private final IReservaBO reservaBO; // Consultas a la base de datos; null en memoria.
+    private final IClienteBO clienteBO; // Búsqueda de clientes por teléfono.
+
+    // Pantallas que vuelven a filtrar cuando cambian las reservas de la caché
+    private final List<Runnable> oyentes = new CopyOnWriteArrayList<>();
 
     /**
      * Constructor que inicializa la clase con una lista de reservas existente.
+     * Los filtros se aplican en memoria solo sobre esa lista.
      * 
      * @param reservas Lista predefinida de reservas, puede ser {@code null}.
      */
     public FiltrosFCD(List<ReservaDTO> reservas) {
-        this.reservaBO = new ReservaBO();
+        this.cache = null;
+        this.reservaBO = null;
+        this.clienteBO = new ClienteBO();
         this.reservas = reservas != null ? reservas : Collections.emptyList();
+        this.indice = null;
     }
 
     /**
-     * Constructor por defecto que inicializa la clase cargando las reservas desde la base de datos.
+     * Constructor de los filtros sobre una caché o en la base de datos. No
+     * registra el objeto en la caché; eso lo hace {@link #crear(CacheReservas)}
+     * cuando ya está construido.
+     *
+     * @param cache Caché de la que se toman las reservas, o null.
+     * @param reservaBO Consultas a la base de datos, o null si se filtra en
+     * memoria.
      */
-    public FiltrosFCD() {
-        this.reservaBO = new ReservaBO();
-        cargarReservas();
+    private FiltrosFCD(CacheReservas cache, IReservaBO reservaBO) {
+        this.cache = cache;
+        this.reservaBO = reservaBO;
+        this.clienteBO = new ClienteBO();
+        this.reservas = Collections.emptyList();
+        this.indice = null;
     }
 
     /**
-     * Carga las reservas desde la base de datos utilizando la capa de lógica de negocio.
-     * En caso de error, registra un mensaje en el log y establece la lista de reservas como vacía.
+     * Crea los filtros que filtran en memoria las reservas de una caché
+     * compartida ({@link CacheReservas}); solo la primera pantalla que la usa
+     * las lee de la base de datos. Los cambios posteriores llegan como avisos
+     * de la caché y se aplican sin volver a cargar todo.
+     *
+     * @param cache Caché de la que se toman las reservas.
+     * @return Los filtros, ya registrados en la caché.
+     */
+    public static FiltrosFCD crear(CacheReservas cache) {
+        FiltrosFCD filtros = new FiltrosFCD(cache, null);
+        cache.agregarOyente(filtros);
+        filtros.cargarReservas();
+        return filtros;
+    }
+
+    /**
+     * Crea los filtros que resuelven cada filtro en la base de datos con una
+     * sola consulta, sin cargar las reservas.
+     *
+     * @param reservaBO Objeto de negocio que ejecuta las consultas.
+     * @return Los filtros.
+     */
+    public static FiltrosFCD crear(IReservaBO reservaBO) {
+        return new FiltrosFCD(null, reservaBO);
+    }
+
+    /**
+     * Crea los filtros por defecto: en memoria sobre la caché compartida de
+     * reservas, o en la base de datos si hay más de
+     * {@code reservasys.filtros.maximoEnMemoria} reservas.
+     *
+     * @return Los filtros.
+     */
+    public static FiltrosFCD crear() {
+        IReservaBO reservaBO = new ReservaBO();
+        return usarMemoria(reservaBO) ? crear(CacheReservas.getInstancia())
+                : crear(reservaBO);
+    }
+
+    /**
+     * Decide, una vez por ejecución, si los filtros por defecto usan la
+     * caché: solo si las reservas registradas no pasan del máximo en memoria.
+     * Si no se pueden contar se usa la base de datos y se vuelve a decidir con
+     * los siguientes filtros.
+     *
+     * @param reservaBO Objeto de negocio con el que se cuentan las reservas.
+     * @return true si se filtra en memoria.
+     */
+    private static boolean usarMemoria(IReservaBO reservaBO) {
+        Boolean decision = enMemoria;
+        if (decision == null) {
+            try {
+                long total = reservaBO.contarReservas();
+                decision = total <= MAXIMO_EN_MEMORIA;
+                LOG.log(Level.INFO, "{0} reservas (máximo en memoria {1}): los filtros "
+                        + "se resuelven {2}", new Object[]{total, MAXIMO_EN_MEMORIA,
+                            decision ? "en memoria" : "en la base de datos"});
+            } catch (BOException e) {
+                LOG.log(Level.WARNING, "No se pudieron contar las reservas; los filtros "
+                        + "se resuelven en la base de datos: {0}", e.getMessage());
+                return false;
+            }
+            enMemoria = decision;
+        }
+        return decision;
+    }
+
+    /**
+     * Obtiene las reservas de la caché, que lee los cambios si ya toca. En
+     * caso de error registra un mensaje en el log y conserva la lista actual.
+     * No se llama con este objeto bloqueado, porque la caché avisa los cambios
+     * con ella bloqueada.
      */
     private void cargarReservas() {
+        if (cache == null) {
+            return;
+        }
         try {
-            this.reservas = reservaBO.obtenerReservas();
+            List<ReservaDTO> actuales = cache.obtener();
+            synchronized (this) {
+                if (actuales != reservas) {
+                    // Solo si no llegó el aviso, por ejemplo en la primera carga
+                    reservas = actuales;
+                    indice = null;
+                }
+            }
         } catch (BOException e) {
             LOG.log(Level.SEVERE, "Error al cargar las reservas: {0}", e.getMessage());
-            this.reservas = Collections.emptyList();
         }
     }
 
     /**
-     * Recarga las reservas desde la base de datos, actualizando la lista interna.
-     * 
-     * @throws BOException Si ocurre un error al obtener las reservas.
+     * Aplica un cambio de la lista de reservas de la caché: los índices ya
+     * construidos se actualizan con las posiciones que cambiaron. Después se
+     * avisa a los oyentes de las pantallas.
+     *
+     * @param actuales La lista nueva.
+     * @param posiciones Posiciones que cambiaron, o null si se cargó todo.
      */
     @Override
-    public void refrescarReservas() throws BOException {
+    public void reservasActualizadas(List<ReservaDTO> actuales, int[] posiciones) {
+        synchronized (this) {
+            reservas = actuales;
+            if (indice != null && posiciones != null) {
+                indice = indice.conCambios(actuales, posiciones);
+            } else {
+                indice = null;
+            }
+        }
+        for (Runnable oyente : oyentes) {
+            try {
+                oyente.run();
+            } catch (RuntimeException re) {
+                LOG.log(Level.WARNING, "Error al avisar un cambio de reservas", re);
+            }
+        }
+    }
+
+    /**
+     * Registra una acción que se ejecuta cada vez que la caché aplica cambios
+     * de reservas, por ejemplo para que una pantalla vuelva a filtrar. Se
+     * ejecuta en el hilo que leyó los cambios y con la caché bloqueada, así
+     * que no debe filtrar ahí mismo: una pantalla lo pasa al hilo de eventos
+     * de Swing. Los filtros en la base de datos no avisan, porque cada
+     * búsqueda ya lee las reservas actuales.
+     *
+     * @param oyente Acción a ejecutar.
+     */
+    @Override
+    public void agregarOyente(Runnable oyente) {
+        oyentes.add(oyente);
+    }
+
+    /**
+     * Quita una acción registrada con {@link #agregarOyente(Runnable)}.
+     *
+     * @param oyente Acción a quitar.
+     */
+    @Override
+    public void quitarOyente(Runnable oyente) {
+        oyentes.remove(oyente);
+    }
+
+    /**
+     * Obtiene los índices de las reservas cargadas, construyéndolos si aún
+     * no existen. Antes se toman de la caché los cambios pendientes.
+     *
+     * @return Los índices de la lista actual de reservas.
+     */
+    private IndiceReservas indice() {
         cargarReservas();
+        synchronized (this) {
+            if (indice == null) {
+                long inicio = System.nanoTime();
+                indice = new IndiceReservas(reservas);
+                if (LOG.isLoggable(Level.FINE)) {
+                    LOG.log(Level.FINE, "Índices de {0} reservas construidos en {1} ms",
+                            new Object[]{reservas.size(), (System.nanoTime() - inicio) / 1_000_000});
+                }
+            }
+            return indice;
+        }
     }
 
     /**
-     * Filtra las reservas basándose en los criterios especificados: nombre del cliente, teléfono y fecha.
+     * Lee de la base de datos las reservas que cambiaron desde la última
+     * lectura de la caché compartida y actualiza la lista interna. Los
+     * filtros en la base de datos siempre leen las reservas actuales.
      * 
-     * @param nombreCliente Nombre del cliente a buscar, puede ser {@code null}.
-     * @param telefono Número de teléfono a buscar, puede ser {@code null}.
-     * @param fecha Fecha de la reserva a buscar, puede ser {@code null}.
-     * @return Lista de reservas que cumplen con los criterios.
+     * @throws BOException Si ocurre un error al obtener las reservas.
      */
     @Override
-    public List<ReservaDTO> filtrarReservas(String nombreCliente, String telefono, Date fecha) {
-        if (reservas == null || reservas.isEmpty()) {
+    public void refrescarReservas() throws BOException {
+        if (cache != null) {
+            cache.refrescar();
             cargarReservas();
         }
-
-        return reservas.stream()
-                .filter(reserva -> cumpleCriteriosFiltro(reserva, nombreCliente, telefono, fecha))
-                .collect(Collectors.toList());
     }
 
     /**
-     * Verifica si una reserva cumple con los criterios de filtrado especificados.
-     * 
-     * @param reserva Objeto {@code ReservaDTO} a evaluar.
-     * @param nombreCliente Nombre del cliente a buscar.
-     * @param telefono Número de teléfono a buscar.
-     * @param fecha Fecha de la reserva a buscar.
-     * @return {@code true} si la reserva cumple los criterios, de lo contrario {@code false}.
+     * Busca las reservas que cumplen un filtro. En la base de datos es una
+     * sola consulta con el orden y el límite del filtro; en memoria se usan
+     * los índices de la lista y el teléfono se resuelve primero a un cliente
+     * mediante su indice ciego, de modo que el filtro compara identificadores
+     * en lugar de descifrar teléfonos.
+     *
+     * @param filtro Criterios, orden y página de la búsqueda.
+     * @return Lista de reservas que cumplen con el filtro; vacía si ocurre un
+     * error.
      */
-    private boolean cumpleCriteriosFiltro(ReservaDTO reserva, String nombreCliente, String telefono, Date fecha) {
-        boolean cumpleNombre = nombreCliente == null
-                || (reserva.getCliente() != null
-                && reserva.getCliente().getNombre() != null
-                && reserva.getCliente().getNombre().toLowerCase()
-                        .contains(nombreCliente.toLowerCase()));
-
-        boolean cumpleTelefono = telefono == null
-                || (reserva.getCliente() != null
-                && reserva.getCliente().getTelefono() != null
-                && reserva.getCliente().getTelefono().equals(telefono));
+    @Override
+    public List<ReservaDTO> buscarReservas(FiltroReserva filtro) {
+        if (reservaBO != null) {
+            try {
+                return reservaBO.buscarReservas(filtro);
+            } catch (BOException e) {
+                LOG.log(Level.SEVERE, "Error al buscar las reservas: {0}", e.getMessage());
+                return Collections.emptyList();
+            }
+        }
 
-        boolean cumpleFecha = fecha == null
-                || (reserva.getFechaHoraReserva() != null
-                && reserva.getFechaHoraReserva().toLocalDate()
-                        .equals(fecha.toInstant()
-                                .atZone(ZoneId.systemDefault())
-                                .toLocalDate()));
+        IndiceReservas indiceActual = indice();
+        if (FiltroReserva.aplica(filtro.getTelefonoCliente())) {
+            try {
+                ClienteDTO cliente = clienteBO.obtenerClientePorTelefono(filtro.getTelefonoCliente());
+                if (cliente == null) {
+                    return Collections.emptyList();
+                }
+                Long idCliente = Long.valueOf(cliente.getId());
+                if (filtro.getIdCliente() != null && !filtro.getIdCliente().equals(idCliente)) {
+                    return Collections.emptyList();
+                }
+                filtro = new FiltroReserva(filtro);
+                filtro.setTelefonoCliente(null);
+                filtro.setIdCliente(idCliente);
+            } catch (BOException e) {
+                LOG.log(Level.SEVERE, "Error al buscar el cliente por teléfono: {0}", e.getMessage());
+                return Collections.emptyList();
+            }
+        }
+        return indiceActual.buscar(filtro);
+    }
 
-        return cumpleNombre && cumpleTelefono && cumpleFecha;
+    /**
+     * Filtra las reservas basándose en los criterios especificados: nombre del cliente, teléfono y fecha.
+     * 
+     * @param nombreCliente Nombre del cliente a buscar, puede ser {@code null}.
+     * @param telefono Número de teléfono a buscar, puede ser {@code null}.
+     * @param fecha Fecha de la reserva a buscar, puede ser {@code null}.
+     * @return Lista de reservas que cumplen con los criterios, por fecha y hora.
+     */
+    @Override
+    public List<ReservaDTO> filtrarReservas(String nombreCliente, String telefono, Date fecha) {
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setNombreCliente(nombreCliente);
+        filtro.setTelefonoCliente(telefono);
+        if (fecha != null) {
+            LocalDate dia = fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            filtro.setDesde(dia.atStartOfDay());
+            filtro.setHasta(dia.atTime(LocalTime.MAX));
+        }
+        filtro.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+        return buscarReservas(filtro);
     }
 
     /**
-     * Obtiene la lista de reservas actuales.
+     * Obtiene la lista de reservas actuales de los filtros en memoria.
      * 
-     * @return Lista inmutable de reservas.
+     * @return Lista inmutable de reservas; vacía si los filtros consultan la
+     * base de datos.
      */
-    public List<ReservaDTO> getReservas() {
+    public synchronized List<ReservaDTO> getReservas() {
         return Collections.unmodifiableList(reservas);
     }
 
@@ -147,44 +374,20 @@ public class FiltrosFCD implements IFiltrosFCD {
      * @param ubicacion Ubicación a buscar, puede ser {@code null} o vacío.
      * @param fechaInicio Fecha de inicio del rango de búsqueda (formato "dd/MM/yyyy").
      * @param fechaFin Fecha de fin del rango de búsqueda (formato "dd/MM/yyyy").
-     * @return Lista de reservas que cumplen con los criterios especificados.
+     * @return Lista de reservas que cumplen con los criterios especificados, por fecha y hora.
      */
     @Override
     public List<ReservaDTO> filtrarReservasPorMesaUbicacionFecha(String tipoMesa, String ubicacion, String fechaInicio, String fechaFin) {
-        if (reservas == null || reservas.isEmpty()) {
-            cargarReservas();
-        }
-
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         LocalDateTime inicio = LocalDate.parse(fechaInicio, formatter).atStartOfDay();
         LocalDateTime fin = LocalDate.parse(fechaFin, formatter).atTime(23, 59);
 
-        return reservas.stream()
-                .filter(reserva -> cumpleCriteriosMesaUbicacionFecha(reserva, tipoMesa, ubicacion, inicio, fin))
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Verifica si una reserva cumple con los criterios de tipo de mesa, ubicación y rango de fechas.
-     * 
-     * @param reserva Objeto {@code ReservaDTO} a evaluar.
-     * @param tipoMesa Tipo de mesa a buscar.
-     * @param ubicacion Ubicación a buscar.
-     * @param inicio Fecha y hora de inicio del rango de búsqueda.
-     * @param fin Fecha y hora de fin del rango de búsqueda.
-     * @return {@code true} si la reserva cumple con los criterios, de lo contrario {@code false}.
-     */
-    private boolean cumpleCriteriosMesaUbicacionFecha(ReservaDTO reserva, String tipoMesa, String ubicacion, LocalDateTime inicio, LocalDateTime fin) {
-        boolean cumpleTipoMesa = tipoMesa == null || tipoMesa.isEmpty()
-                || (reserva.getMesa() != null && reserva.getMesa().getTipoMesa().equalsIgnoreCase(tipoMesa));
-
-        boolean cumpleUbicacion = ubicacion == null || ubicacion.isEmpty()
-                || (reserva.getMesa() != null && reserva.getMesa().getUbicacion().equalsIgnoreCase(ubicacion));
-
-        boolean cumpleFechas = reserva.getFechaHoraReserva() != null
-                && (reserva.getFechaHoraReserva().isEqual(inicio) || reserva.getFechaHoraReserva().isAfter(inicio))
-                && (reserva.getFechaHoraReserva().isEqual(fin) || reserva.getFechaHoraReserva().isBefore(fin));
-
-        return cumpleTipoMesa && cumpleUbicacion && cumpleFechas;
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setTipoMesa(tipoMesa);
+        filtro.setUbicacion(ubicacion);
+        filtro.setDesde(inicio);
+        filtro.setHasta(fin);
+        filtro.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+        return buscarReservas(filtro);
     }
 }
@@ -0,0 +1,760 @@
+package Fachada;
+
+import DTOs.ClienteDTO;
+import DTOs.MesaDTO;
+import DTOs.ReservaDTO;
+import Filtros.FiltroReserva;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Índices en memoria sobre la lista de reservas de {@link FiltrosFCD}, para
+ * que un filtro no recorra todas las reservas.
+ *
+ * Cada reserva se identifica por su posición en la lista. Se guardan:
+ * <ul>
+ * <li>las posiciones ordenadas por fecha y hora, para buscar un rango con
+ * búsqueda binaria;</li>
+ * <li>las posiciones de cada tipo de mesa, ubicación (sin distinguir
+ * mayúsculas) y cliente;</li>
+ * <li>los nombres de cliente distintos ya en minúsculas, con un índice de
+ * trigramas para la búsqueda por contenido.</li>
+ * </ul>
+ * Un filtro recorre solo el conjunto más pequeño de los criterios pedidos y
+ * revisa los demás en arreglos de enteros por posición. El resultado conserva
+ * el orden de la lista.
+ *
+ * El índice es inmutable. Cuando cambian algunas reservas (ver
+ * {@link #conCambios}) se crea otro que comparte los índices y revisa aparte,
+ * una por una, las posiciones que cambiaron; cuando son muchas se vuelve a
+ * construir completo.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+final class IndiceReservas {
+
+    // Valor de las posiciones sin dato (reserva, mesa o cliente nulos)
+    private static final int SIN_DATO = -1;
+
+    private static final long SIN_FECHA = Long.MIN_VALUE;
+
+    private static final int[] VACIO = new int[0];
+
+    // Posiciones cambiadas que se revisan una por una antes de reconstruir
+    private static final int MINIMO_CAMBIOS = 1_024;
+    private static final int PROPORCION_CAMBIOS = 64;
+
+    // Códigos de las reservas sin mesa o sin cliente
+    private static final int[] SIN_MESA = {SIN_DATO, SIN_DATO};
+    private static final int[] SIN_CLIENTE = {SIN_DATO, SIN_DATO};
+
+    private final List<ReservaDTO> reservas;
+
+    // Fecha y hora de cada posición como número comparable
+    private final long[] fechaPorPosicion;
+
+    // Posiciones ordenadas por fecha y hora, y sus fechas en el mismo orden
+    private final int[] posicionesPorFecha;
+    private final long[] fechasOrdenadas;
+
+    // Código de tipo de mesa, ubicación, cliente y nombre de cada posición
+    private final int[] tipoPorPosicion;
+    private final int[] ubicacionPorPosicion;
+    private final int[] clientePorPosicion;
+    private final int[] nombrePorPosicion;
+
+    // Códigos de los valores; tipo y ubicación sin distinguir mayúsculas
+    private final Map<String, Integer> tipos;
+    private final Map<String, Integer> ubicaciones;
+    private final Map<String, Integer> clientes;
+
+    // Posiciones de cada código, en orden
+    private final int[][] posicionesPorTipo;
+    private final int[][] posicionesPorUbicacion;
+    private final int[][] posicionesPorCliente;
+    private final int[][] posicionesPorNombre;
+
+    // Nombres distintos en minúsculas y, por trigrama, los nombres que lo tienen
+    private final String[] nombres;
+    private final Map<Long, int[]> nombresPorTrigrama;
+
+    // Posiciones indexadas cuya reserva cambió después, y todas las
+    // posiciones cambiadas o agregadas, en orden; vacías al construir
+    private final BitSet reemplazadas;
+    private final int[] cambiadas;
+
+    /**
+     * Construye los índices de una lista de reservas.
+     *
+     * @param reservas Reservas a indexar; la lista no debe cambiar después.
+     */
+    IndiceReservas(List<ReservaDTO> reservas) {
+        this.reservas = reservas;
+        this.tipos = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.ubicaciones = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.clientes = new HashMap<>();
+        this.reemplazadas = new BitSet();
+        this.cambiadas = VACIO;
+        int total = reservas.size();
+        fechaPorPosicion = new long[total];
+        tipoPorPosicion = new int[total];
+        ubicacionPorPosicion = new int[total];
+        clientePorPosicion = new int[total];
+        nombrePorPosicion = new int[total];
+
+        // Las reservas convertidas juntas comparten el DTO de su mesa y de su
+        // cliente: los códigos de cada uno se calculan una sola vez
+        Map<MesaDTO, int[]> codigosMesa = new IdentityHashMap<>();
+        Map<ClienteDTO, int[]> codigosCliente = new IdentityHashMap<>();
+        Map<String, Integer> codigosNombre = new HashMap<>();
+        List<String> listaNombres = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            ReservaDTO reserva = reservas.get(i);
+            fechaPorPosicion[i] = reserva != null ? clave(reserva.getFechaHoraReserva()) : SIN_FECHA;
+
+            MesaDTO mesa = reserva != null ? reserva.getMesa() : null;
+            int[] deMesa = mesa == null ? SIN_MESA : codigosMesa.computeIfAbsent(mesa,
+                    m -> new int[]{codigo(tipos, m.getTipoMesa()), codigo(ubicaciones, m.getUbicacion())});
+            tipoPorPosicion[i] = deMesa[0];
+            ubicacionPorPosicion[i] = deMesa[1];
+
+            ClienteDTO cliente = reserva != null ? reserva.getCliente() : null;
+            int[] deCliente = cliente == null ? SIN_CLIENTE : codigosCliente.computeIfAbsent(cliente,
+                    c -> new int[]{codigo(clientes, c.getId()), codigoNombre(c.getNombre(),
+                        codigosNombre, listaNombres)});
+            clientePorPosicion[i] = deCliente[0];
+            nombrePorPosicion[i] = deCliente[1];
+        }
+
+        posicionesPorTipo = agrupar(tipoPorPosicion, tipos.size());
+        posicionesPorUbicacion = agrupar(ubicacionPorPosicion, ubicaciones.size());
+        posicionesPorCliente = agrupar(clientePorPosicion, clientes.size());
+        posicionesPorNombre = agrupar(nombrePorPosicion, listaNombres.size());
+        nombres = listaNombres.toArray(new String[0]);
+        nombresPorTrigrama = indexarTrigramas(nombres);
+
+        // Solo las reservas con fecha entran al orden por fecha
+        int conFecha = 0;
+        for (int i = 0; i < total; i++) {
+            if (fechaPorPosicion[i] != SIN_FECHA) {
+                conFecha++;
+            }
+        }
+        fechasOrdenadas = new long[conFecha];
+        for (int i = 0, j = 0; i < total; i++) {
+            if (fechaPorPosicion[i] != SIN_FECHA) {
+                fechasOrdenadas[j++] = fechaPorPosicion[i];
+            }
+        }
+        Arrays.sort(fechasOrdenadas);
+
+        // Se ordenan las posiciones sin objetos: cada una se junta en un long
+        // con el lugar de su fecha en el orden (arriba) y la posición (abajo)
+        long[] orden = new long[conFecha];
+        for (int i = 0, j = 0; i < total; i++) {
+            if (fechaPorPosicion[i] != SIN_FECHA) {
+                long lugar = Arrays.binarySearch(fechasOrdenadas, fechaPorPosicion[i]);
+                orden[j++] = lugar << 32 | i;
+            }
+        }
+        Arrays.sort(orden);
+        posicionesPorFecha = new int[conFecha];
+        for (int i = 0; i < conFecha; i++) {
+            posicionesPorFecha[i] = (int) orden[i];
+        }
+    }
+
+    /**
+     * Crea un índice que comparte los de otro y revisa aparte las posiciones
+     * cambiadas.
+     *
+     * @param base Índice cuyos datos se comparten.
+     * @param reservas Lista actual de reservas.
+     * @param reemplazadas Posiciones indexadas que ya no son válidas.
+     * @param cambiadas Posiciones cambiadas o agregadas, en orden.
+     */
+    private IndiceReservas(IndiceReservas base, List<ReservaDTO> reservas,
+            BitSet reemplazadas, int[] cambiadas) {
+        this.reservas = reservas;
+        this.fechaPorPosicion = base.fechaPorPosicion;
+        this.posicionesPorFecha = base.posicionesPorFecha;
+        this.fechasOrdenadas = base.fechasOrdenadas;
+        this.tipoPorPosicion = base.tipoPorPosicion;
+        this.ubicacionPorPosicion = base.ubicacionPorPosicion;
+        this.clientePorPosicion = base.clientePorPosicion;
+        this.nombrePorPosicion = base.nombrePorPosicion;
+        this.tipos = base.tipos;
+        this.ubicaciones = base.ubicaciones;
+        this.clientes = base.clientes;
+        this.posicionesPorTipo = base.posicionesPorTipo;
+        this.posicionesPorUbicacion = base.posicionesPorUbicacion;
+        this.posicionesPorCliente = base.posicionesPorCliente;
+        this.posicionesPorNombre = base.posicionesPorNombre;
+        this.nombres = base.nombres;
+        this.nombresPorTrigrama = base.nombresPorTrigrama;
+        this.reemplazadas = reemplazadas;
+        this.cambiadas = cambiadas;
+    }
+
+    /**
+     * Obtiene el índice de la lista después de cambiar algunas reservas. Las
+     * reservas que no cambiaron deben seguir en la misma posición y las
+     * nuevas ir al final. Mientras los cambios acumulados son pocos se
+     * comparten estos índices; si no, se construyen otros.
+     *
+     * @param actuales Lista actual de reservas.
+     * @param posiciones Posiciones que cambiaron o se agregaron, en orden.
+     * @return El índice de la lista actual.
+     */
+    IndiceReservas conCambios(List<ReservaDTO> actuales, int[] posiciones) {
+        int[] todas = unirOrdenadas(cambiadas, posiciones);
+        if (todas.length > Math.max(MINIMO_CAMBIOS, fechaPorPosicion.length / PROPORCION_CAMBIOS)) {
+            return new IndiceReservas(actuales);
+        }
+        BitSet nuevasReemplazadas = (BitSet) reemplazadas.clone();
+        for (int posicion : posiciones) {
+            if (posicion < fechaPorPosicion.length) {
+                nuevasReemplazadas.set(posicion);
+            }
+        }
+        return new IndiceReservas(this, actuales, nuevasReemplazadas, todas);
+    }
+
+    /**
+     * Busca las reservas que cumplen todos los criterios dados. Un criterio
+     * null no se aplica.
+     *
+     * @param nombre Texto contenido en el nombre del cliente, sin distinguir
+     * mayúsculas.
+     * @param idCliente Id del cliente.
+     * @param tipoMesa Tipo de mesa, sin distinguir mayúsculas.
+     * @param ubicacion Ubicación de la mesa, sin distinguir mayúsculas.
+     * @param desde Inicio del rango de fecha y hora, incluido.
+     * @param hasta Fin del rango de fecha y hora, incluido.
+     * @return Las reservas en el orden de la lista.
+     */
+    List<ReservaDTO> buscar(String nombre, String idCliente, String tipoMesa,
+            String ubicacion, LocalDateTime desde, LocalDateTime hasta) {
+        if (nombre == null && vacio(idCliente) && vacio(tipoMesa) && vacio(ubicacion)
+                && desde == null && hasta == null) {
+            return new ArrayList<>(reservas);
+        }
+        String texto = nombre != null ? nombre.toLowerCase() : null;
+        long inicio = desde != null ? clave(desde) : Long.MIN_VALUE + 1;
+        long fin = hasta != null ? clave(hasta) : Long.MAX_VALUE;
+        boolean porFecha = desde != null || hasta != null;
+
+        int[] indexadas = buscarIndexadas(texto, idCliente, tipoMesa, ubicacion,
+                porFecha, inicio, fin);
+        int[] enCambios = VACIO;
+        if (cambiadas.length > 0) {
+            enCambios = new int[cambiadas.length];
+            int encontradas = 0;
+            for (int posicion : cambiadas) {
+                if (cumple(reservas.get(posicion), texto, idCliente, tipoMesa, ubicacion,
+                        porFecha, inicio, fin)) {
+                    enCambios[encontradas++] = posicion;
+                }
+            }
+            enCambios = Arrays.copyOf(enCambios, encontradas);
+        }
+        int[] resultado = enCambios.length == 0 ? indexadas : unirOrdenadas(indexadas, enCambios);
+        List<ReservaDTO> filtradas = new ArrayList<>(resultado.length);
+        for (int posicion : resultado) {
+            filtradas.add(reservas.get(posicion));
+        }
+        return filtradas;
+    }
+
+    /**
+     * Busca las reservas que cumplen un filtro, con las mismas reglas que la
+     * consulta de {@code ReservaDAO.buscarReservas(FiltroReserva)}. Los
+     * criterios con índice se buscan como en {@link #buscar(String, String,
+     * String, String, LocalDateTime, LocalDateTime)}; el estado y la capacidad
+     * se revisan en las encontradas, y después se ordena, se continúa después
+     * de la reserva del filtro y se aplica el límite. El teléfono no se busca
+     * aquí: se debe resolver antes al id del cliente.
+     *
+     * @param filtro Criterios, orden y página de la búsqueda.
+     * @return Las reservas en el orden del filtro, o de la lista si no tiene.
+     */
+    List<ReservaDTO> buscar(FiltroReserva filtro) {
+        List<ReservaDTO> encontradas = buscar(
+                vacio(filtro.getNombreCliente()) ? null : filtro.getNombreCliente(),
+                filtro.getIdCliente() != null ? String.valueOf(filtro.getIdCliente()) : null,
+                filtro.getTipoMesa(), filtro.getUbicacion(), filtro.getDesde(), filtro.getHasta());
+
+        String estado = filtro.getEstado();
+        Integer capacidad = filtro.getCapacidad();
+        if (!vacio(estado) || capacidad != null) {
+            encontradas.removeIf(reserva -> reserva == null || (!vacio(estado)
+                    && !estado.equalsIgnoreCase(reserva.getEstado()))
+                    || (capacidad != null && (reserva.getMesa() == null
+                    || reserva.getMesa().getCapacidadMinima() > capacidad
+                    || reserva.getMesa().getCapacidadMaxima() < capacidad)));
+        }
+        if (filtro.getOrden() != null) {
+            encontradas = ordenar(encontradas, filtro);
+        }
+        Integer limite = filtro.getLimite();
+        if (limite != null && encontradas.size() > limite) {
+            return new ArrayList<>(encontradas.subList(0, Math.max(limite, 0)));
+        }
+        return encontradas;
+    }
+
+    /**
+     * Ordena reservas por fecha y hora y por id, como la consulta, y deja solo
+     * las que van después de la reserva del filtro si tiene una.
+     *
+     * @param reservas Reservas encontradas.
+     * @param filtro Filtro con el orden y la reserva de referencia.
+     * @return Las reservas ordenadas.
+     */
+    private static List<ReservaDTO> ordenar(List<ReservaDTO> reservas, FiltroReserva filtro) {
+        boolean ascendente = filtro.getOrden() == FiltroReserva.Orden.FECHA_ASCENDENTE;
+        boolean conCursor = filtro.tieneCursor();
+        long fechaCursor = conCursor ? clave(filtro.getDespuesDeFecha()) : SIN_FECHA;
+        long idCursor = conCursor ? filtro.getDespuesDeId() : 0L;
+
+        // Las claves se calculan una vez y no en cada comparación
+        int total = reservas.size();
+        long[] fechas = new long[total];
+        long[] ids = new long[total];
+        Integer[] posiciones = new Integer[total];
+        int validas = 0;
+        for (int i = 0; i < total; i++) {
+            ReservaDTO reserva = reservas.get(i);
+            if (reserva == null) {
+                continue;
+            }
+            long fecha = clave(reserva.getFechaHoraReserva());
+            long id = idReserva(reserva);
+            if (conCursor) {
+                int comparacion = fecha != fechaCursor ? Long.compare(fecha, fechaCursor)
+                        : Long.compare(id, idCursor);
+                if (fecha == SIN_FECHA || (ascendente ? comparacion <= 0 : comparacion >= 0)) {
+                    continue;
+                }
+            }
+            fechas[i] = fecha;
+            ids[i] = id;
+            posiciones[validas++] = i;
+        }
+        Arrays.sort(posiciones, 0, validas, (a, b) -> {
+            int comparacion = fechas[a] != fechas[b] ? Long.compare(fechas[a], fechas[b])
+                    : Long.compare(ids[a], ids[b]);
+            return ascendente ? comparacion : -comparacion;
+        });
+        List<ReservaDTO> ordenadas = new ArrayList<>(validas);
+        for (int i = 0; i < validas; i++) {
+            ordenadas.add(reservas.get(posiciones[i]));
+        }
+        return ordenadas;
+    }
+
+    /**
+     * Obtiene el id numérico de una reserva.
+     *
+     * @param reserva Reserva.
+     * @return El id, o {@code Long.MIN_VALUE} si no tiene o no es numérico.
+     */
+    private static long idReserva(ReservaDTO reserva) {
+        try {
+            return reserva.getId() != null ? Long.parseLong(reserva.getId()) : Long.MIN_VALUE;
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Busca en los índices las posiciones que cumplen los criterios, sin las
+     * reemplazadas.
+     *
+     * @param texto Texto en minúsculas contenido en el nombre, o null.
+     * @param idCliente Id del cliente, o null.
+     * @param tipoMesa Tipo de mesa, o null.
+     * @param ubicacion Ubicación de la mesa, o null.
+     * @param porFecha Si se filtra por fecha.
+     * @param inicio Clave del inicio del rango, incluida.
+     * @param fin Clave del fin del rango, incluida.
+     * @return Las posiciones en orden.
+     */
+    private int[] buscarIndexadas(String texto, String idCliente, String tipoMesa,
+            String ubicacion, boolean porFecha, long inicio, long fin) {
+        int cliente = buscarCodigo(clientes, idCliente);
+        int tipo = buscarCodigo(tipos, tipoMesa);
+        int lugar = buscarCodigo(ubicaciones, ubicacion);
+        if (cliente == SIN_DATO || tipo == SIN_DATO || lugar == SIN_DATO) {
+            return VACIO;
+        }
+        boolean[] nombresValidos = texto != null ? nombresQueContienen(texto) : null;
+
+        // Se recorre el conjunto más pequeño de los criterios pedidos
+        int[] recorrido = null;
+        boolean ordenar = false;
+        if (cliente != Integer.MAX_VALUE) {
+            recorrido = posicionesPorCliente[cliente];
+        }
+        if (tipo != Integer.MAX_VALUE && menor(posicionesPorTipo[tipo], recorrido)) {
+            recorrido = posicionesPorTipo[tipo];
+        }
+        if (lugar != Integer.MAX_VALUE && menor(posicionesPorUbicacion[lugar], recorrido)) {
+            recorrido = posicionesPorUbicacion[lugar];
+        }
+        if (porFecha) {
+            int primero = primeraPosicion(inicio);
+            // Un rango con el inicio después del fin no tiene posiciones
+            int ultimo = Math.max(primero, primeraPosicion(fin == Long.MAX_VALUE ? fin : fin + 1));
+            if (recorrido == null || ultimo - primero < recorrido.length) {
+                recorrido = Arrays.copyOfRange(posicionesPorFecha, primero, ultimo);
+                ordenar = true;
+            }
+        }
+        if (nombresValidos != null) {
+            int coincidencias = 0;
+            for (int i = 0; i < nombres.length; i++) {
+                if (nombresValidos[i]) {
+                    coincidencias += posicionesPorNombre[i].length;
+                }
+            }
+            if (recorrido == null || coincidencias < recorrido.length) {
+                recorrido = unir(nombresValidos, coincidencias);
+                ordenar = true;
+            }
+        }
+
+        boolean conReemplazadas = !reemplazadas.isEmpty();
+        int[] resultado = new int[recorrido.length];
+        int encontrados = 0;
+        for (int posicion : recorrido) {
+            long fecha = fechaPorPosicion[posicion];
+            if ((cliente == Integer.MAX_VALUE || clientePorPosicion[posicion] == cliente)
+                    && (tipo == Integer.MAX_VALUE || tipoPorPosicion[posicion] == tipo)
+                    && (lugar == Integer.MAX_VALUE || ubicacionPorPosicion[posicion] == lugar)
+                    && (!porFecha || (fecha != SIN_FECHA && fecha >= inicio && fecha <= fin))
+                    && (nombresValidos == null || (nombrePorPosicion[posicion] != SIN_DATO
+                    && nombresValidos[nombrePorPosicion[posicion]]))
+                    && (!conReemplazadas || !reemplazadas.get(posicion))) {
+                resultado[encontrados++] = posicion;
+            }
+        }
+        if (ordenar) {
+            Arrays.sort(resultado, 0, encontrados);
+        }
+        return Arrays.copyOf(resultado, encontrados);
+    }
+
+    /**
+     * Revisa una reserva cambiada contra los criterios, con las mismas reglas
+     * que los índices.
+     *
+     * @param reserva Reserva a revisar, puede ser null.
+     * @param texto Texto en minúsculas contenido en el nombre, o null.
+     * @param idCliente Id del cliente, o null.
+     * @param tipoMesa Tipo de mesa, o null.
+     * @param ubicacion Ubicación de la mesa, o null.
+     * @param porFecha Si se filtra por fecha.
+     * @param inicio Clave del inicio del rango, incluida.
+     * @param fin Clave del fin del rango, incluida.
+     * @return true si la reserva cumple todos los criterios.
+     */
+    private static boolean cumple(ReservaDTO reserva, String texto, String idCliente,
+            String tipoMesa, String ubicacion, boolean porFecha, long inicio, long fin) {
+        if (reserva == null) {
+            return false;
+        }
+        ClienteDTO cliente = reserva.getCliente();
+        MesaDTO mesa = reserva.getMesa();
+        if (texto != null && (cliente == null || cliente.getNombre() == null
+                || !cliente.getNombre().toLowerCase().contains(texto))) {
+            return false;
+        }
+        if (!vacio(idCliente) && (cliente == null || !idCliente.equals(cliente.getId()))) {
+            return false;
+        }
+        if (!vacio(tipoMesa) && (mesa == null || !tipoMesa.equalsIgnoreCase(mesa.getTipoMesa()))) {
+            return false;
+        }
+        if (!vacio(ubicacion) && (mesa == null || !ubicacion.equalsIgnoreCase(mesa.getUbicacion()))) {
+            return false;
+        }
+        long fecha = clave(reserva.getFechaHoraReserva());
+        return !porFecha || (fecha != SIN_FECHA && fecha >= inicio && fecha <= fin);
+    }
+
+    /**
+     * Marca los nombres que contienen el texto. Con tres letras o más solo
+     * se revisan los nombres que tienen el trigrama menos común del texto.
+     *
+     * @param texto Texto en minúsculas.
+     * @return Arreglo indexado por código de nombre.
+     */
+    private boolean[] nombresQueContienen(String texto) {
+        boolean[] validos = new boolean[nombres.length];
+        if (texto.length() < 3) {
+            for (int i = 0; i < nombres.length; i++) {
+                validos[i] = nombres[i].contains(texto);
+            }
+            return validos;
+        }
+        int[] candidatos = null;
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            int[] conTrigrama = nombresPorTrigrama.getOrDefault(trigrama(texto, i), VACIO);
+            if (candidatos == null || conTrigrama.length < candidatos.length) {
+                candidatos = conTrigrama;
+            }
+        }
+        for (int codigo : candidatos) {
+            validos[codigo] = nombres[codigo].contains(texto);
+        }
+        return validos;
+    }
+
+    /**
+     * Junta las posiciones de todos los nombres marcados.
+     *
+     * @param nombresValidos Nombres marcados.
+     * @param total Cantidad de posiciones de esos nombres.
+     * @return Las posiciones, sin orden.
+     */
+    private int[] unir(boolean[] nombresValidos, int total) {
+        int[] posiciones = new int[total];
+        int siguiente = 0;
+        for (int i = 0; i < nombres.length; i++) {
+            if (nombresValidos[i]) {
+                int[] delNombre = posicionesPorNombre[i];
+                System.arraycopy(delNombre, 0, posiciones, siguiente, delNombre.length);
+                siguiente += delNombre.length;
+            }
+        }
+        return posiciones;
+    }
+
+    /**
+     * Busca en el orden por fecha la primera posición con fecha mayor o
+     * igual a la clave.
+     *
+     * @param clave Clave de fecha y hora.
+     * @return Índice en {@code posicionesPorFecha}.
+     */
+    private int primeraPosicion(long clave) {
+        int bajo = 0;
+        int alto = fechasOrdenadas.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (fechasOrdenadas[medio] < clave) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Indica si un conjunto de posiciones es menor que el actual.
+     *
+     * @param posiciones Conjunto a comparar.
+     * @param actual Conjunto actual, o null si aún no hay.
+     * @return true si conviene recorrer {@code posiciones}.
+     */
+    private static boolean menor(int[] posiciones, int[] actual) {
+        return actual == null || posiciones.length < actual.length;
+    }
+
+    /**
+     * Une dos arreglos de posiciones en orden, sin repetir.
+     *
+     * @param a Posiciones en orden.
+     * @param b Posiciones en orden.
+     * @return Las posiciones de ambos, en orden.
+     */
+    private static int[] unirOrdenadas(int[] a, int[] b) {
+        int[] unidas = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int total = 0;
+        while (i < a.length || j < b.length) {
+            int siguiente;
+            if (j >= b.length || (i < a.length && a[i] < b[j])) {
+                siguiente = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                siguiente = b[j++];
+            } else {
+                siguiente = a[i++];
+                j++;
+            }
+            unidas[total++] = siguiente;
+        }
+        return total == unidas.length ? unidas : Arrays.copyOf(unidas, total);
+    }
+
+    /**
+     * Indica si un criterio de texto no se aplica.
+     *
+     * @param valor Valor del criterio.
+     * @return true si es null o vacío.
+     */
+    private static boolean vacio(String valor) {
+        return valor == null || valor.isEmpty();
+    }
+
+    /**
+     * Obtiene el código de un valor buscado.
+     *
+     * @param codigos Códigos de los valores.
+     * @param valor Valor buscado; null o vacío si el criterio no se aplica.
+     * @return El código, {@code Integer.MAX_VALUE} si el criterio no se aplica
+     * o {@link #SIN_DATO} si ninguna reserva tiene ese valor.
+     */
+    private static int buscarCodigo(Map<String, Integer> codigos, String valor) {
+        if (vacio(valor)) {
+            return Integer.MAX_VALUE;
+        }
+        Integer codigo = codigos.get(valor);
+        return codigo != null ? codigo : SIN_DATO;
+    }
+
+    /**
+     * Obtiene o asigna el código de un valor.
+     *
+     * @param codigos Códigos asignados.
+     * @param valor Valor, puede ser null.
+     * @return El código del valor, o {@link #SIN_DATO} si es null.
+     */
+    private static int codigo(Map<String, Integer> codigos, String valor) {
+        if (valor == null) {
+            return SIN_DATO;
+        }
+        Integer codigo = codigos.get(valor);
+        if (codigo == null) {
+            codigo = codigos.size();
+            codigos.put(valor, codigo);
+        }
+        return codigo;
+    }
+
+    /**
+     * Obtiene o asigna el código de un nombre de cliente, en minúsculas.
+     *
+     * @param nombre Nombre, puede ser null.
+     * @param codigos Códigos asignados por nombre en minúsculas.
+     * @param nombres Nombres en minúsculas por código.
+     * @return El código del nombre, o {@link #SIN_DATO} si es null.
+     */
+    private static int codigoNombre(String nombre, Map<String, Integer> codigos,
+            List<String> nombres) {
+        if (nombre == null) {
+            return SIN_DATO;
+        }
+        String normalizado = nombre.toLowerCase();
+        Integer codigo = codigos.get(normalizado);
+        if (codigo == null) {
+            codigo = nombres.size();
+            codigos.put(normalizado, codigo);
+            nombres.add(normalizado);
+        }
+        return codigo;
+    }
+
+    /**
+     * Agrupa las posiciones por código, cada grupo en orden.
+     *
+     * @param codigoPorPosicion Código de cada posición.
+     * @param totalCodigos Cantidad de códigos.
+     * @return Las posiciones de cada código.
+     */
+    private static int[][] agrupar(int[] codigoPorPosicion, int totalCodigos) {
+        int[] cuenta = new int[totalCodigos];
+        for (int codigo : codigoPorPosicion) {
+            if (codigo != SIN_DATO) {
+                cuenta[codigo]++;
+            }
+        }
+        int[][] grupos = new int[totalCodigos][];
+        for (int i = 0; i < totalCodigos; i++) {
+            grupos[i] = new int[cuenta[i]];
+            cuenta[i] = 0;
+        }
+        for (int posicion = 0; posicion < codigoPorPosicion.length; posicion++) {
+            int codigo = codigoPorPosicion[posicion];
+            if (codigo != SIN_DATO) {
+                grupos[codigo][cuenta[codigo]++] = posicion;
+            }
+        }
+        return grupos;
+    }
+
+    /**
+     * Construye el índice de trigramas de los nombres.
+     *
+     * @param nombres Nombres en minúsculas.
+     * @return Por trigrama, los códigos de los nombres que lo contienen.
+     */
+    private static Map<Long, int[]> indexarTrigramas(String[] nombres) {
+        Map<Long, int[]> cuentas = new HashMap<>();
+        for (int codigo = 0; codigo < nombres.length; codigo++) {
+            String nombre = nombres[codigo];
+            for (int i = 0; i + 3 <= nombre.length(); i++) {
+                int[] cuenta = cuentas.computeIfAbsent(trigrama(nombre, i), t -> new int[2]);
+                // Un trigrama repetido en el mismo nombre se cuenta una vez
+                if (cuenta[1] != codigo + 1) {
+                    cuenta[0]++;
+                    cuenta[1] = codigo + 1;
+                }
+            }
+        }
+        Map<Long, int[]> indice = new HashMap<>(cuentas.size() * 2);
+        for (Map.Entry<Long, int[]> entrada : cuentas.entrySet()) {
+            indice.put(entrada.getKey(), new int[entrada.getValue()[0]]);
+            entrada.getValue()[0] = 0;
+        }
+        for (int codigo = 0; codigo < nombres.length; codigo++) {
+            String nombre = nombres[codigo];
+            for (int i = 0; i + 3 <= nombre.length(); i++) {
+                Long llave = trigrama(nombre, i);
+                int[] lista = indice.get(llave);
+                int[] cuenta = cuentas.get(llave);
+                if (cuenta[0] == 0 || lista[cuenta[0] - 1] != codigo) {
+                    lista[cuenta[0]++] = codigo;
+                }
+            }
+        }
+        return indice;
+    }
+
+    /**
+     * Obtiene el trigrama que empieza en una posición del texto.
+     *
+     * @param texto Texto.
+     * @param inicio Posición del primer carácter.
+     * @return Los tres caracteres como un número.
+     */
+    private static long trigrama(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32)
+                | ((long) texto.charAt(inicio + 1) << 16)
+                | texto.charAt(inicio + 2);
+    }
+
+    /**
+     * Convierte una fecha y hora en un número que conserva su orden.
+     *
+     * @param fechaHora Fecha y hora, puede ser null.
+     * @return La clave, o {@link #SIN_FECHA} si es null.
+     */
+    private static long clave(LocalDateTime fechaHora) {
+        if (fechaHora == null) {
+            return SIN_FECHA;
+        }
+        return fechaHora.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + fechaHora.getNano();
+    }
+}
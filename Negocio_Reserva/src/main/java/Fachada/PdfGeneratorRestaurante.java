@@ -1,6 +1,9 @@
 package Fachada;
 
+import BO.ReservaBO;
 import DTOs.ReservaDTO;
+import Excepciones.BOException;
+import Interfaces.IReservaBO;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.layout.Document;
@@ -29,6 +32,19 @@ import javax.swing.JFileChooser;
  */
 public class PdfGeneratorRestaurante {
 
+    // filas que se escriben al documento de una vez en el reporte por rango
+    private static final int FILAS_POR_BLOQUE = 500;
+
+    private final IReservaBO reservaBO;
+
+    /**
+     * Constructor que inicializa el objeto de negocio de reservas usado para
+     * leer las reservas del reporte por rango.
+     */
+    public PdfGeneratorRestaurante() {
+        this.reservaBO = new ReservaBO();
+    }
+
     /**
      * Genera un documento PDF desde un formulario con filtros específicos de
      * reservas.
@@ -51,24 +67,11 @@ public class PdfGeneratorRestaurante {
             String fechaFin, String tipoMesa, String ubicacion,
             List<ReservaDTO> reservas) {
         // Solicita al usuario la ubicación donde guardar el PDF
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Guardar PDF");
-        fileChooser.setSelectedFile(new File("Reporte_"
-                + System.currentTimeMillis() + ".pdf")); // Nombre por defecto
-
-        // Abre el diálogo de guardado y obtiene la selección del usuario
-        int userSelection = fileChooser.showSaveDialog(null);
-
-        // Verifica si el usuario seleccionó un archivo para guardar
-        if (userSelection != JFileChooser.APPROVE_OPTION) {
-            System.out.println("Guardado cancelado.");
+        File archivoDestino = solicitarArchivoDestino();
+        if (archivoDestino == null) {
             return false; // Indica que el usuario canceló la operación
         }
 
-        // Se obtiene el archivo seleccionado por el usuario y asegura la 
-        // extensión .pdf
-        File archivoDestino = obtenerArchivoPDF(fileChooser.getSelectedFile());
-
         try (PdfWriter writer = new PdfWriter(archivoDestino); PdfDocument pdf = new PdfDocument(writer); Document document = new Document(pdf)) {
 
             // Agrega título y filtros aplicados al documento
@@ -97,6 +100,104 @@ public class PdfGeneratorRestaurante {
         }
     }
 
+    /**
+     * Genera el reporte de reservas leyendo de la base de datos solo las
+     * reservas del rango de fechas, conforme se escriben al documento.
+     *
+     * A diferencia de la versión que recibe la lista, aquí las reservas no se
+     * cargan todas en memoria: se reciben una por una y la tabla se envía al
+     * PDF cada {@value #FILAS_POR_BLOQUE} filas, así que el reporte puede
+     * cubrir cualquier cantidad de reservas. Como el total ganado se conoce
+     * hasta leer la última reserva, se agrega al final del reporte.
+     *
+     * @param fechaInicio La fecha de inicio del filtro en formato "dd/MM/yyyy".
+     * @param fechaFin La fecha de fin del filtro en formato "dd/MM/yyyy".
+     * @param tipoMesa El tipo de mesa a filtrar.
+     * @param ubicacion La ubicación a filtrar.
+     * @return {@code true} si el PDF se generó correctamente, {@code false} si
+     * hubo un error o si el usuario canceló la operación.
+     */
+    public boolean generarPDFDesdeFormulario(String fechaInicio,
+            String fechaFin, String tipoMesa, String ubicacion) {
+        // Solicita al usuario la ubicación donde guardar el PDF
+        File archivoDestino = solicitarArchivoDestino();
+        if (archivoDestino == null) {
+            return false; // Indica que el usuario canceló la operación
+        }
+
+        DateTimeFormatter formatoFiltro = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        LocalDateTime inicio = LocalDate.parse(fechaInicio, formatoFiltro).atStartOfDay();
+        LocalDateTime fin = LocalDate.parse(fechaFin, formatoFiltro).atTime(23, 59);
+
+        try (PdfWriter writer = new PdfWriter(archivoDestino); PdfDocument pdf = new PdfDocument(writer); Document document = new Document(pdf)) {
+
+            // Agrega título y filtros aplicados al documento
+            agregarTituloYFiltros(document, fechaInicio, fechaFin, tipoMesa,
+                    ubicacion);
+
+            // La tabla se agrega vacía y se va llenando por bloques
+            document.add(new Paragraph("Reservas:").setFontSize(16));
+            Table table = new Table(5, true);
+            agregarEncabezados(table);
+            document.add(table);
+
+            DateTimeFormatter formatter = DateTimeFormatter.
+                    ofPattern("dd/MM/yyyy HH:mm");
+            double[] totalGanado = {0.0};
+            long[] filas = {0};
+            reservaBO.exportarReservas(inicio, fin, reserva -> {
+                // El rango de fechas ya lo aplicó la consulta
+                if (cumpleFiltrosMesa(reserva, tipoMesa, ubicacion)) {
+                    agregarFila(table, reserva, formatter);
+                    totalGanado[0] += reserva.getCosto();
+                    if (++filas[0] % FILAS_POR_BLOQUE == 0) {
+                        table.flush();
+                    }
+                }
+            });
+            table.complete();
+
+            document.add(new Paragraph("Total Ganado: $" + String.format("%.2f",
+                    totalGanado[0])).setFontSize(16));
+
+            return true; // Indica que el PDF se generó correctamente
+        } catch (FileNotFoundException e) {
+            System.err.println("Error al generar el PDF: " + e.getMessage());
+            return false; // Indica que hubo un error al generar el PDF
+        } catch (BOException e) {
+            System.err.println("Error al leer las reservas: " + e.getMessage());
+            return false; // Indica que hubo un error al generar el PDF
+        } catch (Exception e) { // Captura cualquier otra excepción
+            System.err.println("Error inesperado: " + e.getMessage());
+            return false; // Indica que hubo un error al generar el PDF
+        }
+    }
+
+    /**
+     * Muestra el diálogo para que el usuario elija dónde guardar el PDF.
+     *
+     * @return El archivo elegido, con la extensión .pdf, o {@code null} si el
+     * usuario canceló.
+     */
+    private File solicitarArchivoDestino() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Guardar PDF");
+        fileChooser.setSelectedFile(new File("Reporte_"
+                + System.currentTimeMillis() + ".pdf")); // Nombre por defecto
+
+        // Abre el diálogo de guardado y obtiene la selección del usuario
+        int userSelection = fileChooser.showSaveDialog(null);
+
+        // Verifica si el usuario seleccionó un archivo para guardar
+        if (userSelection != JFileChooser.APPROVE_OPTION) {
+            System.out.println("Guardado cancelado.");
+            return null;
+        }
+
+        // Asegura la extensión .pdf
+        return obtenerArchivoPDF(fileChooser.getSelectedFile());
+    }
+
     /**
      * Asegura que el archivo destino tenga la extensión .pdf.
      *
@@ -156,11 +257,7 @@ public class PdfGeneratorRestaurante {
     private Table crearTablaReservas(List<ReservaDTO> reservas,
             String fechaInicio, String fechaFin, String tipoMesa, String ubicacion) {
         Table table = new Table(5); // Ahora con 6 columnas
-        table.addHeaderCell(createCenteredCell("Cliente"));
-        table.addHeaderCell(createCenteredCell("Fecha"));
-        table.addHeaderCell(createCenteredCell("Número de Personas"));
-        table.addHeaderCell(createCenteredCell("Tipo de Mesa"));
-        table.addHeaderCell(createCenteredCell("Ubicación"));
+        agregarEncabezados(table);
 
         // Formateador para fechas
         DateTimeFormatter formatter = DateTimeFormatter.
@@ -170,16 +267,41 @@ public class PdfGeneratorRestaurante {
         for (ReservaDTO reserva : reservas) {
             // Filtrar reservas directamente durante la adición al PDF
             if (filtrarReserva(reserva, fechaInicio, fechaFin, tipoMesa, ubicacion)) {
-                table.addCell(createCenteredCell(reserva.getCliente().getNombre()));
-                table.addCell(createCenteredCell(reserva.getFechaHoraReserva().format(formatter)));
-                table.addCell(createCenteredCell(String.valueOf(reserva.getNumeroPersonas())));
-                table.addCell(createCenteredCell(reserva.getMesa().getTipoMesa()));
-                table.addCell(createCenteredCell(reserva.getMesa().getUbicacion()));
+                agregarFila(table, reserva, formatter);
             }
         }
         return table;
     }
 
+    /**
+     * Agrega los encabezados de las columnas a la tabla de reservas.
+     *
+     * @param table La tabla de reservas.
+     */
+    private void agregarEncabezados(Table table) {
+        table.addHeaderCell(createCenteredCell("Cliente"));
+        table.addHeaderCell(createCenteredCell("Fecha"));
+        table.addHeaderCell(createCenteredCell("Número de Personas"));
+        table.addHeaderCell(createCenteredCell("Tipo de Mesa"));
+        table.addHeaderCell(createCenteredCell("Ubicación"));
+    }
+
+    /**
+     * Agrega a la tabla la fila de una reserva.
+     *
+     * @param table La tabla de reservas.
+     * @param reserva La reserva a agregar.
+     * @param formatter Formateador para la fecha de la reserva.
+     */
+    private void agregarFila(Table table, ReservaDTO reserva,
+            DateTimeFormatter formatter) {
+        table.addCell(createCenteredCell(reserva.getCliente().getNombre()));
+        table.addCell(createCenteredCell(reserva.getFechaHoraReserva().format(formatter)));
+        table.addCell(createCenteredCell(String.valueOf(reserva.getNumeroPersonas())));
+        table.addCell(createCenteredCell(reserva.getMesa().getTipoMesa()));
+        table.addCell(createCenteredCell(reserva.getMesa().getUbicacion()));
+    }
+
     /**
      * Crea una celda centrada para una tabla en el documento PDF.
      *
@@ -227,11 +349,25 @@ public class PdfGeneratorRestaurante {
      * de lo contrario.
      */
     private boolean filtrarReserva(ReservaDTO reserva, String fechaInicio, String fechaFin, String tipoMesa, String ubicacion) {
-        boolean fechaValida = validarFechas(reserva, fechaInicio, fechaFin);
+        return validarFechas(reserva, fechaInicio, fechaFin)
+                && cumpleFiltrosMesa(reserva, tipoMesa, ubicacion);
+    }
+
+    /**
+     * Verifica si la mesa de la reserva coincide con el tipo de mesa y la
+     * ubicación indicados. Un filtro vacío acepta cualquier valor.
+     *
+     * @param reserva El objeto {@code ReservaDTO} que se evaluará.
+     * @param tipoMesa El tipo de mesa a filtrar.
+     * @param ubicacion La ubicación a filtrar.
+     * @return {@code true} si la mesa cumple con ambos filtros.
+     */
+    private boolean cumpleFiltrosMesa(ReservaDTO reserva, String tipoMesa,
+            String ubicacion) {
         boolean tipoMesaValido = tipoMesa.isEmpty() || reserva.getMesa().getTipoMesa().equalsIgnoreCase(tipoMesa);
         boolean ubicacionValida = ubicacion.isEmpty() || reserva.getMesa().getUbicacion().equalsIgnoreCase(ubicacion);
 
-        return fechaValida && tipoMesaValido && ubicacionValida;
+        return tipoMesaValido && ubicacionValida;
     }
 
     /**
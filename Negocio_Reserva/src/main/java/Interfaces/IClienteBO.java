@@ -45,4 +45,14 @@ public interface IClienteBO {
      */
     void insercionMasivaClientes(List<ClienteDTO> clientes) throws NegocioException;
 
+    /**
+     * Busca un cliente por su teléfono mediante el indice ciego, sin cargar
+     * ni descifrar a los demás clientes.
+     *
+     * @param telefono Teléfono del cliente en texto plano.
+     * @return El cliente encontrado o {@code null} si no existe.
+     * @throws BOException En caso de error en la capa de datos.
+     */
+    public ClienteDTO obtenerClientePorTelefono(String telefono) throws BOException;
+
 }
@@ -5,12 +5,17 @@
 package Interfaces;
 
 import DTOs.ClienteDTO;
+import DTOs.DireccionPagina;
 import DTOs.MesaDTO;
+import DTOs.PaginaDTO;
 import DTOs.ReservaDTO;
+import DTOs.ReservaFilaDTO;
 import Excepciones.BOException;
+import Filtros.FiltroReserva;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interfaz que define las operaciones básicas para la gestión de reservas en 
@@ -30,6 +35,41 @@ public interface IReservaBO {
      */
     public void agregarReserva(ReservaDTO reserva) throws BOException;
     
+    /**
+     * Valida y registra una reserva en una sola transacción, informando de
+     * una sola vez todas las reglas que no se cumplen.
+     * 
+     * @param cliente El cliente que realiza la reserva.
+     * @param mesa La mesa que se reserva.
+     * @param fechaHora La fecha y hora de la reserva.
+     * @param numPersonas El número de personas.
+     * @param costo El costo de la reserva.
+     * @return La reserva registrada, con su id.
+     * @throws Excepciones.BOException Si la reserva no es válida, con un 
+     *         error por línea, o si falla la capa de datos.
+     */
+    public ReservaDTO reservar(ClienteDTO cliente, MesaDTO mesa, 
+            LocalDateTime fechaHora, int numPersonas, double costo) 
+            throws BOException;
+
+    /**
+     * Revisa las reglas de una reserva sin guardarla y sin bloquear la mesa,
+     * para avisar de los errores antes de pedir la confirmación del usuario.
+     * No reemplaza la validación de {@link #reservar}, que se repite con la
+     * mesa bloqueada.
+     * 
+     * @param cliente El cliente que realiza la reserva.
+     * @param mesa La mesa que se reserva.
+     * @param fechaHora La fecha y hora de la reserva.
+     * @param numPersonas El número de personas.
+     * @return Los mensajes de los errores encontrados; vacía si la reserva
+     *         es válida por ahora.
+     * @throws Excepciones.BOException Si faltan datos o si falla la capa de
+     *         datos.
+     */
+    public List<String> validarReserva(ClienteDTO cliente, MesaDTO mesa,
+            LocalDateTime fechaHora, int numPersonas) throws BOException;
+    
     /**
      * Consulta y recupera una lista de reservas en un rango de fechas 
      * específico.
@@ -98,6 +138,51 @@ public interface IReservaBO {
      */
     public List<ReservaDTO> obtenerReservas() throws BOException;
     
+    /**
+     * Cuenta las reservas registradas, de cualquier estado.
+     * 
+     * @return El número de reservas.
+     * @throws BOException Si ocurre un error en la base de datos.
+     */
+    public long contarReservas() throws BOException;
+    
+    /**
+     * Obtiene las filas para las tablas de reservas (mesa, fecha, tipo, 
+     * ubicación y cliente), sin cargar las reservas completas.
+     * 
+     * @return Lista de filas ordenadas por fecha y hora.
+     * @throws BOException Si falla la capa de datos.
+     */
+    public List<ReservaFilaDTO> obtenerFilasReservas() throws BOException;
+    
+    /**
+     * Obtiene una página de reservas en orden de fecha y hora, avanzando o 
+     * retrocediendo desde el cursor de una página previa.
+     * 
+     * @param cursor Cursor de una página previa, o null para empezar por la 
+     *        primera (SIGUIENTE) o la última (ANTERIOR) página.
+     * @param direccion Dirección en la que se avanza desde el cursor.
+     * @param tamano Número de reservas por página (de 1 a 500).
+     * @return La página de reservas con los cursores de sus vecinas.
+     * @throws BOException Si el cursor no es válido o falla la capa de datos.
+     */
+    public PaginaDTO<ReservaDTO> obtenerReservasPaginadas(String cursor,
+            DireccionPagina direccion, int tamano) throws BOException;
+    
+    /**
+     * Entrega al consumidor, una por una y en orden de fecha y hora, las 
+     * reservas de un rango de fechas sin cargarlas todas en memoria. Pensado 
+     * para reportes y exportaciones de rangos grandes.
+     * 
+     * @param inicio Fecha y hora de inicio del rango (inclusiva).
+     * @param fin Fecha y hora de fin del rango (inclusiva).
+     * @param consumidor Recibe cada reserva convertida a DTO.
+     * @return Número de reservas entregadas.
+     * @throws BOException Si el rango no es válido o falla la capa de datos.
+     */
+    public long exportarReservas(LocalDateTime inicio, LocalDateTime fin,
+            Consumer<ReservaDTO> consumidor) throws BOException;
+    
     
     /**
      * Buscar por nombre por nombre y intervalo de fechas, esta la opcion de
@@ -113,6 +198,16 @@ public interface IReservaBO {
     public List<ReservaDTO> buscarReservas(String nombre, LocalDateTime inicio, 
             LocalDateTime fin) throws BOException;
     
+    /**
+     * Busca las reservas que cumplen un filtro, en el orden y con el límite 
+     * del filtro, con una sola consulta a la base de datos.
+     * 
+     * @param filtro criterios, orden y página de la búsqueda.
+     * @return lista de reservas filtradas
+     * @throws Excepciones.BOException En caso de error en capas inferiores
+     */
+    public List<ReservaDTO> buscarReservas(FiltroReserva filtro) throws BOException;
+    
     /**
      * Actualiza la reserva dada en el parametro.
      * 
@@ -122,4 +217,27 @@ public interface IReservaBO {
      */
     public void actualizarReserva(ReservaDTO reservaDTO) throws BOException;
     
+
+    /**
+     * Indica, sin consultar la base de datos, si una mesa está libre a una
+     * fecha y hora.
+     * 
+     * @param mesa La mesa a consultar.
+     * @param dia La fecha y hora deseada.
+     * @return true si la mesa está libre según el índice de disponibilidad.
+     * @throws BOException En caso de error al cargar el índice.
+     */
+    public boolean mesaLibre(MesaDTO mesa, LocalDateTime dia) throws BOException;
+    
+    /**
+     * Obtiene, sin consultar la base de datos, las mesas con capacidad para
+     * el número de personas dado que están libres a una fecha y hora.
+     * 
+     * @param numPersonas El número de personas.
+     * @param dia La fecha y hora deseada.
+     * @return Las mesas libres que admiten ese número de personas.
+     * @throws BOException En caso de error al cargar el índice.
+     */
+    public List<MesaDTO> mesasLibres(int numPersonas, LocalDateTime dia) 
+            throws BOException;
 }
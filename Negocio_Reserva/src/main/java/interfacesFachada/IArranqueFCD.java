@@ -0,0 +1,26 @@
+package interfacesFachada;
+
+import Excepciones.FacadeException;
+
+/**
+ * Interfaz para las tareas que se realizan al iniciar la aplicación.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public interface IArranqueFCD {
+
+    /**
+     * Prepara la capa de persistencia (fábrica, metadatos, consultas y
+     * conexiones) para que la primera pantalla no tenga que esperar por ella.
+     * Debe llamarse fuera del hilo de eventos de Swing.
+     *
+     * @throws FacadeException si no se pudo preparar la persistencia.
+     */
+    void prepararPersistencia() throws FacadeException;
+
+    /**
+     * Lanza {@link #prepararPersistencia()} en un hilo en segundo plano y
+     * regresa de inmediato.
+     */
+    void prepararPersistenciaEnSegundoPlano();
+}
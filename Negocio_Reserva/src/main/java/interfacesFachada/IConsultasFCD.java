@@ -5,6 +5,7 @@
 package interfacesFachada;
 
 import DTOs.ReservaDTO;
+import Filtros.FiltroReserva;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -15,13 +16,22 @@ import java.util.List;
  *
  * <p>
  * Implementaciones de esta interfaz deben proporcionar la lógica necesaria para
- * realizar las consultas sobre una lista de reservas.
+ * realizar las consultas, en la base de datos o sobre una lista de reservas.
  * </p>
  *
  * @author Sebastian Murrieta Verduzco - 233463
  */
 public interface IConsultasFCD {
 
+    /**
+     * Consulta las reservas que cumplen un filtro, en el orden y con el
+     * límite del filtro.
+     *
+     * @param filtro Criterios, orden y página de la consulta.
+     * @return Lista de reservas que cumplen el filtro.
+     */
+    List<ReservaDTO> consultar(FiltroReserva filtro);
+
     /**
      * Consulta reservas en un rango de fechas especificado.
      *
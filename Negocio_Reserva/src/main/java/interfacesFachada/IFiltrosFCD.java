@@ -1,6 +1,7 @@
 package interfacesFachada;
 
 import DTOs.ReservaDTO;
+import Filtros.FiltroReserva;
 
 import java.util.Date;
 import java.util.List;
@@ -36,6 +37,15 @@ public interface IFiltrosFCD {
      */
     List<ReservaDTO> filtrarReservasPorMesaUbicacionFecha(String tipoMesa, String ubicacion, String fechaInicio, String fechaFin);
 
+    /**
+     * Busca las reservas que cumplen un filtro, en el orden y con el límite
+     * del filtro.
+     *
+     * @param filtro Criterios, orden y página de la búsqueda
+     * @return Lista filtrada de reservas
+     */
+    List<ReservaDTO> buscarReservas(FiltroReserva filtro);
+
     /**
      * Refresca la lista de reservas desde la base de datos.
      *
@@ -43,4 +53,20 @@ public interface IFiltrosFCD {
      * reservas
      */
     void refrescarReservas() throws Excepciones.BOException;
+
+    /**
+     * Registra una acción que se ejecuta cuando cambian las reservas que se
+     * filtran, para volver a filtrar. Se llama desde el hilo que leyó los
+     * cambios, no desde el hilo de eventos de Swing.
+     *
+     * @param oyente Acción a ejecutar
+     */
+    void agregarOyente(Runnable oyente);
+
+    /**
+     * Quita una acción registrada con {@link #agregarOyente(Runnable)}.
+     *
+     * @param oyente Acción a quitar
+     */
+    void quitarOyente(Runnable oyente);
 }
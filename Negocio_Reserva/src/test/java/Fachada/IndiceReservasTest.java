@@ -0,0 +1,387 @@
+package Fachada;
+
+import DTOs.ClienteDTO;
+import DTOs.MesaDTO;
+import DTOs.ReservaDTO;
+import Filtros.FiltroReserva;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de {@link IndiceReservas}: cada búsqueda se compara con un filtro
+ * lineal que revisa reserva por reserva las reglas de
+ * {@link IndiceReservas#buscar(FiltroReserva)}, sobre listas aleatorias con
+ * mesas y clientes nulos, nombres cortos y fechas repetidas. Las semillas son
+ * fijas; el mensaje de cada falla indica con cuál se repite.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class IndiceReservasTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    private static final String[] SILABAS = {"a", "na", "lu", "is", "ma", "ri", "o", "je", "sús", "Bo"};
+
+    private static final String[] TIPOS = {"PEQUEÑA", "MEDIANA", "Grande"};
+
+    private static final String[] UBICACIONES = {"TERRAZA", "Ventana", "general"};
+
+    private static final String[] ESTADOS = {"ACTIVA", "CANCELADA", "activa"};
+
+    @Test
+    public void buscarCoincideConElFiltroLineal() {
+        for (long semilla = 1; semilla <= 40; semilla++) {
+            Random azar = new Random(semilla);
+            Datos datos = new Datos(azar);
+            List<ReservaDTO> reservas = datos.reservas(300);
+            IndiceReservas indice = new IndiceReservas(reservas);
+            for (int i = 0; i < 100; i++) {
+                FiltroReserva filtro = datos.filtro(reservas);
+                assertEquals(filtrar(reservas, filtro), indice.buscar(filtro),
+                        "semilla " + semilla + ", filtro " + filtro);
+            }
+        }
+    }
+
+    @Test
+    public void conCambiosReemplazadasYAgregadasCoincideConElFiltroLineal() {
+        for (long semilla = 1; semilla <= 40; semilla++) {
+            Random azar = new Random(semilla);
+            Datos datos = new Datos(azar);
+            List<ReservaDTO> reservas = datos.reservas(300);
+            IndiceReservas indice = new IndiceReservas(reservas);
+
+            // Dos rondas de cambios: la segunda se suma a la primera
+            for (int ronda = 0; ronda < 2; ronda++) {
+                List<ReservaDTO> actuales = new ArrayList<>(reservas);
+                TreeSet<Integer> posiciones = new TreeSet<>();
+                for (int i = 0; i < 20; i++) {
+                    int posicion = azar.nextInt(actuales.size());
+                    actuales.set(posicion, datos.reserva(posicion));
+                    posiciones.add(posicion);
+                }
+                for (int i = 0; i < 15; i++) {
+                    posiciones.add(actuales.size());
+                    actuales.add(datos.reserva(actuales.size()));
+                }
+                indice = indice.conCambios(actuales, arreglo(posiciones));
+                reservas = actuales;
+
+                for (int i = 0; i < 100; i++) {
+                    FiltroReserva filtro = datos.filtro(reservas);
+                    assertEquals(filtrar(reservas, filtro), indice.buscar(filtro),
+                            "semilla " + semilla + ", ronda " + ronda + ", filtro " + filtro);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void conCambiosQueObliganAReconstruirCoincideConElFiltroLineal() {
+        Random azar = new Random(7);
+        Datos datos = new Datos(azar);
+        List<ReservaDTO> reservas = datos.reservas(3_000);
+        IndiceReservas indice = new IndiceReservas(reservas);
+
+        // Más cambios de los que se revisan uno por uno
+        List<ReservaDTO> actuales = new ArrayList<>(reservas);
+        int[] posiciones = new int[1_100];
+        for (int i = 0; i < posiciones.length; i++) {
+            posiciones[i] = i * 2;
+            actuales.set(i * 2, datos.reserva(i * 2));
+        }
+        indice = indice.conCambios(actuales, posiciones);
+
+        for (int i = 0; i < 200; i++) {
+            FiltroReserva filtro = datos.filtro(actuales);
+            assertEquals(filtrar(actuales, filtro), indice.buscar(filtro), "filtro " + filtro);
+        }
+    }
+
+    @Test
+    public void reservasSinMesaOSinClienteSoloCumplenLosCriteriosQueNoLosUsan() {
+        ClienteDTO ana = cliente("1", "Ana");
+        ClienteDTO sinNombre = cliente("2", null);
+        MesaDTO mesa = mesa("MEDIANA", "TERRAZA", 3, 4);
+        ReservaDTO completa = reserva("1", INICIO, ana, mesa);
+        ReservaDTO sinMesa = reserva("2", INICIO, ana, null);
+        ReservaDTO sinCliente = reserva("3", INICIO, null, mesa);
+        ReservaDTO clienteSinNombre = reserva("4", INICIO, sinNombre, mesa);
+        List<ReservaDTO> reservas = List.of(completa, sinMesa, sinCliente, clienteSinNombre);
+        IndiceReservas indice = new IndiceReservas(reservas);
+
+        FiltroReserva porTipo = new FiltroReserva();
+        porTipo.setTipoMesa("mediana");
+        assertEquals(List.of(completa, sinCliente, clienteSinNombre), indice.buscar(porTipo));
+
+        FiltroReserva porCapacidad = new FiltroReserva();
+        porCapacidad.setCapacidad(4);
+        assertEquals(List.of(completa, sinCliente, clienteSinNombre), indice.buscar(porCapacidad));
+
+        FiltroReserva porNombre = new FiltroReserva();
+        porNombre.setNombreCliente("an");
+        assertEquals(List.of(completa, sinMesa), indice.buscar(porNombre));
+
+        FiltroReserva porCliente = new FiltroReserva();
+        porCliente.setIdCliente(2L);
+        assertEquals(List.of(clienteSinNombre), indice.buscar(porCliente));
+
+        FiltroReserva porFecha = new FiltroReserva();
+        porFecha.setDesde(INICIO);
+        porFecha.setHasta(INICIO);
+        assertEquals(reservas, indice.buscar(porFecha));
+        assertEquals(reservas, indice.buscar(new FiltroReserva()));
+    }
+
+    @Test
+    public void nombresDeUnaODosLetrasSeBuscanSinTrigramas() {
+        ReservaDTO bo = reserva("1", INICIO, cliente("1", "Bo"), null);
+        ReservaDTO ana = reserva("2", INICIO, cliente("2", "Ana"), null);
+        ReservaDTO o = reserva("3", INICIO, cliente("3", "O"), null);
+        ReservaDTO luisa = reserva("4", INICIO, cliente("4", "LUISA"), null);
+        IndiceReservas indice = new IndiceReservas(List.of(bo, ana, o, luisa));
+
+        assertEquals(List.of(bo, o), buscarNombre(indice, "o"));
+        assertEquals(List.of(bo), buscarNombre(indice, "BO"));
+        assertEquals(List.of(ana, luisa), buscarNombre(indice, "a"));
+        assertEquals(List.of(ana), buscarNombre(indice, "an"));
+        assertEquals(List.of(luisa), buscarNombre(indice, "sa"));
+        assertEquals(List.of(), buscarNombre(indice, "x"));
+        // Un nombre vacío no filtra
+        assertEquals(List.of(bo, ana, o, luisa), buscarNombre(indice, ""));
+    }
+
+    /**
+     * Busca por nombre de cliente.
+     *
+     * @param indice Índice en el que se busca.
+     * @param nombre Texto contenido en el nombre.
+     * @return Las reservas encontradas.
+     */
+    private static List<ReservaDTO> buscarNombre(IndiceReservas indice, String nombre) {
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setNombreCliente(nombre);
+        return indice.buscar(filtro);
+    }
+
+    /**
+     * Filtra las reservas una por una con las reglas del índice, sin
+     * índices.
+     *
+     * @param reservas Reservas a filtrar.
+     * @param filtro Filtro a aplicar.
+     * @return Las reservas que lo cumplen, en el orden de la lista o del
+     * filtro y con su límite.
+     */
+    private static List<ReservaDTO> filtrar(List<ReservaDTO> reservas, FiltroReserva filtro) {
+        String nombre = filtro.getNombreCliente();
+        String texto = nombre == null || nombre.isEmpty() ? null : nombre.toLowerCase();
+        List<ReservaDTO> encontradas = reservas.stream().filter(reserva -> {
+            ClienteDTO cliente = reserva.getCliente();
+            MesaDTO mesa = reserva.getMesa();
+            LocalDateTime fecha = reserva.getFechaHoraReserva();
+            return (texto == null || (cliente != null && cliente.getNombre() != null
+                    && cliente.getNombre().toLowerCase().contains(texto)))
+                    && (filtro.getIdCliente() == null || (cliente != null
+                    && String.valueOf(filtro.getIdCliente()).equals(cliente.getId())))
+                    && (vacio(filtro.getTipoMesa()) || (mesa != null
+                    && filtro.getTipoMesa().equalsIgnoreCase(mesa.getTipoMesa())))
+                    && (vacio(filtro.getUbicacion()) || (mesa != null
+                    && filtro.getUbicacion().equalsIgnoreCase(mesa.getUbicacion())))
+                    && (filtro.getDesde() == null || (fecha != null && !fecha.isBefore(filtro.getDesde())))
+                    && (filtro.getHasta() == null || (fecha != null && !fecha.isAfter(filtro.getHasta())))
+                    && (vacio(filtro.getEstado()) || filtro.getEstado().equalsIgnoreCase(reserva.getEstado()))
+                    && (filtro.getCapacidad() == null || (mesa != null
+                    && mesa.getCapacidadMinima() <= filtro.getCapacidad()
+                    && mesa.getCapacidadMaxima() >= filtro.getCapacidad()));
+        }).collect(Collectors.toList());
+
+        if (filtro.getOrden() != null) {
+            Comparator<ReservaDTO> orden = Comparator
+                    .comparing((ReservaDTO r) -> r.getFechaHoraReserva(),
+                            Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparingLong(r -> Long.parseLong(r.getId()));
+            boolean ascendente = filtro.getOrden() == FiltroReserva.Orden.FECHA_ASCENDENTE;
+            if (!ascendente) {
+                orden = orden.reversed();
+            }
+            if (filtro.tieneCursor()) {
+                ReservaDTO cursor = reserva(String.valueOf(filtro.getDespuesDeId()),
+                        filtro.getDespuesDeFecha(), null, null);
+                Comparator<ReservaDTO> comparador = orden;
+                encontradas.removeIf(r -> r.getFechaHoraReserva() == null
+                        || comparador.compare(r, cursor) <= 0);
+            }
+            encontradas.sort(orden);
+        }
+        if (filtro.getLimite() != null && encontradas.size() > filtro.getLimite()) {
+            encontradas = new ArrayList<>(encontradas.subList(0, filtro.getLimite()));
+        }
+        return encontradas;
+    }
+
+    private static boolean vacio(String valor) {
+        return valor == null || valor.isEmpty();
+    }
+
+    private static int[] arreglo(TreeSet<Integer> posiciones) {
+        return posiciones.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static ClienteDTO cliente(String id, String nombre) {
+        return new ClienteDTO(id, nombre, null, null);
+    }
+
+    private static MesaDTO mesa(String tipo, String ubicacion, int minima, int maxima) {
+        return new MesaDTO(tipo + "-" + ubicacion, tipo, minima, maxima, ubicacion);
+    }
+
+    private static ReservaDTO reserva(String id, LocalDateTime fecha, ClienteDTO cliente,
+            MesaDTO mesa) {
+        return new ReservaDTO(id, fecha, 2, 100.0, "ACTIVA", cliente, mesa, null);
+    }
+
+    /**
+     * Reservas y filtros aleatorios. Las reservas comparten unas pocas mesas
+     * y clientes, como las que se convierten juntas, y las fechas se repiten.
+     */
+    private static final class Datos {
+
+        private final Random azar;
+        private final List<MesaDTO> mesas = new ArrayList<>();
+        private final List<ClienteDTO> clientes = new ArrayList<>();
+        private int siguienteId;
+
+        Datos(Random azar) {
+            this.azar = azar;
+            for (String tipo : TIPOS) {
+                for (String ubicacion : UBICACIONES) {
+                    int minima = 1 + azar.nextInt(4);
+                    mesas.add(mesa(tipo, ubicacion, minima, minima + azar.nextInt(4)));
+                }
+            }
+            for (int i = 0; i < 40; i++) {
+                clientes.add(cliente(String.valueOf(i + 1), i % 13 == 0 ? null : nombre()));
+            }
+        }
+
+        private String nombre() {
+            StringBuilder nombre = new StringBuilder();
+            int silabas = 1 + azar.nextInt(3);
+            for (int i = 0; i < silabas; i++) {
+                nombre.append(SILABAS[azar.nextInt(SILABAS.length)]);
+            }
+            return azar.nextBoolean() ? nombre.toString().toUpperCase() : nombre.toString();
+        }
+
+        List<ReservaDTO> reservas(int cantidad) {
+            List<ReservaDTO> reservas = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                reservas.add(reserva(i));
+            }
+            return reservas;
+        }
+
+        /**
+         * Crea una reserva aleatoria; a veces sin mesa, sin cliente o sin
+         * fecha.
+         *
+         * @param posicion Posición de la reserva en la lista.
+         * @return La reserva.
+         */
+        ReservaDTO reserva(int posicion) {
+            LocalDateTime fecha = azar.nextInt(40) == 0 ? null
+                    : INICIO.plusHours(azar.nextInt(60));
+            ClienteDTO cliente = azar.nextInt(25) == 0 ? null
+                    : clientes.get(azar.nextInt(clientes.size()));
+            MesaDTO mesa = azar.nextInt(25) == 0 ? null : mesas.get(azar.nextInt(mesas.size()));
+            ReservaDTO reserva = IndiceReservasTest.reserva(String.valueOf(++siguienteId),
+                    fecha, cliente, mesa);
+            reserva.setEstado(ESTADOS[azar.nextInt(ESTADOS.length)]);
+            return reserva;
+        }
+
+        /**
+         * Crea un filtro con algunos criterios al azar. Los valores salen casi
+         * siempre de las reservas, con otras mayúsculas, para que encuentre
+         * algo.
+         *
+         * @param reservas Reservas de las que se toman los valores.
+         * @return El filtro.
+         */
+        FiltroReserva filtro(List<ReservaDTO> reservas) {
+            ReservaDTO modelo = reservas.get(azar.nextInt(reservas.size()));
+            FiltroReserva filtro = new FiltroReserva();
+            if (azar.nextInt(3) == 0) {
+                filtro.setNombreCliente(textoDeNombre(modelo.getCliente()));
+            }
+            if (azar.nextInt(6) == 0 && modelo.getCliente() != null) {
+                filtro.setIdCliente(Long.valueOf(modelo.getCliente().getId()));
+            }
+            if (azar.nextInt(4) == 0) {
+                filtro.setTipoMesa(variar(TIPOS[azar.nextInt(TIPOS.length)]));
+            }
+            if (azar.nextInt(4) == 0) {
+                filtro.setUbicacion(variar(UBICACIONES[azar.nextInt(UBICACIONES.length)]));
+            }
+            if (azar.nextInt(3) == 0) {
+                filtro.setDesde(INICIO.plusHours(azar.nextInt(60)));
+            }
+            if (azar.nextInt(3) == 0) {
+                filtro.setHasta(INICIO.plusHours(azar.nextInt(60)));
+            }
+            if (azar.nextInt(5) == 0) {
+                filtro.setEstado(variar(ESTADOS[azar.nextInt(ESTADOS.length)]));
+            }
+            if (azar.nextInt(5) == 0) {
+                filtro.setCapacidad(1 + azar.nextInt(8));
+            }
+            if (azar.nextBoolean()) {
+                filtro.setOrden(azar.nextBoolean() ? FiltroReserva.Orden.FECHA_ASCENDENTE
+                        : FiltroReserva.Orden.FECHA_DESCENDENTE);
+                if (azar.nextInt(3) == 0 && modelo.getFechaHoraReserva() != null) {
+                    filtro.setDespuesDe(modelo.getFechaHoraReserva(), Long.valueOf(modelo.getId()));
+                }
+                if (azar.nextInt(3) == 0) {
+                    filtro.setLimite(1 + azar.nextInt(50));
+                }
+            }
+            return filtro;
+        }
+
+        /**
+         * Toma un pedazo de una a cinco letras del nombre del cliente, o un
+         * texto que ningún nombre tiene.
+         *
+         * @param cliente Cliente del que se toma el nombre, puede ser null.
+         * @return El texto a buscar.
+         */
+        private String textoDeNombre(ClienteDTO cliente) {
+            if (cliente == null || cliente.getNombre() == null || azar.nextInt(10) == 0) {
+                return azar.nextBoolean() ? "xyz" : "q";
+            }
+            String nombre = cliente.getNombre();
+            int largo = Math.min(nombre.length(), 1 + azar.nextInt(5));
+            int inicio = azar.nextInt(nombre.length() - largo + 1);
+            return variar(nombre.substring(inicio, inicio + largo));
+        }
+
+        private String variar(String texto) {
+            switch (azar.nextInt(3)) {
+                case 0:
+                    return texto.toLowerCase();
+                case 1:
+                    return texto.toUpperCase();
+                default:
+                    return texto;
+            }
+        }
+    }
+}
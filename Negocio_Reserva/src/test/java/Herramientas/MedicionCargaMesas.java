@@ -0,0 +1,134 @@
+package Herramientas;
+
+import Conexion.Conexion;
+import DAO.MesaDAO;
+import DAO.RestauranteDAO;
+import Entidades.Mesa;
+import Entidades.Restaurante;
+import Excepciones.ConexionException;
+import Excepciones.DAOException;
+import Excepciones.FacadeException;
+import Fachada.MesaFCD;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JTable;
+
+/**
+ * Medición de la carga de la tabla de mesas con
+ * {@link MesaFCD#cargarTablaMesas}. Guarda mesas de prueba y compara la carga
+ * con la caché compartida de EclipseLink vacía antes de cada vuelta (las
+ * mesas y la consulta {@code Mesa.obtenerTodas} se leen de la base de datos)
+ * con la carga con la caché llena, que es la de la pantalla después de la
+ * primera vez. Al final escribe el resumen de la caché compartida.
+ *
+ * Cada medición se repite después de un calentamiento y se reporta la mejor
+ * vuelta. Deja las mesas de prueba en la base de datos, por lo que solo corre
+ * contra la base embebida, salvo que se confirme con
+ * {@code -Dreservasys.medicion.confirmar=true} (usar una base desechable):
+ * <pre>
+ * mvn test-compile exec:java -Dreservasys.medicion.confirmar=true \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionCargaMesas -Dexec.args="200 2000"
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionCargaMesas {
+
+    private static final int CALENTAMIENTO = 5;
+
+    private static final int VUELTAS = 10;
+
+    // Evita que la JVM descarte las tablas medidas
+    private static int filas;
+
+    /**
+     * Carga medida de la tabla.
+     */
+    @FunctionalInterface
+    private interface Carga {
+
+        void cargar() throws FacadeException;
+    }
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidades de mesas a cargar (por omisión 200 y 2000).
+     * @throws DAOException si no se pueden guardar las mesas.
+     * @throws FacadeException si falla la carga de la tabla.
+     * @throws ConexionException si no se puede cerrar la conexión.
+     */
+    public static void main(String[] args) throws DAOException, FacadeException,
+            ConexionException {
+        int[] cantidades = args.length > 0 ? new int[args.length] : new int[]{200, 2_000};
+        for (int i = 0; i < args.length; i++) {
+            cantidades[i] = Integer.parseInt(args[i]);
+        }
+
+        if (!"embebida".equals(System.getProperty("reservasys.entorno"))
+                && !Boolean.getBoolean("reservasys.medicion.confirmar")) {
+            throw new IllegalStateException("La medición deja datos de prueba en la "
+                    + "base de datos; use la base embebida o confirme con "
+                    + "-Dreservasys.medicion.confirmar=true");
+        }
+
+        // Prefijo único para poder repetir la medición sobre la misma base
+        String corrida = Long.toString(System.currentTimeMillis(), 36);
+        try {
+            Restaurante restaurante = new Restaurante("Restaurante " + corrida,
+                    "Sin dirección", "0000000000", LocalTime.of(8, 0), LocalTime.of(23, 0));
+            new RestauranteDAO().agregar(restaurante);
+
+            MesaFCD mesaFCD = new MesaFCD();
+            JTable tabla = new JTable();
+            int guardadas = 0;
+            for (int cantidad : cantidades) {
+                List<Mesa> mesas = new ArrayList<>();
+                for (int i = guardadas; i < cantidad; i++) {
+                    mesas.add(new Mesa(corrida + "-" + i, "MEDIANA", 1, 4, "TERRAZA",
+                            restaurante));
+                }
+                if (!mesas.isEmpty()) {
+                    new MesaDAO().agregarMesas(mesas);
+                    guardadas = cantidad;
+                }
+
+                medir("caché vacía", tabla, () -> {
+                    Conexion.invalidarCache(Mesa.class);
+                    Conexion.invalidarCache(Restaurante.class);
+                    mesaFCD.cargarTablaMesas(tabla);
+                });
+                medir("caché llena", tabla, () -> mesaFCD.cargarTablaMesas(tabla));
+            }
+            System.out.println(Conexion.estadisticasCache());
+        } finally {
+            Conexion.closeEntityManagerFactory();
+        }
+    }
+
+    /**
+     * Mide una carga de la tabla y escribe el mejor tiempo y las filas.
+     *
+     * @param nombre Nombre de la carga.
+     * @param tabla Tabla que se carga.
+     * @param carga Carga a medir.
+     * @throws FacadeException si la carga falla.
+     */
+    private static void medir(String nombre, JTable tabla, Carga carga)
+            throws FacadeException {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            carga.cargar();
+        }
+        long mejorTiempo = Long.MAX_VALUE;
+        for (int i = 0; i < VUELTAS; i++) {
+            long inicio = System.nanoTime();
+            carga.cargar();
+            mejorTiempo = Math.min(mejorTiempo, System.nanoTime() - inicio);
+        }
+        filas = tabla.getModel().getRowCount();
+        System.out.printf("cargarTablaMesas, %-12s %,7d mesas %9.3f ms%n", nombre, filas,
+                mejorTiempo / 1e6);
+    }
+}
@@ -0,0 +1,151 @@
+package Herramientas;
+
+import Convertidores.ReservaCVR;
+import DTOs.ReservaDTO;
+import Entidades.Cliente;
+import Entidades.Mesa;
+import Entidades.Reserva;
+import Entidades.Restaurante;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Medición de la conversión de reservas a DTO con {@link ReservaCVR}. Compara
+ * la conversión reserva por reserva ({@link ReservaCVR#toDTO}) con la
+ * conversión por lotes ({@link ReservaCVR#toDTOs}) sobre reservas creadas en
+ * memoria, sin base de datos, y escribe para cada una el tiempo, los bytes
+ * asignados por reserva y cuántos ClienteDTO, MesaDTO y RestauranteDTO
+ * distintos quedan.
+ *
+ * Cada medición se repite después de un calentamiento y se reporta la mejor
+ * vuelta; los bytes asignados se leen del contador del hilo de la JVM:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionConversion -Dexec.args="10000 100000"
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionConversion {
+
+    private static final int MESAS = 60;
+
+    private static final int CLIENTES = 5_000;
+
+    private static final int CALENTAMIENTO = 5;
+
+    private static final int VUELTAS = 10;
+
+    // Contador de bytes asignados por hilo de la JVM
+    private static final com.sun.management.ThreadMXBean HILOS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Evita que la JVM descarte las conversiones medidas
+    private static List<ReservaDTO> resultado;
+
+    /**
+     * Forma de convertir la lista de reservas.
+     */
+    @FunctionalInterface
+    private interface Conversion {
+
+        List<ReservaDTO> convertir(List<Reserva> reservas);
+    }
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidades de reservas a convertir (por omisión 10000 y
+     * 100000).
+     */
+    public static void main(String[] args) {
+        int[] cantidades = args.length > 0 ? new int[args.length] : new int[]{10_000, 100_000};
+        for (int i = 0; i < args.length; i++) {
+            cantidades[i] = Integer.parseInt(args[i]);
+        }
+
+        ReservaCVR reservaCVR = new ReservaCVR();
+        for (int cantidad : cantidades) {
+            List<Reserva> reservas = crearReservas(cantidad);
+            medir("toDTO por reserva", reservas, lista -> {
+                List<ReservaDTO> dtos = new ArrayList<>(lista.size());
+                for (Reserva reserva : lista) {
+                    dtos.add(reservaCVR.toDTO(reserva));
+                }
+                return dtos;
+            });
+            medir("toDTOs", reservas, reservaCVR::toDTOs);
+        }
+    }
+
+    /**
+     * Crea reservas de un restaurante con {@value #MESAS} mesas y
+     * {@value #CLIENTES} clientes, repartidas entre ellos.
+     *
+     * @param cantidad Cantidad de reservas.
+     * @return Las reservas con id, cliente, mesa y restaurante.
+     */
+    private static List<Reserva> crearReservas(int cantidad) {
+        Restaurante restaurante = new Restaurante(1L, "Restaurante", "Dirección",
+                "6440000000", LocalTime.of(8, 0), LocalTime.of(23, 0), null);
+        List<Mesa> mesas = new ArrayList<>(MESAS);
+        for (int i = 0; i < MESAS; i++) {
+            mesas.add(new Mesa((long) i + 1, "M-" + i, "MEDIANA", 1, 4, "TERRAZA", restaurante));
+        }
+        List<Cliente> clientes = new ArrayList<>(CLIENTES);
+        for (int i = 0; i < CLIENTES; i++) {
+            clientes.add(new Cliente((long) i + 1, "Cliente " + i, "644" + i, null));
+        }
+        LocalDateTime inicio = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<Reserva> reservas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            reservas.add(new Reserva((long) i + 1, inicio.plusMinutes(30L * i), 4, 300.0,
+                    "ACTIVA", clientes.get(i % CLIENTES), mesas.get(i % MESAS), restaurante));
+        }
+        return reservas;
+    }
+
+    /**
+     * Mide una forma de conversión y escribe el mejor tiempo, los bytes
+     * asignados por reserva y los DTO de cliente, mesa y restaurante
+     * distintos.
+     *
+     * @param nombre Nombre de la conversión.
+     * @param reservas Reservas a convertir.
+     * @param conversion Conversión a medir.
+     */
+    private static void medir(String nombre, List<Reserva> reservas, Conversion conversion) {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            resultado = conversion.convertir(reservas);
+        }
+        long mejorTiempo = Long.MAX_VALUE;
+        long mejorBytes = Long.MAX_VALUE;
+        for (int i = 0; i < VUELTAS; i++) {
+            long bytes = HILOS.getCurrentThreadAllocatedBytes();
+            long inicio = System.nanoTime();
+            resultado = conversion.convertir(reservas);
+            mejorTiempo = Math.min(mejorTiempo, System.nanoTime() - inicio);
+            mejorBytes = Math.min(mejorBytes, HILOS.getCurrentThreadAllocatedBytes() - bytes);
+        }
+
+        Set<Object> clientes = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> mesas = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> restaurantes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ReservaDTO reserva : resultado) {
+            clientes.add(reserva.getCliente());
+            mesas.add(reserva.getMesa());
+            restaurantes.add(reserva.getRestaurante());
+            restaurantes.add(reserva.getMesa().getRestaurante());
+        }
+        System.out.printf("%-18s %,9d reservas %9.2f ms %,7d bytes/reserva %,8d ClienteDTO "
+                + "%,8d MesaDTO %,8d RestauranteDTO%n",
+                nombre, reservas.size(), mejorTiempo / 1e6, mejorBytes / reservas.size(),
+                clientes.size(), mesas.size(), restaurantes.size());
+    }
+}
@@ -0,0 +1,216 @@
+package Herramientas;
+
+import BO.CacheReservas;
+import BO.ReservaBO;
+import Conexion.Conexion;
+import DTOs.ReservaDTO;
+import Excepciones.ConexionException;
+import Fachada.FiltrosFCD;
+import Filtros.FiltroReserva;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Medición de los filtros de {@link FiltrosFCD} en la base de datos (una
+ * consulta por {@link FiltroReserva}) contra los mismos filtros en memoria,
+ * sobre la caché compartida de reservas y sus índices. Para cada filtro
+ * escribe la mediana del tiempo y la memoria que asigna cada búsqueda; antes,
+ * el costo de la primera búsqueda de cada camino y la memoria que queda
+ * ocupada por la caché y los índices.
+ *
+ * Solo lee reservas; corre contra la base de datos configurada:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionFiltroReserva -Dexec.args="2021-01-05"
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionFiltroReserva {
+
+    private static final int CALENTAMIENTO = 10;
+
+    private static final int VUELTAS = 30;
+
+    private static final int TAMANO_PAGINA = 50;
+
+    // Evita que la JVM descarte los filtros medidos
+    private static int filas;
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Día de las búsquedas por fecha (por omisión 2021-01-05); la
+     * semana y el mes empiezan ese día.
+     * @throws ConexionException si no se puede cerrar la conexión.
+     */
+    public static void main(String[] args) throws ConexionException {
+        LocalDateTime dia = LocalDateTime.parse((args.length > 0 ? args[0] : "2021-01-05")
+                + "T00:00");
+        try {
+            FiltrosFCD enBase = FiltrosFCD.crear(new ReservaBO());
+            long inicio = System.nanoTime();
+            filas = enBase.buscarReservas(nombre("cliente 4242")).size();
+            imprimir("base: primera búsqueda", filas, System.nanoTime() - inicio);
+
+            long antes = memoriaOcupada();
+            inicio = System.nanoTime();
+            FiltrosFCD enMemoria = FiltrosFCD.crear(CacheReservas.getInstancia());
+            filas = enMemoria.buscarReservas(nombre("cliente 4242")).size();
+            imprimir("memoria: carga e índices", enMemoria.getReservas().size(),
+                    System.nanoTime() - inicio);
+            System.out.printf("%-36s %,12.1f MB%n", "memoria: caché e índices",
+                    (memoriaOcupada() - antes) / 1e6);
+
+            System.out.printf("%n%-36s %9s %12s %12s %12s %12s%n", "filtro", "filas",
+                    "base ms", "base KB", "memoria ms", "memoria KB");
+            comparar("nombre 'cliente 4242'", enBase, enMemoria, () -> nombre("cliente 4242"));
+            comparar("día", enBase, enMemoria, () -> rango(dia, dia.plusDays(1)));
+            comparar("nombre 'cliente 4242' y mes", enBase, enMemoria, () -> {
+                FiltroReserva filtro = rango(dia, dia.plusMonths(1));
+                filtro.setNombreCliente("cliente 4242");
+                return filtro;
+            });
+            comparar("tipo, ubicación y semana", enBase, enMemoria, () -> {
+                FiltroReserva filtro = rango(dia, dia.plusDays(7));
+                filtro.setTipoMesa("MEDIANA");
+                filtro.setUbicacion("TERRAZA");
+                return filtro;
+            });
+            comparar("tipo, ubicación y mes", enBase, enMemoria, () -> {
+                FiltroReserva filtro = rango(dia, dia.plusMonths(1));
+                filtro.setTipoMesa("MEDIANA");
+                filtro.setUbicacion("TERRAZA");
+                return filtro;
+            });
+            comparar("estado ACTIVA en el mes", enBase, enMemoria, () -> {
+                FiltroReserva filtro = rango(dia, dia.plusMonths(1));
+                filtro.setEstado("ACTIVA");
+                return filtro;
+            });
+            comparar("página de " + TAMANO_PAGINA + " desde el día", enBase, enMemoria, () -> {
+                FiltroReserva filtro = new FiltroReserva();
+                filtro.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+                filtro.setDespuesDe(dia, 0L);
+                filtro.setLimite(TAMANO_PAGINA);
+                return filtro;
+            });
+        } finally {
+            Conexion.closeEntityManagerFactory();
+        }
+    }
+
+    /**
+     * Crea un filtro por nombre de cliente, ordenado por fecha.
+     *
+     * @param nombre Texto contenido en el nombre.
+     * @return El filtro.
+     */
+    private static FiltroReserva nombre(String nombre) {
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setNombreCliente(nombre);
+        filtro.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+        return filtro;
+    }
+
+    /**
+     * Crea un filtro por rango de fecha y hora, ordenado por fecha.
+     *
+     * @param desde Inicio del rango, incluido.
+     * @param hasta Fin del rango, excluido.
+     * @return El filtro.
+     */
+    private static FiltroReserva rango(LocalDateTime desde, LocalDateTime hasta) {
+        FiltroReserva filtro = new FiltroReserva();
+        filtro.setDesde(desde);
+        filtro.setHasta(hasta.minusNanos(1));
+        filtro.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+        return filtro;
+    }
+
+    /**
+     * Mide un filtro en la base de datos y en memoria y escribe una línea con
+     * las filas, la mediana del tiempo y la memoria asignada de cada camino.
+     *
+     * @param nombre Nombre del filtro.
+     * @param enBase Filtros en la base de datos.
+     * @param enMemoria Filtros en memoria.
+     * @param filtro Crea el filtro de cada búsqueda.
+     */
+    private static void comparar(String nombre, FiltrosFCD enBase, FiltrosFCD enMemoria,
+            Supplier<FiltroReserva> filtro) {
+        long[] base = medir(() -> enBase.buscarReservas(filtro.get()));
+        int filasBase = filas;
+        long[] memoria = medir(() -> enMemoria.buscarReservas(filtro.get()));
+        if (filas != filasBase) {
+            System.out.printf("%s: %d filas en la base y %d en memoria%n", nombre,
+                    filasBase, filas);
+        }
+        System.out.printf("%-36s %,9d %12.2f %,12d %12.2f %,12d%n", nombre, filas,
+                base[0] / 1e6, base[1] / 1024, memoria[0] / 1e6, memoria[1] / 1024);
+    }
+
+    /**
+     * Mide una búsqueda.
+     *
+     * @param busqueda Búsqueda a medir.
+     * @return La mediana del tiempo en nanosegundos y de los bytes asignados.
+     */
+    private static long[] medir(Supplier<List<ReservaDTO>> busqueda) {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            filas = busqueda.get().size();
+        }
+        long[] tiempos = new long[VUELTAS];
+        long[] asignados = new long[VUELTAS];
+        for (int i = 0; i < VUELTAS; i++) {
+            long memoria = memoriaAsignada();
+            long inicio = System.nanoTime();
+            filas = busqueda.get().size();
+            tiempos[i] = System.nanoTime() - inicio;
+            asignados[i] = memoriaAsignada() - memoria;
+        }
+        Arrays.sort(tiempos);
+        Arrays.sort(asignados);
+        return new long[]{tiempos[VUELTAS / 2], asignados[VUELTAS / 2]};
+    }
+
+    /**
+     * Obtiene los bytes que ha asignado el hilo actual desde que inició.
+     *
+     * @return Los bytes asignados, o 0 si la JVM no los mide.
+     */
+    private static long memoriaAsignada() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                    .getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * Obtiene la memoria ocupada después de recolectar la basura.
+     *
+     * @return Los bytes ocupados del heap.
+     */
+    private static long memoriaOcupada() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Escribe el tiempo de un paso.
+     *
+     * @param nombre Nombre del paso.
+     * @param filas Filas del paso.
+     * @param nanos Tiempo en nanosegundos.
+     */
+    private static void imprimir(String nombre, int filas, long nanos) {
+        System.out.printf("%-36s %,9d filas %,12.2f ms%n", nombre, filas, nanos / 1e6);
+    }
+}
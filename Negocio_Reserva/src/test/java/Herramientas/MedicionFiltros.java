@@ -0,0 +1,138 @@
+package Herramientas;
+
+import DTOs.ClienteDTO;
+import DTOs.MesaDTO;
+import DTOs.ReservaDTO;
+import DTOs.RestauranteDTO;
+import Fachada.FiltrosFCD;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Medición de los filtros de {@link FiltrosFCD} sobre reservas en memoria,
+ * sin base de datos. Crea las reservas (por omisión un millón, de 50 000
+ * clientes y 60 mesas en poco más de cinco años) en orden aleatorio, mide la
+ * primera llamada, que construye los índices, y después la mediana y el
+ * mejor tiempo de cada filtro:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionFiltros -Dexec.args="1000000"
+ * </pre>
+ *
+ * El filtro por teléfono no se mide: resuelve el cliente en la base de datos
+ * y después filtra por su id, igual que el de cliente.
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionFiltros {
+
+    private static final int RESERVAS = 1_000_000;
+
+    private static final int CLIENTES = 50_000;
+
+    private static final int MESAS = 60;
+
+    private static final int CALENTAMIENTO = 20;
+
+    private static final int VUELTAS = 50;
+
+    private static final String[] TIPOS = {"PEQUEÑA", "MEDIANA", "GRANDE"};
+
+    private static final String[] UBICACIONES = {"TERRAZA", "VENTANA", "GENERAL", "JARDIN"};
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2021, 1, 1, 12, 0);
+
+    // Evita que la JVM descarte los filtros medidos
+    private static int filas;
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Cantidad de reservas (por omisión 1000000).
+     */
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : RESERVAS;
+        FiltrosFCD filtros = new FiltrosFCD(crearReservas(cantidad));
+
+        long inicio = System.nanoTime();
+        filas = filtros.filtrarReservas("cliente 4242", null, null).size();
+        System.out.printf("%-44s %,9d filas %10.2f ms%n", "primer filtro (construye índices)",
+                filas, (System.nanoTime() - inicio) / 1e6);
+
+        Date dia = Date.from(INICIO.plusDays(400).atZone(ZoneId.systemDefault()).toInstant());
+        medir("nombre 'cliente 4242'",
+                () -> filtros.filtrarReservas("cliente 4242", null, null));
+        medir("nombre 'cliente 4242' y día",
+                () -> filtros.filtrarReservas("cliente 4242", null, dia));
+        medir("día", () -> filtros.filtrarReservas(null, null, dia));
+        medir("nombre 'e 1' (poco selectivo)",
+                () -> filtros.filtrarReservas("e 1", null, null));
+        medir("tipo, ubicación y semana",
+                () -> filtros.filtrarReservasPorMesaUbicacionFecha("mediana", "terraza",
+                        "01/03/2023", "07/03/2023"));
+        medir("tipo, ubicación y año",
+                () -> filtros.filtrarReservasPorMesaUbicacionFecha("MEDIANA", "TERRAZA",
+                        "01/01/2023", "31/12/2023"));
+        medir("solo año", () -> filtros.filtrarReservasPorMesaUbicacionFecha(null, null,
+                "01/01/2023", "31/12/2023"));
+    }
+
+    /**
+     * Crea reservas de {@value #CLIENTES} clientes y {@value #MESAS} mesas,
+     * una cada tres minutos desde 2021, en orden aleatorio.
+     *
+     * @param cantidad Cantidad de reservas.
+     * @return Las reservas.
+     */
+    private static List<ReservaDTO> crearReservas(int cantidad) {
+        RestauranteDTO restaurante = new RestauranteDTO();
+        restaurante.setId("1");
+        List<MesaDTO> mesas = new ArrayList<>(MESAS);
+        for (int i = 0; i < MESAS; i++) {
+            mesas.add(new MesaDTO(String.valueOf(i + 1), "M-" + i, TIPOS[i % TIPOS.length], 1, 4,
+                    UBICACIONES[(i / TIPOS.length) % UBICACIONES.length], restaurante));
+        }
+        List<ClienteDTO> clientes = new ArrayList<>(CLIENTES);
+        for (int i = 0; i < CLIENTES; i++) {
+            clientes.add(new ClienteDTO(String.valueOf(i + 1), "Cliente " + i, "644" + i, null));
+        }
+        Random aleatorio = new Random(42);
+        List<ReservaDTO> reservas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            reservas.add(new ReservaDTO(String.valueOf(i + 1), INICIO.plusMinutes(3L * i), 4, 300.0,
+                    "ACTIVA", clientes.get(aleatorio.nextInt(CLIENTES)),
+                    mesas.get(aleatorio.nextInt(MESAS)), restaurante));
+        }
+        Collections.shuffle(reservas, aleatorio);
+        return reservas;
+    }
+
+    /**
+     * Mide un filtro y escribe las filas que devuelve, la mediana y el mejor
+     * tiempo.
+     *
+     * @param nombre Nombre del filtro.
+     * @param filtro Filtro a medir.
+     */
+    private static void medir(String nombre, Supplier<List<ReservaDTO>> filtro) {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            filas = filtro.get().size();
+        }
+        long[] tiempos = new long[VUELTAS];
+        for (int i = 0; i < VUELTAS; i++) {
+            long inicio = System.nanoTime();
+            filas = filtro.get().size();
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+        System.out.printf("%-44s %,9d filas %10.3f ms (mejor %.3f ms)%n", nombre, filas,
+                tiempos[VUELTAS / 2] / 1e6, tiempos[0] / 1e6);
+    }
+}
@@ -0,0 +1,187 @@
+package Herramientas;
+
+import BO.CacheReservas;
+import BO.ReservaBO;
+import Conexion.Conexion;
+import DTOs.ReservaDTO;
+import Excepciones.BOException;
+import Excepciones.ConexionException;
+import Fachada.FiltrosFCD;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Medición del refresco de las reservas de {@link FiltrosFCD}. Compara la
+ * recarga completa (leer todas las reservas y volver a construir los índices
+ * de los filtros) con el refresco por cambios de {@link CacheReservas}: se
+ * cambia el estado de algunas reservas con {@link ReservaBO#actualizarReserva}
+ * y se mide cuánto tarda {@link FiltrosFCD#refrescarReservas()} en leerlas y
+ * aplicarlas, y el primer filtro después.
+ *
+ * Cada vuelta alterna el estado de las mismas reservas entre ACTIVA y
+ * CANCELADA; con un número par de vueltas quedan como estaban. Aun así
+ * escribe en la base de datos, por lo que solo corre contra la base embebida,
+ * salvo que se confirme con {@code -Dreservasys.medicion.confirmar=true}:
+ * <pre>
+ * mvn test-compile exec:java -Dreservasys.medicion.confirmar=true \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=Herramientas.MedicionRefrescoReservas -Dexec.args="100 6"
+ * </pre>
+ *
+ * @author Sebastian Murrieta Verduzco - 233463
+ */
+public class MedicionRefrescoReservas {
+
+    private static final int CAMBIOS = 100;
+
+    private static final int VUELTAS = 6;
+
+    // Evita que la JVM descarte los filtros medidos
+    private static int filas;
+
+    /**
+     * Ejecuta la medición.
+     *
+     * @param args Reservas que cambian por vuelta y número de vueltas (por
+     * omisión 100 y 6).
+     * @throws BOException si falla la lectura o la actualización de reservas.
+     * @throws ConexionException si no se puede cerrar la conexión.
+     */
+    public static void main(String[] args) throws BOException, ConexionException {
+        int cambios = args.length > 0 ? Integer.parseInt(args[0]) : CAMBIOS;
+        int vueltas = args.length > 1 ? Integer.parseInt(args[1]) : VUELTAS;
+
+        if (!"embebida".equals(System.getProperty("reservasys.entorno"))
+                && !Boolean.getBoolean("reservasys.medicion.confirmar")) {
+            throw new IllegalStateException("La medición cambia reservas en la base de "
+                    + "datos; use la base embebida o confirme con "
+                    + "-Dreservasys.medicion.confirmar=true");
+        }
+
+        try {
+            ReservaBO reservaBO = new ReservaBO();
+
+            long inicio = System.nanoTime();
+            List<ReservaDTO> todas = reservaBO.obtenerReservas();
+            FiltrosFCD recargados = new FiltrosFCD(todas);
+            Date dia = dia(todas);
+            filas = recargados.filtrarReservas(null, null, dia).size();
+            imprimir("recarga completa (lectura e índices)", todas.size(), System.nanoTime() - inicio);
+
+            inicio = System.nanoTime();
+            FiltrosFCD filtros = FiltrosFCD.crear(CacheReservas.getInstancia());
+            imprimir("carga de la caché compartida", filtros.getReservas().size(),
+                    System.nanoTime() - inicio);
+            inicio = System.nanoTime();
+            filas = filtros.filtrarReservas(null, null, dia).size();
+            imprimir("índices (primer filtro)", filas, System.nanoTime() - inicio);
+
+            List<ReservaDTO> elegidas = elegir(filtros.getReservas(), cambios);
+            long[] refrescos = new long[vueltas];
+            long[] primerosFiltros = new long[vueltas];
+            for (int vuelta = 0; vuelta < vueltas; vuelta++) {
+                inicio = System.nanoTime();
+                for (ReservaDTO reserva : elegidas) {
+                    reservaBO.actualizarReserva(conEstadoCambiado(reserva));
+                }
+                imprimir("guardar cambios (vuelta " + (vuelta + 1) + ")", elegidas.size(),
+                        System.nanoTime() - inicio);
+
+                inicio = System.nanoTime();
+                filtros.refrescarReservas();
+                refrescos[vuelta] = System.nanoTime() - inicio;
+                inicio = System.nanoTime();
+                filas = filtros.filtrarReservas(null, null, dia).size();
+                primerosFiltros[vuelta] = System.nanoTime() - inicio;
+                elegidas = elegir(filtros.getReservas(), elegidas);
+            }
+            Arrays.sort(refrescos);
+            Arrays.sort(primerosFiltros);
+            imprimir("refresco por cambios (mediana)", elegidas.size(), refrescos[vueltas / 2]);
+            imprimir("primer filtro después (mediana)", filas, primerosFiltros[vueltas / 2]);
+        } finally {
+            Conexion.closeEntityManagerFactory();
+        }
+    }
+
+    /**
+     * Elige al azar las reservas que se van a cambiar.
+     *
+     * @param reservas Reservas cargadas.
+     * @param cantidad Cantidad a elegir.
+     * @return Las reservas elegidas.
+     */
+    private static List<ReservaDTO> elegir(List<ReservaDTO> reservas, int cantidad) {
+        List<ReservaDTO> elegidas = new ArrayList<>(reservas);
+        Collections.shuffle(elegidas, new Random(42));
+        return new ArrayList<>(elegidas.subList(0, Math.min(cantidad, elegidas.size())));
+    }
+
+    /**
+     * Toma de la lista actual las mismas reservas elegidas antes, ya con su
+     * estado nuevo.
+     *
+     * @param reservas Reservas actuales.
+     * @param anteriores Reservas elegidas antes.
+     * @return Las reservas elegidas, como están ahora.
+     */
+    private static List<ReservaDTO> elegir(List<ReservaDTO> reservas, List<ReservaDTO> anteriores) {
+        Set<String> ids = new HashSet<>();
+        for (ReservaDTO reserva : anteriores) {
+            ids.add(reserva.getId());
+        }
+        List<ReservaDTO> elegidas = new ArrayList<>(anteriores.size());
+        for (ReservaDTO reserva : reservas) {
+            if (reserva != null && ids.contains(reserva.getId())) {
+                elegidas.add(reserva);
+            }
+        }
+        return elegidas;
+    }
+
+    /**
+     * Copia una reserva con el estado contrario (ACTIVA o CANCELADA), sin
+     * modificar la de la caché.
+     *
+     * @param reserva Reserva a copiar.
+     * @return La copia con el estado cambiado.
+     */
+    private static ReservaDTO conEstadoCambiado(ReservaDTO reserva) {
+        String estado = "ACTIVA".equalsIgnoreCase(reserva.getEstado()) ? "CANCELADA" : "ACTIVA";
+        return new ReservaDTO(reserva.getId(), reserva.getFechaHoraReserva(),
+                reserva.getNumeroPersonas(), reserva.getCosto(), estado,
+                reserva.getCliente(), reserva.getMesa(), reserva.getRestaurante());
+    }
+
+    /**
+     * Obtiene el día de la primera reserva, para el filtro medido.
+     *
+     * @param reservas Reservas cargadas.
+     * @return El día, o hoy si no hay reservas.
+     */
+    private static Date dia(List<ReservaDTO> reservas) {
+        if (reservas.isEmpty() || reservas.get(0).getFechaHoraReserva() == null) {
+            return new Date();
+        }
+        return Date.from(reservas.get(0).getFechaHoraReserva()
+                .atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Escribe el tiempo de un paso.
+     *
+     * @param nombre Nombre del paso.
+     * @param filas Filas del paso.
+     * @param nanos Tiempo en nanosegundos.
+     */
+    private static void imprimir(String nombre, int filas, long nanos) {
+        System.out.printf("%-40s %,9d filas %,12.2f ms%n", nombre, filas, nanos / 1e6);
+    }
+}
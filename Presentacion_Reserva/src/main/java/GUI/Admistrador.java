@@ -4,6 +4,7 @@ import BO.ClienteBO;
 import DTOs.ClienteDTO;
 import Excepciones.BOException;
 import Excepciones.NegocioException;
+import Fachada.ArranqueFCD;
 import java.awt.Color;
 import java.awt.Cursor;
 import java.util.ArrayList;
@@ -663,6 +664,9 @@ public class Admistrador extends javax.swing.JFrame {
         //</editor-fold>
         //</editor-fold>
 
+        /* Preparar la persistencia en segundo plano mientras carga la ventana */
+        new ArranqueFCD().prepararPersistenciaEnSegundoPlano();
+
         /* Crear y mostrar la ventana */
         java.awt.EventQueue.invokeLater(new Runnable() {
             public void run() {
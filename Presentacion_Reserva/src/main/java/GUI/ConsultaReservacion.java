@@ -7,10 +7,12 @@ package GUI;
 import BO.ClienteBO;
 import BO.ReservaBO;
 import DTOs.ReservaDTO;
+import DTOs.ReservaFilaDTO;
 import Excepciones.BOException;
 import Excepciones.FacadeException;
 import Fachada.ClienteFCD;
 import Fachada.FiltrosFCD;
+import Filtros.FiltroReserva;
 import Interfaces.IClienteBO;
 import Interfaces.IReservaBO;
 import interfacesFachada.IClienteFCD;
@@ -20,8 +22,14 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 import javax.swing.table.DefaultTableModel;
 
 /**
@@ -37,9 +45,22 @@ public class ConsultaReservacion extends javax.swing.JFrame {
     private IFiltrosFCD filtros;
     private IClienteFCD clienteFCD;
     private IClienteBO clienteBO;
-    private List<ReservaDTO> reservas;
+    private List<ReservaFilaDTO> reservas;
     private IReservaBO reservaBO;
 
+    // Búsqueda que muestra la tabla; null mientras muestra todas las reservas
+    private volatile Supplier<List<ReservaDTO>> ultimaBusqueda;
+
+    // Hay un refresco de la tabla en cola que aún no lee las reservas
+    private final AtomicBoolean refrescoPendiente = new AtomicBoolean();
+
+    // Cuenta los refrescos y búsquedas; un refresco que termina después de
+    // otro más reciente no sobrescribe la tabla
+    private final AtomicInteger refrescos = new AtomicInteger();
+
+    // Vuelve a llenar la tabla cuando cambian las reservas
+    private final Runnable oyenteReservas = this::refrescarTabla;
+
     /**
      * Crea una nueva instancia de <code>ConsultaReservacion</code>. Inicializa
      * los componentes de la interfaz gráfica y carga los clientes y datos
@@ -48,11 +69,73 @@ public class ConsultaReservacion extends javax.swing.JFrame {
     public ConsultaReservacion() {
 
         initComponents();
-        filtros = new FiltrosFCD(); // Inicialización correcta
+        filtros = FiltrosFCD.crear(); // Inicialización correcta
         clienteFCD = new ClienteFCD(); // Inicialización de clienteFCD
         this.reservaBO = new ReservaBO();
         cargarClientes();
         cargarDatosIniciales();
+        filtros.agregarOyente(oyenteReservas);
+    }
+
+    /**
+     * Cierra la ventana y deja de recibir los cambios de las reservas.
+     */
+    @Override
+    public void dispose() {
+        filtros.quitarOyente(oyenteReservas);
+        super.dispose();
+    }
+
+    /**
+     * Vuelve a ejecutar la búsqueda que muestra la tabla, o busca todas las
+     * reservas si no se ha buscado, y actualiza la tabla. Se llama cuando
+     * cambian las reservas; no avisa si la búsqueda queda vacía. La búsqueda
+     * corre sobre las reservas en memoria de la fachada y fuera del hilo de
+     * eventos; solo las filas resultantes pasan a la tabla. Los cambios que
+     * llegan mientras un refresco espera en cola los cubre ese mismo refresco.
+     */
+    private void refrescarTabla() {
+        if (!refrescoPendiente.compareAndSet(false, true)) {
+            return;
+        }
+        new SwingWorker<List<ReservaFilaDTO>, Void>() {
+            private int numero;
+
+            @Override
+            protected List<ReservaFilaDTO> doInBackground() {
+                refrescoPendiente.set(false);
+                numero = refrescos.incrementAndGet();
+                Supplier<List<ReservaDTO>> busqueda = ultimaBusqueda;
+                List<ReservaDTO> encontradas;
+                if (busqueda != null) {
+                    encontradas = busqueda.get();
+                } else {
+                    // Todas, en el orden de obtenerFilasReservas
+                    FiltroReserva todas = new FiltroReserva();
+                    todas.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+                    encontradas = filtros.buscarReservas(todas);
+                }
+                return encontradas.stream()
+                        .map(ReservaFilaDTO::de)
+                        .collect(Collectors.toList());
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<ReservaFilaDTO> filas = get();
+                    if (numero == refrescos.get()) {
+                        reservas = filas;
+                        cargarTabla();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(ConsultaReservacion.this,
+                            "Error al filtrar las reservas: " + e.getCause().getMessage());
+                }
+            }
+        }.execute();
     }
 
     /**
@@ -61,8 +144,8 @@ public class ConsultaReservacion extends javax.swing.JFrame {
      */
     public void cargarDatosIniciales() {
         try {
-            // Obtener las reservas iniciales desde la capa de negocio
-            this.reservas = reservaBO.obtenerReservas();
+            // Obtener las filas de la tabla desde la capa de negocio
+            this.reservas = reservaBO.obtenerFilasReservas();
             this.clienteBO = new ClienteBO();
             // Cargar los datos en la tabla
             cargarTabla();
@@ -82,13 +165,13 @@ public class ConsultaReservacion extends javax.swing.JFrame {
         }, 0);
 
         // Agregar filas a la tabla
-        for (ReservaDTO reserva : this.reservas) {
+        for (ReservaFilaDTO reserva : this.reservas) {
             model.addRow(new Object[]{
-                reserva.getMesa().getCodigoMesa(),
+                reserva.getCodigoMesa(),
                 reserva.getFechaHoraReserva(),
-                reserva.getMesa().getTipoMesa(),
-                reserva.getMesa().getUbicacion(),
-                reserva.getCliente().getNombre()
+                reserva.getTipoMesa(),
+                reserva.getUbicacion(),
+                reserva.getNombreCliente()
             });
         }
 
@@ -342,28 +425,40 @@ public class ConsultaReservacion extends javax.swing.JFrame {
         String telefono = numeroTelefonoTxt.getText().isEmpty() ? null : numeroTelefonoTxt.getText();
         Date fechaSeleccionada = jDateChooser1.getDate(); // Puede ser null si no se selecciona fecha
 
-        // Usar el objeto de filtros existente
-        List<ReservaDTO> reservasFiltradas = filtros.filtrarReservas(clienteSeleccionado, telefono, fechaSeleccionada);
+        // Usar el objeto de filtros existente; la misma búsqueda se repite
+        // cuando cambian las reservas
+        Supplier<List<ReservaDTO>> busqueda = () -> filtros.filtrarReservas(clienteSeleccionado, telefono, fechaSeleccionada);
+        List<ReservaDTO> reservasFiltradas = busqueda.get();
+        ultimaBusqueda = busqueda;
+        refrescos.incrementAndGet();
 
+        if (reservasFiltradas.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No se encontraron reservas con los filtros aplicados.");
+        }
+        mostrarReservas(reservasFiltradas);
+    }//GEN-LAST:event_buscarBtnActionPerformed
+
+    /**
+     * Muestra en la tabla las reservas de una búsqueda.
+     *
+     * @param reservasFiltradas Las reservas a mostrar.
+     */
+    private void mostrarReservas(List<ReservaDTO> reservasFiltradas) {
         // Actualización de tabla con reservas
         String[] columnas = {"No.Mesa", "Fecha y hora", "Tamaño de mesa", "Lugar", "Cliente"};
         DefaultTableModel model = new DefaultTableModel(columnas, 0);
 
-        if (reservasFiltradas.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No se encontraron reservas con los filtros aplicados.");
-        } else {
-            for (ReservaDTO reserva : reservasFiltradas) {
-                model.addRow(new Object[]{
-                    reserva.getMesa().getCodigoMesa(),
-                    reserva.getFechaHoraReserva(), // Asegúrate de tener el método getFechaHoraReserva() en ReservaDTO
-                    reserva.getMesa().getTipoMesa(),
-                    reserva.getMesa().getUbicacion(),
-                    reserva.getCliente().getNombre() // Asegúrate de tener el método getNombre() en ClienteDTO
-                });
-            }
+        for (ReservaDTO reserva : reservasFiltradas) {
+            model.addRow(new Object[]{
+                reserva.getMesa().getCodigoMesa(),
+                reserva.getFechaHoraReserva(), // Asegúrate de tener el método getFechaHoraReserva() en ReservaDTO
+                reserva.getMesa().getTipoMesa(),
+                reserva.getMesa().getUbicacion(),
+                reserva.getCliente().getNombre() // Asegúrate de tener el método getNombre() en ClienteDTO
+            });
         }
         reservacionesTabla.setModel(model);
-    }//GEN-LAST:event_buscarBtnActionPerformed
+    }
 
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
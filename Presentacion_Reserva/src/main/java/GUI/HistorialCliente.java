@@ -2,16 +2,25 @@ package GUI;
 
 import BO.ReservaBO;
 import DTOs.ReservaDTO;
+import DTOs.ReservaFilaDTO;
 import Fachada.ClienteFCD;
 import Fachada.FiltrosFCD;
 import Fachada.PdfGeneratorCliente;
+import Filtros.FiltroReserva;
 import Interfaces.IReservaBO;
 import interfacesFachada.IClienteFCD;
 import interfacesFachada.IFiltrosFCD;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 import javax.swing.table.DefaultTableModel;
 
 /**
@@ -25,22 +34,45 @@ public class HistorialCliente extends javax.swing.JFrame {
 
     private IFiltrosFCD filtros;
     private IClienteFCD clienteFCD;
-    private List<ReservaDTO> reservas;
+    private List<ReservaFilaDTO> reservas;
     private IReservaBO reservaBO;
 
+    // Búsqueda que muestra la tabla; null mientras muestra todas las reservas
+    private volatile Supplier<List<ReservaDTO>> ultimaBusqueda;
+
+    // Hay un refresco de la tabla en cola que aún no lee las reservas
+    private final AtomicBoolean refrescoPendiente = new AtomicBoolean();
+
+    // Cuenta los refrescos y búsquedas; un refresco que termina después de
+    // otro más reciente no sobrescribe la tabla
+    private final AtomicInteger refrescos = new AtomicInteger();
+
+    // Vuelve a llenar la tabla cuando cambian las reservas
+    private final Runnable oyenteReservas = this::refrescarTabla;
+
     /**
      * Crea una nueva instancia de la clase Reportes, inicializando componentes
      * y obteniendo datos de reservas.
      */
     public HistorialCliente() {
         initComponents();
-        filtros = new FiltrosFCD(); // Inicializa la fachada de filtros
+        filtros = FiltrosFCD.crear(); // Inicializa la fachada de filtros
         clienteFCD = new ClienteFCD(); // Inicializa la fachada de cliente
         this.reservaBO = new ReservaBO(); // Inicializa el objeto de negocio de reservas
 
         // Obtiene e inicializa las reservas antes de actualizar la tabla
-        obtenerReservas(); // Este método obtiene las reservas
+        obtenerFilasReservas(); // Este método obtiene las filas de la tabla
         actualizarTablaReservas(); // Ahora puedes actualizar la tabla con los datos obtenidos
+        filtros.agregarOyente(oyenteReservas);
+    }
+
+    /**
+     * Cierra la ventana y deja de recibir los cambios de las reservas.
+     */
+    @Override
+    public void dispose() {
+        filtros.quitarOyente(oyenteReservas);
+        super.dispose();
     }
 
     /**
@@ -62,8 +94,21 @@ public class HistorialCliente extends javax.swing.JFrame {
     }
 
     /**
-     * Obtiene la lista de reservas de la base de datos usando el objeto de
-     * negocio.
+     * Obtiene de la base de datos las filas que muestra la tabla de reservas,
+     * sin cargar las reservas completas.
+     */
+    private void obtenerFilasReservas() {
+        try {
+            this.reservas = reservaBO.obtenerFilasReservas();
+        } catch (Exception e) {
+            mostrarError("Error al obtener las reservas: " + e.getMessage());
+            this.reservas = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Obtiene la lista completa de reservas de la base de datos usando el
+     * objeto de negocio, para generar el historial en PDF.
      *
      * @return Una lista de Objetos de Transferencia de Datos de Reserva
      * (ReservaDTO).
@@ -71,11 +116,62 @@ public class HistorialCliente extends javax.swing.JFrame {
     private List<ReservaDTO> obtenerReservas() {
         try {
             // Calls reservaBO to obtain the reservations from the database.
-            this.reservas = reservaBO.obtenerReservas();
+            return reservaBO.obtenerReservas();
         } catch (Exception e) {
             mostrarError("Error al obtener las reservas: " + e.getMessage());
         }
-        return reservas;
+        return new ArrayList<>();
+    }
+
+    /**
+     * Vuelve a ejecutar la búsqueda que muestra la tabla, o busca todas las
+     * reservas si no se ha buscado, y actualiza la tabla. Se llama cuando
+     * cambian las reservas. La búsqueda corre sobre las reservas en memoria de
+     * la fachada y fuera del hilo de eventos; solo las filas resultantes pasan
+     * a la tabla. Los cambios que llegan mientras un refresco espera en cola
+     * los cubre ese mismo refresco.
+     */
+    private void refrescarTabla() {
+        if (!refrescoPendiente.compareAndSet(false, true)) {
+            return;
+        }
+        new SwingWorker<List<ReservaFilaDTO>, Void>() {
+            private int numero;
+
+            @Override
+            protected List<ReservaFilaDTO> doInBackground() {
+                refrescoPendiente.set(false);
+                numero = refrescos.incrementAndGet();
+                Supplier<List<ReservaDTO>> busqueda = ultimaBusqueda;
+                List<ReservaDTO> encontradas;
+                if (busqueda != null) {
+                    encontradas = busqueda.get();
+                } else {
+                    // Todas, en el orden de obtenerFilasReservas
+                    FiltroReserva todas = new FiltroReserva();
+                    todas.setOrden(FiltroReserva.Orden.FECHA_ASCENDENTE);
+                    encontradas = filtros.buscarReservas(todas);
+                }
+                return encontradas.stream()
+                        .map(ReservaFilaDTO::de)
+                        .collect(Collectors.toList());
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<ReservaFilaDTO> filas = get();
+                    if (numero == refrescos.get()) {
+                        reservas = filas;
+                        actualizarTablaReservas();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    mostrarError("Error al filtrar las reservas: " + e.getCause().getMessage());
+                }
+            }
+        }.execute();
     }
 
     /**
@@ -85,13 +181,13 @@ public class HistorialCliente extends javax.swing.JFrame {
         String[] columnas = {"No.Mesa", "Fecha y hora", "Tamaño de mesa", "Lugar", "Cliente"};
         DefaultTableModel model = new DefaultTableModel(columnas, 0);
 
-        for (ReservaDTO reserva : reservas) {
+        for (ReservaFilaDTO reserva : reservas) {
             model.addRow(new Object[]{
-                reserva.getMesa().getCodigoMesa(),
+                reserva.getCodigoMesa(),
                 reserva.getFechaHoraReserva(),
-                reserva.getMesa().getTipoMesa(),
-                reserva.getMesa().getUbicacion(),
-                reserva.getCliente().getNombre()
+                reserva.getTipoMesa(),
+                reserva.getUbicacion(),
+                reserva.getNombreCliente()
             });
         }
         tblMesas.setModel(model);
@@ -348,12 +444,17 @@ public class HistorialCliente extends javax.swing.JFrame {
             String ubicacion = ubicacionTxt.getText().trim();
             Date fechaInicio = fechaInicioDC.getDate();
 
-            // Filtrar las reservas usando la clase FiltrosFCD y el nuevo método
-            FiltrosFCD filtros = new FiltrosFCD();
-            List<ReservaDTO> reservasFiltradas = filtros.filtrarReservas(tipoMesa, ubicacion, fechaInicio);
+            // Filtrar con la fachada de la pantalla; la misma búsqueda se
+            // repite cuando cambian las reservas
+            Supplier<List<ReservaDTO>> busqueda = () -> filtros.filtrarReservas(tipoMesa, ubicacion, fechaInicio);
+            List<ReservaDTO> reservasFiltradas = busqueda.get();
+            ultimaBusqueda = busqueda;
+            refrescos.incrementAndGet();
 
             // Actualizar la tabla con las reservas filtradas
-            reservas = reservasFiltradas;
+            reservas = reservasFiltradas.stream()
+                    .map(ReservaFilaDTO::de)
+                    .collect(Collectors.toList());
             actualizarTablaReservas();
         } catch (Exception e) {
             mostrarError("Error al filtrar las reservas: " + e.getMessage());